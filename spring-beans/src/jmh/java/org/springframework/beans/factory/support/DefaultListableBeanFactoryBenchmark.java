@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmarks for {@link DefaultListableBeanFactory#getBean} lookups
+ * of singleton and prototype beans, by name and by type.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public void getSingletonByName(BeanFactoryState state, Blackhole blackhole) {
+		blackhole.consume(state.beanFactory.getBean("singleton"));
+	}
+
+	@Benchmark
+	public void getSingletonByType(BeanFactoryState state, Blackhole blackhole) {
+		blackhole.consume(state.beanFactory.getBean(TestService.class));
+	}
+
+	@Benchmark
+	public void getPrototypeByName(BeanFactoryState state, Blackhole blackhole) {
+		blackhole.consume(state.beanFactory.getBean("prototype"));
+	}
+
+	@Benchmark
+	public void getBeanNamesForType(BeanFactoryState state, Blackhole blackhole) {
+		blackhole.consume(state.beanFactory.getBeanNamesForType(TestRepository.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanFactoryState {
+
+		@Param({"10", "1000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("repository" + i, new RootBeanDefinition(TestRepository.class));
+			}
+			RootBeanDefinition singleton = new RootBeanDefinition(TestService.class);
+			singleton.getPropertyValues().add("repository", new RuntimeBeanReference("repository0"));
+			this.beanFactory.registerBeanDefinition("singleton", singleton);
+			RootBeanDefinition prototype = new RootBeanDefinition(TestPrototype.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototype.getPropertyValues().add("repository", new RuntimeBeanReference("repository0"));
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class TestRepository {
+	}
+
+
+	public static class TestService {
+
+		private TestRepository repository;
+
+		public void setRepository(TestRepository repository) {
+			this.repository = repository;
+		}
+
+		public TestRepository getRepository() {
+			return this.repository;
+		}
+	}
+
+
+	public static class TestPrototype {
+
+		private TestRepository repository;
+
+		public void setRepository(TestRepository repository) {
+			this.repository = repository;
+		}
+
+		public TestRepository getRepository() {
+			return this.repository;
+		}
+	}
+
+}
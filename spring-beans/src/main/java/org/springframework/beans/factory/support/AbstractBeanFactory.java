@@ -1042,6 +1042,9 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 					otherAbstractFactory.hasDestructionAwareBeanPostProcessors;
 			this.scopes.putAll(otherAbstractFactory.scopes);
 			this.securityContextProvider = otherAbstractFactory.securityContextProvider;
+			if (otherAbstractFactory.isPerBeanSingletonLocking()) {
+				setPerBeanSingletonLocking(true);
+			}
 		}
 		else {
 			setTypeConverter(otherFactory.getTypeConverter());
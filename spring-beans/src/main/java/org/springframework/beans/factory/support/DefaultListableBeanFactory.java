@@ -30,7 +30,9 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -39,12 +41,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -65,9 +72,11 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
@@ -178,6 +187,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans. */
 	private volatile boolean configurationFrozen = false;
 
+	/** Optional pool for pre-instantiating independent singletons in parallel. */
+	@Nullable
+	private ForkJoinPool preInstantiationPool;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -309,6 +322,37 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Specify a {@link ForkJoinPool} for pre-instantiating singletons in parallel.
+	 * <p>Default is none, creating all non-lazy singletons one after the other on
+	 * the calling thread. If a pool is specified, {@link #preInstantiateSingletons()}
+	 * partitions the non-lazy singletons into independent groups of beans, according
+	 * to their merged bean definitions and registered dependencies, and initializes
+	 * those groups concurrently. Singleton creation then locks on the individual
+	 * bean name rather than on the {@link #getSingletonMutex() singleton mutex}.
+	 * <p>Needs to be configured before any singleton creation. Beans which turn out
+	 * to depend on each other across groups at runtime (e.g. through programmatic
+	 * lookups) are re-initialized on the calling thread after the parallel phase.
+	 * @since 5.2
+	 * @see #setPerBeanSingletonLocking
+	 */
+	public void setPreInstantiationPool(@Nullable ForkJoinPool preInstantiationPool) {
+		this.preInstantiationPool = preInstantiationPool;
+		if (preInstantiationPool != null) {
+			setPerBeanSingletonLocking(true);
+		}
+	}
+
+	/**
+	 * Return the {@link ForkJoinPool} for pre-instantiating singletons in parallel,
+	 * if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public ForkJoinPool getPreInstantiationPool() {
+		return this.preInstantiationPool;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -318,6 +362,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			setPreInstantiationPool(otherListableFactory.preInstantiationPool);
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
 			// Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -820,34 +865,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			// 非抽象的、是单列、不是懒加载的
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) { // factoryBean 的处理方式
-					// & 表示获取 FactoryBean 本身
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					// 普通 bean 的处理方式
-					getBean(beanName);
-				}
+		ForkJoinPool pool = this.preInstantiationPool;
+		if (pool != null) {
+			preInstantiateSingletonsInParallel(beanNames, pool);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -869,6 +893,206 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+	/**
+	 * Initialize the given bean if it is a non-lazy singleton,
+	 * including the object exposed by an eager-init {@link SmartFactoryBean}.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		// 非抽象的、是单列、不是懒加载的
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) { // factoryBean 的处理方式
+				// & 表示获取 FactoryBean 本身
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				// 普通 bean 的处理方式
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Initialize the given beans on the given pool, one task per group of beans
+	 * which (transitively) refer to each other, each group in registration order.
+	 * <p>Beans that failed because of a circular reference between concurrently
+	 * created beans are initialized again on the calling thread afterwards;
+	 * any other failure is rethrown in registration order.
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames, ForkJoinPool pool) {
+		Collection<List<String>> groups = groupIndependentSingletons(beanNames);
+		if (groups.size() < 2) {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
+			}
+			return;
+		}
+
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		Map<String, BeansException> failures = new ConcurrentHashMap<>();
+		List<Callable<Object>> tasks = new ArrayList<>(groups.size());
+		for (List<String> group : groups) {
+			tasks.add(() -> {
+				Thread currentThread = Thread.currentThread();
+				ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+				currentThread.setContextClassLoader(classLoader);
+				try {
+					for (String beanName : group) {
+						try {
+							preInstantiateSingleton(beanName);
+						}
+						catch (BeansException ex) {
+							failures.put(beanName, ex);
+						}
+					}
+				}
+				finally {
+					currentThread.setContextClassLoader(previousClassLoader);
+				}
+				return null;
+			});
+		}
+		for (Future<Object> future : pool.invokeAll(tasks)) {
+			try {
+				future.get();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new BeanCreationException("Interrupted during parallel singleton pre-instantiation", ex);
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new BeanCreationException("Parallel singleton pre-instantiation failed", cause);
+			}
+		}
+
+		for (String beanName : beanNames) {
+			BeansException failure = failures.get(beanName);
+			if (failure != null) {
+				if (!(failure.contains(BeanCurrentlyInCreationException.class))) {
+					throw failure;
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Retrying initialization of singleton '" + beanName +
+							"' sequentially after circular reference between threads: " + failure.getMessage());
+				}
+				preInstantiateSingleton(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Partition the given bean names into groups of beans that are not connected
+	 * through their merged bean definitions or registered dependencies,
+	 * preserving registration order within each group.
+	 */
+	private Collection<List<String>> groupIndependentSingletons(List<String> beanNames) {
+		Map<String, String> parents = new HashMap<>(beanNames.size() * 2);
+		for (String beanName : beanNames) {
+			parents.put(beanName, beanName);
+		}
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			Set<String> referencedNames = new LinkedHashSet<>();
+			if (bd.getDependsOn() != null) {
+				Collections.addAll(referencedNames, bd.getDependsOn());
+			}
+			if (bd.getFactoryBeanName() != null) {
+				referencedNames.add(bd.getFactoryBeanName());
+			}
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValueList()) {
+				addReferencedBeanName(pv.getValue(), referencedNames);
+			}
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+				addReferencedBeanName(valueHolder.getValue(), referencedNames);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				addReferencedBeanName(valueHolder.getValue(), referencedNames);
+			}
+			Collections.addAll(referencedNames, getDependenciesForBean(beanName));
+			for (String referencedName : referencedNames) {
+				String canonicalName = canonicalName(BeanFactoryUtils.transformedBeanName(referencedName));
+				if (parents.containsKey(canonicalName)) {
+					String root = findRoot(parents, beanName);
+					String otherRoot = findRoot(parents, canonicalName);
+					if (!root.equals(otherRoot)) {
+						parents.put(otherRoot, root);
+					}
+				}
+			}
+		}
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			groups.computeIfAbsent(findRoot(parents, beanName), root -> new ArrayList<>()).add(beanName);
+		}
+		return groups.values();
+	}
+
+	private static void addReferencedBeanName(@Nullable Object value, Set<String> referencedNames) {
+		if (value instanceof BeanReference) {
+			referencedNames.add(((BeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			BeanDefinition innerBd = ((BeanDefinitionHolder) value).getBeanDefinition();
+			if (innerBd.getFactoryBeanName() != null) {
+				referencedNames.add(innerBd.getFactoryBeanName());
+			}
+			for (PropertyValue pv : innerBd.getPropertyValues().getPropertyValueList()) {
+				addReferencedBeanName(pv.getValue(), referencedNames);
+			}
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addReferencedBeanName(element, referencedNames);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				addReferencedBeanName(entry.getKey(), referencedNames);
+				addReferencedBeanName(entry.getValue(), referencedNames);
+			}
+		}
+	}
+
+	private static String findRoot(Map<String, String> parents, String beanName) {
+		String root = beanName;
+		String parent;
+		while (!(parent = parents.get(root)).equals(root)) {
+			root = parent;
+		}
+		// Path compression for subsequent lookups
+		String current = beanName;
+		while (!current.equals(root)) {
+			String next = parents.get(current);
+			parents.put(current, root);
+			current = next;
+		}
+		return root;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
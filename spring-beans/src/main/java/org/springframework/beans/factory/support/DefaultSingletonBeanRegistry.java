@@ -17,7 +17,6 @@
 package org.springframework.beans.factory.support;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -25,6 +24,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -32,6 +33,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -81,7 +83,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * Cache of singleton factories: bean name to ObjectFactory.
 	 * 存放的是 ObjectFactory 的映射，可以理解为存放的是创建 bean 的 factory
 	 */
-	private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
+	private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
 
 	/**
 	 * Cache of early singleton objects: bean name to bean instance.
@@ -91,7 +93,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 *
 	 * 从 {@link #getSingleton(String)} 方法中可以看到在 bean 的创建过程中就已经加入到 earlySingletonObjects 中了
 	 */
-	private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+	private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
 
 	/** Set of registered singletons, containing the bean names in registration order. */
 	private final Set<String> registeredSingletons = new LinkedHashSet<>(256);
@@ -109,8 +111,21 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
 	/** List of suppressed Exceptions, available for associating related causes. */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions during singleton creation");
+
+	/**
+	 * Monitor for the singleton caches: the singleton mutex itself by default,
+	 * or a dedicated internal monitor when locking per bean name.
+	 */
+	private volatile Object registryMonitor = this.singletonObjects;
+
+	/** Creation locks per bean name, or {@code null} when locking on the singleton mutex. */
 	@Nullable
-	private Set<Exception> suppressedExceptions;
+	private volatile Map<String, SingletonLock> singletonLocks;
+
+	/** Bean name that each thread is currently waiting to lock, for cycle detection. */
+	private final Map<Thread, String> singletonLockWaiters = new ConcurrentHashMap<>(16);
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
 	private boolean singletonsCurrentlyInDestruction = false;
@@ -137,7 +152,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		Assert.notNull(beanName, "Bean name must not be null");
 		Assert.notNull(singletonObject, "Singleton object must not be null");
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			Object oldObject = this.singletonObjects.get(beanName);
 			if (oldObject != null) {
 				throw new IllegalStateException("Could not register object [" + singletonObject +
@@ -154,7 +169,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param singletonObject the singleton object
 	 */
 	protected void addSingleton(String beanName, Object singletonObject) {
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			this.singletonObjects.put(beanName, singletonObject);
 			this.singletonFactories.remove(beanName);
 			this.earlySingletonObjects.remove(beanName);
@@ -172,7 +187,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(singletonFactory, "Singleton factory must not be null");
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			if (!this.singletonObjects.containsKey(beanName)) {
 				this.singletonFactories.put(beanName, singletonFactory);
 				this.earlySingletonObjects.remove(beanName);
@@ -202,19 +217,29 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		// 缓存中不存在对应的 bean 并且当前 bean 正在创建
 		// bean 正在创建说明，bean 在初始化但是还没有完成初始化
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-			synchronized (this.singletonObjects) {
-				// 从 earlySingletonObjects 中取出早期创建的 bean 实例
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				// 如果不存在并且允许提前创建的话
-				if (singletonObject == null && allowEarlyReference) {
-					// 获取 bean 的 Factory
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					// 创建 bean 并加入到早期创建 bean 实例 earlySingletonObjects 中
-					// 从 singletonFactories 中移除对应的 ObjectFactory
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
+			if (this.singletonLocks != null) {
+				return getEarlySingleton(beanName, allowEarlyReference);
+			}
+			// 从 earlySingletonObjects 中取出早期创建的 bean 实例 (lock-free fast path)
+			singletonObject = this.earlySingletonObjects.get(beanName);
+			// 如果不存在并且允许提前创建的话
+			if (singletonObject == null && allowEarlyReference) {
+				synchronized (this.singletonObjects) {
+					// Consistent creation of early reference within full singleton lock
+					singletonObject = this.singletonObjects.get(beanName);
+					if (singletonObject == null) {
+						singletonObject = this.earlySingletonObjects.get(beanName);
+						if (singletonObject == null) {
+							// 获取 bean 的 Factory
+							ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+							// 创建 bean 并加入到早期创建 bean 实例 earlySingletonObjects 中
+							// 从 singletonFactories 中移除对应的 ObjectFactory
+							if (singletonFactory != null) {
+								singletonObject = singletonFactory.getObject();
+								this.earlySingletonObjects.put(beanName, singletonObject);
+								this.singletonFactories.remove(beanName);
+							}
+						}
 					}
 				}
 			}
@@ -222,6 +247,38 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return singletonObject;
 	}
 
+	/**
+	 * Return an early reference to a singleton currently in creation when locking
+	 * per bean name: only exposed to the creating thread itself or to a thread that
+	 * the creating thread is (transitively) waiting for, i.e. for resolving a circular
+	 * reference. Other threads receive {@code null} in order to wait for the fully
+	 * initialized singleton through {@link #getSingleton(String, ObjectFactory)}.
+	 */
+	@Nullable
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		if (!isLockedByCurrentThread(beanName)) {
+			return null;
+		}
+		// Lock-free: the early reference is only ever created by the thread owning the bean's lock
+		// or by a thread it is waiting for, and may in turn trigger the creation of other beans...
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject != null || !allowEarlyReference) {
+			return singletonObject;
+		}
+		ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+		if (singletonFactory == null) {
+			return null;
+		}
+		singletonObject = singletonFactory.getObject();
+		if (this.singletonFactories.remove(beanName, singletonFactory)) {
+			Object earlySingletonObject = this.earlySingletonObjects.putIfAbsent(beanName, singletonObject);
+			if (earlySingletonObject != null) {
+				return earlySingletonObject;
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -232,64 +289,78 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.singletonLocks != null) {
+			// Lock on the given bean name only, letting unrelated singletons be created concurrently
+			// or resolve a circular reference between threads through an early reference
+			return doWithSingletonLock(beanName, true,
+					() -> createSingleton(beanName, singletonFactory), () -> getEarlySingleton(beanName, true));
+		}
 		// 全局加锁 singletonObjects
 		synchronized (this.singletonObjects) {
-			// 从缓存中获取单例 Bean
-			Object singletonObject = this.singletonObjects.get(beanName);
-			// 为空的话开始加载过程
-			if (singletonObject == null) {
-				// 是否存在销毁的标示
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				// 前置处理，标示 Bean 处于创建中
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
-				}
-				try {
-					// 初始化 bean
-					// 这个过程其实就是调用 createBean 方法
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
-				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
-				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
+			return createSingleton(beanName, singletonFactory);
+		}
+	}
+
+	/**
+	 * Create and register the given singleton, unless registered in the meantime.
+	 * To be called with the singleton mutex or the bean's creation lock held.
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		// 从缓存中获取单例 Bean
+		Object singletonObject = this.singletonObjects.get(beanName);
+		// 为空的话开始加载过程
+		if (singletonObject == null) {
+			// 是否存在销毁的标示
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			// 前置处理，标示 Bean 处于创建中
+			beforeSingletonCreation(beanName);
+			boolean newSingleton = false;
+			boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions.set(new LinkedHashSet<>());
+			}
+			try {
+				// 初始化 bean
+				// 这个过程其实就是调用 createBean 方法
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
 					throw ex;
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+			}
+			catch (BeanCreationException ex) {
+				if (recordSuppressedExceptions) {
+					for (Exception suppressedException : this.suppressedExceptions.get()) {
+						ex.addRelatedCause(suppressedException);
 					}
-					// 后置处理，标示其不处于创建中的状态
-					afterSingletonCreation(beanName);
 				}
-				// 加入到缓存中
-				if (newSingleton) {
-					addSingleton(beanName, singletonObject);
+				throw ex;
+			}
+			finally {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptions.remove();
 				}
+				// 后置处理，标示其不处于创建中的状态
+				afterSingletonCreation(beanName);
+			}
+			// 加入到缓存中
+			if (newSingleton) {
+				addSingleton(beanName, singletonObject);
 			}
-			return singletonObject;
 		}
+		return singletonObject;
 	}
 
 	/**
@@ -298,10 +369,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
@@ -312,7 +382,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @see #getSingletonMutex()
 	 */
 	protected void removeSingleton(String beanName) {
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			this.singletonObjects.remove(beanName);
 			this.singletonFactories.remove(beanName);
 			this.earlySingletonObjects.remove(beanName);
@@ -327,14 +397,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 	@Override
 	public String[] getSingletonNames() {
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			return StringUtils.toStringArray(this.registeredSingletons);
 		}
 	}
 
 	@Override
 	public int getSingletonCount() {
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			return this.registeredSingletons.size();
 		}
 	}
@@ -549,7 +619,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		if (logger.isTraceEnabled()) {
 			logger.trace("Destroying singletons in " + this);
 		}
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			this.singletonsCurrentlyInDestruction = true;
 		}
 
@@ -573,7 +643,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @since 4.3.15
 	 */
 	protected void clearSingletonCache() {
-		synchronized (this.singletonObjects) {
+		synchronized (this.registryMonitor) {
 			this.singletonObjects.clear();
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
@@ -673,4 +743,171 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+	/**
+	 * Return the monitor guarding this registry's singleton caches, to be used
+	 * by subclasses when extending cache removal operations.
+	 * @since 5.2
+	 * @see #setPerBeanSingletonLocking
+	 */
+	final Object getRegistryMonitor() {
+		return this.registryMonitor;
+	}
+
+
+	/**
+	 * Specify whether singleton creation should lock on the name of the bean
+	 * in creation rather than on the {@link #getSingletonMutex() singleton mutex},
+	 * allowing unrelated singletons to be created concurrently.
+	 * <p>Default is "false", serializing the creation of all singletons. Switch this
+	 * flag on if singletons are created by several threads, e.g. lazy-init singletons
+	 * requested on first use, so that unrelated singletons do not block each other.
+	 * Needs to be configured before any singleton creation.
+	 * In per-bean locking mode, a thread requesting a singleton that is currently
+	 * in creation in another thread waits for its completion, unless the creating
+	 * thread is in turn waiting for a bean held by the requesting thread: in that
+	 * case, the circular reference is resolved through an early reference, or
+	 * rejected with a {@link BeanCurrentlyInCreationException} if none is available.
+	 * @since 5.2
+	 */
+	public void setPerBeanSingletonLocking(boolean perBeanSingletonLocking) {
+		if (perBeanSingletonLocking) {
+			if (this.singletonLocks == null) {
+				this.registryMonitor = new Object();
+				this.singletonLocks = new ConcurrentHashMap<>(256);
+			}
+		}
+		else {
+			this.singletonLocks = null;
+			this.registryMonitor = this.singletonObjects;
+		}
+	}
+
+	/**
+	 * Return whether singleton creation locks on the name of the bean in creation.
+	 * @since 5.2
+	 * @see #setPerBeanSingletonLocking
+	 */
+	public boolean isPerBeanSingletonLocking() {
+		return (this.singletonLocks != null);
+	}
+
+	/**
+	 * Perform the given action with the creation lock for the given singleton held:
+	 * the {@link #getSingletonMutex() singleton mutex} by default, or the lock for
+	 * the given bean name in {@link #setPerBeanSingletonLocking per-bean locking mode}.
+	 * @param beanName the name of the singleton bean
+	 * @param action the action to perform
+	 * @return the result of the action
+	 * @throws BeanCurrentlyInCreationException if waiting for the lock would lead to
+	 * a deadlock between threads creating mutually dependent singletons
+	 * @since 5.2
+	 */
+	protected <T> T doWithSingletonLock(String beanName, Supplier<T> action) {
+		return doWithSingletonLock(beanName, true, action, null);
+	}
+
+	/**
+	 * Perform the given action if the creation lock for the given singleton is
+	 * immediately available in {@link #setPerBeanSingletonLocking per-bean locking
+	 * mode}, e.g. for a non-essential shortcut, otherwise return {@code null}.
+	 * Locks on the {@link #getSingletonMutex() singleton mutex} by default.
+	 * @param beanName the name of the singleton bean
+	 * @param action the action to perform
+	 * @return the result of the action, or {@code null} if the lock was not available
+	 * @since 5.2
+	 */
+	@Nullable
+	protected <T> T doWithSingletonLockIfAvailable(String beanName, Supplier<T> action) {
+		return doWithSingletonLock(beanName, false, action, null);
+	}
+
+	@Nullable
+	private <T> T doWithSingletonLock(String beanName, boolean waitForLock, Supplier<T> action,
+			@Nullable Supplier<T> earlyReference) {
+
+		Map<String, SingletonLock> singletonLocks = this.singletonLocks;
+		if (singletonLocks == null) {
+			synchronized (getSingletonMutex()) {
+				return action.get();
+			}
+		}
+		SingletonLock lock = singletonLocks.computeIfAbsent(beanName, name -> new SingletonLock());
+		if (!lock.tryLock()) {
+			if (!waitForLock) {
+				return null;
+			}
+			Thread currentThread = Thread.currentThread();
+			this.singletonLockWaiters.put(currentThread, beanName);
+			try {
+				if (isLockedByCurrentThread(beanName)) {
+					// Both threads may have missed the early reference before registering as waiters
+					T earlySingleton = (earlyReference != null ? earlyReference.get() : null);
+					if (earlySingleton != null) {
+						return earlySingleton;
+					}
+					throw new BeanCurrentlyInCreationException(beanName,
+							"Requested bean is currently in creation in another thread which waits for a bean " +
+							"held by the current thread: Is there an unresolvable circular reference?");
+				}
+				lock.lock();
+			}
+			finally {
+				this.singletonLockWaiters.remove(currentThread);
+			}
+		}
+		try {
+			if (lock.getHoldCount() == 1) {
+				lock.creatingThread = Thread.currentThread();
+			}
+			return action.get();
+		}
+		finally {
+			if (lock.getHoldCount() == 1) {
+				lock.creatingThread = null;
+			}
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Determine whether the given singleton is locked by the current thread, either
+	 * directly or by a thread that is (transitively) waiting for a singleton locked
+	 * by the current thread.
+	 */
+	private boolean isLockedByCurrentThread(String beanName) {
+		Map<String, SingletonLock> singletonLocks = this.singletonLocks;
+		if (singletonLocks == null) {
+			return true;
+		}
+		Thread currentThread = Thread.currentThread();
+		String lockedBeanName = beanName;
+		for (int i = 0; i <= this.singletonLockWaiters.size(); i++) {
+			SingletonLock lock = singletonLocks.get(lockedBeanName);
+			Thread creatingThread = (lock != null ? lock.creatingThread : null);
+			if (creatingThread == null) {
+				return false;
+			}
+			if (creatingThread == currentThread) {
+				return true;
+			}
+			lockedBeanName = this.singletonLockWaiters.get(creatingThread);
+			if (lockedBeanName == null) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Creation lock for a singleton bean, exposing the creating thread
+	 * for cycle detection between threads.
+	 */
+	@SuppressWarnings("serial")
+	private static class SingletonLock extends ReentrantLock {
+
+		@Nullable
+		volatile Thread creatingThread;
+	}
+
 }
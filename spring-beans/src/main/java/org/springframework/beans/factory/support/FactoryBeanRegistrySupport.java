@@ -98,7 +98,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 		if (factory.isSingleton() && containsSingleton(beanName)) {
 			// singletonObjects 单例锁
 			// 因为单例模式下必须要保证全局唯一
-			synchronized (getSingletonMutex()) {
+			return doWithSingletonLock(beanName, () -> {
 				// 从缓存中获取指定的 FactoryBean
 				Object object = this.factoryBeanObjectCache.get(beanName);
 				if (object == null) {
@@ -148,7 +148,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 					}
 				}
 				return object;
-			}
+			});
 		}
 		else {
 			// 如果不是单例或者 Bean 对象不再 singletonObjects 中
@@ -254,7 +254,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	@Override
 	protected void removeSingleton(String beanName) {
-		synchronized (getSingletonMutex()) {
+		synchronized (getRegistryMonitor()) {
 			super.removeSingleton(beanName);
 			this.factoryBeanObjectCache.remove(beanName);
 		}
@@ -265,7 +265,7 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 	 */
 	@Override
 	protected void clearSingletonCache() {
-		synchronized (getSingletonMutex()) {
+		synchronized (getRegistryMonitor()) {
 			super.clearSingletonCache();
 			this.factoryBeanObjectCache.clear();
 		}
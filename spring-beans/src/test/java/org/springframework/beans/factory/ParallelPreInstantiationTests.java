@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel singleton pre-instantiation in {@link DefaultListableBeanFactory}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ */
+public class ParallelPreInstantiationTests {
+
+	private ForkJoinPool pool;
+
+	private DefaultListableBeanFactory lbf;
+
+
+	@Before
+	public void setup() {
+		this.pool = new ForkJoinPool(4);
+		this.lbf = new DefaultListableBeanFactory();
+		this.lbf.setPreInstantiationPool(this.pool);
+	}
+
+	@After
+	public void shutdown() {
+		this.pool.shutdownNow();
+	}
+
+
+	@Test
+	public void independentSingletonsCreatedConcurrently() {
+		CountDownLatch latch = new CountDownLatch(2);
+		lbf.registerBeanDefinition("bean1", new RootBeanDefinition(LatchBean.class, () -> new LatchBean(latch)));
+		lbf.registerBeanDefinition("bean2", new RootBeanDefinition(LatchBean.class, () -> new LatchBean(latch)));
+		lbf.preInstantiateSingletons();
+
+		assertTrue(lbf.getBean("bean1", LatchBean.class).released);
+		assertTrue(lbf.getBean("bean2", LatchBean.class).released);
+	}
+
+	@Test
+	public void dependentSingletonsCreatedInRegistrationOrder() {
+		List<String> creationOrder = new CopyOnWriteArrayList<>();
+		RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class, () -> {
+			creationOrder.add("bean1");
+			return new TestBean();
+		});
+		bd1.setDependsOn("bean2");
+		lbf.registerBeanDefinition("bean1", bd1);
+		lbf.registerBeanDefinition("bean2", new RootBeanDefinition(TestBean.class, () -> {
+			creationOrder.add("bean2");
+			return new TestBean();
+		}));
+		lbf.registerBeanDefinition("bean3", new RootBeanDefinition(TestBean.class));
+		lbf.preInstantiateSingletons();
+
+		assertEquals(2, creationOrder.size());
+		assertEquals("bean2", creationOrder.get(0));
+		assertEquals("bean1", creationOrder.get(1));
+		assertTrue(lbf.containsSingleton("bean3"));
+	}
+
+	@Test
+	public void circularReferencesResolved() {
+		for (int i = 0; i < 16; i++) {
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class);
+			bd1.getPropertyValues().add("spouse", new RuntimeBeanReference("b" + i));
+			lbf.registerBeanDefinition("a" + i, bd1);
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference("a" + i));
+			lbf.registerBeanDefinition("b" + i, bd2);
+		}
+		lbf.preInstantiateSingletons();
+
+		for (int i = 0; i < 16; i++) {
+			TestBean a = lbf.getBean("a" + i, TestBean.class);
+			TestBean b = lbf.getBean("b" + i, TestBean.class);
+			assertSame(b, a.getSpouse());
+			assertSame(a, b.getSpouse());
+		}
+	}
+
+	@Test
+	public void lookupsAcrossGroupsRetriedSequentially() {
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicReference<Thread> bean1Thread = new AtomicReference<>();
+		AtomicBoolean firstInit = new AtomicBoolean(true);
+		AtomicInteger bean1Attempts = new AtomicInteger();
+		// bean2 looks up bean1 after instantiation, bean1 looks up bean2 during instantiation:
+		// resolvable on a single thread through an early reference to bean2 only
+		lbf.registerBeanDefinition("bean2", new RootBeanDefinition(InitializingTestBean.class, () ->
+				new InitializingTestBean(bean -> {
+					if (firstInit.compareAndSet(true, false)) {
+						awaitLatch(latch);
+						// Let bean1's thread wait for the lock on bean2 first
+						awaitState(bean1Thread.get(), Thread.State.WAITING);
+					}
+					bean.setSpouse(lbf.getBean("bean1", TestBean.class));
+				})));
+		lbf.registerBeanDefinition("bean1", new RootBeanDefinition(TestBean.class, () -> {
+			bean1Attempts.incrementAndGet();
+			bean1Thread.compareAndSet(null, Thread.currentThread());
+			awaitLatch(latch);
+			TestBean tb = new TestBean();
+			tb.setSpouse(lbf.getBean("bean2", TestBean.class));
+			return tb;
+		}));
+		lbf.preInstantiateSingletons();
+
+		TestBean bean1 = lbf.getBean("bean1", TestBean.class);
+		TestBean bean2 = lbf.getBean("bean2", TestBean.class);
+		assertSame(bean2, bean1.getSpouse());
+		assertSame(bean1, bean2.getSpouse());
+		// Failed on the pool with a circular reference between threads, then created sequentially
+		assertEquals(2, bean1Attempts.get());
+	}
+
+	@Test
+	public void lookupsAcrossGroupsAtRuntime() {
+		for (int i = 0; i < 16; i++) {
+			String otherName = "bean" + ((i + 1) % 16);
+			lbf.registerBeanDefinition("bean" + i, new RootBeanDefinition(TestBean.class, () -> {
+				TestBean tb = new TestBean();
+				tb.setSpouse(lbf.getBean(otherName, TestBean.class));
+				return tb;
+			}));
+		}
+		lbf.registerBeanDefinition("bean16", new RootBeanDefinition(TestBean.class));
+
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// Constructor-level cycle: unresolvable on a single thread as well
+			assertTrue(ex.contains(BeanCurrentlyInCreationException.class));
+		}
+	}
+
+	@Test
+	public void failureRethrown() {
+		lbf.registerBeanDefinition("bean1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("bean2", new RootBeanDefinition(TestBean.class, () -> {
+			throw new IllegalStateException("bean2 failed");
+		}));
+		lbf.registerBeanDefinition("bean3", new RootBeanDefinition(TestBean.class));
+
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("bean2", ex.getBeanName());
+			assertTrue(ex.contains(IllegalStateException.class));
+		}
+	}
+
+
+	private static void awaitLatch(CountDownLatch latch) {
+		latch.countDown();
+		try {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void awaitState(Thread thread, Thread.State state) {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (thread.getState() != state) {
+			assertTrue("Thread not in state " + state, System.currentTimeMillis() < deadline);
+			Thread.yield();
+		}
+	}
+
+
+	public static class LatchBean {
+
+		final boolean released;
+
+		public LatchBean(CountDownLatch latch) {
+			latch.countDown();
+			try {
+				this.released = latch.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+
+
+	public static class InitializingTestBean extends TestBean implements InitializingBean {
+
+		private final Consumer<TestBean> initializer;
+
+		public InitializingTestBean(Consumer<TestBean> initializer) {
+			this.initializer = initializer;
+		}
+
+		@Override
+		public void afterPropertiesSet() {
+			this.initializer.accept(this);
+		}
+	}
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Contention tests for per-bean singleton locking in {@link DefaultSingletonBeanRegistry},
+ * with 64 concurrent {@code getBean} callers.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ */
+public class SingletonLockContentionTests {
+
+	private static final int THREADS = 64;
+
+	private ExecutorService executor;
+
+	private DefaultListableBeanFactory lbf;
+
+
+	@Before
+	public void setup() {
+		this.executor = Executors.newFixedThreadPool(THREADS + 1);
+		this.lbf = new DefaultListableBeanFactory();
+		this.lbf.setPerBeanSingletonLocking(true);
+	}
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void lookupsNotBlockedByUnrelatedSingletonCreation() throws Exception {
+		CountDownLatch creationStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RootBeanDefinition slowBd = new RootBeanDefinition(TestBean.class, () -> {
+			creationStarted.countDown();
+			try {
+				release.await(30, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return new TestBean("slow");
+		});
+		slowBd.setLazyInit(true);
+		lbf.registerBeanDefinition("slow", slowBd);
+		for (int i = 0; i < THREADS; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.setLazyInit(true);
+			lbf.registerBeanDefinition("lazy" + i, bd);
+			RootBeanDefinition prototypeBd = new RootBeanDefinition(TestBean.class);
+			prototypeBd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototypeBd.getPropertyValues().add("spouse", new RuntimeBeanReference("lazy" + i));
+			lbf.registerBeanDefinition("prototype" + i, prototypeBd);
+		}
+
+		Future<TestBean> slow = this.executor.submit(() -> lbf.getBean("slow", TestBean.class));
+		assertTrue(creationStarted.await(10, TimeUnit.SECONDS));
+		try {
+			List<Future<Object>> results = invokeAll(i -> {
+				TestBean prototype = lbf.getBean("prototype" + i, TestBean.class);
+				assertSame(lbf.getBean("lazy" + i), prototype.getSpouse());
+				return prototype;
+			});
+			for (Future<Object> result : results) {
+				assertNotNull(result.get(10, TimeUnit.SECONDS));
+			}
+			assertFalse(slow.isDone());
+		}
+		finally {
+			release.countDown();
+		}
+		assertEquals("slow", slow.get(10, TimeUnit.SECONDS).getName());
+	}
+
+	@Test
+	public void concurrentLookupsOfSameSingleton() throws Exception {
+		AtomicInteger instanceCount = new AtomicInteger();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class, () -> {
+			instanceCount.incrementAndGet();
+			return new TestBean();
+		});
+		bd.setLazyInit(true);
+		lbf.registerBeanDefinition("shared", bd);
+
+		List<Future<Object>> results = invokeAll(i -> lbf.getBean("shared"));
+		Object shared = lbf.getBean("shared");
+		for (Future<Object> result : results) {
+			assertSame(shared, result.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, instanceCount.get());
+	}
+
+	/**
+	 * Each pair is created by two threads, interleaved so that both look up each other's
+	 * bean after the early reference check, before either waits for the other's lock.
+	 */
+	@Test
+	public void circularReferencesUnderContention() throws Exception {
+		int pairs = THREADS / 2;
+		Map<String, Runnable> beforeLookup = new ConcurrentHashMap<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory() {
+			@Override
+			protected RootBeanDefinition getMergedLocalBeanDefinition(String beanName) {
+				Runnable handshake = beforeLookup.remove(beanName + "@" + Thread.currentThread().getName());
+				if (handshake != null) {
+					handshake.run();
+				}
+				return super.getMergedLocalBeanDefinition(beanName);
+			}
+		};
+		lbf.setPerBeanSingletonLocking(true);
+
+		List<Callable<Object>> tasks = new ArrayList<>(THREADS);
+		for (int i = 0; i < pairs; i++) {
+			String a = "a" + i;
+			String b = "b" + i;
+			CountDownLatch aCreated = new CountDownLatch(1);
+			CountDownLatch bCreated = new CountDownLatch(1);
+			CountDownLatch aLooksUpB = new CountDownLatch(1);
+			CountDownLatch bLooksUpA = new CountDownLatch(1);
+			AtomicReference<Thread> bThread = new AtomicReference<>();
+
+			RootBeanDefinition bd1 = new RootBeanDefinition(TestBean.class, () -> {
+				aCreated.countDown();
+				awaitLatch(bCreated);
+				// Wait for the other thread to block on this bean, as long as it is locked
+				beforeLookup.put(b + "@" + Thread.currentThread().getName(), () -> {
+					aLooksUpB.countDown();
+					awaitLatch(bLooksUpA);
+					awaitState(bThread.get(), Thread.State.WAITING);
+				});
+				return new TestBean(a);
+			});
+			bd1.setLazyInit(true);
+			bd1.getPropertyValues().add("spouse", new RuntimeBeanReference(b));
+			lbf.registerBeanDefinition(a, bd1);
+
+			RootBeanDefinition bd2 = new RootBeanDefinition(TestBean.class, () -> {
+				bThread.set(Thread.currentThread());
+				bCreated.countDown();
+				awaitLatch(aCreated);
+				beforeLookup.put(a + "@" + Thread.currentThread().getName(), () -> {
+					awaitLatch(aLooksUpB);
+					bLooksUpA.countDown();
+				});
+				return new TestBean(b);
+			});
+			bd2.setLazyInit(true);
+			bd2.getPropertyValues().add("spouse", new RuntimeBeanReference(a));
+			lbf.registerBeanDefinition(b, bd2);
+
+			tasks.add(() -> lbf.getBean(a, TestBean.class));
+			tasks.add(() -> lbf.getBean(b, TestBean.class));
+		}
+
+		List<Future<Object>> results = new ArrayList<>(THREADS);
+		for (Callable<Object> task : tasks) {
+			results.add(this.executor.submit(task));
+		}
+		for (Future<Object> result : results) {
+			result.get(10, TimeUnit.SECONDS);
+		}
+		for (int i = 0; i < pairs; i++) {
+			TestBean a = lbf.getBean("a" + i, TestBean.class);
+			TestBean b = lbf.getBean("b" + i, TestBean.class);
+			assertSame(b, a.getSpouse());
+			assertSame(a, b.getSpouse());
+		}
+	}
+
+	@Test
+	public void throughputWithSlowSingletonCreation() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		long perBeanLocking = measureSlowSingletonCreation(true);
+		long globalLocking = measureSlowSingletonCreation(false);
+		assertTrue("Per-bean locking took " + perBeanLocking + " ms, global locking " + globalLocking + " ms",
+				perBeanLocking * 4 < globalLocking);
+	}
+
+
+	private long measureSlowSingletonCreation(boolean perBeanSingletonLocking) throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPerBeanSingletonLocking(perBeanSingletonLocking);
+		for (int i = 0; i < THREADS; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class, () -> {
+				try {
+					Thread.sleep(20);
+				}
+				catch (InterruptedException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return new TestBean();
+			});
+			bd.setLazyInit(true);
+			lbf.registerBeanDefinition("bean" + i, bd);
+		}
+		long start = System.nanoTime();
+		for (Future<Object> result : invokeAll(i -> lbf.getBean("bean" + i))) {
+			result.get(30, TimeUnit.SECONDS);
+		}
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	private static void awaitLatch(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+		}
+		catch (InterruptedException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static void awaitState(Thread thread, Thread.State state) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (thread.getState() != state) {
+			assertTrue("Thread did not reach state " + state, System.nanoTime() < deadline);
+			Thread.yield();
+		}
+	}
+
+	private List<Future<Object>> invokeAll(Lookup lookup) throws InterruptedException {
+		CyclicBarrier barrier = new CyclicBarrier(THREADS);
+		List<Callable<Object>> tasks = new ArrayList<>(THREADS);
+		for (int i = 0; i < THREADS; i++) {
+			int index = i;
+			tasks.add(() -> {
+				barrier.await(10, TimeUnit.SECONDS);
+				return lookup.lookup(index);
+			});
+		}
+		List<Future<Object>> results = new ArrayList<>(THREADS);
+		for (Callable<Object> task : tasks) {
+			results.add(this.executor.submit(task));
+		}
+		return results;
+	}
+
+
+	@FunctionalInterface
+	private interface Lookup {
+
+		Object lookup(int index) throws Exception;
+	}
+
+}
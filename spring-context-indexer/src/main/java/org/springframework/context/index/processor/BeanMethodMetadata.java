@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.util.List;
+
+/**
+ * Represents a {@code @Bean} method of an indexed configuration class,
+ * along with the bean definition settings derived from its annotations.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see ConfigurationClassMetadata
+ */
+class BeanMethodMetadata {
+
+	private final String methodName;
+
+	private final boolean staticMethod;
+
+	private final List<String> names;
+
+	private final DefinitionSettings settings;
+
+	private final int autowireMode;
+
+	private final boolean autowireCandidate;
+
+	private final String initMethodName;
+
+	private final String destroyMethodName;
+
+
+	public BeanMethodMetadata(String methodName, boolean staticMethod, List<String> names,
+			DefinitionSettings settings, int autowireMode, boolean autowireCandidate,
+			String initMethodName, String destroyMethodName) {
+
+		this.methodName = methodName;
+		this.staticMethod = staticMethod;
+		this.names = names;
+		this.settings = settings;
+		this.autowireMode = autowireMode;
+		this.autowireCandidate = autowireCandidate;
+		this.initMethodName = initMethodName;
+		this.destroyMethodName = destroyMethodName;
+	}
+
+
+	public String getMethodName() {
+		return this.methodName;
+	}
+
+	public boolean isStaticMethod() {
+		return this.staticMethod;
+	}
+
+	/**
+	 * Return the bean name followed by its aliases, or an empty list
+	 * if the bean name is the method name.
+	 */
+	public List<String> getNames() {
+		return this.names;
+	}
+
+	public DefinitionSettings getSettings() {
+		return this.settings;
+	}
+
+	public int getAutowireMode() {
+		return this.autowireMode;
+	}
+
+	public boolean isAutowireCandidate() {
+		return this.autowireCandidate;
+	}
+
+	public String getInitMethodName() {
+		return this.initMethodName;
+	}
+
+	public String getDestroyMethodName() {
+		return this.destroyMethodName;
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.util.List;
+
+/**
+ * Represents one configuration class in the configuration classes index:
+ * its bean name, its own bean definition settings and its {@code @Bean} methods.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see ConfigurationClassesIndexer
+ */
+class ConfigurationClassMetadata {
+
+	private final String type;
+
+	private final String beanName;
+
+	private final DefinitionSettings settings;
+
+	private final List<BeanMethodMetadata> beanMethods;
+
+
+	public ConfigurationClassMetadata(String type, String beanName, DefinitionSettings settings,
+			List<BeanMethodMetadata> beanMethods) {
+
+		this.type = type;
+		this.beanName = beanName;
+		this.settings = settings;
+		this.beanMethods = beanMethods;
+	}
+
+
+	public String getType() {
+		return this.type;
+	}
+
+	public String getBeanName() {
+		return this.beanName;
+	}
+
+	public DefinitionSettings getSettings() {
+		return this.settings;
+	}
+
+	public List<BeanMethodMetadata> getBeanMethods() {
+		return this.beanMethods;
+	}
+
+}
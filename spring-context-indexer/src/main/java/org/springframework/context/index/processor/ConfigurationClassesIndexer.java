@@ -0,0 +1,398 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation {@link Processor} that writes a binary index of self-contained
+ * {@code @Configuration} classes and their {@code @Bean} methods, allowing
+ * {@code IndexedConfigurationClassReader} to register the corresponding bean
+ * definitions at runtime without parsing the configuration classes again.
+ *
+ * <p>Only configuration classes whose bean definitions do not depend on the runtime
+ * environment are indexed: classes or {@code @Bean} methods carrying any annotation
+ * other than {@code @Configuration}, {@code @Bean}, {@code @Lazy}, {@code @Primary},
+ * {@code @Scope} (without scoped proxy), {@code @DependsOn}, {@code @Role} and
+ * {@code @Description} are skipped, which excludes {@code @Conditional},
+ * {@code @Profile}, {@code @Import}, {@code @ComponentScan} and the like. Such
+ * classes remain subject to regular configuration class processing.
+ *
+ * <p>This processor is not registered by default: it needs to be specified
+ * explicitly, next to {@link CandidateComponentsIndexer}, in the annotation
+ * processor configuration of the build.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ */
+public class ConfigurationClassesIndexer implements Processor {
+
+	static final String METADATA_PATH = "META-INF/spring.configurations";
+
+	private static final String ANNOTATION_PACKAGE = "org.springframework.context.annotation.";
+
+	private static final String CONFIGURATION = ANNOTATION_PACKAGE + "Configuration";
+
+	private static final String BEAN = ANNOTATION_PACKAGE + "Bean";
+
+	private static final String LAZY = ANNOTATION_PACKAGE + "Lazy";
+
+	private static final String PRIMARY = ANNOTATION_PACKAGE + "Primary";
+
+	private static final String SCOPE = ANNOTATION_PACKAGE + "Scope";
+
+	private static final String DEPENDS_ON = ANNOTATION_PACKAGE + "DependsOn";
+
+	private static final String ROLE = ANNOTATION_PACKAGE + "Role";
+
+	private static final String DESCRIPTION = ANNOTATION_PACKAGE + "Description";
+
+	private static final Set<String> SUPPORTED_ANNOTATIONS = Collections.unmodifiableSet(new HashSet<>(
+			Arrays.asList(CONFIGURATION, BEAN, LAZY, PRIMARY, SCOPE, DEPENDS_ON, ROLE, DESCRIPTION)));
+
+	private static final String INFER_METHOD = "(inferred)";
+
+
+	private ProcessingEnvironment environment;
+
+	private Elements elements;
+
+	private final Map<String, ConfigurationClassMetadata> configurationClasses = new LinkedHashMap<>();
+
+	private final Set<String> processedSourceTypes = new HashSet<>();
+
+
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.emptySet();
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latest();
+	}
+
+	@Override
+	public synchronized void init(ProcessingEnvironment env) {
+		this.environment = env;
+		this.elements = env.getElementUtils();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			processType(type);
+		}
+		if (roundEnv.processingOver()) {
+			writeMetaData();
+		}
+		return false;
+	}
+
+	@Override
+	public Iterable<? extends Completion> getCompletions(
+			Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+
+		return Collections.emptyList();
+	}
+
+
+	private void processType(TypeElement type) {
+		this.processedSourceTypes.add(getBinaryName(type));
+		ConfigurationClassMetadata metadata = createMetadata(type);
+		if (metadata != null) {
+			this.configurationClasses.put(metadata.getType(), metadata);
+		}
+		for (TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+			if (memberType.getModifiers().contains(Modifier.STATIC)) {
+				processType(memberType);
+			}
+		}
+	}
+
+	/**
+	 * Create the metadata for the given type if it is a configuration class
+	 * that is eligible for indexing.
+	 * @return the metadata, or {@code null} if the type is not eligible
+	 */
+	private ConfigurationClassMetadata createMetadata(TypeElement type) {
+		AnnotationMirror configuration = getAnnotation(type, CONFIGURATION);
+		if (configuration == null || type.getKind() != ElementKind.CLASS ||
+				hasAnyModifier(type, Modifier.ABSTRACT, Modifier.FINAL, Modifier.PRIVATE) ||
+				!isSupported(type) || !isObjectSuperclass(type) || hasBeanMethods(type.getInterfaces())) {
+			return null;
+		}
+		for (TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+			// Nested configuration candidates are registered by the configuration class parser
+			if (!getNonLangAnnotations(memberType).isEmpty() ||
+					!getBeanMethods(memberType).isEmpty()) {
+				return null;
+			}
+		}
+
+		DefinitionSettings settings = getSettings(type, false);
+		List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+		List<BeanMethodMetadata> beanMethods = new ArrayList<>();
+		for (ExecutableElement method : getBeanMethods(type)) {
+			String methodName = method.getSimpleName().toString();
+			boolean staticMethod = method.getModifiers().contains(Modifier.STATIC);
+			// Overloaded factory methods need to be resolved by the configuration class parser
+			if (methods.stream().filter(m -> m.getSimpleName().contentEquals(methodName)).count() > 1 ||
+					method.getModifiers().contains(Modifier.PRIVATE) ||
+					(!staticMethod && method.getModifiers().contains(Modifier.FINAL)) || !isSupported(method)) {
+				return null;
+			}
+			Map<String, Object> bean = getAttributes(getAnnotation(method, BEAN));
+			List<String> names = getStrings(bean, "name");
+			if (names.isEmpty()) {
+				names = getStrings(bean, "value");
+			}
+			beanMethods.add(new BeanMethodMetadata(methodName, staticMethod, names,
+					getSettings(method, settings.isLazyInit()), getAutowireMode(bean.get("autowire")),
+					(Boolean) bean.get("autowireCandidate"), (String) bean.get("initMethod"),
+					(String) bean.get("destroyMethod")));
+		}
+
+		String beanName = (String) getAttributes(configuration).get("value");
+		if (beanName == null || beanName.isEmpty()) {
+			beanName = getDefaultBeanName(type);
+		}
+		return new ConfigurationClassMetadata(getBinaryName(type), beanName, settings, beanMethods);
+	}
+
+	private boolean isSupported(Element element) {
+		for (AnnotationMirror annotation : getNonLangAnnotations(element)) {
+			String annotationType = getAnnotationType(annotation);
+			if (!SUPPORTED_ANNOTATIONS.contains(annotationType)) {
+				return false;
+			}
+			if (SCOPE.equals(annotationType)) {
+				String proxyMode = getAttributes(annotation).get("proxyMode").toString();
+				if (!proxyMode.equals("DEFAULT") && !proxyMode.equals("NO")) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean isObjectSuperclass(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		return (superclass.getKind() == TypeKind.DECLARED &&
+				Object.class.getName().equals(getBinaryName(
+						(TypeElement) this.environment.getTypeUtils().asElement(superclass))));
+	}
+
+	private boolean hasBeanMethods(List<? extends TypeMirror> interfaces) {
+		for (TypeMirror ifc : interfaces) {
+			TypeElement element = (TypeElement) this.environment.getTypeUtils().asElement(ifc);
+			if (element != null && (!getBeanMethods(element).isEmpty() || hasBeanMethods(element.getInterfaces()))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<ExecutableElement> getBeanMethods(TypeElement type) {
+		List<ExecutableElement> result = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+			if (getAnnotation(method, BEAN) != null) {
+				result.add(method);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Create the definition settings for the given configuration class or
+	 * {@code @Bean} method.
+	 * @param defaultLazyInit the lazy-init flag to apply without a local
+	 * {@code @Lazy} declaration, i.e. the flag of the configuration class
+	 * for its {@code @Bean} methods
+	 */
+	private DefinitionSettings getSettings(Element element, boolean defaultLazyInit) {
+		String scope = "";
+		AnnotationMirror scopeAnnotation = getAnnotation(element, SCOPE);
+		if (scopeAnnotation != null) {
+			Map<String, Object> attributes = getAttributes(scopeAnnotation);
+			scope = (String) attributes.get("value");
+			if (scope.isEmpty()) {
+				scope = (String) attributes.get("scopeName");
+			}
+		}
+		AnnotationMirror lazy = getAnnotation(element, LAZY);
+		boolean lazyInit = (lazy != null ? (Boolean) getAttributes(lazy).get("value") : defaultLazyInit);
+		boolean primary = (getAnnotation(element, PRIMARY) != null);
+		AnnotationMirror dependsOn = getAnnotation(element, DEPENDS_ON);
+		List<String> dependsOnNames = (dependsOn != null ?
+				getStrings(getAttributes(dependsOn), "value") : Collections.emptyList());
+		AnnotationMirror role = getAnnotation(element, ROLE);
+		int roleValue = (role != null ? (Integer) getAttributes(role).get("value") : 0);
+		AnnotationMirror description = getAnnotation(element, DESCRIPTION);
+		String descriptionValue = (description != null ? (String) getAttributes(description).get("value") : "");
+		return new DefinitionSettings(scope, lazyInit, primary, dependsOnNames, roleValue, descriptionValue);
+	}
+
+	private int getAutowireMode(Object autowire) {
+		// Values as defined by AutowireCapableBeanFactory
+		switch (autowire.toString()) {
+			case "BY_NAME":
+				return 1;
+			case "BY_TYPE":
+				return 2;
+			default:
+				return 0;
+		}
+	}
+
+	private String getDefaultBeanName(TypeElement type) {
+		// Same as AnnotationBeanNameGenerator: decapitalized short class name
+		String shortName = getBinaryName(type);
+		shortName = shortName.substring(shortName.lastIndexOf('.') + 1).replace('$', '.');
+		if (shortName.length() > 1 && Character.isUpperCase(shortName.charAt(1)) &&
+				Character.isUpperCase(shortName.charAt(0))) {
+			return shortName;
+		}
+		return Character.toLowerCase(shortName.charAt(0)) + shortName.substring(1);
+	}
+
+	private List<AnnotationMirror> getNonLangAnnotations(Element element) {
+		List<AnnotationMirror> result = new ArrayList<>();
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (!getAnnotationType(annotation).startsWith("java.lang.")) {
+				result.add(annotation);
+			}
+		}
+		return result;
+	}
+
+	private AnnotationMirror getAnnotation(Element element, String annotationType) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (annotationType.equals(getAnnotationType(annotation))) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	private String getAnnotationType(AnnotationMirror annotation) {
+		return getBinaryName((TypeElement) annotation.getAnnotationType().asElement());
+	}
+
+	private Map<String, Object> getAttributes(AnnotationMirror annotation) {
+		Map<String, Object> attributes = new HashMap<>();
+		this.elements.getElementValuesWithDefaults(annotation).forEach((name, value) ->
+				attributes.put(name.getSimpleName().toString(), value.getValue()));
+		return attributes;
+	}
+
+	private List<String> getStrings(Map<String, Object> attributes, String name) {
+		List<String> result = new ArrayList<>();
+		Object value = attributes.get(name);
+		if (value instanceof List) {
+			for (Object element : (List<?>) value) {
+				result.add((String) ((AnnotationValue) element).getValue());
+			}
+		}
+		return result;
+	}
+
+	private String getBinaryName(TypeElement type) {
+		return this.elements.getBinaryName(type).toString();
+	}
+
+	private boolean hasAnyModifier(Element element, Modifier... modifiers) {
+		for (Modifier modifier : modifiers) {
+			if (element.getModifiers().contains(modifier)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeMetaData() {
+		List<ConfigurationClassMetadata> metadata = new ArrayList<>(this.configurationClasses.values());
+		for (ConfigurationClassMetadata previous : readPreviousMetaData()) {
+			String type = previous.getType();
+			if (!this.processedSourceTypes.contains(type) &&
+					this.elements.getTypeElement(type.replace('$', '.')) != null) {
+				metadata.add(previous);
+			}
+		}
+		if (!metadata.isEmpty()) {
+			try {
+				FileObject resource = this.environment.getFiler().createResource(
+						StandardLocation.CLASS_OUTPUT, "", METADATA_PATH);
+				try (OutputStream outputStream = resource.openOutputStream()) {
+					ConfigurationClassesMarshaller.write(metadata, outputStream);
+				}
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to write metadata", ex);
+			}
+		}
+	}
+
+	private List<ConfigurationClassMetadata> readPreviousMetaData() {
+		try {
+			FileObject resource = this.environment.getFiler().getResource(
+					StandardLocation.CLASS_OUTPUT, "", METADATA_PATH);
+			try (InputStream inputStream = resource.openInputStream()) {
+				return ConfigurationClassesMarshaller.read(inputStream);
+			}
+		}
+		catch (IOException ex) {
+			// Failed to read metadata -> ignore.
+			return Collections.emptyList();
+		}
+	}
+
+}
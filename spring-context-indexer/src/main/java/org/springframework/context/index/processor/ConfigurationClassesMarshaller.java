@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Marshaller to write {@link ConfigurationClassMetadata} entries in the compact
+ * binary format read by {@code IndexedConfigurationClassReader} in spring-context.
+ *
+ * <p>The format starts with the {@link #MAGIC} marker and {@link #VERSION},
+ * followed by the number of configuration classes. Each configuration class is
+ * written as its type, bean name and definition settings, followed by the number
+ * of {@code @Bean} methods and their entries. Strings are written in modified
+ * UTF-8, string lists as a count followed by their elements.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ */
+abstract class ConfigurationClassesMarshaller {
+
+	static final int MAGIC = 0x53434349;
+
+	static final int VERSION = 1;
+
+	private static final int LAZY_INIT = 1;
+
+	private static final int PRIMARY = 2;
+
+	private static final int STATIC_METHOD = 4;
+
+	private static final int NO_AUTOWIRE_CANDIDATE = 8;
+
+
+	public static void write(List<ConfigurationClassMetadata> metadata, OutputStream out) throws IOException {
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(MAGIC);
+		dos.writeShort(VERSION);
+		dos.writeInt(metadata.size());
+		for (ConfigurationClassMetadata configClass : metadata) {
+			dos.writeUTF(configClass.getType());
+			dos.writeUTF(configClass.getBeanName());
+			writeSettings(configClass.getSettings(), 0, dos);
+			dos.writeInt(configClass.getBeanMethods().size());
+			for (BeanMethodMetadata beanMethod : configClass.getBeanMethods()) {
+				dos.writeUTF(beanMethod.getMethodName());
+				int flags = (beanMethod.isStaticMethod() ? STATIC_METHOD : 0) |
+						(beanMethod.isAutowireCandidate() ? 0 : NO_AUTOWIRE_CANDIDATE);
+				writeSettings(beanMethod.getSettings(), flags, dos);
+				writeStrings(beanMethod.getNames(), dos);
+				dos.writeByte(beanMethod.getAutowireMode());
+				dos.writeUTF(beanMethod.getInitMethodName());
+				dos.writeUTF(beanMethod.getDestroyMethodName());
+			}
+		}
+		dos.flush();
+	}
+
+	public static List<ConfigurationClassMetadata> read(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(in);
+		if (dis.readInt() != MAGIC || dis.readShort() != VERSION) {
+			throw new IOException("Unsupported configuration classes index format");
+		}
+		int count = dis.readInt();
+		List<ConfigurationClassMetadata> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String type = dis.readUTF();
+			String beanName = dis.readUTF();
+			int flags = dis.readByte();
+			DefinitionSettings settings = readSettings(flags, dis);
+			int beanMethodCount = dis.readInt();
+			List<BeanMethodMetadata> beanMethods = new ArrayList<>(beanMethodCount);
+			for (int j = 0; j < beanMethodCount; j++) {
+				String methodName = dis.readUTF();
+				int methodFlags = dis.readByte();
+				DefinitionSettings methodSettings = readSettings(methodFlags, dis);
+				List<String> names = readStrings(dis);
+				int autowireMode = dis.readByte();
+				String initMethodName = dis.readUTF();
+				String destroyMethodName = dis.readUTF();
+				beanMethods.add(new BeanMethodMetadata(methodName, (methodFlags & STATIC_METHOD) != 0, names,
+						methodSettings, autowireMode, (methodFlags & NO_AUTOWIRE_CANDIDATE) == 0,
+						initMethodName, destroyMethodName));
+			}
+			result.add(new ConfigurationClassMetadata(type, beanName, settings, beanMethods));
+		}
+		return result;
+	}
+
+
+	private static void writeSettings(DefinitionSettings settings, int flags, DataOutputStream dos)
+			throws IOException {
+
+		flags |= (settings.isLazyInit() ? LAZY_INIT : 0) | (settings.isPrimary() ? PRIMARY : 0);
+		dos.writeByte(flags);
+		dos.writeUTF(settings.getScope());
+		writeStrings(settings.getDependsOn(), dos);
+		dos.writeInt(settings.getRole());
+		dos.writeUTF(settings.getDescription());
+	}
+
+	private static DefinitionSettings readSettings(int flags, DataInputStream dis) throws IOException {
+		String scope = dis.readUTF();
+		List<String> dependsOn = readStrings(dis);
+		int role = dis.readInt();
+		String description = dis.readUTF();
+		return new DefinitionSettings(scope, (flags & LAZY_INIT) != 0, (flags & PRIMARY) != 0,
+				dependsOn, role, description);
+	}
+
+	private static void writeStrings(List<String> values, DataOutputStream dos) throws IOException {
+		dos.writeShort(values.size());
+		for (String value : values) {
+			dos.writeUTF(value);
+		}
+	}
+
+	private static List<String> readStrings(DataInputStream dis) throws IOException {
+		int count = dis.readShort();
+		List<String> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(dis.readUTF());
+		}
+		return result;
+	}
+
+}
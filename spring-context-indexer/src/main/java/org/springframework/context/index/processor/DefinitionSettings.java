@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.util.List;
+
+/**
+ * The common bean definition settings (scope, {@code @Lazy}, {@code @Primary},
+ * {@code @DependsOn}, {@code @Role} and {@code @Description}) of an indexed
+ * configuration class or {@code @Bean} method.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ */
+class DefinitionSettings {
+
+	private final String scope;
+
+	private final boolean lazyInit;
+
+	private final boolean primary;
+
+	private final List<String> dependsOn;
+
+	private final int role;
+
+	private final String description;
+
+
+	public DefinitionSettings(String scope, boolean lazyInit, boolean primary,
+			List<String> dependsOn, int role, String description) {
+
+		this.scope = scope;
+		this.lazyInit = lazyInit;
+		this.primary = primary;
+		this.dependsOn = dependsOn;
+		this.role = role;
+		this.description = description;
+	}
+
+
+	/**
+	 * Return the scope name, or an empty String for the default scope.
+	 */
+	public String getScope() {
+		return this.scope;
+	}
+
+	public boolean isLazyInit() {
+		return this.lazyInit;
+	}
+
+	public boolean isPrimary() {
+		return this.primary;
+	}
+
+	public List<String> getDependsOn() {
+		return this.dependsOn;
+	}
+
+	public int getRole() {
+		return this.role;
+	}
+
+	/**
+	 * Return the description, or an empty String if none.
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.IndexedConfigurationClassReader;
+import org.springframework.context.index.sample.SampleService;
+import org.springframework.context.index.sample.config.SampleConditionalConfiguration;
+import org.springframework.context.index.sample.config.SampleConfiguration;
+import org.springframework.context.index.sample.config.SampleImportConfiguration;
+import org.springframework.context.index.sample.config.SampleLazyConfiguration;
+import org.springframework.context.index.sample.config.SampleOverloadedConfiguration;
+import org.springframework.context.index.test.TestCompiler;
+import org.springframework.context.support.GenericApplicationContext;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ConfigurationClassesIndexer}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ConfigurationClassesIndexerTests {
+
+	private TestCompiler compiler;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Before
+	public void createCompiler() throws IOException {
+		this.compiler = new TestCompiler(this.temporaryFolder);
+	}
+
+	@Test
+	public void noConfigurationClass() {
+		List<ConfigurationClassMetadata> metadata = compile(SampleService.class);
+		assertThat(metadata, hasSize(0));
+	}
+
+	@Test
+	public void configurationClassIsIndexed() {
+		List<ConfigurationClassMetadata> metadata = compile(SampleConfiguration.class);
+		assertThat(metadata, hasSize(1));
+		ConfigurationClassMetadata configClass = metadata.get(0);
+		assertEquals(SampleConfiguration.class.getName(), configClass.getType());
+		assertEquals("sampleConfiguration", configClass.getBeanName());
+		assertThat(configClass.getBeanMethods(), hasSize(4));
+
+		BeanMethodMetadata sampleService = configClass.getBeanMethods().get(0);
+		assertEquals("sampleService", sampleService.getMethodName());
+		assertThat(sampleService.getNames(), empty());
+		assertTrue(sampleService.getSettings().isPrimary());
+		assertFalse(sampleService.getSettings().isLazyInit());
+		assertEquals("(inferred)", sampleService.getDestroyMethodName());
+
+		BeanMethodMetadata otherService = configClass.getBeanMethods().get(1);
+		assertEquals(Arrays.asList("otherService", "otherServiceAlias"), otherService.getNames());
+		assertTrue(otherService.getSettings().isLazyInit());
+		assertEquals("Other service", otherService.getSettings().getDescription());
+
+		BeanMethodMetadata serviceHolder = configClass.getBeanMethods().get(2);
+		assertEquals("prototype", serviceHolder.getSettings().getScope());
+
+		BeanMethodMetadata staticBean = configClass.getBeanMethods().get(3);
+		assertTrue(staticBean.isStaticMethod());
+		assertFalse(staticBean.isAutowireCandidate());
+		assertEquals("toString", staticBean.getInitMethodName());
+		assertEquals(BeanDefinition.ROLE_INFRASTRUCTURE, staticBean.getSettings().getRole());
+	}
+
+	@Test
+	public void configurationClassLazyInitIsInherited() {
+		List<ConfigurationClassMetadata> metadata = compile(SampleLazyConfiguration.class);
+		assertThat(metadata, hasSize(1));
+		ConfigurationClassMetadata configClass = metadata.get(0);
+		assertTrue(configClass.getSettings().isLazyInit());
+		assertEquals("sampleService", configClass.getBeanMethods().get(0).getMethodName());
+		assertTrue(configClass.getBeanMethods().get(0).getSettings().isLazyInit());
+		assertEquals("eagerService", configClass.getBeanMethods().get(1).getMethodName());
+		assertFalse(configClass.getBeanMethods().get(1).getSettings().isLazyInit());
+	}
+
+	@Test
+	public void conditionalConfigurationClassIsNotIndexed() {
+		assertThat(compile(SampleConditionalConfiguration.class), hasSize(0));
+	}
+
+	@Test
+	public void importingConfigurationClassIsNotIndexed() {
+		assertThat(compile(SampleImportConfiguration.class), hasSize(0));
+	}
+
+	@Test
+	public void overloadedConfigurationClassIsNotIndexed() {
+		assertThat(compile(SampleOverloadedConfiguration.class), hasSize(0));
+	}
+
+	@Test
+	public void marshallerRoundTrip() throws IOException {
+		compile(SampleConfiguration.class);
+		File metadataFile = new File(this.compiler.getOutputLocation(), ConfigurationClassesIndexer.METADATA_PATH);
+		List<ConfigurationClassMetadata> metadata;
+		try (InputStream in = new FileInputStream(metadataFile)) {
+			metadata = ConfigurationClassesMarshaller.read(in);
+		}
+		File copy = this.temporaryFolder.newFile();
+		try (OutputStream out = new FileOutputStream(copy)) {
+			ConfigurationClassesMarshaller.write(metadata, out);
+		}
+		assertArrayEquals(Files.readAllBytes(metadataFile.toPath()),
+				Files.readAllBytes(copy.toPath()));
+	}
+
+	@Test
+	public void registerBeanDefinitionsFromIndex() throws IOException {
+		compile(SampleConfiguration.class);
+		URL[] urls = new URL[] {this.compiler.getOutputLocation().toURI().toURL()};
+		try (URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader())) {
+			GenericApplicationContext context = new GenericApplicationContext();
+			context.setClassLoader(classLoader);
+			int count = new IndexedConfigurationClassReader(context).register(classLoader);
+			assertEquals(1, count);
+			context.refresh();
+
+			assertSame(context.getBean("sampleService"), context.getBean(SampleService.class));
+			assertSame(context.getBean("otherService"), context.getBean("otherServiceAlias"));
+			assertTrue(context.getBeanFactory().getBeanDefinition("otherService").isLazyInit());
+			assertEquals(Collections.singletonList(context.getBean("sampleService")),
+					context.getBean("serviceHolder"));
+			assertNotSame(context.getBean("serviceHolder"), context.getBean("serviceHolder"));
+			assertEquals("static", context.getBean("staticBean"));
+			assertFalse(context.getBeanFactory().getBeanDefinition("staticBean").isAutowireCandidate());
+			context.close();
+		}
+	}
+
+	@Test
+	public void registerBeanDefinitionsFromIndexWithExistingDefinition() throws IOException {
+		compile(SampleConfiguration.class);
+		URL[] urls = new URL[] {this.compiler.getOutputLocation().toURI().toURL()};
+		try (URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader())) {
+			GenericApplicationContext context = new GenericApplicationContext();
+			context.setClassLoader(classLoader);
+			RootBeanDefinition existingBeanDef = new RootBeanDefinition(SampleService.class);
+			context.registerBeanDefinition("sampleService", existingBeanDef);
+			new IndexedConfigurationClassReader(context).register(classLoader);
+			assertSame(existingBeanDef, context.getBeanDefinition("sampleService"));
+		}
+	}
+
+	@Test
+	public void registerBeanDefinitionsFromIndexWithOverridingConfigurationClass() throws IOException {
+		List<ConfigurationClassMetadata> metadata = compile(SampleConfiguration.class, SampleLazyConfiguration.class);
+		assertThat(metadata, hasSize(2));
+		URL[] urls = new URL[] {this.compiler.getOutputLocation().toURI().toURL()};
+		try (URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader())) {
+			GenericApplicationContext context = new GenericApplicationContext();
+			context.setClassLoader(classLoader);
+			new IndexedConfigurationClassReader(context).register(classLoader);
+			// A @Bean method on a later configuration class overrides an earlier one
+			BeanDefinition beanDef = context.getBeanDefinition("sampleService");
+			assertEquals(metadata.get(1).getBeanName(), beanDef.getFactoryBeanName());
+			assertTrue(context.getBeanDefinition("otherService").isLazyInit());
+			assertFalse(context.getBeanDefinition("eagerService").isLazyInit());
+		}
+	}
+
+	@Test(expected = BeanDefinitionStoreException.class)
+	public void registerBeanDefinitionsFromIndexWithExistingDefinitionAndOverridingDisabled() throws IOException {
+		compile(SampleConfiguration.class);
+		URL[] urls = new URL[] {this.compiler.getOutputLocation().toURI().toURL()};
+		try (URLClassLoader classLoader = new URLClassLoader(urls, getClass().getClassLoader())) {
+			GenericApplicationContext context = new GenericApplicationContext();
+			context.setClassLoader(classLoader);
+			context.setAllowBeanDefinitionOverriding(false);
+			context.registerBeanDefinition("sampleService", new RootBeanDefinition(SampleService.class));
+			new IndexedConfigurationClassReader(context).register(classLoader);
+		}
+	}
+
+	private List<ConfigurationClassMetadata> compile(Class<?>... types) {
+		ConfigurationClassesIndexer processor = new ConfigurationClassesIndexer();
+		this.compiler.getTask(types).call(processor);
+		return readGeneratedMetadata(this.compiler.getOutputLocation());
+	}
+
+	private List<ConfigurationClassMetadata> readGeneratedMetadata(File outputLocation) {
+		try {
+			File metadataFile = new File(outputLocation, ConfigurationClassesIndexer.METADATA_PATH);
+			if (metadataFile.isFile()) {
+				try (InputStream in = new FileInputStream(metadataFile)) {
+					return ConfigurationClassesMarshaller.read(in);
+				}
+			}
+			else {
+				return Collections.emptyList();
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to read metadata from disk", ex);
+		}
+	}
+
+}
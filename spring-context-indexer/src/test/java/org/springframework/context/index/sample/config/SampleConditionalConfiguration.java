@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.index.sample.SampleService;
+
+/**
+ * Test candidate for a configuration class that is not indexed
+ * due to a runtime condition.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Configuration
+@Profile("test")
+public class SampleConditionalConfiguration {
+
+	@Bean
+	public SampleService conditionalService() {
+		return new SampleService();
+	}
+
+}
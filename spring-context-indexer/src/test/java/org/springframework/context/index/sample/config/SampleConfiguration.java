@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample.config;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Description;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.index.sample.SampleService;
+
+/**
+ * Test candidate for an indexed configuration class.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@Configuration
+public class SampleConfiguration {
+
+	@Bean
+	@Primary
+	public SampleService sampleService() {
+		return new SampleService();
+	}
+
+	@Bean({"otherService", "otherServiceAlias"})
+	@Lazy
+	@Description("Other service")
+	public SampleService otherService() {
+		return new SampleService();
+	}
+
+	@Bean
+	@Scope("prototype")
+	public List<SampleService> serviceHolder() {
+		return Collections.singletonList(sampleService());
+	}
+
+	@Bean(initMethod = "toString", autowireCandidate = false)
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public static String staticBean() {
+		return "static";
+	}
+
+}
@@ -186,6 +186,16 @@ abstract class ConfigurationClassUtils {
 		}
 	}
 
+	/**
+	 * Mark the given bean definition as a full {@code @Configuration} class,
+	 * e.g. for a configuration class that has been indexed at build time.
+	 * @since 5.2
+	 * @see #isFullConfigurationClass
+	 */
+	public static void markAsFullConfigurationClass(BeanDefinition beanDef) {
+		beanDef.setAttribute(CONFIGURATION_CLASS_ATTRIBUTE, CONFIGURATION_CLASS_FULL);
+	}
+
 	/**
 	 * Determine whether the given bean definition indicates a full {@code @Configuration}
 	 * class, through checking {@link #checkConfigurationClassCandidate}'s metadata marker.
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Reader for the configuration classes index written at build time by the
+ * {@code ConfigurationClassesIndexer} annotation processor from
+ * {@code spring-context-indexer}, registering {@link RootBeanDefinition RootBeanDefinitions}
+ * for the indexed configuration classes and their {@code @Bean} methods without
+ * parsing the configuration classes through ASM or reflection.
+ *
+ * <p>Typically used against a
+ * {@link org.springframework.context.support.GenericApplicationContext} before its
+ * refresh, as an alternative to registering or scanning the indexed classes.
+ * Configuration classes registered this way are marked as already processed, so
+ * {@link ConfigurationClassPostProcessor} only enhances them but does not parse them
+ * again. Any configuration classes that were not eligible for indexing (e.g. due to
+ * {@code @Conditional} or {@code @Import} declarations) still need to be registered
+ * the regular way.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see AnnotatedBeanDefinitionReader
+ */
+public class IndexedConfigurationClassReader {
+
+	/**
+	 * The location to look for configuration class indexes.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String INDEX_RESOURCE_LOCATION = "META-INF/spring.configurations";
+
+	private static final int MAGIC = 0x53434349;
+
+	private static final int VERSION = 1;
+
+	private static final int LAZY_INIT = 1;
+
+	private static final int PRIMARY = 2;
+
+	private static final int STATIC_METHOD = 4;
+
+	private static final int NO_AUTOWIRE_CANDIDATE = 8;
+
+
+	private static final Log logger = LogFactory.getLog(IndexedConfigurationClassReader.class);
+
+	private final BeanDefinitionRegistry registry;
+
+
+	/**
+	 * Create a new {@code IndexedConfigurationClassReader} for the given registry,
+	 * registering the annotation config processors along with it.
+	 * @param registry the {@code BeanFactory} to load bean definitions into,
+	 * in the form of a {@code BeanDefinitionRegistry}
+	 */
+	public IndexedConfigurationClassReader(BeanDefinitionRegistry registry) {
+		Assert.notNull(registry, "BeanDefinitionRegistry must not be null");
+		this.registry = registry;
+		AnnotationConfigUtils.registerAnnotationConfigProcessors(this.registry);
+	}
+
+
+	/**
+	 * Return the BeanDefinitionRegistry that this reader operates on.
+	 */
+	public final BeanDefinitionRegistry getRegistry() {
+		return this.registry;
+	}
+
+
+	/**
+	 * Register bean definitions from all {@value #INDEX_RESOURCE_LOCATION}
+	 * indexes visible to the given class loader.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null}
+	 * to use the default)
+	 * @return the number of configuration classes registered
+	 * @throws BeanDefinitionStoreException in case of an unreadable index
+	 */
+	public int register(@Nullable ClassLoader classLoader) throws BeanDefinitionStoreException {
+		ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+		Assert.state(classLoaderToUse != null, "No ClassLoader available");
+		try {
+			int count = 0;
+			Enumeration<URL> urls = classLoaderToUse.getResources(INDEX_RESOURCE_LOCATION);
+			while (urls.hasMoreElements()) {
+				count += register(new UrlResource(urls.nextElement()));
+			}
+			return count;
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(
+					"Unable to load indexes from location [" + INDEX_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+	/**
+	 * Register bean definitions from the given configuration classes index.
+	 * @param resource the index resource
+	 * @return the number of configuration classes registered
+	 * @throws BeanDefinitionStoreException in case of an unreadable index
+	 */
+	public int register(Resource resource) throws BeanDefinitionStoreException {
+		try (InputStream is = resource.getInputStream()) {
+			DataInputStream dis = new DataInputStream(is);
+			if (dis.readInt() != MAGIC || dis.readShort() != VERSION) {
+				throw new BeanDefinitionStoreException(resource.getDescription(), "",
+						"Unsupported configuration classes index format");
+			}
+			int count = dis.readInt();
+			for (int i = 0; i < count; i++) {
+				registerConfigurationClass(dis, resource);
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Registered " + count + " indexed configuration classes from " + resource);
+			}
+			return count;
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("Failed to read configuration classes index " + resource, ex);
+		}
+	}
+
+	private void registerConfigurationClass(DataInputStream dis, Resource resource) throws IOException {
+		String className = dis.readUTF();
+		String configBeanName = dis.readUTF();
+		RootBeanDefinition configBeanDef = new RootBeanDefinition();
+		configBeanDef.setBeanClassName(className);
+		configBeanDef.setResource(resource);
+		readSettings(configBeanDef, dis.readByte(), dis);
+		ConfigurationClassUtils.markAsFullConfigurationClass(configBeanDef);
+		this.registry.registerBeanDefinition(configBeanName, configBeanDef);
+
+		int beanMethodCount = dis.readInt();
+		for (int i = 0; i < beanMethodCount; i++) {
+			registerBeanMethod(dis, resource, className, configBeanName);
+		}
+	}
+
+	@SuppressWarnings("deprecation")  // for RequiredAnnotationBeanPostProcessor.SKIP_REQUIRED_CHECK_ATTRIBUTE
+	private void registerBeanMethod(DataInputStream dis, Resource resource, String className, String configBeanName)
+			throws IOException {
+
+		String methodName = dis.readUTF();
+		int flags = dis.readByte();
+		IndexedBeanMethodDefinition beanDef = new IndexedBeanMethodDefinition(className);
+		beanDef.setResource(resource);
+		beanDef.setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		beanDef.setAttribute(org.springframework.beans.factory.annotation.RequiredAnnotationBeanPostProcessor.
+				SKIP_REQUIRED_CHECK_ATTRIBUTE, Boolean.TRUE);
+		readSettings(beanDef, flags, dis);
+
+		List<String> names = readStrings(dis);
+		String beanName = (!names.isEmpty() ? names.remove(0) : methodName);
+		if (beanName.equals(configBeanName)) {
+			throw new BeanDefinitionStoreException(resource.getDescription(), beanName,
+					"Bean name derived from @Bean method '" + methodName +
+					"' clashes with bean name for containing configuration class; please make those names unique!");
+		}
+		for (String alias : names) {
+			this.registry.registerAlias(beanName, alias);
+		}
+
+		if ((flags & STATIC_METHOD) != 0) {
+			beanDef.setBeanClassName(className);
+			beanDef.setFactoryMethodName(methodName);
+		}
+		else {
+			beanDef.setFactoryBeanName(configBeanName);
+			beanDef.setUniqueFactoryMethodName(methodName);
+		}
+		int autowireMode = dis.readByte();
+		if (autowireMode != AbstractBeanDefinition.AUTOWIRE_NO) {
+			beanDef.setAutowireMode(autowireMode);
+		}
+		if ((flags & NO_AUTOWIRE_CANDIDATE) != 0) {
+			beanDef.setAutowireCandidate(false);
+		}
+		String initMethodName = dis.readUTF();
+		if (StringUtils.hasText(initMethodName)) {
+			beanDef.setInitMethodName(initMethodName);
+		}
+		beanDef.setDestroyMethodName(dis.readUTF());
+
+		if (isOverriddenByExistingDefinition(beanName, className, resource)) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Skipping indexed bean definition for @Bean method " + className + "." +
+						methodName + "(): a definition for bean '" + beanName + "' already exists");
+			}
+			return;
+		}
+		this.registry.registerBeanDefinition(beanName, beanDef);
+	}
+
+	private boolean isOverriddenByExistingDefinition(String beanName, String className, Resource resource) {
+		if (!this.registry.containsBeanDefinition(beanName)) {
+			return false;
+		}
+		BeanDefinition existingBeanDef = this.registry.getBeanDefinition(beanName);
+
+		// Same rules as for regular @Bean methods: a definition created from another
+		// configuration class gets overridden, unless it comes from the same class
+		String existingClassName = getConfigurationClassName(existingBeanDef);
+		if (existingClassName != null) {
+			return existingClassName.equals(className);
+		}
+
+		// Silently override scanned components and framework-generated beans,
+		// let any other top-level definition win
+		if (existingBeanDef instanceof ScannedGenericBeanDefinition ||
+				existingBeanDef.getRole() > BeanDefinition.ROLE_APPLICATION) {
+			return false;
+		}
+		if (!isAllowBeanDefinitionOverriding()) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					beanName, "@Bean definition illegally overridden by existing bean definition: " + existingBeanDef);
+		}
+		return true;
+	}
+
+	private boolean isAllowBeanDefinitionOverriding() {
+		if (this.registry instanceof DefaultListableBeanFactory) {
+			return ((DefaultListableBeanFactory) this.registry).isAllowBeanDefinitionOverriding();
+		}
+		if (this.registry instanceof GenericApplicationContext) {
+			return ((GenericApplicationContext) this.registry).getDefaultListableBeanFactory()
+					.isAllowBeanDefinitionOverriding();
+		}
+		return true;
+	}
+
+	private void readSettings(AbstractBeanDefinition beanDef, int flags, DataInputStream dis) throws IOException {
+		String scope = dis.readUTF();
+		if (!scope.isEmpty()) {
+			beanDef.setScope(scope);
+		}
+		if ((flags & LAZY_INIT) != 0) {
+			beanDef.setLazyInit(true);
+		}
+		if ((flags & PRIMARY) != 0) {
+			beanDef.setPrimary(true);
+		}
+		List<String> dependsOn = readStrings(dis);
+		if (!dependsOn.isEmpty()) {
+			beanDef.setDependsOn(StringUtils.toStringArray(dependsOn));
+		}
+		beanDef.setRole(dis.readInt());
+		String description = dis.readUTF();
+		if (!description.isEmpty()) {
+			beanDef.setDescription(description);
+		}
+	}
+
+	private static List<String> readStrings(DataInputStream dis) throws IOException {
+		int count = dis.readShort();
+		List<String> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(dis.readUTF());
+		}
+		return result;
+	}
+
+	/**
+	 * Return the name of the configuration class that the given bean definition
+	 * was created from, through a regular or an indexed {@code @Bean} method.
+	 * @return the class name, or {@code null} if not created from a configuration class
+	 */
+	@Nullable
+	static String getConfigurationClassName(BeanDefinition beanDef) {
+		if (beanDef instanceof IndexedBeanMethodDefinition) {
+			return ((IndexedBeanMethodDefinition) beanDef).getConfigurationClassName();
+		}
+		if (beanDef instanceof ConfigurationClassBeanDefinitionReader.ConfigurationClassBeanDefinition) {
+			return ((ConfigurationClassBeanDefinitionReader.ConfigurationClassBeanDefinition) beanDef)
+					.getMetadata().getClassName();
+		}
+		return null;
+	}
+
+
+	/**
+	 * {@link RootBeanDefinition} marker subclass used to signify that a bean definition
+	 * was created from an indexed {@code @Bean} method, keeping track of the declaring
+	 * configuration class for bean overriding decisions.
+	 */
+	@SuppressWarnings("serial")
+	static class IndexedBeanMethodDefinition extends RootBeanDefinition {
+
+		private final String configurationClassName;
+
+		IndexedBeanMethodDefinition(String configurationClassName) {
+			this.configurationClassName = configurationClassName;
+		}
+
+		private IndexedBeanMethodDefinition(IndexedBeanMethodDefinition original) {
+			super(original);
+			this.configurationClassName = original.configurationClassName;
+		}
+
+		public String getConfigurationClassName() {
+			return this.configurationClassName;
+		}
+
+		@Override
+		public IndexedBeanMethodDefinition cloneBeanDefinition() {
+			return new IndexedBeanMethodDefinition(this);
+		}
+	}
+
+}
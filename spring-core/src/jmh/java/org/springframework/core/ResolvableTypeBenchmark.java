@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ResolvableType} creation and generics resolution.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forClass(Blackhole blackhole) {
+		blackhole.consume(ResolvableType.forClass(String.class));
+	}
+
+	@Benchmark
+	public void forClassWithImplementation(Blackhole blackhole) {
+		blackhole.consume(ResolvableType.forClass(List.class, StringList.class).resolveGeneric());
+	}
+
+	@Benchmark
+	public void forField(ResolvableTypeState state, Blackhole blackhole) {
+		blackhole.consume(ResolvableType.forField(state.field).resolveGeneric(1));
+	}
+
+	@Benchmark
+	public void forMethodReturnType(ResolvableTypeState state, Blackhole blackhole) {
+		blackhole.consume(ResolvableType.forMethodReturnType(state.method).resolveGeneric());
+	}
+
+	@Benchmark
+	public void asSuperType(Blackhole blackhole) {
+		blackhole.consume(ResolvableType.forClass(StringList.class).as(List.class).resolveGeneric());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ResolvableTypeState {
+
+		public Field field;
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.field = Holder.class.getField("map");
+			this.method = Holder.class.getMethod("list");
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class StringList extends ArrayList<String> {
+	}
+
+
+	public static class Holder {
+
+		public Map<String, Integer> map;
+
+		public List<String> list() {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AnnotationUtils} and {@link AnnotatedElementUtils}
+ * lookups of direct, meta-present and aliased annotations.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotationUtilsBenchmark {
+
+	@Benchmark
+	public void findAnnotationOnClass(Blackhole blackhole) {
+		blackhole.consume(AnnotationUtils.findAnnotation(AnnotatedClass.class, Base.class));
+	}
+
+	@Benchmark
+	public void findAnnotationOnSubclass(Blackhole blackhole) {
+		blackhole.consume(AnnotationUtils.findAnnotation(AnnotatedSubclass.class, Base.class));
+	}
+
+	@Benchmark
+	public void findAnnotationOnMethod(AnnotationState state, Blackhole blackhole) {
+		blackhole.consume(AnnotationUtils.findAnnotation(state.method, Base.class));
+	}
+
+	@Benchmark
+	public void findMissingAnnotation(Blackhole blackhole) {
+		blackhole.consume(AnnotationUtils.findAnnotation(AnnotatedSubclass.class, Missing.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationAttributes(Blackhole blackhole) {
+		blackhole.consume(AnnotatedElementUtils.findMergedAnnotationAttributes(
+				AnnotatedSubclass.class, Base.class, false, false));
+	}
+
+	@Benchmark
+	public void findMergedAnnotation(Blackhole blackhole) {
+		blackhole.consume(AnnotatedElementUtils.findMergedAnnotation(AnnotatedSubclass.class, Base.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class AnnotationState {
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.method = AnnotatedSubclass.class.getMethod("handle");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	public @interface Base {
+
+		@AliasFor("name")
+		String value() default "";
+
+		@AliasFor("value")
+		String name() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Base
+	public @interface Composed {
+
+		@AliasFor(annotation = Base.class, attribute = "name")
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	public @interface Missing {
+	}
+
+
+	@Composed("composed")
+	public static class AnnotatedClass {
+
+		@Composed("handle")
+		public void handle() {
+		}
+	}
+
+
+	public static class AnnotatedSubclass extends AnnotatedClass {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * Benchmarks for {@link GenericConversionService} converter lookup and conversion.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class GenericConversionServiceBenchmark {
+
+	@Benchmark
+	public void convertStringToInteger(ConversionState state, Blackhole blackhole) {
+		blackhole.consume(state.conversionService.convert("42", Integer.class));
+	}
+
+	@Benchmark
+	public void convertIntegerToString(ConversionState state, Blackhole blackhole) {
+		blackhole.consume(state.conversionService.convert(42, String.class));
+	}
+
+	@Benchmark
+	public void convertStringToEnum(ConversionState state, Blackhole blackhole) {
+		blackhole.consume(state.conversionService.convert("SECONDS", TimeUnit.class));
+	}
+
+	@Benchmark
+	public void convertListToSet(ConversionState state, Blackhole blackhole) {
+		blackhole.consume(state.conversionService.convert(
+				state.source, state.sourceDescriptor, state.targetDescriptor));
+	}
+
+	@Benchmark
+	public void canConvert(ConversionState state, Blackhole blackhole) {
+		blackhole.consume(state.conversionService.canConvert(String.class, Long.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ConversionState {
+
+		@Param({"false", "true"})
+		public boolean frozen;
+
+		public GenericConversionService conversionService;
+
+		public List<String> source;
+
+		public TypeDescriptor sourceDescriptor;
+
+		public TypeDescriptor targetDescriptor;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.conversionService = new DefaultConversionService();
+			if (this.frozen) {
+				this.conversionService.freeze();
+			}
+			this.source = Arrays.asList("1", "2", "3", "4", "5");
+			this.sourceDescriptor = TypeDescriptor.collection(List.class, TypeDescriptor.valueOf(String.class));
+			this.targetDescriptor = TypeDescriptor.collection(Set.class, TypeDescriptor.valueOf(Integer.class));
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void matchPatterns(PatternsState state, Blackhole blackhole) {
+		for (String pattern : state.patterns) {
+			for (String path : state.paths) {
+				blackhole.consume(state.pathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchPatternSet(PatternsState state, Blackhole blackhole) {
+		for (String path : state.paths) {
+			blackhole.consume(state.patternSet.getMatchingPatterns(path));
+		}
+	}
+
+	@Benchmark
+	public void matchManyPatterns(ManyPatternsState state, Blackhole blackhole) {
+		for (String pattern : state.patterns) {
+			blackhole.consume(state.pathMatcher.match(pattern, state.path));
+		}
+	}
+
+	@Benchmark
+	public void matchManyPatternsWithPatternSet(ManyPatternsState state, Blackhole blackhole) {
+		blackhole.consume(state.patternSet.getMatchingPatterns(state.path));
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(PatternsState state, Blackhole blackhole) {
+		blackhole.consume(state.pathMatcher.extractUriTemplateVariables(
+				"/hotels/{hotel}/bookings/{booking}", "/hotels/42/bookings/21"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsState {
+
+		@Param({"true", "false"})
+		public boolean cachePatterns;
+
+		public AntPathMatcher pathMatcher;
+
+		public List<String> patterns = new ArrayList<>();
+
+		public List<String> paths = new ArrayList<>();
+
+		public AntPathMatcher.PatternSet patternSet;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.pathMatcher = new AntPathMatcher();
+			this.pathMatcher.setCachePatterns(this.cachePatterns);
+			this.patterns.add("/");
+			this.patterns.add("/static/**");
+			this.patterns.add("/css/*.css");
+			this.patterns.add("/js/**/*.js");
+			this.patterns.add("/hotels/{hotel}");
+			this.patterns.add("/hotels/{hotel}/bookings/{booking}");
+			this.patterns.add("/api/v?/users/{id:\\d+}");
+			this.patterns.add("/**/*.html");
+			this.paths.add("/");
+			this.paths.add("/static/images/logo.png");
+			this.paths.add("/css/main.css");
+			this.paths.add("/js/vendor/lib/jquery.js");
+			this.paths.add("/hotels/42");
+			this.paths.add("/hotels/42/bookings/21");
+			this.paths.add("/api/v2/users/1234");
+			this.paths.add("/docs/reference/index.html");
+			this.patternSet = this.pathMatcher.createPatternSet(this.patterns);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ManyPatternsState {
+
+		@Param({"100", "5000"})
+		public int patternCount;
+
+		public AntPathMatcher pathMatcher = new AntPathMatcher();
+
+		public List<String> patterns = new ArrayList<>();
+
+		public AntPathMatcher.PatternSet patternSet;
+
+		public String path;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			for (int i = 0; i < this.patternCount; i++) {
+				this.patterns.add("/api/resource" + i + "/*");
+				this.patterns.add("/api/resource" + i + "/{id}/items");
+			}
+			this.patterns.add("/api/**");
+			this.patternSet = this.pathMatcher.createPatternSet(this.patterns);
+			this.path = "/api/resource" + (this.patternCount / 2) + "/42";
+		}
+	}
+
+}
@@ -21,6 +21,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -29,7 +30,9 @@ import java.lang.reflect.WildcardType;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.springframework.core.SerializableTypeWrapper.FieldTypeProvider;
 import org.springframework.core.SerializableTypeWrapper.MethodParameterTypeProvider;
@@ -82,6 +85,22 @@ import org.springframework.util.StringUtils;
 @SuppressWarnings("serial")
 public class ResolvableType implements Serializable {
 
+	/**
+	 * System property that specifies the maximum number of entries in each of
+	 * the internal {@code ResolvableType} caches: {@value #DEFAULT_CACHE_LIMIT}
+	 * by default.
+	 * <p>May alternatively be configured through a {@link SpringProperties} entry.
+	 * @since 5.2
+	 * @see #setCacheLimit
+	 */
+	public static final String CACHE_LIMIT_PROPERTY_NAME = "spring.resolvabletype.cache.limit";
+
+	/**
+	 * The default maximum number of entries in each of the internal caches.
+	 * @since 5.2
+	 */
+	public static final int DEFAULT_CACHE_LIMIT = 4096;
+
 	/**
 	 * {@code ResolvableType} returned when no value is available. {@code NONE} is used
 	 * in preference to {@code null} so that multiple method calls can be safely chained.
@@ -90,8 +109,16 @@ public class ResolvableType implements Serializable {
 
 	private static final ResolvableType[] EMPTY_TYPES_ARRAY = new ResolvableType[0];
 
-	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
-			new ConcurrentReferenceHashMap<>(256);
+	private static volatile int cacheLimit = determineCacheLimit();
+
+	/** Cache for resolved generic types, keyed by a probe instance. */
+	private static final TypeCache<ResolvableType> cache = new TypeCache<>();
+
+	/** Cache for plain class wrappers, allowing for allocation-free lookups. */
+	private static final TypeCache<Class<?>> classCache = new TypeCache<>();
+
+	/** Cache for field types and method return types, allowing for allocation-free lookups. */
+	private static final TypeCache<Member> memberCache = new TypeCache<>();
 
 
 	/**
@@ -988,7 +1015,13 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		Class<?> key = (clazz != null ? clazz : Object.class);
+		ResolvableType resolvableType = classCache.get(key);
+		if (resolvableType == null) {
+			resolvableType = new ResolvableType(key);
+			classCache.put(key, resolvableType);
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1108,7 +1141,12 @@ public class ResolvableType implements Serializable {
 	 */
 	public static ResolvableType forField(Field field) {
 		Assert.notNull(field, "Field must not be null");
-		return forType(null, new FieldTypeProvider(field), null);
+		ResolvableType resolvableType = memberCache.get(field);
+		if (resolvableType == null) {
+			resolvableType = forType(null, new FieldTypeProvider(field), null);
+			memberCache.put(field, resolvableType);
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1215,7 +1253,12 @@ public class ResolvableType implements Serializable {
 	 */
 	public static ResolvableType forMethodReturnType(Method method) {
 		Assert.notNull(method, "Method must not be null");
-		return forMethodParameter(new MethodParameter(method, -1));
+		ResolvableType resolvableType = memberCache.get(method);
+		if (resolvableType == null) {
+			resolvableType = forMethodParameter(new MethodParameter(method, -1));
+			memberCache.put(method, resolvableType);
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1407,6 +1450,10 @@ public class ResolvableType implements Serializable {
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
+			if (typeProvider == null && variableResolver == null) {
+				// Plain class wrapper: shared instance from the class cache
+				return forClass((Class<?>) type);
+			}
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
@@ -1430,9 +1477,53 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		classCache.clear();
+		memberCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
+	/**
+	 * Specify the maximum number of entries in each of the internal caches,
+	 * overriding the {@link #CACHE_LIMIT_PROPERTY_NAME} system property.
+	 * <p>Once a cache exceeds this limit, a quarter of its entries gets evicted.
+	 * @param cacheLimit the maximum number of entries per cache
+	 * @since 5.2
+	 * @see #getCacheStatistics()
+	 */
+	public static void setCacheLimit(int cacheLimit) {
+		Assert.isTrue(cacheLimit > 0, "Cache limit must be greater than 0");
+		ResolvableType.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return a snapshot of the hit, miss and eviction counts of the internal
+	 * caches, accumulated since startup.
+	 * @since 5.2
+	 */
+	public static CacheStatistics getCacheStatistics() {
+		return new CacheStatistics(
+				cache.hits.sum() + classCache.hits.sum() + memberCache.hits.sum(),
+				cache.misses.sum() + classCache.misses.sum() + memberCache.misses.sum(),
+				cache.evictions.sum() + classCache.evictions.sum() + memberCache.evictions.sum(),
+				cache.size() + classCache.size() + memberCache.size());
+	}
+
+	private static int determineCacheLimit() {
+		String cacheLimit = SpringProperties.getProperty(CACHE_LIMIT_PROPERTY_NAME);
+		if (cacheLimit != null) {
+			try {
+				int limit = Integer.parseInt(cacheLimit.trim());
+				if (limit > 0) {
+					return limit;
+				}
+			}
+			catch (NumberFormatException ex) {
+				// fall through to default
+			}
+		}
+		return DEFAULT_CACHE_LIMIT;
+	}
+
 
 	/**
 	 * Strategy interface used to resolve {@link TypeVariable TypeVariables}.
@@ -1656,6 +1747,116 @@ public class ResolvableType implements Serializable {
 	}
 
 
+	/**
+	 * Statistics for the internal {@code ResolvableType} caches.
+	 * @since 5.2
+	 * @see ResolvableType#getCacheStatistics()
+	 */
+	public static final class CacheStatistics {
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		private final int size;
+
+		CacheStatistics(long hitCount, long missCount, long evictionCount, int size) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.size = size;
+		}
+
+		/**
+		 * Return the number of lookups that found a cached type.
+		 */
+		public long getHitCount() {
+			return this.hitCount;
+		}
+
+		/**
+		 * Return the number of lookups that required resolving a type.
+		 */
+		public long getMissCount() {
+			return this.missCount;
+		}
+
+		/**
+		 * Return the number of entries evicted due to the cache limit.
+		 */
+		public long getEvictionCount() {
+			return this.evictionCount;
+		}
+
+		/**
+		 * Return the current number of cached entries across all caches.
+		 */
+		public int getSize() {
+			return this.size;
+		}
+
+		@Override
+		public String toString() {
+			return "ResolvableType cache: " + this.size + " entries, " + this.hitCount + " hits, " +
+					this.missCount + " misses, " + this.evictionCount + " evictions";
+		}
+	}
+
+
+	/**
+	 * Internal cache of resolved types with soft references, bounded by the
+	 * configured {@link #setCacheLimit cache limit} and counting lookups.
+	 */
+	private static final class TypeCache<K> {
+
+		private final ConcurrentReferenceHashMap<K, ResolvableType> map = new ConcurrentReferenceHashMap<>(256);
+
+		final LongAdder hits = new LongAdder();
+
+		final LongAdder misses = new LongAdder();
+
+		final LongAdder evictions = new LongAdder();
+
+		@Nullable
+		ResolvableType get(K key) {
+			ResolvableType value = this.map.get(key);
+			(value != null ? this.hits : this.misses).increment();
+			return value;
+		}
+
+		void put(K key, ResolvableType value) {
+			this.map.put(key, value);
+			int limit = cacheLimit;
+			if (this.map.size() > limit) {
+				evict(limit - limit / 4);
+			}
+		}
+
+		private void evict(int targetSize) {
+			Iterator<K> it = this.map.keySet().iterator();
+			while (this.map.size() > targetSize && it.hasNext()) {
+				it.next();
+				it.remove();
+				this.evictions.increment();
+			}
+		}
+
+		void purgeUnreferencedEntries() {
+			this.map.purgeUnreferencedEntries();
+		}
+
+		int size() {
+			return this.map.size();
+		}
+
+		void clear() {
+			this.map.clear();
+		}
+	}
+
+
 	/**
 	 * Internal {@link Type} used to represent an empty value.
 	 */
@@ -178,23 +178,7 @@ public abstract class AnnotatedElementUtils {
 		if (composed == null) {
 			return Collections.emptySet();
 		}
-
-		try {
-			final Set<String> types = new LinkedHashSet<>();
-			searchWithGetSemantics(composed.annotationType(), Collections.emptySet(), null, null, new SimpleAnnotationProcessor<Object>(true) {
-					@Override
-					@Nullable
-					public Object process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-						types.add(annotation.annotationType().getName());
-						return CONTINUE;
-					}
-				}, new HashSet<>(), 1);
-			return types;
-		}
-		catch (Throwable ex) {
-			AnnotationUtils.rethrowAnnotationConfigurationException(ex);
-			throw new IllegalStateException("Failed to introspect annotations on " + element, ex);
-		}
+		return new LinkedHashSet<>(AnnotationTypeMapping.forAnnotationType(composed.annotationType()).getMetaAnnotationTypes());
 	}
 
 	/**
@@ -232,14 +216,9 @@ public abstract class AnnotatedElementUtils {
 	private static boolean hasMetaAnnotationTypes(
 			AnnotatedElement element, @Nullable Class<? extends Annotation> annotationType, @Nullable String annotationName) {
 
-		return Boolean.TRUE.equals(
-			searchWithGetSemantics(element, annotationType, annotationName, new SimpleAnnotationProcessor<Boolean>() {
-				@Override
-				@Nullable
-				public Boolean process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-					return (metaDepth > 0 ? Boolean.TRUE : CONTINUE);
-				}
-			}));
+		MergedAnnotationMetadata metadata = MergedAnnotationMetadata.from(element);
+		return (annotationType != null ? metadata.isMetaPresent(annotationType) :
+				annotationName != null && metadata.isMetaPresent(annotationName));
 	}
 
 	/**
@@ -261,7 +240,7 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return MergedAnnotationMetadata.from(element).isPresent(annotationType);
 	}
 
 	/**
@@ -277,7 +256,7 @@ public abstract class AnnotatedElementUtils {
 	 * @return {@code true} if a matching annotation is present
 	 */
 	public static boolean isAnnotated(AnnotatedElement element, String annotationName) {
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, null, annotationName, alwaysTrueAnnotationProcessor));
+		return MergedAnnotationMetadata.from(element).isPresent(annotationName);
 	}
 
 	/**
@@ -301,10 +280,7 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(
 			AnnotatedElement element, Class<? extends Annotation> annotationType) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor());
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
-		return attributes;
+		return MergedAnnotationMetadata.from(element).getMergedAnnotationAttributes(annotationType, false, false);
 	}
 
 	/**
@@ -360,10 +336,8 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		return MergedAnnotationMetadata.from(element).getMergedAnnotationAttributes(
+				annotationName, classValuesAsString, nestedAnnotationsAsMap);
 	}
 
 	/**
@@ -1534,10 +1508,6 @@ public abstract class AnnotatedElementUtils {
 
 		private final List<AnnotationAttributes> aggregatedResults;
 
-		MergedAnnotationAttributesProcessor() {
-			this(false, false, false);
-		}
-
 		MergedAnnotationAttributesProcessor(boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 			this(classValuesAsString, nestedAnnotationsAsMap, false);
 		}
@@ -1575,69 +1545,9 @@ public abstract class AnnotatedElementUtils {
 
 		@Override
 		public void postProcess(@Nullable AnnotatedElement element, Annotation annotation, AnnotationAttributes attributes) {
-			annotation = AnnotationUtils.synthesizeAnnotation(annotation, element);
-			Class<? extends Annotation> targetAnnotationType = attributes.annotationType();
-
-			// Track which attribute values have already been replaced so that we can short
-			// circuit the search algorithms.
-			Set<String> valuesAlreadyReplaced = new HashSet<>();
-
-			for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotation.annotationType())) {
-				String attributeName = attributeMethod.getName();
-				String attributeOverrideName = AnnotationUtils.getAttributeOverrideName(attributeMethod, targetAnnotationType);
-
-				// Explicit annotation attribute override declared via @AliasFor
-				if (attributeOverrideName != null) {
-					if (valuesAlreadyReplaced.contains(attributeOverrideName)) {
-						continue;
-					}
-
-					List<String> targetAttributeNames = new ArrayList<>();
-					targetAttributeNames.add(attributeOverrideName);
-					valuesAlreadyReplaced.add(attributeOverrideName);
-
-					// Ensure all aliased attributes in the target annotation are overridden. (SPR-14069)
-					List<String> aliases = AnnotationUtils.getAttributeAliasMap(targetAnnotationType).get(attributeOverrideName);
-					if (aliases != null) {
-						for (String alias : aliases) {
-							if (!valuesAlreadyReplaced.contains(alias)) {
-								targetAttributeNames.add(alias);
-								valuesAlreadyReplaced.add(alias);
-							}
-						}
-					}
-
-					overrideAttributes(element, annotation, attributes, attributeName, targetAttributeNames);
-				}
-				// Implicit annotation attribute override based on convention
-				else if (!AnnotationUtils.VALUE.equals(attributeName) && attributes.containsKey(attributeName)) {
-					overrideAttribute(element, annotation, attributes, attributeName, attributeName);
-				}
-			}
-		}
-
-		private void overrideAttributes(@Nullable AnnotatedElement element, Annotation annotation,
-				AnnotationAttributes attributes, String sourceAttributeName, List<String> targetAttributeNames) {
-
-			Object adaptedValue = getAdaptedValue(element, annotation, sourceAttributeName);
-
-			for (String targetAttributeName : targetAttributeNames) {
-				attributes.put(targetAttributeName, adaptedValue);
-			}
-		}
-
-		private void overrideAttribute(@Nullable AnnotatedElement element, Annotation annotation,
-				AnnotationAttributes attributes, String sourceAttributeName, String targetAttributeName) {
-
-			attributes.put(targetAttributeName, getAdaptedValue(element, annotation, sourceAttributeName));
-		}
-
-		@Nullable
-		private Object getAdaptedValue(
-				@Nullable AnnotatedElement element, Annotation annotation, String sourceAttributeName) {
-
-			Object value = AnnotationUtils.getValue(annotation, sourceAttributeName);
-			return AnnotationUtils.adaptValue(element, value, this.classValuesAsString, this.nestedAnnotationsAsMap);
+			// Precomputed alias mirrors and attribute overrides, without synthesizing the annotation
+			AnnotationTypeMapping.forAnnotationType(annotation.annotationType()).applyOverrides(
+					element, annotation, attributes, this.classValuesAsString, this.nestedAnnotationsAsMap);
 		}
 	}
 
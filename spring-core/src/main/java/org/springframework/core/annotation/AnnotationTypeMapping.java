@@ -0,0 +1,275 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Precomputed, immutable alias and override information for a given annotation type,
+ * allowing attribute values to be resolved and merged into the attributes of a
+ * meta-annotation without synthesizing annotation proxies.
+ *
+ * <p>Alias mirrors within the annotation type (attributes declared as aliases for
+ * each other via {@link AliasFor @AliasFor}) are resolved once per type, as are the
+ * explicit and convention-based attribute overrides for each meta-annotation type.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see MergedAnnotationMetadata
+ */
+final class AnnotationTypeMapping {
+
+	private static final Map<Class<? extends Annotation>, AnnotationTypeMapping> cache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
+	private final Class<? extends Annotation> annotationType;
+
+	private final Map<String, Method> attributeMethods;
+
+	private final Map<String, List<String>> mirrors;
+
+	private final Map<Class<? extends Annotation>, AttributeOverride[]> overrides = new ConcurrentHashMap<>(8);
+
+	@Nullable
+	private volatile Set<String> metaAnnotationTypes;
+
+
+	private AnnotationTypeMapping(Class<? extends Annotation> annotationType) {
+		this.annotationType = annotationType;
+		List<Method> methods = AnnotationUtils.getAttributeMethods(annotationType);
+		Map<String, Method> attributeMethods = new LinkedHashMap<>(methods.size());
+		for (Method method : methods) {
+			attributeMethods.put(method.getName(), method);
+		}
+		this.attributeMethods = attributeMethods;
+		this.mirrors = AnnotationUtils.getAttributeAliasMap(annotationType);
+	}
+
+
+	/**
+	 * Return the annotation type that this mapping has been built for.
+	 */
+	public Class<? extends Annotation> getAnnotationType() {
+		return this.annotationType;
+	}
+
+	/**
+	 * Return the value of the specified attribute of the given annotation,
+	 * falling back to the value of an alias mirror if the attribute itself
+	 * has not been declared with an explicit value: analogous to a synthesized
+	 * annotation but without creating a proxy for it.
+	 * @param annotation the annotation instance (of the type of this mapping)
+	 * @param attributeName the name of the attribute
+	 * @param annotatedElement the element that is annotated with the given
+	 * annotation, used for contextual exception messages; may be {@code null}
+	 * @return the attribute value, or {@code null} if not found
+	 * @throws AnnotationConfigurationException if the attribute and one of its
+	 * mirrors are declared with different values
+	 */
+	@Nullable
+	public Object getAttributeValue(Annotation annotation, String attributeName, @Nullable Object annotatedElement) {
+		Object value = AnnotationUtils.getValue(annotation, attributeName);
+		List<String> mirrorNames = this.mirrors.get(attributeName);
+		if (mirrorNames == null) {
+			return value;
+		}
+		Method attributeMethod = this.attributeMethods.get(attributeName);
+		Object defaultValue = (attributeMethod != null ? attributeMethod.getDefaultValue() : null);
+		for (String mirrorName : mirrorNames) {
+			Object mirrorValue = AnnotationUtils.getValue(annotation, mirrorName);
+			if (!ObjectUtils.nullSafeEquals(value, mirrorValue) &&
+					!ObjectUtils.nullSafeEquals(value, defaultValue) &&
+					!ObjectUtils.nullSafeEquals(mirrorValue, defaultValue)) {
+				String elementName = (annotatedElement != null ? annotatedElement.toString() : "unknown element");
+				throw new AnnotationConfigurationException(String.format(
+						"In annotation [%s] declared on %s, attribute '%s' and its alias '%s' are present " +
+						"with values of [%s] and [%s], but only one is permitted.",
+						this.annotationType.getName(), elementName, attributeName, mirrorName,
+						ObjectUtils.nullSafeToString(value), ObjectUtils.nullSafeToString(mirrorValue)));
+			}
+			if (ObjectUtils.nullSafeEquals(value, defaultValue)) {
+				value = mirrorValue;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Merge the attribute values of the given annotation into the given attributes of
+	 * one of its meta-annotations, according to explicit {@link AliasFor @AliasFor}
+	 * overrides as well as convention-based overrides (attributes of the same name,
+	 * except for {@code value}).
+	 * @param annotatedElement the element that is annotated with the given annotation,
+	 * used for contextual logging; may be {@code null} if unknown
+	 * @param annotation the annotation instance (of the type of this mapping)
+	 * @param attributes the attributes of the meta-annotation to override
+	 * @param classValuesAsString whether to convert Class references into Strings
+	 * @param nestedAnnotationsAsMap whether to convert nested Annotation instances
+	 * into {@code AnnotationAttributes} maps
+	 */
+	public void applyOverrides(@Nullable Object annotatedElement, Annotation annotation,
+			AnnotationAttributes attributes, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		Class<? extends Annotation> targetAnnotationType = attributes.annotationType();
+		if (targetAnnotationType == null) {
+			return;
+		}
+		AttributeOverride[] overrides = this.overrides.get(targetAnnotationType);
+		if (overrides == null) {
+			overrides = computeOverrides(targetAnnotationType);
+			this.overrides.put(targetAnnotationType, overrides);
+		}
+		for (AttributeOverride override : overrides) {
+			Object value = getAttributeValue(annotation, override.sourceAttributeName, annotatedElement);
+			Object adaptedValue = AnnotationUtils.adaptValue(
+					annotatedElement, value, classValuesAsString, nestedAnnotationsAsMap);
+			for (String targetAttributeName : override.targetAttributeNames) {
+				attributes.put(targetAttributeName, adaptedValue);
+			}
+		}
+	}
+
+	private AttributeOverride[] computeOverrides(Class<? extends Annotation> targetAnnotationType) {
+		Set<String> targetAttributeNames = forAnnotationType(targetAnnotationType).attributeMethods.keySet();
+		Map<String, List<String>> targetMirrors = AnnotationUtils.getAttributeAliasMap(targetAnnotationType);
+		List<AttributeOverride> overrides = new ArrayList<>();
+		Set<String> valuesAlreadyReplaced = new HashSet<>();
+		for (Method attributeMethod : this.attributeMethods.values()) {
+			String attributeName = attributeMethod.getName();
+			String attributeOverrideName = AnnotationUtils.getAttributeOverrideName(attributeMethod, targetAnnotationType);
+			// Explicit annotation attribute override declared via @AliasFor
+			if (attributeOverrideName != null) {
+				if (valuesAlreadyReplaced.contains(attributeOverrideName)) {
+					continue;
+				}
+				List<String> names = new ArrayList<>();
+				names.add(attributeOverrideName);
+				valuesAlreadyReplaced.add(attributeOverrideName);
+				// Ensure all aliased attributes in the target annotation are overridden. (SPR-14069)
+				List<String> aliases = targetMirrors.get(attributeOverrideName);
+				if (aliases != null) {
+					for (String alias : aliases) {
+						if (valuesAlreadyReplaced.add(alias)) {
+							names.add(alias);
+						}
+					}
+				}
+				overrides.add(new AttributeOverride(attributeName, names));
+			}
+			// Implicit annotation attribute override based on convention
+			else if (!AnnotationUtils.VALUE.equals(attributeName) && targetAttributeNames.contains(attributeName)) {
+				overrides.add(new AttributeOverride(attributeName, Collections.singletonList(attributeName)));
+			}
+		}
+		return overrides.toArray(new AttributeOverride[0]);
+	}
+
+	/**
+	 * Return the fully qualified class names of all meta-annotation types present
+	 * on the annotation type of this mapping, in the order of a depth-first search.
+	 */
+	public Set<String> getMetaAnnotationTypes() {
+		Set<String> metaAnnotationTypes = this.metaAnnotationTypes;
+		if (metaAnnotationTypes == null) {
+			Set<String> types = new LinkedHashSet<>();
+			collectMetaAnnotationTypes(this.annotationType, types, new HashSet<>());
+			metaAnnotationTypes = Collections.unmodifiableSet(types);
+			this.metaAnnotationTypes = metaAnnotationTypes;
+		}
+		return metaAnnotationTypes;
+	}
+
+	private static void collectMetaAnnotationTypes(Class<? extends Annotation> annotationType,
+			Set<String> types, Set<Class<?>> visited) {
+
+		if (!visited.add(annotationType)) {
+			return;
+		}
+		try {
+			Annotation[] metaAnnotations = AnnotationUtils.getDeclaredAnnotations(annotationType);
+			for (Annotation metaAnnotation : metaAnnotations) {
+				if (!AnnotationUtils.isInJavaLangAnnotationPackage(metaAnnotation)) {
+					types.add(metaAnnotation.annotationType().getName());
+				}
+			}
+			for (Annotation metaAnnotation : metaAnnotations) {
+				Class<? extends Annotation> metaAnnotationType = metaAnnotation.annotationType();
+				if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(metaAnnotationType)) {
+					collectMetaAnnotationTypes(metaAnnotationType, types, visited);
+				}
+			}
+		}
+		catch (Throwable ex) {
+			AnnotationUtils.handleIntrospectionFailure(annotationType, ex);
+		}
+	}
+
+
+	/**
+	 * Return the mapping for the given annotation type.
+	 * @param annotationType the annotation type to introspect
+	 * @return the corresponding (potentially cached) mapping
+	 */
+	public static AnnotationTypeMapping forAnnotationType(Class<? extends Annotation> annotationType) {
+		AnnotationTypeMapping mapping = cache.get(annotationType);
+		if (mapping == null) {
+			mapping = new AnnotationTypeMapping(annotationType);
+			cache.put(annotationType, mapping);
+		}
+		return mapping;
+	}
+
+	/**
+	 * Clear the internal annotation type mapping cache.
+	 */
+	static void clearCache() {
+		cache.clear();
+	}
+
+
+	/**
+	 * An attribute of an annotation overriding one or more attributes
+	 * of a meta-annotation.
+	 */
+	private static final class AttributeOverride {
+
+		final String sourceAttributeName;
+
+		final List<String> targetAttributeNames;
+
+		AttributeOverride(String sourceAttributeName, List<String> targetAttributeNames) {
+			this.sourceAttributeName = sourceAttributeName;
+			this.targetAttributeNames = targetAttributeNames;
+		}
+	}
+
+}
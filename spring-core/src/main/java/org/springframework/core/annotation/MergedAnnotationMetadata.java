@@ -0,0 +1,337 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Immutable index of the annotations <em>present</em> on an {@link AnnotatedElement},
+ * covering directly declared and inherited annotations as well as their
+ * meta-annotations, built in a single pass over the annotation hierarchy.
+ *
+ * <p>Follows the <em>get semantics</em> of {@link AnnotatedElementUtils}: the index
+ * records each annotation in the order in which a search for it would encounter
+ * it, along with the path of composed annotations leading to it. Merged attributes
+ * are computed from that path via precomputed alias mirrors and attribute overrides,
+ * reading the attribute values of the underlying annotations directly rather than
+ * through synthesized annotation proxies.
+ *
+ * <p>Instances for classes and class members are cached; use {@link #from} for
+ * retrieving the index for a given element.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see AnnotatedElementUtils#isAnnotated
+ * @see AnnotatedElementUtils#hasMetaAnnotationTypes
+ * @see AnnotatedElementUtils#getMergedAnnotationAttributes
+ */
+public final class MergedAnnotationMetadata {
+
+	private static final Map<AnnotatedElement, MergedAnnotationMetadata> cache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	private static final Entry[] NO_ENTRIES = new Entry[0];
+
+
+	private final AnnotatedElement element;
+
+	private final Entry[] entries;
+
+
+	private MergedAnnotationMetadata(AnnotatedElement element, Entry[] entries) {
+		this.element = element;
+		this.entries = entries;
+	}
+
+
+	/**
+	 * Return the element that this metadata has been built for.
+	 */
+	public AnnotatedElement getElement() {
+		return this.element;
+	}
+
+	/**
+	 * Return the fully qualified class names of all annotation types present on
+	 * the element, either directly or as meta-annotations, in search order.
+	 */
+	public Set<String> getAnnotationTypes() {
+		Set<String> types = new LinkedHashSet<>(this.entries.length);
+		for (Entry entry : this.entries) {
+			types.add(entry.annotation.annotationType().getName());
+		}
+		return types;
+	}
+
+	/**
+	 * Determine whether an annotation of the given type is present on the
+	 * element, either directly or as a meta-annotation.
+	 * @param annotationType the annotation type to check
+	 */
+	public boolean isPresent(Class<? extends Annotation> annotationType) {
+		return (findEntry(annotationType, null, 0) != null);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type is present on the
+	 * element, either directly or as a meta-annotation.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 */
+	public boolean isPresent(String annotationName) {
+		return (findEntry(null, annotationName, 0) != null);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type is present on the
+	 * element as a meta-annotation, i.e. on a composed annotation.
+	 * @param annotationType the meta-annotation type to check
+	 */
+	public boolean isMetaPresent(Class<? extends Annotation> annotationType) {
+		return (findEntry(annotationType, null, 1) != null);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type is present on the
+	 * element as a meta-annotation, i.e. on a composed annotation.
+	 * @param annotationName the fully qualified class name of the meta-annotation type
+	 */
+	public boolean isMetaPresent(String annotationName) {
+		return (findEntry(null, annotationName, 1) != null);
+	}
+
+	/**
+	 * Get the attributes of the first annotation of the given type in search order,
+	 * merged with the <em>matching</em> attributes from the composed annotations in
+	 * lower levels of the annotation hierarchy.
+	 * @param annotationType the annotation type to find
+	 * @param classValuesAsString whether to convert Class references into Strings or to
+	 * preserve them as Class references
+	 * @param nestedAnnotationsAsMap whether to convert nested Annotation instances
+	 * into {@code AnnotationAttributes} maps or to preserve them as Annotation instances
+	 * @return the merged {@code AnnotationAttributes}, or {@code null} if not found
+	 */
+	@Nullable
+	public AnnotationAttributes getMergedAnnotationAttributes(Class<? extends Annotation> annotationType,
+			boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		return getMergedAnnotationAttributes(annotationType, null, classValuesAsString, nestedAnnotationsAsMap);
+	}
+
+	/**
+	 * Get the attributes of the first annotation of the given type in search order,
+	 * merged with the <em>matching</em> attributes from the composed annotations in
+	 * lower levels of the annotation hierarchy.
+	 * @param annotationName the fully qualified class name of the annotation type to find
+	 * @param classValuesAsString whether to convert Class references into Strings or to
+	 * preserve them as Class references
+	 * @param nestedAnnotationsAsMap whether to convert nested Annotation instances
+	 * into {@code AnnotationAttributes} maps or to preserve them as Annotation instances
+	 * @return the merged {@code AnnotationAttributes}, or {@code null} if not found
+	 */
+	@Nullable
+	public AnnotationAttributes getMergedAnnotationAttributes(String annotationName,
+			boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		return getMergedAnnotationAttributes(null, annotationName, classValuesAsString, nestedAnnotationsAsMap);
+	}
+
+	@Nullable
+	private AnnotationAttributes getMergedAnnotationAttributes(@Nullable Class<? extends Annotation> annotationType,
+			@Nullable String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		for (Entry entry : this.entries) {
+			if (!entry.matches(annotationType, annotationName, 0)) {
+				continue;
+			}
+			AnnotationAttributes attributes;
+			try {
+				attributes = AnnotationUtils.retrieveAnnotationAttributes(entry.declaringElement, entry.annotation,
+						classValuesAsString, nestedAnnotationsAsMap);
+				for (Entry source = entry.source; source != null; source = source.source) {
+					AnnotationTypeMapping.forAnnotationType(source.annotation.annotationType()).applyOverrides(
+							source.declaringElement, source.annotation, attributes,
+							classValuesAsString, nestedAnnotationsAsMap);
+				}
+			}
+			catch (Throwable ex) {
+				// Unresolvable attribute values: continue with the next candidate, as a search would
+				AnnotationUtils.handleIntrospectionFailure(entry.declaringElement, ex);
+				continue;
+			}
+			AnnotationUtils.postProcessAnnotationAttributes(
+					this.element, attributes, classValuesAsString, nestedAnnotationsAsMap);
+			return attributes;
+		}
+		return null;
+	}
+
+	@Nullable
+	private Entry findEntry(@Nullable Class<? extends Annotation> annotationType,
+			@Nullable String annotationName, int minMetaDepth) {
+
+		for (Entry entry : this.entries) {
+			if (entry.matches(annotationType, annotationName, minMetaDepth)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return "MergedAnnotationMetadata for " + this.element + ": " + getAnnotationTypes();
+	}
+
+
+	/**
+	 * Return the (potentially cached) annotation metadata for the given element.
+	 * @param element the annotated element
+	 * @return the corresponding {@code MergedAnnotationMetadata} (never {@code null})
+	 */
+	public static MergedAnnotationMetadata from(AnnotatedElement element) {
+		Assert.notNull(element, "AnnotatedElement must not be null");
+		boolean cacheable = (element instanceof Class || element instanceof Member);
+		MergedAnnotationMetadata metadata = (cacheable ? cache.get(element) : null);
+		if (metadata == null) {
+			metadata = introspect(element);
+			if (cacheable) {
+				cache.put(element, metadata);
+			}
+		}
+		return metadata;
+	}
+
+	/**
+	 * Clear the internal annotation metadata cache.
+	 */
+	public static void clearCache() {
+		cache.clear();
+		AnnotationTypeMapping.clearCache();
+	}
+
+	private static MergedAnnotationMetadata introspect(AnnotatedElement element) {
+		try {
+			List<Entry> entries = new ArrayList<>();
+			collect(element, null, entries, new HashSet<>(), 0);
+			return new MergedAnnotationMetadata(element, entries.toArray(NO_ENTRIES));
+		}
+		catch (Throwable ex) {
+			AnnotationUtils.rethrowAnnotationConfigurationException(ex);
+			throw new IllegalStateException("Failed to introspect annotations on " + element, ex);
+		}
+	}
+
+	/**
+	 * Record the annotations on the given element in the same order as
+	 * {@link AnnotatedElementUtils}' search with get semantics encounters them:
+	 * local annotations before inherited annotations, and each list of
+	 * annotations before the meta-annotations on their types.
+	 */
+	private static void collect(AnnotatedElement element, @Nullable Entry source,
+			List<Entry> entries, Set<AnnotatedElement> visited, int metaDepth) {
+
+		if (!visited.add(element)) {
+			return;
+		}
+		try {
+			List<Annotation> declaredAnnotations = Arrays.asList(AnnotationUtils.getDeclaredAnnotations(element));
+			collect(element, declaredAnnotations, source, entries, visited, metaDepth);
+			if (element instanceof Class) {  // otherwise getAnnotations doesn't return anything new
+				Class<?> superclass = ((Class<?>) element).getSuperclass();
+				if (superclass != null && superclass != Object.class) {
+					List<Annotation> inheritedAnnotations = new ArrayList<>();
+					for (Annotation annotation : element.getAnnotations()) {
+						if (!declaredAnnotations.contains(annotation)) {
+							inheritedAnnotations.add(annotation);
+						}
+					}
+					collect(element, inheritedAnnotations, source, entries, visited, metaDepth);
+				}
+			}
+		}
+		catch (Throwable ex) {
+			AnnotationUtils.handleIntrospectionFailure(element, ex);
+		}
+	}
+
+	private static void collect(AnnotatedElement element, List<Annotation> annotations, @Nullable Entry source,
+			List<Entry> entries, Set<AnnotatedElement> visited, int metaDepth) {
+
+		List<Entry> candidates = new ArrayList<>(annotations.size());
+		for (Annotation annotation : annotations) {
+			if (!AnnotationUtils.isInJavaLangAnnotationPackage(annotation.annotationType())) {
+				Entry entry = new Entry(annotation, element, metaDepth, source);
+				entries.add(entry);
+				candidates.add(entry);
+			}
+		}
+		for (Entry entry : candidates) {
+			Class<? extends Annotation> annotationType = entry.annotation.annotationType();
+			if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(annotationType)) {
+				collect(annotationType, entry, entries, visited, metaDepth + 1);
+			}
+		}
+	}
+
+
+	/**
+	 * An annotation present on the element, along with the composed
+	 * annotation that it has been found on (if any).
+	 */
+	private static final class Entry {
+
+		final Annotation annotation;
+
+		final AnnotatedElement declaringElement;
+
+		final int metaDepth;
+
+		@Nullable
+		final Entry source;
+
+		Entry(Annotation annotation, AnnotatedElement declaringElement, int metaDepth, @Nullable Entry source) {
+			this.annotation = annotation;
+			this.declaringElement = declaringElement;
+			this.metaDepth = metaDepth;
+			this.source = source;
+		}
+
+		boolean matches(@Nullable Class<? extends Annotation> annotationType,
+				@Nullable String annotationName, int minMetaDepth) {
+
+			if (this.metaDepth < minMetaDepth) {
+				return false;
+			}
+			Class<? extends Annotation> type = this.annotation.annotationType();
+			return (annotationType != null ? type == annotationType : type.getName().equals(annotationName));
+		}
+	}
+
+}
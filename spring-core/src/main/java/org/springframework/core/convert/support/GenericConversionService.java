@@ -17,8 +17,12 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -59,6 +63,7 @@ import org.springframework.util.StringUtils;
  * @author Phillip Webb
  * @author David Haraburda
  * @since 3.0
+ * @see #freeze()
  */
 public class GenericConversionService implements ConfigurableConversionService {
 
@@ -73,11 +78,26 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	private static final GenericConverter NO_MATCH = new NoOpConverter("NO_MATCH");
 
+	/**
+	 * Value types commonly converted from and to, pre-resolved when frozen.
+	 */
+	private static final List<Class<?>> COMMON_VALUE_TYPES = Arrays.asList(
+			boolean.class, byte.class, char.class, double.class, float.class, int.class, long.class, short.class,
+			Boolean.class, Byte.class, Character.class, Double.class, Float.class, Integer.class, Long.class,
+			Short.class, BigDecimal.class, BigInteger.class, String.class);
+
 
 	private final Converters converters = new Converters();
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	/** Pre-resolved converters for plain class pairs, or {@code null} if not frozen. */
+	@Nullable
+	private volatile DispatchTable dispatchTable;
+
+	/** Synchronization monitor for rebuilding the dispatch table. */
+	private final Object dispatchMonitor = new Object();
+
 
 	// ConverterRegistry implementation
 
@@ -132,6 +152,13 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		DispatchTable dispatchTable = this.dispatchTable;
+		if (dispatchTable != null && sourceType != null) {
+			GenericConverter converter = dispatchTable.get(sourceType, targetType);
+			if (converter != null) {
+				return (converter != NO_MATCH);
+			}
+		}
 		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
 				TypeDescriptor.valueOf(targetType));
 	}
@@ -218,6 +245,40 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	// Frozen dispatch
+
+	/**
+	 * Freeze the current converter registrations into a pre-resolved dispatch table.
+	 * <p>The table holds the resolved converter for every registered source/target
+	 * pair as well as for their subtypes among common value types such as boxed
+	 * primitives and among the plain types looked up so far, e.g. String to Integer
+	 * for a String to Number converter, searching class hierarchies once, up front.
+	 * Subsequent lookups for descriptors without generics or annotations go against
+	 * the table, lock-free and without allocating a cache key; any other pairs are
+	 * resolved and cached as before.
+	 * <p>Converters may still be added or removed after freezing: the table
+	 * gets recomputed and replaced atomically on every change. It is therefore
+	 * recommended to freeze a conversion service once its configuration is complete.
+	 * @since 5.2
+	 * @see #isFrozen()
+	 */
+	public void freeze() {
+		synchronized (this.dispatchMonitor) {
+			this.dispatchTable = buildDispatchTable();
+		}
+	}
+
+	/**
+	 * Return whether this conversion service has been frozen into a pre-resolved
+	 * dispatch table.
+	 * @since 5.2
+	 * @see #freeze()
+	 */
+	public boolean isFrozen() {
+		return (this.dispatchTable != null);
+	}
+
+
 	// Protected template methods
 
 	/**
@@ -251,24 +312,23 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	@Nullable
 	protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		DispatchTable dispatchTable = this.dispatchTable;
+		if (dispatchTable != null && isPlainType(sourceType) && isPlainType(targetType)) {
+			GenericConverter converter = dispatchTable.get(sourceType.getType(), targetType.getType());
+			if (converter != null) {
+				return (converter != NO_MATCH ? converter : null);
+			}
+		}
+
 		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
 		GenericConverter converter = this.converterCache.get(key);
 		if (converter != null) {
 			return (converter != NO_MATCH ? converter : null);
 		}
 
-		converter = this.converters.find(sourceType, targetType);
-		if (converter == null) {
-			converter = getDefaultConverter(sourceType, targetType);
-		}
-
-		if (converter != null) {
-			this.converterCache.put(key, converter);
-			return converter;
-		}
-
-		this.converterCache.put(key, NO_MATCH);
-		return null;
+		converter = resolveConverter(sourceType, targetType);
+		this.converterCache.put(key, converter);
+		return (converter != NO_MATCH ? converter : null);
 	}
 
 	/**
@@ -302,8 +362,88 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return generics;
 	}
 
+	/**
+	 * Perform an exhaustive search for a matching converter, bypassing all caches.
+	 * @return the converter, or {@link #NO_MATCH} if none found
+	 */
+	private GenericConverter resolveConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		GenericConverter converter = this.converters.find(sourceType, targetType);
+		if (converter == null) {
+			converter = getDefaultConverter(sourceType, targetType);
+		}
+		return (converter != null ? converter : NO_MATCH);
+	}
+
 	private void invalidateCache() {
 		this.converterCache.clear();
+		synchronized (this.dispatchMonitor) {
+			DispatchTable dispatchTable = this.dispatchTable;
+			if (dispatchTable != null) {
+				this.dispatchTable = buildDispatchTable();
+			}
+		}
+	}
+
+	/**
+	 * Build a dispatch table for the closure of the registered pairs over a fixed
+	 * set of candidate classes: the registered source and target classes, common
+	 * value types, and the classes of plain-typed lookups cached so far. Each
+	 * candidate pair is resolved if its classes are assignable to a registered pair,
+	 * e.g. String to Integer for String to Number. Other pairs are left to the
+	 * converter cache, which does not hold on to their classes strongly.
+	 */
+	private DispatchTable buildDispatchTable() {
+		Set<ConvertiblePair> pairs = this.converters.getConvertiblePairs();
+		Set<Class<?>> candidates = new LinkedHashSet<>(COMMON_VALUE_TYPES);
+		for (ConvertiblePair pair : pairs) {
+			candidates.add(pair.getSourceType());
+			candidates.add(pair.getTargetType());
+		}
+		List<ConverterCacheKey> cachedKeys = new ArrayList<>(this.converterCache.keySet());
+		for (ConverterCacheKey key : cachedKeys) {
+			if (isPlainType(key.sourceType) && isPlainType(key.targetType)) {
+				candidates.add(key.sourceType.getType());
+				candidates.add(key.targetType.getType());
+			}
+		}
+		// Enum itself is never converted to, only its concrete subtypes,
+		// for which converter factories such as String to Enum are written
+		candidates.remove(Enum.class);
+
+		Map<Class<?>, Map<Class<?>, GenericConverter>> table = new HashMap<>(64);
+		for (ConvertiblePair pair : pairs) {
+			for (Class<?> sourceType : candidates) {
+				if (ClassUtils.isAssignable(pair.getSourceType(), sourceType)) {
+					for (Class<?> targetType : candidates) {
+						if (ClassUtils.isAssignable(pair.getTargetType(), targetType)) {
+							addToDispatchTable(table, sourceType, targetType);
+						}
+					}
+				}
+			}
+		}
+		return new DispatchTable(table);
+	}
+
+	private void addToDispatchTable(Map<Class<?>, Map<Class<?>, GenericConverter>> table,
+			Class<?> sourceType, Class<?> targetType) {
+
+		Map<Class<?>, GenericConverter> targets = table.computeIfAbsent(sourceType, key -> new HashMap<>(8));
+		if (!targets.containsKey(targetType)) {
+			targets.put(targetType, resolveConverter(TypeDescriptor.valueOf(sourceType), TypeDescriptor.valueOf(targetType)));
+		}
+	}
+
+	/**
+	 * Determine whether the given descriptor is equivalent to
+	 * {@link TypeDescriptor#valueOf} for its type, i.e. whether it carries
+	 * neither generics nor annotations that converters might match against.
+	 */
+	private static boolean isPlainType(TypeDescriptor typeDescriptor) {
+		// Raw class and generics rather than getType(), which is comparatively expensive
+		ResolvableType resolvableType = typeDescriptor.getResolvableType();
+		return (resolvableType.getRawClass() == typeDescriptor.getType() && !resolvableType.hasGenerics() &&
+				typeDescriptor.getAnnotations().length == 0);
 	}
 
 	@Nullable
@@ -494,6 +634,29 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Immutable table of pre-resolved converters, keyed by source class and target class.
+	 */
+	private static final class DispatchTable {
+
+		private final Map<Class<?>, Map<Class<?>, GenericConverter>> table;
+
+		DispatchTable(Map<Class<?>, Map<Class<?>, GenericConverter>> table) {
+			this.table = table;
+		}
+
+		/**
+		 * Return the pre-resolved converter for the given pair: {@code NO_MATCH}
+		 * if known to be unconvertible, or {@code null} if not in the table.
+		 */
+		@Nullable
+		GenericConverter get(Class<?> sourceType, Class<?> targetType) {
+			Map<Class<?>, GenericConverter> targets = this.table.get(sourceType);
+			return (targets != null ? targets.get(targetType) : null);
+		}
+	}
+
+
 	/**
 	 * Manages all converters registered with the service.
 	 */
@@ -531,6 +694,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 			this.converters.remove(new ConvertiblePair(sourceType, targetType));
 		}
 
+		public Set<ConvertiblePair> getConvertiblePairs() {
+			return this.converters.keySet();
+		}
+
 		/**
 		 * Find a {@link GenericConverter} given a source and target type.
 		 * <p>This method will attempt to match all possible converters by working
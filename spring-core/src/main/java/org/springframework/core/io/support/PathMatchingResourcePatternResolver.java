@@ -27,12 +27,19 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipException;
@@ -169,6 +176,14 @@ import org.springframework.util.StringUtils;
  * Ant-style pattern in such a case, which will search <i>all</i> class path
  * locations that contain the root package.
  *
+ * <p><b>Parallel scanning:</b>
+ *
+ * <p>With a {@link #setScanExecutor scan executor} specified, the root directories
+ * of a "{@code classpath*:}" pattern (typically one per jar file on the class path)
+ * are searched concurrently, and the entry names of each jar file are cached until
+ * {@link #clearCache()} is called (at the end of an application context refresh,
+ * for example).
+ *
  * @author Juergen Hoeller
  * @author Colin Sampaleanu
  * @author Marius Bogoevici
@@ -205,6 +220,12 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	@Nullable
+	private Executor scanExecutor;
+
+	/** Cache of jar entry names, keyed by jar file URL: only used with a scan executor. */
+	private final Map<String, String[]> jarEntriesCache = new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +289,39 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Specify an executor for searching the root directories of a pattern
+	 * concurrently, e.g. the jar files containing a base package to scan.
+	 * <p>Default is none, searching all root directories in the calling thread.
+	 * An executor with a limited number of threads is recommended, since each
+	 * search performs blocking I/O.
+	 * <p>Setting an executor also enables caching of jar entry names across
+	 * pattern resolution calls, until {@link #clearCache()} is called.
+	 * @since 5.2
+	 */
+	public void setScanExecutor(@Nullable Executor scanExecutor) {
+		this.scanExecutor = scanExecutor;
+	}
+
+	/**
+	 * Return the executor for searching root directories concurrently, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Executor getScanExecutor() {
+		return this.scanExecutor;
+	}
+
+	/**
+	 * Clear the cache of jar entry names, typically at the end of a scan phase
+	 * such as an application context refresh.
+	 * @since 5.2
+	 * @see #setScanExecutor
+	 */
+	public void clearCache() {
+		this.jarEntriesCache.clear();
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -493,24 +547,16 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		String subPattern = locationPattern.substring(rootDirPath.length());
 		Resource[] rootDirResources = getResources(rootDirPath);
 		Set<Resource> result = new LinkedHashSet<>(16);
-		for (Resource rootDirResource : rootDirResources) {
-			rootDirResource = resolveRootDirResource(rootDirResource);
-			URL rootDirUrl = rootDirResource.getURL();
-			if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
-				URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
-				if (resolvedUrl != null) {
-					rootDirUrl = resolvedUrl;
-				}
-				rootDirResource = new UrlResource(rootDirUrl);
-			}
-			if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
-				result.addAll(VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher()));
+		Executor scanExecutor = getScanExecutor();
+		if (scanExecutor != null && rootDirResources.length > 1) {
+			for (Set<Resource> matchingResources : findPathMatchingResourcesInParallel(
+					rootDirResources, subPattern, scanExecutor)) {
+				result.addAll(matchingResources);
 			}
-			else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
-				result.addAll(doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern));
-			}
-			else {
-				result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
+		}
+		else {
+			for (Resource rootDirResource : rootDirResources) {
+				result.addAll(findPathMatchingResources(rootDirResource, subPattern));
 			}
 		}
 		if (logger.isTraceEnabled()) {
@@ -519,6 +565,66 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return result.toArray(new Resource[0]);
 	}
 
+	/**
+	 * Search each of the given root directories in a separate task on the given
+	 * executor, returning the matching resources in the order of the root directories.
+	 */
+	private List<Set<Resource>> findPathMatchingResourcesInParallel(
+			Resource[] rootDirResources, String subPattern, Executor scanExecutor) throws IOException {
+
+		List<FutureTask<Set<Resource>>> tasks = new ArrayList<>(rootDirResources.length);
+		for (Resource rootDirResource : rootDirResources) {
+			FutureTask<Set<Resource>> task =
+					new FutureTask<>(() -> findPathMatchingResources(rootDirResource, subPattern));
+			tasks.add(task);
+			scanExecutor.execute(task);
+		}
+		List<Set<Resource>> results = new ArrayList<>(tasks.size());
+		for (FutureTask<Set<Resource>> task : tasks) {
+			try {
+				results.add(task.get());
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while searching for matching resources", ex);
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				ReflectionUtils.rethrowRuntimeException(cause);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Find all resources underneath the given root directory that match the given
+	 * sub pattern, resolving the root directory and delegating to the jar, file or
+	 * VFS specific search.
+	 */
+	private Set<Resource> findPathMatchingResources(Resource rootDirResource, String subPattern) throws IOException {
+		rootDirResource = resolveRootDirResource(rootDirResource);
+		URL rootDirUrl = rootDirResource.getURL();
+		if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
+			URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
+			if (resolvedUrl != null) {
+				rootDirUrl = resolvedUrl;
+			}
+			rootDirResource = new UrlResource(rootDirUrl);
+		}
+		if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
+			return VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher());
+		}
+		else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
+			return doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern);
+		}
+		else {
+			return doFindPathMatchingFileResources(rootDirResource, subPattern);
+		}
+	}
+
 	/**
 	 * Determine the root directory for the given location.
 	 * <p>Used for determining the starting point for file matching,
@@ -597,6 +703,15 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		if (con instanceof JarURLConnection) {
 			// Should usually be the case for traditional JAR files.
 			JarURLConnection jarCon = (JarURLConnection) con;
+			if (getScanExecutor() != null) {
+				// Entry names of this jar file may have been cached already: no need to open it.
+				String[] cachedEntries = this.jarEntriesCache.get(jarCon.getJarFileURL().toExternalForm());
+				if (cachedEntries != null) {
+					String entryName = jarCon.getEntryName();
+					return findMatchingJarEntries(rootDirResource, cachedEntries,
+							(entryName != null ? entryName : ""), subPattern);
+				}
+			}
 			ResourceUtils.useCachesIfNecessary(jarCon);
 			jarFile = jarCon.getJarFile();
 			jarFileUrl = jarCon.getJarFileURL().toExternalForm();
@@ -639,23 +754,21 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			if (logger.isTraceEnabled()) {
 				logger.trace("Looking for matching resources in jar file [" + jarFileUrl + "]");
 			}
-			if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
-				// Root entry path must end with slash to allow for proper matching.
-				// The Sun JRE does not return a slash here, but BEA JRockit does.
-				rootEntryPath = rootEntryPath + "/";
-			}
-			Set<Resource> result = new LinkedHashSet<>(8);
+			String[] entryNames = new String[jarFile.size()];
+			int count = 0;
 			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
-				JarEntry entry = entries.nextElement();
-				String entryPath = entry.getName();
-				if (entryPath.startsWith(rootEntryPath)) {
-					String relativePath = entryPath.substring(rootEntryPath.length());
-					if (getPathMatcher().match(subPattern, relativePath)) {
-						result.add(rootDirResource.createRelative(relativePath));
-					}
+				if (count == entryNames.length) {
+					entryNames = Arrays.copyOf(entryNames, count * 2 + 1);
 				}
+				entryNames[count++] = entries.nextElement().getName();
+			}
+			if (count < entryNames.length) {
+				entryNames = Arrays.copyOf(entryNames, count);
+			}
+			if (getScanExecutor() != null) {
+				this.jarEntriesCache.put(jarFileUrl, entryNames);
 			}
-			return result;
+			return findMatchingJarEntries(rootDirResource, entryNames, rootEntryPath, subPattern);
 		}
 		finally {
 			if (closeJarFile) {
@@ -664,6 +777,60 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		}
 	}
 
+	/**
+	 * Match the given jar entry names against the sub pattern below the root entry path.
+	 * <p>Entries not starting with the literal prefix of the sub pattern are skipped
+	 * before the {@code PathMatcher} is invoked, if the matcher is known to require
+	 * such a prefix (as the default {@link AntPathMatcher} does).
+	 */
+	private Set<Resource> findMatchingJarEntries(Resource rootDirResource, String[] entryNames,
+			String rootEntryPath, String subPattern) throws IOException {
+
+		if (!"".equals(rootEntryPath) && !rootEntryPath.endsWith("/")) {
+			// Root entry path must end with slash to allow for proper matching.
+			// The Sun JRE does not return a slash here, but BEA JRockit does.
+			rootEntryPath = rootEntryPath + "/";
+		}
+		PathMatcher pathMatcher = getPathMatcher();
+		String literalPrefix = (pathMatcher.getClass() == AntPathMatcher.class ? determineLiteralPrefix(subPattern) : "");
+		int rootLength = rootEntryPath.length();
+		Set<Resource> result = new LinkedHashSet<>(8);
+		for (String entryPath : entryNames) {
+			// Case-insensitive prefix check: safe for case-insensitive matchers as well
+			if (entryPath.startsWith(rootEntryPath) &&
+					entryPath.regionMatches(true, rootLength, literalPrefix, 0, literalPrefix.length())) {
+				String relativePath = entryPath.substring(rootLength);
+				if (pathMatcher.match(subPattern, relativePath)) {
+					result.add(rootDirResource.createRelative(relativePath));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Determine the literal prefix of the given Ant-style pattern, i.e. the pattern
+	 * up to the first wildcard (excluding a trailing separator which a "**" wildcard
+	 * may match as well), or an empty String if that prefix is not literally
+	 * comparable (containing whitespace or empty path segments).
+	 */
+	private static String determineLiteralPrefix(String pattern) {
+		int prefixEnd = 0;
+		while (prefixEnd < pattern.length()) {
+			char c = pattern.charAt(prefixEnd);
+			if (c == '*' || c == '?' || c == '{') {
+				break;
+			}
+			prefixEnd++;
+		}
+		String prefix = pattern.substring(0, prefixEnd);
+		if (prefix.contains("//") || StringUtils.containsWhitespace(prefix)) {
+			// Empty path segments are skipped, whitespace may be trimmed by the matcher
+			return "";
+		}
+		return (prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix);
+	}
+
 	/**
 	 * Resolve the given jar file URL into a JarFile object.
 	 */
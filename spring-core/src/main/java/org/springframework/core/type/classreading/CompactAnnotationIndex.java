@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.LinkedMultiValueMap;
+
+/**
+ * Compact, immutable representation of the annotation attributes and
+ * meta-annotation relationships collected by an ASM annotation visitor,
+ * using arrays and interned names instead of maps of
+ * {@link AnnotationAttributes}.
+ *
+ * <p>{@code AnnotationAttributes} instances are only created on demand, as
+ * fresh copies that callers are free to modify.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see CompactAnnotationMetadata
+ * @see CompactMethodMetadata
+ */
+final class CompactAnnotationIndex {
+
+	private static final String[] NO_NAMES = new String[0];
+
+	static final CompactAnnotationIndex EMPTY =
+			new CompactAnnotationIndex(NO_NAMES, new AttributeSet[0][], NO_NAMES, new String[0][]);
+
+
+	/** Names of all (meta-)annotations with attributes, in hierarchical order. */
+	private final String[] annotationNames;
+
+	/** Attribute sets per annotation name, same index as {@link #annotationNames}. */
+	private final AttributeSet[][] attributeSets;
+
+	/** Names of annotations that declare meta-annotations. */
+	private final String[] composedAnnotationNames;
+
+	/** Meta-annotation names, same index as {@link #composedAnnotationNames}. */
+	private final String[][] metaAnnotationNames;
+
+
+	private CompactAnnotationIndex(String[] annotationNames, AttributeSet[][] attributeSets,
+			String[] composedAnnotationNames, String[][] metaAnnotationNames) {
+
+		this.annotationNames = annotationNames;
+		this.attributeSets = attributeSets;
+		this.composedAnnotationNames = composedAnnotationNames;
+		this.metaAnnotationNames = metaAnnotationNames;
+	}
+
+
+	/**
+	 * Determine whether attributes are available for the given annotation type.
+	 */
+	public boolean containsAnnotation(String annotationName) {
+		return (indexOf(this.annotationNames, annotationName) >= 0);
+	}
+
+	/**
+	 * Return the meta-annotation types of the given (directly present) annotation type.
+	 * @return the meta-annotation type names, or {@code null} if none
+	 */
+	@Nullable
+	public String[] getMetaAnnotationTypes(String annotationName) {
+		int index = indexOf(this.composedAnnotationNames, annotationName);
+		return (index >= 0 ? this.metaAnnotationNames[index] : null);
+	}
+
+	/**
+	 * Determine whether the given type is present as a meta-annotation.
+	 */
+	public boolean hasMetaAnnotation(String metaAnnotationName) {
+		for (String[] metaNames : this.metaAnnotationNames) {
+			if (indexOf(metaNames, metaAnnotationName) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return fresh copies of all raw attributes for the given annotation type.
+	 * @return the attributes, or {@code null} if the annotation is not present
+	 */
+	@Nullable
+	public List<AnnotationAttributes> getAttributes(String annotationName) {
+		int index = indexOf(this.annotationNames, annotationName);
+		if (index < 0) {
+			return null;
+		}
+		AttributeSet[] sets = this.attributeSets[index];
+		List<AnnotationAttributes> result = new ArrayList<>(sets.length);
+		for (AttributeSet set : sets) {
+			result.add(set.toAnnotationAttributes());
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieve the merged raw attributes of the annotation of the given type,
+	 * with attributes of the same name lower in the annotation hierarchy overriding
+	 * those higher up, analogous to
+	 * {@link AnnotationReadingVisitorUtils#getMergedAnnotationAttributes}.
+	 * @return the merged attributes, or {@code null} if the annotation is not present
+	 */
+	@Nullable
+	public AnnotationAttributes getMergedAttributes(String annotationName) {
+		int targetIndex = indexOf(this.annotationNames, annotationName);
+		if (targetIndex < 0 || this.attributeSets[targetIndex].length == 0) {
+			return null;
+		}
+		AttributeSet target = this.attributeSets[targetIndex][0];
+		AnnotationAttributes result = target.toAnnotationAttributes();
+
+		// Traverse "down" the annotation hierarchy, i.e. in reverse order
+		for (int i = this.annotationNames.length - 1; i >= 0; i--) {
+			if (i == targetIndex || this.attributeSets[i].length == 0) {
+				continue;
+			}
+			String[] metaNames = getMetaAnnotationTypes(this.annotationNames[i]);
+			if (metaNames != null && indexOf(metaNames, annotationName) >= 0) {
+				AttributeSet current = this.attributeSets[i][0];
+				for (String attributeName : target.names) {
+					if (!AnnotationUtils.VALUE.equals(attributeName)) {
+						Object value = current.get(attributeName);
+						if (value != null) {
+							result.put(attributeName, value);
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Build a compact index from the given visitor state.
+	 */
+	public static CompactAnnotationIndex from(
+			LinkedMultiValueMap<String, AnnotationAttributes> attributesMap, Map<String, Set<String>> metaAnnotationMap) {
+
+		if (attributesMap.isEmpty() && metaAnnotationMap.isEmpty()) {
+			return EMPTY;
+		}
+		String[] annotationNames = new String[attributesMap.size()];
+		AttributeSet[][] attributeSets = new AttributeSet[attributesMap.size()][];
+		int i = 0;
+		for (Map.Entry<String, List<AnnotationAttributes>> entry : attributesMap.entrySet()) {
+			annotationNames[i] = entry.getKey().intern();
+			List<AnnotationAttributes> list = entry.getValue();
+			AttributeSet[] sets = new AttributeSet[list.size()];
+			for (int j = 0; j < sets.length; j++) {
+				sets[j] = new AttributeSet(list.get(j));
+			}
+			attributeSets[i] = sets;
+			i++;
+		}
+		String[] composedAnnotationNames = new String[metaAnnotationMap.size()];
+		String[][] metaAnnotationNames = new String[metaAnnotationMap.size()][];
+		i = 0;
+		for (Map.Entry<String, Set<String>> entry : metaAnnotationMap.entrySet()) {
+			composedAnnotationNames[i] = entry.getKey().intern();
+			metaAnnotationNames[i] = internAll(entry.getValue());
+			i++;
+		}
+		return new CompactAnnotationIndex(annotationNames, attributeSets, composedAnnotationNames, metaAnnotationNames);
+	}
+
+	static String[] internAll(Set<String> names) {
+		if (names.isEmpty()) {
+			return NO_NAMES;
+		}
+		String[] result = new String[names.size()];
+		int i = 0;
+		for (String name : names) {
+			result[i++] = name.intern();
+		}
+		return result;
+	}
+
+	static String[] internAll(String[] names) {
+		if (names.length == 0) {
+			return NO_NAMES;
+		}
+		String[] result = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			result[i] = names[i].intern();
+		}
+		return result;
+	}
+
+	static Set<String> asSet(@Nullable String[] names) {
+		if (names == null || names.length == 0) {
+			return Collections.emptySet();
+		}
+		Set<String> result = new LinkedHashSet<>(names.length * 2);
+		Collections.addAll(result, names);
+		return Collections.unmodifiableSet(result);
+	}
+
+	static int indexOf(String[] names, String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
+	/**
+	 * The attribute names and values of a single annotation.
+	 */
+	private static final class AttributeSet {
+
+		/** Always resolved for attributes collected by {@link AnnotationAttributesReadingVisitor}. */
+		@Nullable
+		private final Class<? extends Annotation> annotationType;
+
+		private final String[] names;
+
+		private final Object[] values;
+
+		AttributeSet(AnnotationAttributes attributes) {
+			this.annotationType = attributes.annotationType();
+			this.names = new String[attributes.size()];
+			this.values = new Object[attributes.size()];
+			int i = 0;
+			for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+				this.names[i] = entry.getKey().intern();
+				this.values[i] = entry.getValue();
+				i++;
+			}
+		}
+
+		@Nullable
+		Object get(String name) {
+			int index = indexOf(this.names, name);
+			return (index >= 0 ? this.values[index] : null);
+		}
+
+		AnnotationAttributes toAnnotationAttributes() {
+			AnnotationAttributes attributes = (this.annotationType != null ?
+					new AnnotationAttributes(this.annotationType) : new AnnotationAttributes(this.names.length));
+			for (int i = 0; i < this.names.length; i++) {
+				attributes.put(this.names[i], this.values[i]);
+			}
+			return attributes;
+		}
+	}
+
+}
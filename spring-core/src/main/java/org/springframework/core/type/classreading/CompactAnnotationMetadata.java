@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Compact, immutable {@link AnnotationMetadata} built from a fully visited
+ * {@link AnnotationMetadataReadingVisitor}, retaining class names and annotation
+ * attributes in arrays of interned names rather than in the visitor's maps.
+ *
+ * <p>Intended for metadata that is held in a cache across an entire classpath
+ * scan, e.g. by a {@link CachingMetadataReaderFactory}: the footprint per class
+ * is a fraction of the visitor's, while exposing the same information.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see SimpleMetadataReader
+ */
+final class CompactAnnotationMetadata implements AnnotationMetadata {
+
+	private static final MethodMetadata[] NO_METHODS = new MethodMetadata[0];
+
+
+	private final String className;
+
+	private final boolean isInterface;
+
+	private final boolean isAnnotation;
+
+	private final boolean isAbstract;
+
+	private final boolean isFinal;
+
+	private final boolean independent;
+
+	@Nullable
+	private final String enclosingClassName;
+
+	@Nullable
+	private final String superClassName;
+
+	private final String[] interfaceNames;
+
+	private final String[] memberClassNames;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final String[] annotationTypes;
+
+	private final CompactAnnotationIndex annotations;
+
+	private final MethodMetadata[] annotatedMethods;
+
+
+	private CompactAnnotationMetadata(AnnotationMetadataReadingVisitor visitor) {
+		this.className = visitor.getClassName().intern();
+		this.isInterface = visitor.isInterface();
+		this.isAnnotation = visitor.isAnnotation();
+		this.isAbstract = visitor.isAbstract();
+		this.isFinal = visitor.isFinal();
+		this.independent = visitor.isIndependent();
+		String enclosingClassName = visitor.getEnclosingClassName();
+		this.enclosingClassName = (enclosingClassName != null ? enclosingClassName.intern() : null);
+		String superClassName = visitor.getSuperClassName();
+		this.superClassName = (superClassName != null ? superClassName.intern() : null);
+		this.interfaceNames = CompactAnnotationIndex.internAll(visitor.getInterfaceNames());
+		this.memberClassNames = CompactAnnotationIndex.internAll(visitor.getMemberClassNames());
+		this.classLoader = visitor.classLoader;
+		this.annotationTypes = CompactAnnotationIndex.internAll(visitor.annotationSet);
+		this.annotations = CompactAnnotationIndex.from(visitor.attributesMap, visitor.metaAnnotationMap);
+		this.annotatedMethods = compactMethods(visitor.methodMetadataSet);
+	}
+
+	private static MethodMetadata[] compactMethods(Set<MethodMetadata> methodMetadataSet) {
+		if (methodMetadataSet.isEmpty()) {
+			return NO_METHODS;
+		}
+		MethodMetadata[] result = new MethodMetadata[methodMetadataSet.size()];
+		int i = 0;
+		for (MethodMetadata methodMetadata : methodMetadataSet) {
+			result[i++] = (methodMetadata instanceof MethodMetadataReadingVisitor ?
+					new CompactMethodMetadata((MethodMetadataReadingVisitor) methodMetadata) : methodMetadata);
+		}
+		return result;
+	}
+
+
+	@Override
+	public String getClassName() {
+		return this.className;
+	}
+
+	@Override
+	public boolean isInterface() {
+		return this.isInterface;
+	}
+
+	@Override
+	public boolean isAnnotation() {
+		return this.isAnnotation;
+	}
+
+	@Override
+	public boolean isAbstract() {
+		return this.isAbstract;
+	}
+
+	@Override
+	public boolean isConcrete() {
+		return !(this.isInterface || this.isAbstract);
+	}
+
+	@Override
+	public boolean isFinal() {
+		return this.isFinal;
+	}
+
+	@Override
+	public boolean isIndependent() {
+		return this.independent;
+	}
+
+	@Override
+	public boolean hasEnclosingClass() {
+		return (this.enclosingClassName != null);
+	}
+
+	@Override
+	@Nullable
+	public String getEnclosingClassName() {
+		return this.enclosingClassName;
+	}
+
+	@Override
+	public boolean hasSuperClass() {
+		return (this.superClassName != null);
+	}
+
+	@Override
+	@Nullable
+	public String getSuperClassName() {
+		return this.superClassName;
+	}
+
+	@Override
+	public String[] getInterfaceNames() {
+		return this.interfaceNames.clone();
+	}
+
+	@Override
+	public String[] getMemberClassNames() {
+		return this.memberClassNames.clone();
+	}
+
+	@Override
+	public Set<String> getAnnotationTypes() {
+		return CompactAnnotationIndex.asSet(this.annotationTypes);
+	}
+
+	@Override
+	public Set<String> getMetaAnnotationTypes(String annotationName) {
+		return CompactAnnotationIndex.asSet(this.annotations.getMetaAnnotationTypes(annotationName));
+	}
+
+	@Override
+	public boolean hasAnnotation(String annotationName) {
+		return (CompactAnnotationIndex.indexOf(this.annotationTypes, annotationName) >= 0);
+	}
+
+	@Override
+	public boolean hasMetaAnnotation(String metaAnnotationType) {
+		return this.annotations.hasMetaAnnotation(metaAnnotationType);
+	}
+
+	@Override
+	public boolean isAnnotated(String annotationName) {
+		return (!AnnotationUtils.isInJavaLangAnnotationPackage(annotationName) &&
+				this.annotations.containsAnnotation(annotationName));
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName) {
+		return getAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		AnnotationAttributes raw = this.annotations.getMergedAttributes(annotationName);
+		if (raw == null) {
+			return null;
+		}
+		return AnnotationReadingVisitorUtils.convertClassValues(
+				"class '" + getClassName() + "'", this.classLoader, raw, classValuesAsString);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName) {
+		return getAllAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		List<AnnotationAttributes> attributes = this.annotations.getAttributes(annotationName);
+		if (attributes == null) {
+			return null;
+		}
+		MultiValueMap<String, Object> allAttributes = new LinkedMultiValueMap<>();
+		for (AnnotationAttributes raw : attributes) {
+			AnnotationReadingVisitorUtils.convertClassValues(
+					"class '" + getClassName() + "'", this.classLoader, raw, classValuesAsString).forEach(allAttributes::add);
+		}
+		return allAttributes;
+	}
+
+	@Override
+	public boolean hasAnnotatedMethods(String annotationName) {
+		for (MethodMetadata methodMetadata : this.annotatedMethods) {
+			if (methodMetadata.isAnnotated(annotationName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Set<MethodMetadata> getAnnotatedMethods(String annotationName) {
+		Set<MethodMetadata> annotatedMethods = new LinkedHashSet<>(4);
+		for (MethodMetadata methodMetadata : this.annotatedMethods) {
+			if (methodMetadata.isAnnotated(annotationName)) {
+				annotatedMethods.add(methodMetadata);
+			}
+		}
+		return annotatedMethods;
+	}
+
+	@Override
+	public String toString() {
+		return "AnnotationMetadata for class '" + this.className + "'";
+	}
+
+
+	/**
+	 * Build compact metadata from the given (fully visited) visitor.
+	 * @param visitor the visitor that the class file has been read with
+	 * @return the corresponding compact metadata
+	 */
+	static CompactAnnotationMetadata from(AnnotationMetadataReadingVisitor visitor) {
+		return new CompactAnnotationMetadata(visitor);
+	}
+
+}
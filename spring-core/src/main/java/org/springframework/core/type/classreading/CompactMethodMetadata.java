@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.util.List;
+
+import org.springframework.asm.Opcodes;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Compact, immutable {@link MethodMetadata} for an annotated method,
+ * built from a {@link MethodMetadataReadingVisitor} once the method
+ * has been fully visited.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see CompactAnnotationMetadata
+ */
+final class CompactMethodMetadata implements MethodMetadata {
+
+	private final String methodName;
+
+	private final int access;
+
+	private final String declaringClassName;
+
+	private final String returnTypeName;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final CompactAnnotationIndex annotations;
+
+
+	CompactMethodMetadata(MethodMetadataReadingVisitor visitor) {
+		this.methodName = visitor.methodName.intern();
+		this.access = visitor.access;
+		this.declaringClassName = visitor.declaringClassName.intern();
+		this.returnTypeName = visitor.returnTypeName.intern();
+		this.classLoader = visitor.classLoader;
+		this.annotations = CompactAnnotationIndex.from(visitor.attributesMap, visitor.metaAnnotationMap);
+	}
+
+
+	@Override
+	public String getMethodName() {
+		return this.methodName;
+	}
+
+	@Override
+	public String getDeclaringClassName() {
+		return this.declaringClassName;
+	}
+
+	@Override
+	public String getReturnTypeName() {
+		return this.returnTypeName;
+	}
+
+	@Override
+	public boolean isAbstract() {
+		return ((this.access & Opcodes.ACC_ABSTRACT) != 0);
+	}
+
+	@Override
+	public boolean isStatic() {
+		return ((this.access & Opcodes.ACC_STATIC) != 0);
+	}
+
+	@Override
+	public boolean isFinal() {
+		return ((this.access & Opcodes.ACC_FINAL) != 0);
+	}
+
+	@Override
+	public boolean isOverridable() {
+		return (!isStatic() && !isFinal() && ((this.access & Opcodes.ACC_PRIVATE) == 0));
+	}
+
+	@Override
+	public boolean isAnnotated(String annotationName) {
+		return this.annotations.containsAnnotation(annotationName);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName) {
+		return getAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		AnnotationAttributes raw = this.annotations.getMergedAttributes(annotationName);
+		if (raw == null) {
+			return null;
+		}
+		return AnnotationReadingVisitorUtils.convertClassValues(
+				"method '" + getMethodName() + "'", this.classLoader, raw, classValuesAsString);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName) {
+		return getAllAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		List<AnnotationAttributes> attributesList = this.annotations.getAttributes(annotationName);
+		if (attributesList == null) {
+			return null;
+		}
+		MultiValueMap<String, Object> allAttributes = new LinkedMultiValueMap<>();
+		for (AnnotationAttributes annotationAttributes : attributesList) {
+			AnnotationAttributes convertedAttributes = AnnotationReadingVisitorUtils.convertClassValues(
+					"method '" + getMethodName() + "'", this.classLoader, annotationAttributes, classValuesAsString);
+			convertedAttributes.forEach(allAttributes::add);
+		}
+		return allAttributes;
+	}
+
+}
@@ -64,9 +64,11 @@ final class SimpleMetadataReader implements MetadataReader {
 		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
 		classReader.accept(visitor, ClassReader.SKIP_DEBUG);
 
-		this.annotationMetadata = visitor;
-		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
-		this.classMetadata = visitor;
+		// Retain compact metadata only, since readers may be cached for an entire scan
+		AnnotationMetadata metadata = CompactAnnotationMetadata.from(visitor);
+		this.annotationMetadata = metadata;
+		// (since AnnotationMetadata extends ClassMetadata)
+		this.classMetadata = metadata;
 		this.resource = resource;
 	}
 
@@ -16,8 +16,13 @@
 
 package org.springframework.util;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -136,6 +141,15 @@ public class AntPathMatcher implements PathMatcher {
 		this.caseSensitive = caseSensitive;
 	}
 
+	/**
+	 * Return whether pattern matching is case-sensitive.
+	 * @since 5.2
+	 * @see #setCaseSensitive
+	 */
+	public boolean isCaseSensitive() {
+		return this.caseSensitive;
+	}
+
 	/**
 	 * Specify whether to trim tokenized paths and patterns.
 	 * <p>Default is {@code false}.
@@ -144,6 +158,15 @@ public class AntPathMatcher implements PathMatcher {
 		this.trimTokens = trimTokens;
 	}
 
+	/**
+	 * Return whether tokenized paths and patterns are trimmed.
+	 * @since 5.2
+	 * @see #setTrimTokens
+	 */
+	public boolean isTrimTokens() {
+		return this.trimTokens;
+	}
+
 	/**
 	 * Specify whether to cache parsed pattern metadata for patterns passed
 	 * into this matcher's {@link #match} method. A value of {@code true}
@@ -616,6 +639,21 @@ public class AntPathMatcher implements PathMatcher {
 		return new AntPatternComparator(path);
 	}
 
+	/**
+	 * Compile the given patterns into a {@link PatternSet} which determines all
+	 * patterns matching a given path in a single traversal, based on this matcher's
+	 * current settings.
+	 * <p>Useful for matching a path against a large number of patterns, e.g. handler
+	 * mappings or message destinations, which would otherwise require a
+	 * {@link #match} call per pattern.
+	 * @param patterns the patterns to compile
+	 * @return the compiled pattern set
+	 * @since 5.2
+	 */
+	public PatternSet createPatternSet(Collection<String> patterns) {
+		return new PatternSet(this, patterns);
+	}
+
 
 	/**
 	 * Tests whether or not a string matches against a pattern via a {@link Pattern}.
@@ -895,6 +933,330 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 
+	/**
+	 * An immutable set of patterns, compiled into a trie of path segments for
+	 * determining all patterns matching a given path in a single traversal.
+	 * <p>Leading literal segments (with a case-sensitive matcher) and single
+	 * {@code *} segments are represented as trie nodes which are matched against
+	 * the path in place, i.e. without tokenizing the path or allocating substrings.
+	 * Once a pattern contains any other kind of segment (e.g. {@code **},
+	 * {@code *.html} or a URI template variable), the rest of the pattern is
+	 * matched via the {@link AntPathMatcher} that the set has been created with.
+	 * <p>Results are equivalent to calling {@link AntPathMatcher#match} for each
+	 * pattern, with matching patterns returned in registration order.
+	 * @since 5.2
+	 * @see AntPathMatcher#createPatternSet
+	 */
+	public static final class PatternSet {
+
+		private final AntPathMatcher matcher;
+
+		private final String pathSeparator;
+
+		private final boolean trimTokens;
+
+		private final String[] patterns;
+
+		private final Node root = new Node();
+
+		PatternSet(AntPathMatcher matcher, Collection<String> patterns) {
+			this.matcher = matcher;
+			this.pathSeparator = matcher.pathSeparator;
+			this.trimTokens = matcher.trimTokens;
+			this.patterns = new LinkedHashSet<>(patterns).toArray(new String[0]);
+			for (int i = 0; i < this.patterns.length; i++) {
+				String pattern = this.patterns[i];
+				Node node = this.root;
+				boolean tail = false;
+				for (String token : matcher.tokenizePath(pattern)) {
+					if ("*".equals(token)) {
+						node = node.getOrCreateStarChild();
+					}
+					else if (matcher.caseSensitive && !isWildcardToken(token)) {
+						node = node.getOrCreateLiteralChild(token);
+					}
+					else {
+						tail = true;
+						break;
+					}
+				}
+				Entry entry = new Entry(i, pattern.startsWith(this.pathSeparator), pattern.endsWith(this.pathSeparator));
+				if (tail) {
+					node.tails = addEntry(node.tails, entry);
+				}
+				else {
+					node.terminals = addEntry(node.terminals, entry);
+				}
+			}
+		}
+
+		private static boolean isWildcardToken(String token) {
+			for (char c : WILDCARD_CHARS) {
+				if (token.indexOf(c) != -1) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static Entry[] addEntry(Entry[] entries, Entry entry) {
+			Entry[] result = Arrays.copyOf(entries, entries.length + 1);
+			result[entries.length] = entry;
+			return result;
+		}
+
+		/**
+		 * Return the patterns in this set, in registration order.
+		 */
+		public List<String> getPatterns() {
+			return Collections.unmodifiableList(Arrays.asList(this.patterns));
+		}
+
+		/**
+		 * Determine whether any pattern in this set matches the given path.
+		 * @param path the path to match
+		 */
+		public boolean matchesAny(String path) {
+			return collect(this.root, path, 0, path.startsWith(this.pathSeparator),
+					path.endsWith(this.pathSeparator), null);
+		}
+
+		/**
+		 * Return all patterns in this set that match the given path.
+		 * @param path the path to match
+		 * @return the matching patterns in registration order (possibly empty)
+		 */
+		public List<String> getMatchingPatterns(String path) {
+			List<Entry> matches = new ArrayList<>(4);
+			collect(this.root, path, 0, path.startsWith(this.pathSeparator),
+					path.endsWith(this.pathSeparator), matches);
+			if (matches.isEmpty()) {
+				return Collections.emptyList();
+			}
+			matches.sort(Comparator.comparingInt(entry -> entry.index));
+			List<String> result = new ArrayList<>(matches.size());
+			for (Entry entry : matches) {
+				result.add(this.patterns[entry.index]);
+			}
+			return result;
+		}
+
+		/**
+		 * Collect the patterns matching the rest of the path from the given position,
+		 * starting at the given node.
+		 * @return {@code true} if a match has been found and no further matches are
+		 * to be collected ({@code matches} being {@code null})
+		 */
+		private boolean collect(Node node, String path, int pos, boolean absolute, boolean trailingSeparator,
+				@Nullable List<Entry> matches) {
+
+			for (Entry entry : node.tails) {
+				if (entry.absolute == absolute && this.matcher.match(this.patterns[entry.index], path) &&
+						addMatch(entry, matches)) {
+					return true;
+				}
+			}
+
+			// Determine the next path segment, consistent with tokenizePath
+			int length = path.length();
+			int start = pos;
+			int end;
+			int nextPos;
+			while (true) {
+				while (start < length && isSeparator(path.charAt(start))) {
+					start++;
+				}
+				if (start == length) {
+					return collectExhausted(node, absolute, trailingSeparator, matches);
+				}
+				nextPos = start;
+				while (nextPos < length && !isSeparator(path.charAt(nextPos))) {
+					nextPos++;
+				}
+				end = nextPos;
+				if (this.trimTokens) {
+					while (start < end && path.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && path.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					break;
+				}
+				// Empty segment after trimming: skipped by tokenizePath as well
+				start = nextPos;
+			}
+
+			Node literalChild = node.getLiteralChild(path, start, end);
+			if (literalChild != null &&
+					collect(literalChild, path, nextPos, absolute, trailingSeparator, matches)) {
+				return true;
+			}
+			return (node.starChild != null &&
+					collect(node.starChild, path, nextPos, absolute, trailingSeparator, matches));
+		}
+
+		/**
+		 * Collect the patterns matching a path that has been fully consumed at the given node.
+		 */
+		private boolean collectExhausted(Node node, boolean absolute, boolean trailingSeparator,
+				@Nullable List<Entry> matches) {
+
+			for (Entry entry : node.terminals) {
+				if (entry.absolute == absolute && entry.trailingSeparator == trailingSeparator &&
+						addMatch(entry, matches)) {
+					return true;
+				}
+			}
+			// A single remaining "*" matches a path with a trailing separator
+			if (trailingSeparator && node.starChild != null) {
+				for (Entry entry : node.starChild.terminals) {
+					if (entry.absolute == absolute && addMatch(entry, matches)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		private static boolean addMatch(Entry entry, @Nullable List<Entry> matches) {
+			if (matches == null) {
+				return true;
+			}
+			matches.add(entry);
+			return false;
+		}
+
+		private boolean isSeparator(char c) {
+			// Consistent with StringTokenizer: any separator character delimits a segment
+			return (this.pathSeparator.indexOf(c) != -1);
+		}
+
+		@Override
+		public String toString() {
+			return "PatternSet " + Arrays.toString(this.patterns);
+		}
+
+
+		/**
+		 * A pattern ending at a given trie node, either completely matched
+		 * by the trie (terminal) or to be matched by the matcher (tail).
+		 */
+		private static final class Entry {
+
+			final int index;
+
+			final boolean absolute;
+
+			final boolean trailingSeparator;
+
+			Entry(int index, boolean absolute, boolean trailingSeparator) {
+				this.index = index;
+				this.absolute = absolute;
+				this.trailingSeparator = trailingSeparator;
+			}
+		}
+
+
+		/**
+		 * A trie node, with literal children in an open-addressing hash table
+		 * which is looked up by region of the path rather than by substring.
+		 */
+		private static final class Node {
+
+			private static final Entry[] NO_ENTRIES = new Entry[0];
+
+			@Nullable
+			private String[] literals;
+
+			@Nullable
+			private Node[] literalChildren;
+
+			private int literalCount;
+
+			@Nullable
+			Node starChild;
+
+			Entry[] terminals = NO_ENTRIES;
+
+			Entry[] tails = NO_ENTRIES;
+
+			Node getOrCreateStarChild() {
+				if (this.starChild == null) {
+					this.starChild = new Node();
+				}
+				return this.starChild;
+			}
+
+			Node getOrCreateLiteralChild(String literal) {
+				Node child = getLiteralChild(literal, 0, literal.length());
+				if (child == null) {
+					if (this.literals == null || (this.literalCount + 1) * 2 > this.literals.length) {
+						resize();
+					}
+					child = new Node();
+					put(this.literals, this.literalChildren, literal, child);
+					this.literalCount++;
+				}
+				return child;
+			}
+
+			@Nullable
+			Node getLiteralChild(String path, int start, int end) {
+				String[] literals = this.literals;
+				Node[] children = this.literalChildren;
+				if (literals == null || children == null) {
+					return null;
+				}
+				int hash = 0;
+				for (int i = start; i < end; i++) {
+					hash = 31 * hash + path.charAt(i);
+				}
+				int mask = literals.length - 1;
+				int length = end - start;
+				for (int i = spread(hash) & mask; literals[i] != null; i = (i + 1) & mask) {
+					String literal = literals[i];
+					if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+						return children[i];
+					}
+				}
+				return null;
+			}
+
+			private void resize() {
+				String[] oldLiterals = this.literals;
+				Node[] oldChildren = this.literalChildren;
+				int capacity = (oldLiterals != null ? oldLiterals.length * 2 : 4);
+				this.literals = new String[capacity];
+				this.literalChildren = new Node[capacity];
+				if (oldLiterals != null && oldChildren != null) {
+					for (int i = 0; i < oldLiterals.length; i++) {
+						if (oldLiterals[i] != null) {
+							put(this.literals, this.literalChildren, oldLiterals[i], oldChildren[i]);
+						}
+					}
+				}
+			}
+
+			private static void put(String[] literals, Node[] children, String literal, Node child) {
+				int mask = literals.length - 1;
+				int i = spread(literal.hashCode()) & mask;
+				while (literals[i] != null) {
+					i = (i + 1) & mask;
+				}
+				literals[i] = literal;
+				children[i] = child;
+			}
+
+			private static int spread(int hash) {
+				return (hash ^ (hash >>> 16));
+			}
+		}
+	}
+
+
 	/**
 	 * A simple cache for patterns that depend on the configured path separator.
 	 */
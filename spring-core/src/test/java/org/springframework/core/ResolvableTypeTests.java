@@ -1333,6 +1333,49 @@ public class ResolvableTypeTests {
 		assertThat(type.resolveGeneric(), equalTo(Integer.class));
 	}
 
+	@Test
+	public void sharedInstancesForClassesFieldsAndReturnTypes() throws Exception {
+		assertSame(ResolvableType.forClass(String.class), ResolvableType.forClass(String.class));
+		assertSame(ResolvableType.forClass(Object.class), ResolvableType.forClass(null));
+		assertSame(ResolvableType.forClass(String.class), ResolvableType.forType(String.class));
+		Field field = Fields.class.getField("parameterizedType");
+		assertSame(ResolvableType.forField(field), ResolvableType.forField(field));
+		Method method = Methods.class.getMethod("charSequenceReturn");
+		assertSame(ResolvableType.forMethodReturnType(method), ResolvableType.forMethodReturnType(method));
+		assertEquals(List.class, ResolvableType.forMethodReturnType(method).resolve());
+		assertEquals(CharSequence.class, ResolvableType.forMethodReturnType(method).resolveGeneric());
+	}
+
+	@Test
+	public void cacheStatistics() throws Exception {
+		ResolvableType.CacheStatistics before = ResolvableType.getCacheStatistics();
+		ResolvableType.forClass(TreeSet.class);
+		ResolvableType.forClass(TreeSet.class);
+		ResolvableType.CacheStatistics after = ResolvableType.getCacheStatistics();
+		assertTrue(after.getHitCount() > before.getHitCount());
+		assertTrue(after.getHitCount() + after.getMissCount() >= before.getHitCount() + before.getMissCount() + 2);
+		assertTrue(after.getSize() > 0);
+	}
+
+	@Test
+	public void cacheLimit() throws Exception {
+		ResolvableType.clearCache();
+		ResolvableType.setCacheLimit(4);
+		try {
+			long evictionsBefore = ResolvableType.getCacheStatistics().getEvictionCount();
+			Class<?>[] classes = {Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class};
+			for (Class<?> clazz : classes) {
+				assertEquals(clazz, ResolvableType.forClass(clazz).resolve());
+			}
+			ResolvableType.CacheStatistics statistics = ResolvableType.getCacheStatistics();
+			assertTrue(statistics.getEvictionCount() > evictionsBefore);
+			assertTrue(statistics.getSize() <= 4);
+		}
+		finally {
+			ResolvableType.setCacheLimit(ResolvableType.DEFAULT_CACHE_LIMIT);
+		}
+	}
+
 
 	private ResolvableType testSerialization(ResolvableType type) throws Exception {
 		ByteArrayOutputStream bos = new ByteArrayOutputStream();
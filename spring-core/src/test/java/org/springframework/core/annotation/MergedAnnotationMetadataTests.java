@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MergedAnnotationMetadata}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see AnnotatedElementUtilsTests
+ */
+public class MergedAnnotationMetadataTests {
+
+	@Test
+	public void cachedPerElement() {
+		assertSame(MergedAnnotationMetadata.from(ComposedClass.class), MergedAnnotationMetadata.from(ComposedClass.class));
+	}
+
+	@Test
+	public void presentAndMetaPresent() {
+		MergedAnnotationMetadata metadata = MergedAnnotationMetadata.from(ComposedClass.class);
+		assertTrue(metadata.isPresent(Composed.class));
+		assertTrue(metadata.isPresent(Base.class));
+		assertTrue(metadata.isPresent(Base.class.getName()));
+		assertFalse(metadata.isMetaPresent(Composed.class));
+		assertTrue(metadata.isMetaPresent(Base.class));
+		assertFalse(metadata.isPresent(Inherited.class));
+		assertArrayEquals(new String[] {Composed.class.getName(), Base.class.getName()},
+				metadata.getAnnotationTypes().toArray());
+	}
+
+	@Test
+	public void inheritedAnnotationsAfterLocalAnnotations() {
+		MergedAnnotationMetadata metadata = MergedAnnotationMetadata.from(SubClass.class);
+		assertTrue(metadata.isPresent(Composed.class));
+		assertTrue(metadata.isMetaPresent(Base.class));
+		AnnotationAttributes attributes = metadata.getMergedAnnotationAttributes(Base.class, false, false);
+		assertNotNull(attributes);
+		assertEquals("composed", attributes.getString("name"));
+	}
+
+	@Test
+	public void mergedAttributesWithExplicitAndConventionBasedOverrides() {
+		AnnotationAttributes attributes = MergedAnnotationMetadata.from(ComposedClass.class)
+				.getMergedAnnotationAttributes(Base.class, false, false);
+		assertNotNull(attributes);
+		assertEquals(Base.class, attributes.annotationType());
+		assertEquals("composed", attributes.getString("name"));
+		assertEquals("composed", attributes.getString("value"));
+		assertArrayEquals(new Class<?>[] {String.class}, attributes.getClassArray("types"));
+	}
+
+	@Test
+	public void mergedAttributesWithClassValuesAsString() {
+		AnnotationAttributes attributes = MergedAnnotationMetadata.from(ComposedClass.class)
+				.getMergedAnnotationAttributes(Base.class.getName(), true, false);
+		assertNotNull(attributes);
+		assertArrayEquals(new String[] {String.class.getName()}, attributes.getStringArray("types"));
+	}
+
+	@Test
+	public void mergedAttributesFromAliasMirror() {
+		AnnotationAttributes attributes = MergedAnnotationMetadata.from(MirrorClass.class)
+				.getMergedAnnotationAttributes(Base.class, false, false);
+		assertNotNull(attributes);
+		assertEquals("mirror", attributes.getString("name"));
+		assertEquals("mirror", attributes.getString("value"));
+	}
+
+	@Test
+	public void mergedAttributesForDirectAnnotation() {
+		AnnotationAttributes attributes = MergedAnnotationMetadata.from(BaseClass.class)
+				.getMergedAnnotationAttributes(Base.class, false, false);
+		assertNotNull(attributes);
+		assertEquals("base", attributes.getString("name"));
+		assertEquals("base", attributes.getString("value"));
+		assertEquals(0, attributes.getClassArray("types").length);
+	}
+
+	@Test
+	public void mergedAttributesWithoutSynthesizedProxies() {
+		AnnotationAttributes attributes = MergedAnnotationMetadata.from(ComposedClass.class)
+				.getMergedAnnotationAttributes(Base.class, false, false);
+		assertNotNull(attributes);
+		for (Object value : attributes.values()) {
+			assertFalse(value != null && Proxy.isProxyClass(value.getClass()));
+		}
+	}
+
+	@Test
+	public void notPresent() {
+		MergedAnnotationMetadata metadata = MergedAnnotationMetadata.from(Object.class);
+		assertFalse(metadata.isPresent(Base.class));
+		assertNull(metadata.getMergedAnnotationAttributes(Base.class, false, false));
+		assertTrue(metadata.getAnnotationTypes().isEmpty());
+	}
+
+	@Test(expected = AnnotationConfigurationException.class)
+	public void conflictingAliasMirrors() {
+		MergedAnnotationMetadata.from(ConflictingMirrorClass.class).getMergedAnnotationAttributes(Base.class, false, false);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+	@interface Base {
+
+		@AliasFor("name")
+		String value() default "";
+
+		@AliasFor("value")
+		String name() default "";
+
+		Class<?>[] types() default {};
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Inherited
+	@Base
+	@interface Composed {
+
+		@AliasFor(annotation = Base.class, attribute = "name")
+		String baseName() default "";
+
+		Class<?>[] types() default {};
+	}
+
+	@Base("base")
+	static class BaseClass {
+	}
+
+	@Composed(baseName = "composed", types = String.class)
+	static class ComposedClass {
+	}
+
+	static class SubClass extends ComposedClass {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Base
+	@interface Labeled {
+
+		@AliasFor(annotation = Base.class, attribute = "name")
+		String name() default "";
+
+		@AliasFor(annotation = Base.class, attribute = "name")
+		String title() default "";
+	}
+
+	@Labeled(title = "mirror")
+	static class MirrorClass {
+	}
+
+	@Labeled(name = "a", title = "b")
+	static class ConflictingMirrorClass {
+	}
+
+}
@@ -20,6 +20,7 @@ import java.awt.Color;
 import java.awt.SystemColor;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -31,6 +32,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 
@@ -46,6 +48,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.lang.Nullable;
 import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
+import org.springframework.util.NumberUtils;
 import org.springframework.util.StopWatch;
 import org.springframework.util.StringUtils;
 
@@ -640,6 +643,76 @@ public class GenericConversionServiceTests {
 				conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection"))));
 	}
 
+	@Test
+	public void frozenDispatch() throws Exception {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		assertFalse(conversionService.isFrozen());
+		conversionService.freeze();
+		assertTrue(conversionService.isFrozen());
+
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		assertEquals(Long.valueOf(3), conversionService.convert("3", Long.class));
+		assertEquals(RetentionPolicy.RUNTIME, conversionService.convert("RUNTIME", RetentionPolicy.class));
+		assertEquals("3", conversionService.convert(3, String.class));
+		assertTrue(conversionService.canConvert(String.class, Long.class));
+		assertTrue(conversionService.canConvert(String.class, Object.class));
+		assertFalse(conversionService.canConvert(String.class, Map.class));
+		assertTrue(conversionService.canBypassConvert(TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Object.class)));
+
+		// Generic and annotated descriptors bypass the dispatch table
+		assertEquals(Collections.singleton(3), conversionService.convert("3", TypeDescriptor.valueOf(String.class),
+				new TypeDescriptor(getClass().getField("integerCollection"))));
+		assertEquals("3", conversionService.convert("3", new TypeDescriptor(getClass().getField("annotatedString")),
+				TypeDescriptor.valueOf(String.class)));
+	}
+
+	@Test
+	public void frozenDispatchInvalidatedOnChange() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		conversionService.freeze();
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		assertFalse(conversionService.canConvert(String.class, Color.class));
+
+		conversionService.addConverter(String.class, Integer.class, source -> 42);
+		conversionService.addConverter(new ColorConverter());
+		assertTrue(conversionService.isFrozen());
+		assertEquals(Integer.valueOf(42), conversionService.convert("3", Integer.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+
+		conversionService.removeConvertible(String.class, Integer.class);
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+	}
+
+	@Test
+	public void frozenDispatchPreResolvesConcreteTypes() {
+		MatchRecordingNumberConverterFactory factory = new MatchRecordingNumberConverterFactory();
+		conversionService.addConverterFactory(factory);
+		assertTrue(conversionService.canConvert(String.class, AtomicLong.class));
+		factory.getTargetTypes().clear();
+
+		conversionService.freeze();
+		assertTrue(factory.getTargetTypes().containsAll(
+				Arrays.asList(Integer.class, Long.class, BigDecimal.class, Number.class, AtomicLong.class)));
+		factory.getTargetTypes().clear();
+
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", Integer.class));
+		assertEquals(Long.valueOf(3), conversionService.convert("3", long.class));
+		assertTrue(conversionService.canConvert(String.class, AtomicLong.class));
+		assertEquals(Collections.emptyList(), factory.getTargetTypes());
+	}
+
+	@Test
+	public void frozenDispatchWithConditionalConverter() {
+		MyConditionalConverter converter = new MyConditionalConverter();
+		conversionService.addConverter(new ColorConverter());
+		conversionService.addConverter(converter);
+		conversionService.freeze();
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("#000000", Color.class));
+		assertEquals(1, converter.getMatchAttempts());
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
@@ -794,6 +867,28 @@ public class GenericConversionServiceTests {
 	}
 
 
+	private static class MatchRecordingNumberConverterFactory
+			implements ConverterFactory<String, Number>, ConditionalConverter {
+
+		private final List<Class<?>> targetTypes = new ArrayList<>();
+
+		@Override
+		public boolean matches(TypeDescriptor sourceType, TypeDescriptor targetType) {
+			this.targetTypes.add(targetType.getType());
+			return true;
+		}
+
+		@Override
+		public <T extends Number> Converter<String, T> getConverter(Class<T> targetType) {
+			return source -> NumberUtils.parseNumber(source, targetType);
+		}
+
+		public List<Class<?>> getTargetTypes() {
+			return this.targetTypes;
+		}
+	}
+
+
 	private static class MyConditionalConverterFactory implements ConverterFactory<String, Color>, ConditionalConverter {
 
 		private MyConditionalConverter converter = new MyConditionalConverter();
@@ -21,11 +21,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Ignore;
 import org.junit.Test;
 
 import org.springframework.core.io.Resource;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 
 import static org.junit.Assert.*;
@@ -118,6 +121,49 @@ public class PathMatchingResourcePatternResolverTests {
 		assertTrue("Could not find aspectj_1_5_0.dtd in the root of the aspectjweaver jar", found);
 	}
 
+	@Test
+	public void classpathStarWithPatternInJarUsingScanExecutor() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			resolver.setScanExecutor(executor);
+			Resource[] resources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+			assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTIVESTREAMS);
+			// Second lookup against cached jar entries
+			resources = resolver.getResources("classpath*:org/reactivestreams/Pub*.class");
+			assertProtocolAndFilenames(resources, "jar", "Publisher.class");
+			resolver.clearCache();
+			resources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+			assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTIVESTREAMS);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void multipleRootsUsingScanExecutorSameAsSequential() throws IOException {
+		String pattern = "classpath*:org/**/*.dtd";
+		Resource[] sequential = resolver.getResources(pattern);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			resolver.setScanExecutor(executor);
+			assertArrayEquals(sequential, resolver.getResources(pattern));
+			assertArrayEquals(sequential, resolver.getResources(pattern));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void literalPrefixWithCaseInsensitiveMatcher() throws IOException {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		resolver.setPathMatcher(pathMatcher);
+		Resource[] resources = resolver.getResources("classpath:org/reactivestreams/PUB*.class");
+		assertProtocolAndFilenames(resources, "jar", "Publisher.class");
+	}
+
 
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.InputStream;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.ObjectUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompactAnnotationMetadata}, verifying that it exposes the
+ * same information as the {@link AnnotationMetadataReadingVisitor} it is built from.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ */
+public class CompactAnnotationMetadataTests {
+
+	@Test
+	public void simpleMetadataReaderRetainsCompactMetadata() throws Exception {
+		MetadataReader reader = new SimpleMetadataReaderFactory().getMetadataReader(AnnotatedClass.class.getName());
+		assertTrue(reader.getAnnotationMetadata() instanceof CompactAnnotationMetadata);
+		assertSame(reader.getAnnotationMetadata(), reader.getClassMetadata());
+	}
+
+	@Test
+	public void classMetadataSameAsVisitor() throws Exception {
+		AnnotationMetadataReadingVisitor visitor = visit(AnnotatedClass.class);
+		AnnotationMetadata metadata = CompactAnnotationMetadata.from(visitor);
+		assertEquals(visitor.getClassName(), metadata.getClassName());
+		assertEquals(visitor.isInterface(), metadata.isInterface());
+		assertEquals(visitor.isAbstract(), metadata.isAbstract());
+		assertEquals(visitor.isConcrete(), metadata.isConcrete());
+		assertEquals(visitor.isFinal(), metadata.isFinal());
+		assertEquals(visitor.isIndependent(), metadata.isIndependent());
+		assertEquals(visitor.getEnclosingClassName(), metadata.getEnclosingClassName());
+		assertEquals(visitor.getSuperClassName(), metadata.getSuperClassName());
+		assertArrayEquals(visitor.getInterfaceNames(), metadata.getInterfaceNames());
+		assertArrayEquals(visitor.getMemberClassNames(), metadata.getMemberClassNames());
+	}
+
+	@Test
+	public void annotationsSameAsVisitor() throws Exception {
+		AnnotationMetadataReadingVisitor visitor = visit(AnnotatedClass.class);
+		AnnotationMetadata metadata = CompactAnnotationMetadata.from(visitor);
+		assertEquals(visitor.getAnnotationTypes(), metadata.getAnnotationTypes());
+		for (String name : new String[] {Composed.class.getName(), Base.class.getName(),
+				Documented.class.getName(), Retention.class.getName(), "com.example.Missing"}) {
+			assertEquals(name, visitor.hasAnnotation(name), metadata.hasAnnotation(name));
+			assertEquals(name, visitor.hasMetaAnnotation(name), metadata.hasMetaAnnotation(name));
+			assertEquals(name, visitor.isAnnotated(name), metadata.isAnnotated(name));
+			assertEquals(name, visitor.getMetaAnnotationTypes(name), metadata.getMetaAnnotationTypes(name));
+			assertSameContent(visitor.getAnnotationAttributes(name), metadata.getAnnotationAttributes(name));
+			assertSameContent(visitor.getAnnotationAttributes(name, true), metadata.getAnnotationAttributes(name, true));
+			assertSameContent(visitor.getAllAnnotationAttributes(name), metadata.getAllAnnotationAttributes(name));
+			assertSameContent(visitor.getAllAnnotationAttributes(name, true), metadata.getAllAnnotationAttributes(name, true));
+		}
+	}
+
+	@Test
+	public void mergedAttributesFromComposedAnnotation() throws Exception {
+		AnnotationMetadata metadata = CompactAnnotationMetadata.from(visit(AnnotatedClass.class));
+		AnnotationAttributes attributes = (AnnotationAttributes) metadata.getAnnotationAttributes(Base.class.getName(), true);
+		assertNotNull(attributes);
+		assertEquals("composed", attributes.getString("name"));
+		assertArrayEquals(new String[] {String.class.getName()}, attributes.getStringArray("types"));
+	}
+
+	@Test
+	public void returnedAttributesAreIndependentCopies() throws Exception {
+		AnnotationMetadata metadata = CompactAnnotationMetadata.from(visit(AnnotatedClass.class));
+		AnnotationAttributes attributes = (AnnotationAttributes) metadata.getAnnotationAttributes(Composed.class.getName());
+		assertNotNull(attributes);
+		attributes.put("name", "modified");
+		assertEquals("composed", metadata.getAnnotationAttributes(Composed.class.getName()).get("name"));
+	}
+
+	@Test
+	public void annotatedMethodsSameAsVisitor() throws Exception {
+		AnnotationMetadataReadingVisitor visitor = visit(AnnotatedClass.class);
+		AnnotationMetadata metadata = CompactAnnotationMetadata.from(visitor);
+		assertTrue(metadata.hasAnnotatedMethods(Base.class.getName()));
+		assertFalse(metadata.hasAnnotatedMethods(Composed.class.getName()));
+		Set<MethodMetadata> expected = visitor.getAnnotatedMethods(Base.class.getName());
+		Set<MethodMetadata> actual = metadata.getAnnotatedMethods(Base.class.getName());
+		assertEquals(expected.size(), actual.size());
+		MethodMetadata expectedMethod = expected.iterator().next();
+		MethodMetadata actualMethod = actual.iterator().next();
+		assertEquals("annotatedMethod", actualMethod.getMethodName());
+		assertEquals(expectedMethod.getDeclaringClassName(), actualMethod.getDeclaringClassName());
+		assertEquals(expectedMethod.getReturnTypeName(), actualMethod.getReturnTypeName());
+		assertEquals(expectedMethod.isStatic(), actualMethod.isStatic());
+		assertEquals(expectedMethod.isFinal(), actualMethod.isFinal());
+		assertEquals(expectedMethod.isOverridable(), actualMethod.isOverridable());
+		assertSameContent(expectedMethod.getAnnotationAttributes(Base.class.getName()),
+				actualMethod.getAnnotationAttributes(Base.class.getName()));
+		assertSameContent(expectedMethod.getAllAnnotationAttributes(Base.class.getName(), true),
+				actualMethod.getAllAnnotationAttributes(Base.class.getName(), true));
+	}
+
+	@Test
+	public void retainedHeapPerScannedClass() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+
+		Resource[] resources = new PathMatchingResourcePatternResolver().getResources(
+				"classpath*:org/springframework/core/**/*.class");
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setCacheLimit(resources.length);
+		long before = usedHeap();
+		List<MetadataReader> readers = new ArrayList<>(resources.length);
+		for (Resource resource : resources) {
+			readers.add(factory.getMetadataReader(resource));
+		}
+		long perClass = (usedHeap() - before) / readers.size();
+		assertTrue("Retained " + perClass + " bytes per class for " + readers.size() + " classes",
+				perClass < 2048);
+	}
+
+
+	private static AnnotationMetadataReadingVisitor visit(Class<?> clazz) throws Exception {
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(clazz.getClassLoader());
+		try (InputStream is = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+			new ClassReader(is).accept(visitor, ClassReader.SKIP_DEBUG);
+		}
+		return visitor;
+	}
+
+	private static void assertSameContent(@Nullable Map<String, ?> expected, @Nullable Map<String, ?> actual) {
+		if (expected == null) {
+			assertNull(actual);
+			return;
+		}
+		assertNotNull(actual);
+		assertEquals(expected.keySet(), actual.keySet());
+		expected.forEach((key, value) -> {
+			Object actualValue = actual.get(key);
+			if (value instanceof List && actualValue instanceof List) {
+				assertArrayEquals(key, ((List<?>) value).toArray(), ((List<?>) actualValue).toArray());
+			}
+			else {
+				assertTrue(key, ObjectUtils.nullSafeEquals(value, actualValue));
+			}
+		});
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@Documented
+	@interface Base {
+
+		String name() default "";
+
+		Class<?>[] types() default {};
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Base(name = "base")
+	@interface Composed {
+
+		String name() default "";
+
+		Class<?>[] types() default {};
+	}
+
+	@Composed(name = "composed", types = String.class)
+	static class AnnotatedClass implements Runnable {
+
+		@Override
+		public void run() {
+		}
+
+		@Base(name = "method", types = Integer.class)
+		public String annotatedMethod() {
+			return "";
+		}
+
+		static class MemberClass {
+		}
+	}
+
+}
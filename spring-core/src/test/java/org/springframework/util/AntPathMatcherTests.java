@@ -17,6 +17,7 @@
 package org.springframework.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -681,4 +682,58 @@ public class AntPathMatcherTests {
 				"/*.html.hotel.*", pathMatcher.combine("/*.html", "hotel.*"));
 	}
 
+	@Test
+	public void patternSetMatchingPatterns() {
+		AntPathMatcher.PatternSet patternSet = pathMatcher.createPatternSet(Arrays.asList(
+				"/hotels", "/hotels/", "/hotels/*", "/hotels/{hotel}", "/hotels/*/bookings",
+				"/hotels/**", "/**/*.html", "hotels/*", "/*"));
+		assertEquals(Arrays.asList("/hotels", "/hotels/**", "/*"), patternSet.getMatchingPatterns("/hotels"));
+		assertEquals(Arrays.asList("/hotels/", "/hotels/*", "/hotels/**"), patternSet.getMatchingPatterns("/hotels/"));
+		assertEquals(Arrays.asList("/hotels/*", "/hotels/{hotel}", "/hotels/**"),
+				patternSet.getMatchingPatterns("/hotels/1"));
+		assertEquals(Arrays.asList("/hotels/*", "/hotels/{hotel}", "/hotels/**", "/**/*.html"),
+				patternSet.getMatchingPatterns("/hotels/1.html"));
+		assertEquals(Arrays.asList("/hotels/*/bookings", "/hotels/**"),
+				patternSet.getMatchingPatterns("/hotels/1/bookings"));
+		assertEquals(Collections.singletonList("hotels/*"), patternSet.getMatchingPatterns("hotels/1"));
+		assertTrue(patternSet.getMatchingPatterns("/flights/1").isEmpty());
+		assertTrue(patternSet.matchesAny("/hotels/1"));
+		assertFalse(patternSet.matchesAny("/flights/1"));
+	}
+
+	@Test
+	public void patternSetConsistentWithMatch() {
+		List<String> patterns = Arrays.asList("/a", "/a/", "/a/b", "a/b", "/a/*", "/*/b", "/*", "/a/**",
+				"/a/b*", "/a/**/b", "/**", "/A/b", "/a/{x}", "/a/t?st", "//a//b", "*", "/a/*/*", "");
+		List<String> paths = Arrays.asList("/a", "/a/", "/a/b", "a/b", "/a/b/", "/a/b/c", "/a/bc", "/A/b",
+				"/a/test", "//a/b", "/a//b", "/b", "/", "", "/a/b/c/b", "a");
+		for (boolean caseSensitive : new boolean[] {true, false}) {
+			for (boolean trimTokens : new boolean[] {false, true}) {
+				AntPathMatcher matcher = new AntPathMatcher();
+				matcher.setCaseSensitive(caseSensitive);
+				matcher.setTrimTokens(trimTokens);
+				AntPathMatcher.PatternSet patternSet = matcher.createPatternSet(patterns);
+				for (String path : paths) {
+					List<String> expected = new ArrayList<>();
+					for (String pattern : patterns) {
+						if (matcher.match(pattern, path)) {
+							expected.add(pattern);
+						}
+					}
+					assertEquals("Path '" + path + "'", expected, patternSet.getMatchingPatterns(path));
+					assertEquals("Path '" + path + "'", !expected.isEmpty(), patternSet.matchesAny(path));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void patternSetWithCustomPathSeparator() {
+		pathMatcher.setPathSeparator(".");
+		AntPathMatcher.PatternSet patternSet = pathMatcher.createPatternSet(
+				Arrays.asList("/topic.*", "/topic.news.*", "/topic.**", "/queue.*"));
+		assertEquals(Arrays.asList("/topic.news.*", "/topic.**"), patternSet.getMatchingPatterns("/topic.news.sports"));
+		assertEquals(Arrays.asList("/topic.*", "/topic.**"), patternSet.getMatchingPatterns("/topic.news"));
+	}
+
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link ConcurrentLruCache}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ConcurrentLruCacheTests {
+
+	private final AtomicInteger generated = new AtomicInteger();
+
+	private final ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(2, key -> {
+		if (key.isEmpty()) {
+			throw new IllegalArgumentException("empty");
+		}
+		this.generated.incrementAndGet();
+		return key + "1";
+	});
+
+
+	@Test
+	public void getAndGenerate() {
+		assertEquals(0, this.cache.size());
+		assertEquals(2, this.cache.sizeLimit());
+
+		assertEquals("k11", this.cache.get("k1"));
+		assertEquals("k11", this.cache.get("k1"));
+		assertEquals(1, this.generated.get());
+		assertEquals(1, this.cache.size());
+		assertTrue(this.cache.contains("k1"));
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		this.cache.get("k1");
+		this.cache.get("k2");
+		this.cache.get("k1");
+		this.cache.get("k3");
+
+		assertEquals(2, this.cache.size());
+		assertTrue(this.cache.contains("k1"));
+		assertFalse(this.cache.contains("k2"));
+		assertTrue(this.cache.contains("k3"));
+	}
+
+	@Test
+	public void failedGenerationDoesNotEvict() {
+		this.cache.get("k1");
+		this.cache.get("k2");
+		try {
+			this.cache.get("");
+			fail("Expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+		assertTrue(this.cache.contains("k1"));
+		assertTrue(this.cache.contains("k2"));
+	}
+
+	@Test
+	public void removeAndClear() {
+		this.cache.get("k1");
+		this.cache.get("k2");
+
+		assertTrue(this.cache.remove("k1"));
+		assertFalse(this.cache.remove("k1"));
+		assertEquals(1, this.cache.size());
+
+		this.cache.clear();
+		assertEquals(0, this.cache.size());
+		assertFalse(this.cache.contains("k2"));
+	}
+
+}
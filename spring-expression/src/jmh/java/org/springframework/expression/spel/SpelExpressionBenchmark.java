@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for SpEL parsing and evaluation, interpreted as well as compiled.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SpelExpressionBenchmark {
+
+	@Benchmark
+	public void parseExpression(ExpressionState state, Blackhole blackhole) {
+		blackhole.consume(state.parser.parseExpression("name.length() > 3 and age >= 18"));
+	}
+
+	@Benchmark
+	public void propertyAccess(ExpressionState state, Blackhole blackhole) {
+		blackhole.consume(state.propertyExpression.getValue(state.context, state.person));
+	}
+
+	@Benchmark
+	public void methodInvocationAndComparison(ExpressionState state, Blackhole blackhole) {
+		blackhole.consume(state.booleanExpression.getValue(state.context, state.person, Boolean.class));
+	}
+
+	@Benchmark
+	public void mapIndexing(ExpressionState state, Blackhole blackhole) {
+		blackhole.consume(state.mapExpression.getValue(state.context, state.person));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ExpressionState {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		public ExpressionParser parser;
+
+		public EvaluationContext context;
+
+		public Person person;
+
+		public Expression propertyExpression;
+
+		public Expression booleanExpression;
+
+		public Expression mapExpression;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.parser = new SpelExpressionParser(new SpelParserConfiguration(this.compilerMode, null));
+			this.context = new StandardEvaluationContext();
+			this.person = new Person("Juergen", 42);
+			this.person.getAttributes().put("city", "Linz");
+			this.propertyExpression = this.parser.parseExpression("name");
+			this.booleanExpression = this.parser.parseExpression("name.length() > 3 and age >= 18");
+			this.mapExpression = this.parser.parseExpression("attributes['city']");
+			// Warm up expressions once so that IMMEDIATE mode compiles them
+			this.propertyExpression.getValue(this.context, this.person);
+			this.booleanExpression.getValue(this.context, this.person, Boolean.class);
+			this.mapExpression.getValue(this.context, this.person);
+		}
+	}
+
+
+	public static class Person {
+
+		private final String name;
+
+		private final int age;
+
+		private final Map<String, String> attributes = new HashMap<>();
+
+		public Person(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public Map<String, String> getAttributes() {
+			return this.attributes;
+		}
+	}
+
+}
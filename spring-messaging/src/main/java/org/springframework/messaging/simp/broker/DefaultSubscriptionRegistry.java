@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,21 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
@@ -41,6 +47,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.PathMatcher;
@@ -55,6 +62,14 @@ import org.springframework.util.StringUtils;
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
  *
+ * <p>As of 5.2, subscriptions are indexed by destination: with a standard,
+ * case-sensitive {@link AntPathMatcher} that does not trim tokens, a destination
+ * that is not a {@link PathMatcher#isPattern pattern} is looked up directly, i.e.
+ * matched by equality, while patterns are matched through a segment trie. With
+ * any other {@code PathMatcher}, every destination is matched as a pattern.
+ * Look-ups do not lock, and subscribing or unsubscribing updates the index
+ * incrementally.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @author Juergen Hoeller
@@ -65,6 +80,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	/** Default maximum number of entries for the destination cache: 1024. */
 	public static final int DEFAULT_CACHE_LIMIT = 1024;
 
+	private static final MultiValueMap<String, String> EMPTY_MAP =
+			CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
 	/** Static evaluation context to reuse. */
 	private static final EvaluationContext messageEvalContext =
 			SimpleEvaluationContext.forPropertyAccessors(new SimpMessageHeaderPropertyAccessor()).build();
@@ -81,16 +99,20 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final ExpressionParser expressionParser = new SpelExpressionParser();
 
-	private final DestinationCache destinationCache = new DestinationCache();
+	private final AtomicLong subscriptionCounter = new AtomicLong();
+
+	private final DestinationIndex destinationIndex = new DestinationIndex();
 
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
 
 	/**
 	 * Specify the {@link PathMatcher} to use.
+	 * <p>This is expected to be set before any subscriptions are registered.
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		this.destinationIndex.updatePatternLookup();
 	}
 
 	/**
@@ -101,7 +123,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 	/**
-	 * Specify the maximum number of entries for the resolved destination cache.
+	 * Specify the maximum number of entries for the resolved destination cache,
+	 * i.e. the cache of destination patterns matching a given destination.
 	 * Default is 1024.
 	 */
 	public void setCacheLimit(int cacheLimit) {
@@ -148,8 +171,10 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			String sessionId, String subsId, String destination, Message<?> message) {
 
 		Expression expression = getSelectorExpression(message.getHeaders());
-		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
-		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
+		Subscription subscription =
+				new Subscription(subsId, expression, this.subscriptionCounter.incrementAndGet());
+		this.subscriptionRegistry.addSubscription(sessionId, destination, subscription);
+		this.destinationIndex.addSubscription(destination, sessionId, subscription);
 	}
 
 	@Nullable
@@ -181,7 +206,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
-				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
+				this.destinationIndex.removeSubscription(destination, sessionId, subsId);
 			}
 		}
 	}
@@ -190,13 +215,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
-			this.destinationCache.updateAfterRemovedSession(info);
+			this.destinationIndex.removeSubscriptions(info);
 		}
 	}
 
 	@Override
 	protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
-		MultiValueMap<String, String> result = this.destinationCache.getSubscriptions(destination, message);
+		MultiValueMap<String, String> result = this.destinationIndex.getSubscriptions(destination);
 		return filterSubscriptions(result, message);
 	}
 
@@ -242,123 +267,310 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.subscriptionRegistry + "]";
+		return "DefaultSubscriptionRegistry[" + this.destinationIndex + ", " + this.subscriptionRegistry + "]";
 	}
 
 
 	/**
-	 * A cache for destinations previously resolved via
-	 * {@link DefaultSubscriptionRegistry#findSubscriptionsInternal(String, Message)}.
+	 * Index from destinations to {@code <sessionId, subscriptionId>} for fast look-ups.
+	 * <p>Subscriptions to plain destinations are kept in a map by destination, while
+	 * subscriptions to destination patterns are kept in a map by pattern, with the
+	 * set of patterns compiled into a {@link AntPathMatcher.PatternSet segment trie}
+	 * (if an {@link AntPathMatcher} is in use) that is replaced whenever a pattern
+	 * is added or removed. Look-ups do not lock, and subscribing or unsubscribing
+	 * only affects the entry for the destination or pattern concerned.
 	 */
-	private class DestinationCache {
-
-		/** Map from destination to {@code <sessionId, subscriptionId>} for fast look-ups. */
-		private final Map<String, LinkedMultiValueMap<String, String>> accessCache =
-				new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
-
-		/** Map from destination to {@code <sessionId, subscriptionId>} with locking. */
-		@SuppressWarnings("serial")
-		private final Map<String, LinkedMultiValueMap<String, String>> updateCache =
-				new LinkedHashMap<String, LinkedMultiValueMap<String, String>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, LinkedMultiValueMap<String, String>> eldest) {
-						if (size() > getCacheLimit()) {
-							accessCache.remove(eldest.getKey());
-							return true;
-						}
-						else {
-							return false;
-						}
+	private class DestinationIndex {
+
+		/** Map from plain destination to its subscribers. */
+		private final ConcurrentMap<String, Subscribers> destinations = new ConcurrentHashMap<>();
+
+		/** Map from destination pattern to its subscribers. */
+		private final ConcurrentMap<String, Subscribers> patterns = new ConcurrentHashMap<>();
+
+		private volatile PatternLookup patternLookup = new PatternLookup(getPathMatcher(), Collections.emptySet());
+
+		public MultiValueMap<String, String> getSubscriptions(String destination) {
+			Subscribers exactMatch = this.destinations.get(destination);
+			List<String> matchingPatterns = this.patternLookup.getMatchingPatterns(destination);
+			if (matchingPatterns.isEmpty()) {
+				return (exactMatch != null ? exactMatch.getSubscriptions() : EMPTY_MAP);
+			}
+			List<Subscribers> matches = new ArrayList<>(matchingPatterns.size() + 1);
+			if (exactMatch != null) {
+				matches.add(exactMatch);
+			}
+			for (String pattern : matchingPatterns) {
+				Subscribers subscribers = this.patterns.get(pattern);
+				if (subscribers != null) {
+					matches.add(subscribers);
+				}
+			}
+			if (matches.isEmpty()) {
+				return EMPTY_MAP;
+			}
+			else if (matches.size() == 1) {
+				return matches.get(0).getSubscriptions();
+			}
+			return merge(matches);
+		}
+
+		/**
+		 * Merge the subscribers of several destinations, keeping the subscriptions
+		 * of each session in the order in which they were registered.
+		 */
+		private MultiValueMap<String, String> merge(List<Subscribers> matches) {
+			Map<String, List<Subscription>> merged = new LinkedHashMap<>();
+			for (Subscribers subscribers : matches) {
+				subscribers.sessions.forEach((sessionId, subs) ->
+						Collections.addAll(merged.computeIfAbsent(sessionId, id -> new ArrayList<>(subs.length)), subs));
+			}
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>(merged.size());
+			merged.forEach((sessionId, subs) -> {
+				if (subs.size() > 1) {
+					subs.sort(Comparator.comparingLong(Subscription::getOrder));
+				}
+				List<String> ids = new ArrayList<>(subs.size());
+				for (Subscription sub : subs) {
+					ids.add(sub.getId());
+				}
+				result.put(sessionId, ids);
+			});
+			return result;
+		}
+
+		public void addSubscription(String destination, String sessionId, Subscription subscription) {
+			if (this.patternLookup.isPattern(destination)) {
+				// Serialize with removal so that the published lookup reflects the last change
+				synchronized (this.patterns) {
+					this.patterns.compute(destination, (pattern, subscribers) ->
+							addSubscriber(subscribers, sessionId, subscription));
+					if (!this.patternLookup.contains(destination)) {
+						updatePatternLookup();
 					}
-				};
+				}
+			}
+			else {
+				this.destinations.compute(destination, (dest, subscribers) ->
+						addSubscriber(subscribers, sessionId, subscription));
+			}
+		}
+
+		private Subscribers addSubscriber(@Nullable Subscribers subscribers, String sessionId, Subscription subscription) {
+			if (subscribers == null) {
+				subscribers = new Subscribers();
+			}
+			subscribers.add(sessionId, subscription);
+			return subscribers;
+		}
+
+		public void removeSubscription(String destination, String sessionId, String subsId) {
+			removeSubscriptions(destination, sessionId, Collections.singleton(subsId));
+		}
+
+		public void removeSubscriptions(SessionSubscriptionInfo info) {
+			for (String destination : info.getDestinations()) {
+				Set<String> subsIds = new HashSet<>();
+				for (Subscription sub : info.getSubscriptions(destination)) {
+					subsIds.add(sub.getId());
+				}
+				removeSubscriptions(destination, info.getSessionId(), subsIds);
+			}
+		}
+
+		private void removeSubscriptions(String destination, String sessionId, Set<String> subsIds) {
+			if (this.patternLookup.isPattern(destination)) {
+				synchronized (this.patterns) {
+					Subscribers remaining = this.patterns.computeIfPresent(destination, (pattern, subscribers) ->
+							removeSubscribers(subscribers, sessionId, subsIds));
+					if (remaining == null && this.patternLookup.contains(destination)) {
+						updatePatternLookup();
+					}
+				}
+			}
+			else {
+				this.destinations.computeIfPresent(destination, (dest, subscribers) ->
+						removeSubscribers(subscribers, sessionId, subsIds));
+			}
+		}
+
+		@Nullable
+		private Subscribers removeSubscribers(Subscribers subscribers, String sessionId, Set<String> subsIds) {
+			return (subscribers.remove(sessionId, subsIds) ? null : subscribers);
+		}
+
+		public void updatePatternLookup() {
+			synchronized (this.patterns) {
+				this.patternLookup = new PatternLookup(getPathMatcher(), this.patterns.keySet());
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "index[" + this.destinations.size() + " destination(s), " +
+					this.patterns.size() + " pattern(s)]";
+		}
+	}
+
+
+	/**
+	 * Immutable view of the current destination patterns, resolving the patterns
+	 * that match a given destination and caching the result per destination.
+	 */
+	private class PatternLookup {
+
+		private final PathMatcher pathMatcher;
+
+		private final Set<String> patterns;
+
+		@Nullable
+		private final AntPathMatcher.PatternSet patternSet;
+
+		private final boolean exactMatch;
 
+		/** Map from destination to matching patterns, up to the cache limit. */
+		private final Map<String, List<String>> matchCache = new ConcurrentHashMap<>();
 
-		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
-			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
+		public PatternLookup(PathMatcher pathMatcher, Set<String> patterns) {
+			this.pathMatcher = pathMatcher;
+			this.patterns = new LinkedHashSet<>(patterns);
+			// A subclass might override match: only use the trie with a plain AntPathMatcher
+			this.patternSet = (pathMatcher.getClass() == AntPathMatcher.class && !this.patterns.isEmpty() ?
+					((AntPathMatcher) pathMatcher).createPatternSet(this.patterns) : null);
+			// Equality is only equivalent to a match for exact, untrimmed tokens
+			this.exactMatch = (pathMatcher.getClass() == AntPathMatcher.class &&
+					((AntPathMatcher) pathMatcher).isCaseSensitive() && !((AntPathMatcher) pathMatcher).isTrimTokens());
+		}
+
+		/**
+		 * Whether the given destination needs to be indexed as a pattern,
+		 * as opposed to being looked up by equality.
+		 */
+		public boolean isPattern(String destination) {
+			return (!this.exactMatch || this.pathMatcher.isPattern(destination));
+		}
+
+		public boolean contains(String pattern) {
+			return this.patterns.contains(pattern);
+		}
+
+		public List<String> getMatchingPatterns(String destination) {
+			if (this.patterns.isEmpty()) {
+				return Collections.emptyList();
+			}
+			List<String> result = this.matchCache.get(destination);
 			if (result == null) {
-				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
-							}
+				if (this.patternSet != null) {
+					result = this.patternSet.getMatchingPatterns(destination);
+				}
+				else {
+					result = new ArrayList<>(4);
+					for (String pattern : this.patterns) {
+						if (this.pathMatcher.match(pattern, destination)) {
+							result.add(pattern);
 						}
 					}
-					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
-						this.accessCache.put(destination, result);
-					}
 				}
+				if (this.matchCache.size() >= getCacheLimit()) {
+					this.matchCache.clear();
+				}
+				this.matchCache.put(destination, result);
 			}
 			return result;
 		}
+	}
 
-		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				this.updateCache.forEach((cachedDestination, subscriptions) -> {
-					if (getPathMatcher().match(destination, cachedDestination)) {
-						// Subscription id's may also be populated via getSubscriptions()
-						List<String> subsForSession = subscriptions.get(sessionId);
-						if (subsForSession == null || !subsForSession.contains(subsId)) {
-							subscriptions.add(sessionId, subsId);
-							this.accessCache.put(cachedDestination, subscriptions.deepCopy());
-						}
+
+	/**
+	 * The subscribers to a destination or destination pattern, by sessionId.
+	 * <p>Updates for the same destination are serialized by the enclosing map,
+	 * whereas reads don't lock but share a snapshot that is re-created on demand
+	 * after changes.
+	 */
+	private static final class Subscribers {
+
+		// sessionId -> subscriptions
+		final ConcurrentMap<String, Subscription[]> sessions = new ConcurrentHashMap<>(4);
+
+		private volatile int version;
+
+		@Nullable
+		private volatile Snapshot snapshot;
+
+		public MultiValueMap<String, String> getSubscriptions() {
+			int version = this.version;
+			Snapshot snapshot = this.snapshot;
+			if (snapshot == null || snapshot.version != version) {
+				LinkedMultiValueMap<String, String> map = new LinkedMultiValueMap<>(this.sessions.size());
+				this.sessions.forEach((sessionId, subs) -> {
+					List<String> ids = new ArrayList<>(subs.length);
+					for (Subscription sub : subs) {
+						ids.add(sub.getId());
 					}
+					map.put(sessionId, ids);
 				});
+				// Changes made while creating the snapshot are covered by a later version
+				snapshot = new Snapshot(version, map);
+				this.snapshot = snapshot;
 			}
+			return snapshot.subscriptions;
 		}
 
-		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					List<String> subscriptions = sessionMap.get(sessionId);
-					if (subscriptions != null) {
-						subscriptions.remove(subsId);
-						if (subscriptions.isEmpty()) {
-							sessionMap.remove(sessionId);
-						}
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
+		public void add(String sessionId, Subscription subscription) {
+			Subscription[] subs = this.sessions.get(sessionId);
+			if (subs == null) {
+				subs = new Subscription[] {subscription};
+			}
+			else {
+				for (Subscription sub : subs) {
+					if (sub.equals(subscription)) {
+						return;
 					}
-				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
 				}
+				subs = Arrays.copyOf(subs, subs.length + 1);
+				subs[subs.length - 1] = subscription;
 			}
-		}
-
-		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					if (sessionMap.remove(info.getSessionId()) != null) {
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
+			this.sessions.put(sessionId, subs);
+			this.version++;
+		}
+
+		/**
+		 * Remove the given subscriptions of a session.
+		 * @return {@code true} if there are no subscribers left
+		 */
+		public boolean remove(String sessionId, Set<String> subsIds) {
+			Subscription[] subs = this.sessions.get(sessionId);
+			if (subs != null) {
+				List<Subscription> remaining = new ArrayList<>(subs.length);
+				for (Subscription sub : subs) {
+					if (!subsIds.contains(sub.getId())) {
+						remaining.add(sub);
 					}
-				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
+				}
+				if (remaining.size() < subs.length) {
+					if (remaining.isEmpty()) {
+						this.sessions.remove(sessionId);
+					}
+					else {
+						this.sessions.put(sessionId, remaining.toArray(new Subscription[0]));
+					}
+					this.version++;
 				}
 			}
+			return this.sessions.isEmpty();
 		}
+	}
 
-		@Override
-		public String toString() {
-			return "cache[" + this.accessCache.size() + " destination(s)]";
+
+	private static final class Snapshot {
+
+		final int version;
+
+		final MultiValueMap<String, String> subscriptions;
+
+		Snapshot(int version, MultiValueMap<String, String> subscriptions) {
+			this.version = version;
+			this.subscriptions = subscriptions;
 		}
 	}
 
@@ -380,8 +592,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.sessions.values();
 		}
 
-		public SessionSubscriptionInfo addSubscription(String sessionId, String subscriptionId,
-				String destination, @Nullable Expression selectorExpression) {
+		public SessionSubscriptionInfo addSubscription(String sessionId, String destination, Subscription subscription) {
 
 			SessionSubscriptionInfo info = this.sessions.get(sessionId);
 			if (info == null) {
@@ -391,7 +602,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 					info = value;
 				}
 			}
-			info.addSubscription(destination, subscriptionId, selectorExpression);
+			info.addSubscription(destination, subscription);
 			return info;
 		}
 
@@ -447,7 +658,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return null;
 		}
 
-		public void addSubscription(String destination, String subscriptionId, @Nullable Expression selectorExpression) {
+		public void addSubscription(String destination, Subscription subscription) {
 			Set<Subscription> subs = this.destinationLookup.get(destination);
 			if (subs == null) {
 				synchronized (this.destinationLookup) {
@@ -458,7 +669,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 					}
 				}
 			}
-			subs.add(new Subscription(subscriptionId, selectorExpression));
+			subs.add(subscription);
 		}
 
 		@Nullable
@@ -496,10 +707,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		@Nullable
 		private final Expression selectorExpression;
 
-		public Subscription(String id, @Nullable Expression selector) {
+		private final long order;
+
+		public Subscription(String id, @Nullable Expression selector, long order) {
 			Assert.notNull(id, "Subscription id must not be null");
 			this.id = id;
 			this.selectorExpression = selector;
+			this.order = order;
 		}
 
 		public String getId() {
@@ -511,6 +725,10 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.selectorExpression;
 		}
 
+		public long getOrder() {
+			return this.order;
+		}
+
 		@Override
 		public boolean equals(Object other) {
 			return (this == other || (other instanceof Subscription && this.id.equals(((Subscription) other).id)));
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntBiFunction;
+
+import org.apache.commons.logging.Log;
+
+import org.springframework.util.Assert;
+
+/**
+ * Dispatch the fan-out of messages across a fixed number of shards, with each
+ * session assigned to one shard by its id. Each shard processes its batches
+ * one at a time, in the order in which they were dispatched, on a shared
+ * {@link Executor}: hence messages to the same session remain in order, while
+ * different shards deliver in parallel.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see SimpleBrokerMessageHandler#setDispatchExecutor
+ */
+class ShardedMessageDispatcher {
+
+	/** The maximum number of batches a shard processes before yielding its thread. */
+	private static final int MAX_BATCHES_PER_RUN = 128;
+
+
+	private final Executor executor;
+
+	private final Shard[] shards;
+
+	private final Log logger;
+
+
+	public ShardedMessageDispatcher(Executor executor, int shardCount, Log logger) {
+		Assert.notNull(executor, "Executor must not be null");
+		Assert.isTrue(shardCount > 0, "Shard count must be greater than 0");
+		this.executor = executor;
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			this.shards[i] = new Shard(i);
+		}
+		this.logger = logger;
+	}
+
+
+	/**
+	 * Partition the given subscriptions by shard, and queue one batch per shard
+	 * that calls the given callback for each of its sessions.
+	 * @param subscriptions the subscription ids by session id
+	 * @param delivery the callback to deliver to the subscriptions of a session,
+	 * returning the number of failed deliveries, which are counted per shard
+	 */
+	public void dispatch(Map<String, List<String>> subscriptions, ToIntBiFunction<String, List<String>> delivery) {
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+		Batch[] batches = new Batch[this.shards.length];
+		subscriptions.forEach((sessionId, subscriptionIds) -> {
+			int index = getShardIndex(sessionId);
+			Batch batch = batches[index];
+			if (batch == null) {
+				batch = new Batch(delivery);
+				batches[index] = batch;
+			}
+			batch.add(sessionId, subscriptionIds);
+		});
+		for (int i = 0; i < batches.length; i++) {
+			if (batches[i] != null) {
+				this.shards[i].enqueue(batches[i]);
+			}
+		}
+	}
+
+	private int getShardIndex(String sessionId) {
+		int hash = sessionId.hashCode();
+		return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % this.shards.length;
+	}
+
+	/**
+	 * Return the number of shards.
+	 */
+	public int getShardCount() {
+		return this.shards.length;
+	}
+
+	/**
+	 * Return a String describing the counters of each shard.
+	 */
+	public String getStatsInfo() {
+		StringBuilder sb = new StringBuilder();
+		for (Shard shard : this.shards) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(shard);
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "ShardedMessageDispatcher[" + this.shards.length + " shards]";
+	}
+
+
+	/**
+	 * The sessions of one shard to deliver a message to.
+	 */
+	private static final class Batch {
+
+		private final ToIntBiFunction<String, List<String>> delivery;
+
+		private final List<String> sessionIds = new ArrayList<>(4);
+
+		private final List<List<String>> subscriptionIds = new ArrayList<>(4);
+
+		Batch(ToIntBiFunction<String, List<String>> delivery) {
+			this.delivery = delivery;
+		}
+
+		void add(String sessionId, List<String> subscriptionIds) {
+			this.sessionIds.add(sessionId);
+			this.subscriptionIds.add(subscriptionIds);
+		}
+
+		int size() {
+			return this.sessionIds.size();
+		}
+
+		/**
+		 * Deliver to the session at the given index.
+		 * @return the number of failed deliveries
+		 */
+		int deliver(int index) {
+			return this.delivery.applyAsInt(this.sessionIds.get(index), this.subscriptionIds.get(index));
+		}
+	}
+
+
+	/**
+	 * A queue of batches, drained by at most one executor thread at a time.
+	 */
+	private final class Shard implements Runnable {
+
+		private final int index;
+
+		private final Queue<Batch> batches = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean running = new AtomicBoolean();
+
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private final AtomicLong processedBatches = new AtomicLong();
+
+		private final AtomicLong deliveries = new AtomicLong();
+
+		private final AtomicLong failures = new AtomicLong();
+
+		Shard(int index) {
+			this.index = index;
+		}
+
+		void enqueue(Batch batch) {
+			this.batches.add(batch);
+			this.pending.incrementAndGet();
+			trySchedule();
+		}
+
+		private void trySchedule() {
+			// Take the running flag only if the queue is not empty
+			if (!this.batches.isEmpty() && this.running.compareAndSet(false, true)) {
+				try {
+					executor.execute(this);
+				}
+				catch (Throwable ex) {
+					this.running.set(false);
+					if (logger.isErrorEnabled()) {
+						logger.error("Failed to schedule dispatch for shard " + this.index +
+								", " + this.pending.get() + " batches pending", ex);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+					Batch batch = this.batches.poll();
+					if (batch == null) {
+						break;
+					}
+					this.pending.decrementAndGet();
+					int failed = 0;
+					for (int j = 0; j < batch.size(); j++) {
+						try {
+							failed += batch.deliver(j);
+						}
+						catch (Throwable ex) {
+							failed++;
+							if (logger.isErrorEnabled()) {
+								logger.error("Failed to dispatch message in shard " + this.index, ex);
+							}
+						}
+					}
+					this.deliveries.addAndGet(batch.size());
+					if (failed > 0) {
+						this.failures.addAndGet(failed);
+					}
+					this.processedBatches.incrementAndGet();
+				}
+			}
+			finally {
+				this.running.set(false);
+				trySchedule();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "shard" + this.index + "[processed " + this.processedBatches.get() + " batches, " +
+					this.deliveries.get() + " sessions, " + this.failures.get() + " failures, " +
+					this.pending.get() + " pending]";
+		}
+	}
+
+}
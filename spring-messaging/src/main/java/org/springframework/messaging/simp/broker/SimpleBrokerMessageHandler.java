@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,10 @@ package org.springframework.messaging.simp.broker;
 import java.security.Principal;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 
 import org.springframework.lang.Nullable;
@@ -43,6 +45,12 @@ import org.springframework.util.PathMatcher;
  * {@link SimpMessageType}, keeps track of subscriptions with the help of a
  * {@link SubscriptionRegistry} and sends messages to subscribers.
  *
+ * <p>By default, messages are sent to subscribers on the thread that handles
+ * the published message. For topics with many subscribers, a
+ * {@link #setDispatchExecutor dispatch executor} may be configured instead,
+ * with sessions partitioned across a fixed number of shards that deliver in
+ * parallel while preserving the order of messages per session.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.0
@@ -70,6 +78,11 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
+	@Nullable
+	private Executor dispatchExecutor;
+
+	private int dispatchShardCount = Runtime.getRuntime().availableProcessors();
+
 
 	private SubscriptionRegistry subscriptionRegistry;
 
@@ -78,6 +91,9 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private ScheduledFuture<?> heartbeatFuture;
 
+	@Nullable
+	private volatile ShardedMessageDispatcher dispatcher;
+
 
 	/**
 	 * Create a SimpleBrokerMessageHandler instance with the given message channels
@@ -249,9 +265,66 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		return this.headerInitializer;
 	}
 
+	/**
+	 * Configure an {@link Executor} to send messages to subscribers with,
+	 * partitioning sessions across a fixed number of
+	 * {@link #setDispatchShardCount shards}. The subscribers of a message are
+	 * grouped into one batch per shard, and each shard sends its batches one
+	 * at a time, so that messages to the same session are sent in the order
+	 * of publication, while different shards send in parallel.
+	 * <p>By default this is not set, and messages are sent to subscribers on
+	 * the thread that handles the published message.
+	 * @since 5.2
+	 * @see #getDispatchStatsInfo()
+	 */
+	public void setDispatchExecutor(@Nullable Executor dispatchExecutor) {
+		this.dispatchExecutor = dispatchExecutor;
+	}
+
+	/**
+	 * Return the configured dispatch executor.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Executor getDispatchExecutor() {
+		return this.dispatchExecutor;
+	}
+
+	/**
+	 * Configure the number of shards to partition sessions across when a
+	 * {@link #setDispatchExecutor dispatch executor} is set.
+	 * <p>By default this is the number of available processors.
+	 * @since 5.2
+	 */
+	public void setDispatchShardCount(int dispatchShardCount) {
+		Assert.isTrue(dispatchShardCount > 0, "Dispatch shard count must be greater than 0");
+		this.dispatchShardCount = dispatchShardCount;
+	}
+
+	/**
+	 * Return the configured number of dispatch shards.
+	 * @since 5.2
+	 */
+	public int getDispatchShardCount() {
+		return this.dispatchShardCount;
+	}
+
+	/**
+	 * Return a String describing the counters of each dispatch shard, or
+	 * "null" if no {@link #setDispatchExecutor dispatch executor} is in use.
+	 * @since 5.2
+	 */
+	public String getDispatchStatsInfo() {
+		ShardedMessageDispatcher dispatcher = this.dispatcher;
+		return (dispatcher != null ? dispatcher.getStatsInfo() : "null");
+	}
+
 
 	@Override
 	public void startInternal() {
+		if (this.dispatchExecutor != null) {
+			this.dispatcher = new ShardedMessageDispatcher(this.dispatchExecutor, this.dispatchShardCount, logger);
+		}
 		publishBrokerAvailableEvent();
 		if (this.taskScheduler != null) {
 			long interval = initHeartbeatTaskDelay();
@@ -284,6 +357,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (this.heartbeatFuture != null) {
 			this.heartbeatFuture.cancel(true);
 		}
+		this.dispatcher = null;
 	}
 
 	@Override
@@ -385,32 +459,53 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
 		long now = System.currentTimeMillis();
-		subscriptions.forEach((sessionId, subscriptionIds) -> {
-			for (String subscriptionId : subscriptionIds) {
-				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
-				initHeaders(headerAccessor);
-				headerAccessor.setSessionId(sessionId);
-				headerAccessor.setSubscriptionId(subscriptionId);
-				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
-				headerAccessor.setLeaveMutable(true);
-				Object payload = message.getPayload();
-				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
-				SessionInfo info = this.sessions.get(sessionId);
-				if (info != null) {
-					try {
-						info.getClientOutboundChannel().send(reply);
-					}
-					catch (Throwable ex) {
-						if (logger.isErrorEnabled()) {
-							logger.error("Failed to send " + message, ex);
-						}
-					}
-					finally {
-						info.setLastWriteTime(now);
-					}
+		ShardedMessageDispatcher dispatcher = this.dispatcher;
+		if (dispatcher != null) {
+			dispatcher.dispatch(subscriptions, (sessionId, subscriptionIds) ->
+					sendMessageToSession(sessionId, subscriptionIds, message, now));
+		}
+		else {
+			subscriptions.forEach((sessionId, subscriptionIds) ->
+					sendMessageToSession(sessionId, subscriptionIds, message, now));
+		}
+	}
+
+	/**
+	 * Send the given message to the subscriptions of a session.
+	 * @return the number of subscriptions the message could not be sent to
+	 */
+	private int sendMessageToSession(String sessionId, List<String> subscriptionIds, Message<?> message, long now) {
+		SessionInfo info = this.sessions.get(sessionId);
+		if (info == null) {
+			return 0;
+		}
+		int failed = 0;
+		// The payload is shared, only the headers are specific to each subscription
+		Object payload = message.getPayload();
+		for (String subscriptionId : subscriptionIds) {
+			SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			initHeaders(headerAccessor);
+			headerAccessor.setSessionId(sessionId);
+			headerAccessor.setSubscriptionId(subscriptionId);
+			headerAccessor.copyHeadersIfAbsent(message.getHeaders());
+			headerAccessor.setLeaveMutable(true);
+			Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+			try {
+				if (!info.getClientOutboundChannel().send(reply)) {
+					failed++;
+				}
+			}
+			catch (Throwable ex) {
+				failed++;
+				if (logger.isErrorEnabled()) {
+					logger.error("Failed to send " + message, ex);
 				}
 			}
-		});
+			finally {
+				info.setLastWriteTime(now);
+			}
+		}
+		return failed;
 	}
 
 	@Override
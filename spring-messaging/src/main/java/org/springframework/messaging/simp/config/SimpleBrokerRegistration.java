@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.messaging.simp.config;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.SubscribableChannel;
@@ -39,6 +41,12 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private String selectorHeaderName = "selector";
 
+	@Nullable
+	private Executor dispatchExecutor;
+
+	@Nullable
+	private Integer dispatchShardCount;
+
 
 	public SimpleBrokerRegistration(SubscribableChannel inChannel, MessageChannel outChannel, String[] prefixes) {
 		super(inChannel, outChannel, prefixes);
@@ -89,6 +97,32 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 		this.selectorHeaderName = selectorHeaderName;
 	}
 
+	/**
+	 * Configure an {@link Executor} to send messages to subscribers with,
+	 * partitioning sessions across a number of shards that send in parallel
+	 * while preserving the order of messages to each session.
+	 * <p>By default this is not set, and messages are sent to subscribers on
+	 * the thread that handles the published message.
+	 * @since 5.2
+	 * @see SimpleBrokerMessageHandler#setDispatchExecutor
+	 */
+	public SimpleBrokerRegistration setDispatchExecutor(Executor dispatchExecutor) {
+		this.dispatchExecutor = dispatchExecutor;
+		return this;
+	}
+
+	/**
+	 * Configure the number of shards to partition sessions across when a
+	 * {@link #setDispatchExecutor dispatch executor} is set.
+	 * <p>By default this is the number of available processors.
+	 * @since 5.2
+	 * @see SimpleBrokerMessageHandler#setDispatchShardCount
+	 */
+	public SimpleBrokerRegistration setDispatchShardCount(int dispatchShardCount) {
+		this.dispatchShardCount = dispatchShardCount;
+		return this;
+	}
+
 
 	@Override
 	protected SimpleBrokerMessageHandler getMessageHandler(SubscribableChannel brokerChannel) {
@@ -101,6 +135,12 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 			handler.setHeartbeatValue(this.heartbeat);
 		}
 		handler.setSelectorHeaderName(this.selectorHeaderName);
+		if (this.dispatchExecutor != null) {
+			handler.setDispatchExecutor(this.dispatchExecutor);
+		}
+		if (this.dispatchShardCount != null) {
+			handler.setDispatchShardCount(this.dispatchShardCount);
+		}
 		return handler;
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -55,6 +55,12 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private TcpOperations<byte[]> tcpClient;
 
+	@Nullable
+	private Integer maxOutstandingFrames;
+
+	@Nullable
+	private Long sendTimeLimit;
+
 	private boolean autoStartup = true;
 
 	@Nullable
@@ -182,6 +188,31 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 		this.tcpClient = tcpClient;
 	}
 
+	/**
+	 * Configure the maximum number of frames per TCP connection that may be
+	 * queued or in the process of being written to the broker, before threads
+	 * forwarding to that connection wait for it to catch up.
+	 * <p>By default this is not set, i.e. there is no limit.
+	 * @since 5.2
+	 * @see StompBrokerRelayMessageHandler#setMaxOutstandingFrames
+	 */
+	public StompBrokerRelayRegistration setMaxOutstandingFrames(int maxOutstandingFrames) {
+		this.maxOutstandingFrames = maxOutstandingFrames;
+		return this;
+	}
+
+	/**
+	 * Configure how long to wait, in milliseconds, for a saturated connection
+	 * to the broker to accept further frames.
+	 * <p>By default this is not set, in which case 10 seconds are used.
+	 * @since 5.2
+	 * @see StompBrokerRelayMessageHandler#setSendTimeLimit
+	 */
+	public StompBrokerRelayRegistration setSendTimeLimit(long sendTimeLimit) {
+		this.sendTimeLimit = sendTimeLimit;
+		return this;
+	}
+
 	/**
 	 * Configure whether the {@link StompBrokerRelayMessageHandler} should start
 	 * automatically when the Spring ApplicationContext is refreshed.
@@ -258,6 +289,12 @@ public class StompBrokerRelayRegistration extends AbstractBrokerRegistration {
 		if (this.tcpClient != null) {
 			handler.setTcpClient(this.tcpClient);
 		}
+		if (this.maxOutstandingFrames != null) {
+			handler.setMaxOutstandingFrames(this.maxOutstandingFrames);
+		}
+		if (this.sendTimeLimit != null) {
+			handler.setSendTimeLimit(this.sendTimeLimit);
+		}
 
 		handler.setAutoStartup(this.autoStartup);
 
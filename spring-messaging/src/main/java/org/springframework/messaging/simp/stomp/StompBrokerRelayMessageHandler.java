@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,14 +17,21 @@
 package org.springframework.messaging.simp.stomp;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -49,6 +56,7 @@ import org.springframework.util.Assert;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 import org.springframework.util.concurrent.ListenableFutureTask;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 /**
  * A {@link org.springframework.messaging.MessageHandler} that handles messages by
@@ -75,6 +83,13 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * <li>{@link #setSystemHeartbeatReceiveInterval}</li>
  * </ul>
  *
+ * <p>Frames forwarded on the same TCP connection are pipelined: while a write
+ * is in progress, further frames are queued and then written together. The
+ * number of frames queued or in progress per connection can be limited via
+ * {@link #setMaxOutstandingFrames}, in which case threads forwarding to a
+ * saturated connection wait for up to the {@link #setSendTimeLimit send time
+ * limit}, which in turn applies backpressure to the inbound channels.
+ *
  * @author Rossen Stoyanchev
  * @author Andy Wilkinson
  * @since 4.0
@@ -95,6 +110,15 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	 */
 	private static final int MAX_TIME_TO_CONNECTED_FRAME = 60 * 1000;
 
+	/** The maximum number of queued frames to combine into a single write. */
+	private static final int MAX_FRAMES_PER_WRITE = 128;
+
+	/**
+	 * Marks threads handling frames received from the broker, i.e. the threads
+	 * that also complete writes, so they must never wait for a write.
+	 */
+	private static final ThreadLocal<Boolean> brokerIoThread = new NamedThreadLocal<>("STOMP broker I/O thread");
+
 	private static final byte[] EMPTY_PAYLOAD = new byte[0];
 
 	private static final ListenableFutureTask<Void> EMPTY_TASK = new ListenableFutureTask<>(new VoidCallable());
@@ -136,6 +160,10 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
+	private int maxOutstandingFrames = -1;
+
+	private long sendTimeLimit = 10 * 1000;
+
 	private final Stats stats = new Stats();
 
 	private final Map<String, StompConnectionHandler> connectionHandlers = new ConcurrentHashMap<>();
@@ -380,6 +408,61 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		return this.headerInitializer;
 	}
 
+	/**
+	 * Configure the maximum number of frames per TCP connection that may be
+	 * queued or in the process of being written to the broker. Once reached,
+	 * threads forwarding further frames to that connection wait for up to the
+	 * {@link #setSendTimeLimit send time limit}, after which the connection of
+	 * a client session is closed, with a STOMP ERROR frame sent to the client,
+	 * while a message on the "system" connection fails with a
+	 * {@link MessageDeliveryException}. Threads handling frames received from
+	 * the broker never wait, as they may be needed to complete pending writes.
+	 * <p>By default this is set to -1, i.e. no limit.
+	 * @since 5.2
+	 */
+	public void setMaxOutstandingFrames(int maxOutstandingFrames) {
+		this.maxOutstandingFrames = maxOutstandingFrames;
+	}
+
+	/**
+	 * Return the configured maximum number of outstanding frames per connection.
+	 * @since 5.2
+	 */
+	public int getMaxOutstandingFrames() {
+		return this.maxOutstandingFrames;
+	}
+
+	/**
+	 * Configure how long to wait, in milliseconds, for a saturated connection
+	 * to the broker to accept further frames.
+	 * <p>By default this is set to 10 seconds. It only applies if
+	 * {@link #setMaxOutstandingFrames maxOutstandingFrames} is set.
+	 * @since 5.2
+	 */
+	public void setSendTimeLimit(long sendTimeLimit) {
+		this.sendTimeLimit = sendTimeLimit;
+	}
+
+	/**
+	 * Return the configured send time limit in milliseconds.
+	 * @since 5.2
+	 */
+	public long getSendTimeLimit() {
+		return this.sendTimeLimit;
+	}
+
+	/**
+	 * Return the number of frames queued or in the process of being written,
+	 * for each TCP connection by session id.
+	 * @since 5.2
+	 */
+	public Map<String, Integer> getOutstandingFrameCounts() {
+		Map<String, Integer> counts = new LinkedHashMap<>(this.connectionHandlers.size());
+		this.connectionHandlers.forEach((sessionId, handler) ->
+				counts.put(sessionId, handler.getOutstandingFrameCount()));
+		return counts;
+	}
+
 	/**
 	 * Return a String describing internal state and counters.
 	 */
@@ -585,6 +668,14 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 		private volatile boolean isStompConnected;
 
+		private final Queue<PendingFrame> pendingFrames = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean writing = new AtomicBoolean();
+
+		private final AtomicInteger outstandingFrames = new AtomicInteger();
+
+		private final Object outstandingFramesMonitor = new Object();
+
 
 		protected StompConnectionHandler(String sessionId, StompHeaderAccessor connectHeaders) {
 			this(sessionId, connectHeaders, true);
@@ -608,6 +699,10 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 			return this.tcpConnection;
 		}
 
+		public int getOutstandingFrameCount() {
+			return this.outstandingFrames.get();
+		}
+
 		@Override
 		public void afterConnected(TcpConnection<byte[]> connection) {
 			if (logger.isDebugEnabled()) {
@@ -677,6 +772,20 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 
 		@Override
 		public void handleMessage(Message<byte[]> message) {
+			if (brokerIoThread.get() != null) {
+				handleMessageFromBroker(message);
+				return;
+			}
+			brokerIoThread.set(Boolean.TRUE);
+			try {
+				handleMessageFromBroker(message);
+			}
+			finally {
+				brokerIoThread.remove();
+			}
+		}
+
+		private void handleMessageFromBroker(Message<byte[]> message) {
 			StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
 			Assert.state(accessor != null, "No StompHeaderAccessor");
 			accessor.setSessionId(this.sessionId);
@@ -826,7 +935,20 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 				logger.trace("Forwarding " + accessor.getDetailedLogMessage(message.getPayload()));
 			}
 
-			ListenableFuture<Void> future = conn.send((Message<byte[]>) messageToSend);
+			if (!awaitSendCapacity()) {
+				String error = "Exceeded " + getMaxOutstandingFrames() + " outstanding frames for " +
+						getSendTimeLimit() + " ms, broker connection saturated";
+				if (this.isRemoteClientSession) {
+					handleTcpConnectionFailure(error, null);
+					return EMPTY_TASK;
+				}
+				else {
+					throw new IllegalStateException(error + ". Dropped " +
+							accessor.getShortLogMessage(message.getPayload()));
+				}
+			}
+
+			SettableListenableFuture<Void> future = new SettableListenableFuture<>();
 			future.addCallback(new ListenableFutureCallback<Void>() {
 				@Override
 				public void onSuccess(@Nullable Void result) {
@@ -845,9 +967,107 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 					}
 				}
 			});
+			this.outstandingFrames.incrementAndGet();
+			this.pendingFrames.add(new PendingFrame((Message<byte[]>) messageToSend, future));
+			writePendingFrames();
 			return future;
 		}
 
+		/**
+		 * Wait until the number of outstanding frames is below the configured
+		 * maximum, if any. A thread handling frames from the broker does not
+		 * wait, since it may be the one to complete the outstanding writes.
+		 * @return {@code true} if the frame may be forwarded, or {@code false}
+		 * if the send time limit was exceeded
+		 */
+		private boolean awaitSendCapacity() {
+			int limit = getMaxOutstandingFrames();
+			if (limit <= 0 || this.outstandingFrames.get() < limit || brokerIoThread.get() != null) {
+				return true;
+			}
+			long deadline = System.currentTimeMillis() + getSendTimeLimit();
+			synchronized (this.outstandingFramesMonitor) {
+				while (this.outstandingFrames.get() >= limit) {
+					long timeout = deadline - System.currentTimeMillis();
+					if (timeout <= 0) {
+						return false;
+					}
+					try {
+						this.outstandingFramesMonitor.wait(timeout);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Write all pending frames as a single batch, unless a write is already
+		 * in progress, in which case the pending frames are picked up once that
+		 * write completes.
+		 */
+		private void writePendingFrames() {
+			while (!this.pendingFrames.isEmpty() && this.writing.compareAndSet(false, true)) {
+				List<PendingFrame> batch = new ArrayList<>();
+				PendingFrame frame;
+				while (batch.size() < MAX_FRAMES_PER_WRITE && (frame = this.pendingFrames.poll()) != null) {
+					batch.add(frame);
+				}
+				TcpConnection<byte[]> conn = this.tcpConnection;
+				if (batch.isEmpty() || conn == null) {
+					this.writing.set(false);
+					completeFrames(batch, new IllegalStateException("Connection closed"));
+					continue;
+				}
+				List<Message<byte[]>> messages = new ArrayList<>(batch.size());
+				for (PendingFrame pendingFrame : batch) {
+					messages.add(pendingFrame.message);
+				}
+				ListenableFuture<Void> future;
+				try {
+					future = conn.sendAll(messages);
+				}
+				catch (Throwable ex) {
+					this.writing.set(false);
+					completeFrames(batch, ex);
+					continue;
+				}
+				future.addCallback(
+						result -> afterFramesWritten(batch, null),
+						ex -> afterFramesWritten(batch, ex));
+				return;
+			}
+		}
+
+		private void afterFramesWritten(List<PendingFrame> batch, @Nullable Throwable ex) {
+			this.writing.set(false);
+			completeFrames(batch, ex);
+			writePendingFrames();
+		}
+
+		private void completeFrames(List<PendingFrame> batch, @Nullable Throwable ex) {
+			if (batch.isEmpty()) {
+				return;
+			}
+			this.outstandingFrames.addAndGet(-batch.size());
+			if (getMaxOutstandingFrames() > 0) {
+				synchronized (this.outstandingFramesMonitor) {
+					this.outstandingFramesMonitor.notifyAll();
+				}
+			}
+			for (PendingFrame frame : batch) {
+				if (ex != null) {
+					frame.future.setException(ex);
+				}
+				else {
+					frame.future.set(null);
+				}
+			}
+		}
+
 		/**
 		 * After a DISCONNECT there should be no more client frames so we can
 		 * close the connection pro-actively. However, if the DISCONNECT has a
@@ -892,6 +1112,7 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 				}
 				conn.close();
 			}
+			writePendingFrames();
 		}
 
 		@Override
@@ -986,7 +1207,9 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 		public ListenableFuture<Void> forward(Message<?> message, StompHeaderAccessor accessor) {
 			try {
 				ListenableFuture<Void> future = super.forward(message, accessor);
-				if (message.getHeaders().get(SimpMessageHeaderAccessor.IGNORE_ERROR) == null) {
+				// Don't block a thread handling broker frames: it may be the one to complete the write
+				boolean ignoreError = (message.getHeaders().get(SimpMessageHeaderAccessor.IGNORE_ERROR) != null);
+				if (!ignoreError && brokerIoThread.get() == null) {
 					future.get();
 				}
 				return future;
@@ -998,6 +1221,22 @@ public class StompBrokerRelayMessageHandler extends AbstractBrokerMessageHandler
 	}
 
 
+	/**
+	 * A frame waiting to be written, along with the future for its forwarding.
+	 */
+	private static class PendingFrame {
+
+		private final Message<byte[]> message;
+
+		private final SettableListenableFuture<Void> future;
+
+		PendingFrame(Message<byte[]> message, SettableListenableFuture<Void> future) {
+			this.message = message;
+			this.future = future;
+		}
+	}
+
+
 	private static class VoidCallable implements Callable<Void> {
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -43,6 +42,10 @@ import org.springframework.util.MultiValueMap;
  * partial content. The caller is then responsible for dealing with that
  * incomplete content by buffering until there is more input available.
  *
+ * <p>Frames are parsed in place: command and header lines are located by
+ * their offsets in the buffer, and only header names and values are turned
+ * into Strings, with common header names shared rather than decoded again.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -51,6 +54,18 @@ public class StompDecoder {
 
 	static final byte[] HEARTBEAT_PAYLOAD = new byte[] {'\n'};
 
+	/** Header names that are returned as shared String instances when decoded. */
+	private static final String[] COMMON_HEADER_NAMES = new String[] {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, StompHeaderAccessor.STOMP_ID_HEADER,
+			StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_RECEIPT_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER, StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_HOST_HEADER, StompHeaderAccessor.STOMP_HEARTBEAT_HEADER,
+			StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_PASSCODE_HEADER,
+			StompHeaderAccessor.STOMP_VERSION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_HEADER,
+			"transaction", "session", "server"};
+
 	private static final Log logger = SimpLogging.forLogName(StompDecoder.class);
 
 	@Nullable
@@ -207,36 +222,36 @@ public class StompDecoder {
 	}
 
 	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
-		}
-		return new String(command.toByteArray(), StandardCharsets.UTF_8);
+		int start = byteBuffer.position();
+		int end = findEndOfLine(byteBuffer, start);
+		String command = (end > start ? decodeString(byteBuffer, start, end) : "");
+		((Buffer) byteBuffer).position(end);
+		tryConsumeEndOfLine(byteBuffer);
+		return command;
 	}
 
+	/**
+	 * Read header lines in place, materializing only the name and the value
+	 * of each header as a String, with common header names interned.
+	 */
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor) {
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			boolean headerComplete = false;
-			while (byteBuffer.hasRemaining()) {
-				if (tryConsumeEndOfLine(byteBuffer)) {
-					headerComplete = true;
-					break;
-				}
-				headerStream.write(byteBuffer.get());
-			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = new String(headerStream.toByteArray(), StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
+			int start = byteBuffer.position();
+			int end = findEndOfLine(byteBuffer, start);
+			((Buffer) byteBuffer).position(end);
+			boolean headerComplete = tryConsumeEndOfLine(byteBuffer);
+			if (end > start && headerComplete) {
+				int colonIndex = indexOf(byteBuffer, (byte) ':', start, end);
+				if (colonIndex <= start) {
 					if (byteBuffer.remaining() > 0) {
-						throw new StompConversionException("Illegal header: '" + header +
+						throw new StompConversionException("Illegal header: '" +
+								decodeString(byteBuffer, start, end) +
 								"'. A header must be of the form <name>:[<value>].");
 					}
 				}
 				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
+					String headerName = readHeaderName(byteBuffer, start, colonIndex);
+					String headerValue = unescape(byteBuffer, colonIndex + 1, end);
 					try {
 						headerAccessor.addNativeHeader(headerName, headerValue);
 					}
@@ -253,43 +268,49 @@ public class StompDecoder {
 		}
 	}
 
+	private String readHeaderName(ByteBuffer byteBuffer, int start, int end) {
+		for (String name : COMMON_HEADER_NAMES) {
+			if (matches(byteBuffer, start, end, name)) {
+				return name;
+			}
+		}
+		return unescape(byteBuffer, start, end);
+	}
+
 	/**
+	 * Decode the given range of the buffer, unescaping it on the way.
 	 * See STOMP Spec 1.2:
 	 * <a href="http://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
 	 */
-	private String unescape(String inString) {
-		StringBuilder sb = new StringBuilder(inString.length());
-		int pos = 0;  // position in the old string
-		int index = inString.indexOf('\\');
-
-		while (index >= 0) {
-			sb.append(inString.substring(pos, index));
-			if (index + 1 >= inString.length()) {
-				throw new StompConversionException("Illegal escape sequence at index " + index + ": " + inString);
-			}
-			Character c = inString.charAt(index + 1);
-			if (c == 'r') {
-				sb.append('\r');
-			}
-			else if (c == 'n') {
-				sb.append('\n');
-			}
-			else if (c == 'c') {
-				sb.append(':');
-			}
-			else if (c == '\\') {
-				sb.append('\\');
-			}
-			else {
-				// should never happen
-				throw new StompConversionException("Illegal escape sequence at index " + index + ": " + inString);
+	private String unescape(ByteBuffer byteBuffer, int start, int end) {
+		int index = indexOf(byteBuffer, (byte) '\\', start, end);
+		if (index == -1) {
+			return decodeString(byteBuffer, start, end);
+		}
+		byte[] bytes = new byte[end - start];
+		int length = 0;
+		for (int i = start; i < end; i++) {
+			byte b = byteBuffer.get(i);
+			if (b == '\\') {
+				byte c = (i + 1 < end ? byteBuffer.get(i + 1) : 0);
+				if (c == 'r') {
+					b = '\r';
+				}
+				else if (c == 'n') {
+					b = '\n';
+				}
+				else if (c == 'c') {
+					b = ':';
+				}
+				else if (c != '\\') {
+					throw new StompConversionException("Illegal escape sequence at index " + (i - start) +
+							": " + decodeString(byteBuffer, start, end));
+				}
+				i++;
 			}
-			pos = index + 2;
-			index = inString.indexOf('\\', pos);
+			bytes[length++] = b;
 		}
-
-		sb.append(inString.substring(pos));
-		return sb.toString();
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
 	}
 
 	@Nullable
@@ -319,18 +340,64 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
-				}
-				else {
-					payload.write(b);
-				}
+			int end = indexOf(byteBuffer, (byte) 0, byteBuffer.position(), byteBuffer.limit());
+			if (end == -1) {
+				((Buffer) byteBuffer).position(byteBuffer.limit());
+				return null;
+			}
+			byte[] payload = new byte[end - byteBuffer.position()];
+			byteBuffer.get(payload);
+			byteBuffer.get();
+			return payload;
+		}
+	}
+
+	/**
+	 * Return the index of the first EOL character at or after the given index,
+	 * or the limit of the buffer if there is none.
+	 */
+	private static int findEndOfLine(ByteBuffer byteBuffer, int from) {
+		int limit = byteBuffer.limit();
+		for (int i = from; i < limit; i++) {
+			byte b = byteBuffer.get(i);
+			if (b == '\n' || b == '\r') {
+				return i;
 			}
 		}
-		return null;
+		return limit;
+	}
+
+	private static int indexOf(ByteBuffer byteBuffer, byte target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (byteBuffer.get(i) == target) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(ByteBuffer byteBuffer, int start, int end, String name) {
+		if (end - start != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (byteBuffer.get(start + i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String decodeString(ByteBuffer byteBuffer, int start, int end) {
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset() + start, end - start,
+					StandardCharsets.UTF_8);
+		}
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = byteBuffer.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
 	}
 
 	/**
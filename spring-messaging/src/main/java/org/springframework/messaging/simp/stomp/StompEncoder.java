@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -40,6 +37,10 @@ import org.springframework.util.Assert;
 /**
  * An encoder for STOMP frames.
  *
+ * <p>Each frame is encoded into a single array of its exact size, with
+ * header values written out character by character rather than escaped
+ * and converted to bytes separately.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -51,6 +52,8 @@ public class StompEncoder  {
 
 	private static final byte COLON = ':';
 
+	private static final byte[] CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.UTF_8);
+
 	private static final Log logger = SimpLogging.forLogName(StompEncoder.class);
 
 	private static final int HEADER_KEY_CACHE_LIMIT = 32;
@@ -93,49 +96,55 @@ public class StompEncoder  {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
 
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
-			DataOutputStream output = new DataOutputStream(baos);
-
-			if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
-				logger.trace("Encoding heartbeat");
-				output.write(StompDecoder.HEARTBEAT_PAYLOAD);
-			}
-
-			else {
-				StompCommand command = StompHeaderAccessor.getCommand(headers);
-				if (command == null) {
-					throw new IllegalStateException("Missing STOMP command: " + headers);
-				}
-
-				output.write(command.toString().getBytes(StandardCharsets.UTF_8));
-				output.write(LF);
-				writeHeaders(command, headers, payload, output);
-				output.write(LF);
-				writeBody(payload, output);
-				output.write((byte) 0);
-			}
-
-			return baos.toByteArray();
-		}
-		catch (IOException ex) {
-			throw new StompConversionException("Failed to encode STOMP frame, headers=" + headers,  ex);
+		if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
+			logger.trace("Encoding heartbeat");
+			return StompDecoder.HEARTBEAT_PAYLOAD.clone();
 		}
-	}
 
-	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
-			DataOutputStream output) throws IOException {
+		StompCommand command = StompHeaderAccessor.getCommand(headers);
+		if (command == null) {
+			throw new IllegalStateException("Missing STOMP command: " + headers);
+		}
 
 		@SuppressWarnings("unchecked")
-		Map<String,List<String>> nativeHeaders =
+		Map<String, List<String>> nativeHeaders =
 				(Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
 
 		if (logger.isTraceEnabled()) {
 			logger.trace("Encoding STOMP " + command + ", headers=" + nativeHeaders);
 		}
 
+		// First pass computes the exact frame size, second pass fills the frame
+		int length = writeFrame(null, command, headers, nativeHeaders, payload);
+		byte[] frame = new byte[length];
+		writeFrame(frame, command, headers, nativeHeaders, payload);
+		return frame;
+	}
+
+	/**
+	 * Write the frame into the given array, or only compute its size.
+	 * @param output the array to write to, or {@code null} to only count
+	 * @return the number of bytes of the frame
+	 */
+	private int writeFrame(@Nullable byte[] output, StompCommand command, Map<String, Object> headers,
+			@Nullable Map<String, List<String>> nativeHeaders, byte[] payload) {
+
+		int pos = writeValue(output, 0, command.name(), false);
+		pos = write(output, pos, LF);
+		pos = writeHeaders(output, pos, command, headers, nativeHeaders, payload);
+		pos = write(output, pos, LF);
+		if (output != null) {
+			System.arraycopy(payload, 0, output, pos, payload.length);
+		}
+		pos += payload.length;
+		return write(output, pos, (byte) 0);
+	}
+
+	private int writeHeaders(@Nullable byte[] output, int pos, StompCommand command, Map<String, Object> headers,
+			@Nullable Map<String, List<String>> nativeHeaders, byte[] payload) {
+
 		if (nativeHeaders == null) {
-			return;
+			return pos;
 		}
 
 		boolean shouldEscape = (command != StompCommand.CONNECT && command != StompCommand.CONNECTED);
@@ -153,19 +162,19 @@ public class StompEncoder  {
 
 			byte[] encodedKey = encodeHeaderKey(entry.getKey(), shouldEscape);
 			for (String value : values) {
-				output.write(encodedKey);
-				output.write(COLON);
-				output.write(encodeHeaderValue(value, shouldEscape));
-				output.write(LF);
+				pos = write(output, pos, encodedKey);
+				pos = write(output, pos, COLON);
+				pos = writeValue(output, pos, value, shouldEscape);
+				pos = write(output, pos, LF);
 			}
 		}
 
 		if (command.requiresContentLength()) {
-			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StandardCharsets.UTF_8));
-			output.write(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
-			output.write(LF);
+			pos = write(output, pos, CONTENT_LENGTH);
+			pos = writeValue(output, pos, Integer.toString(payload.length), false);
+			pos = write(output, pos, LF);
 		}
+		return pos;
 	}
 
 	private byte[] encodeHeaderKey(String input, boolean escape) {
@@ -184,9 +193,60 @@ public class StompEncoder  {
 		}
 	}
 
-	private byte[] encodeHeaderValue(String input, boolean escape) {
-		String inputToUse = (escape ? escape(input) : input);
-		return inputToUse.getBytes(StandardCharsets.UTF_8);
+	/**
+	 * Write the given String as UTF-8, escaping it on the way if necessary,
+	 * without creating intermediate Strings or byte arrays.
+	 */
+	private static int writeValue(@Nullable byte[] output, int pos, @Nullable String value, boolean escape) {
+		if (value == null) {
+			return pos;
+		}
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (escape && (c == '\\' || c == ':' || c == '\n' || c == '\r')) {
+				pos = write(output, pos, (byte) '\\');
+				pos = write(output, pos, (byte) (c == '\\' ? '\\' : c == ':' ? 'c' : c == '\n' ? 'n' : 'r'));
+			}
+			else if (c < 0x80) {
+				pos = write(output, pos, (byte) c);
+			}
+			else if (c < 0x800) {
+				pos = write(output, pos, (byte) (0xC0 | (c >> 6)));
+				pos = write(output, pos, (byte) (0x80 | (c & 0x3F)));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				pos = write(output, pos, (byte) (0xF0 | (codePoint >> 18)));
+				pos = write(output, pos, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+				pos = write(output, pos, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+				pos = write(output, pos, (byte) (0x80 | (codePoint & 0x3F)));
+			}
+			else if (Character.isSurrogate(c)) {
+				// Malformed surrogate pair: replace like String#getBytes does
+				pos = write(output, pos, (byte) '?');
+			}
+			else {
+				pos = write(output, pos, (byte) (0xE0 | (c >> 12)));
+				pos = write(output, pos, (byte) (0x80 | ((c >> 6) & 0x3F)));
+				pos = write(output, pos, (byte) (0x80 | (c & 0x3F)));
+			}
+		}
+		return pos;
+	}
+
+	private static int write(@Nullable byte[] output, int pos, byte b) {
+		if (output != null) {
+			output[pos] = b;
+		}
+		return pos + 1;
+	}
+
+	private static int write(@Nullable byte[] output, int pos, byte[] bytes) {
+		if (output != null) {
+			System.arraycopy(bytes, 0, output, pos, bytes.length);
+		}
+		return pos + bytes.length;
 	}
 
 	/**
@@ -228,8 +288,4 @@ public class StompEncoder  {
 		return sb;
 	}
 
-	private void writeBody(byte[] payload, DataOutputStream output) throws IOException {
-		output.write(payload);
-	}
-
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,12 @@
 package org.springframework.messaging.tcp;
 
 import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.messaging.Message;
 import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 /**
  * A contract for sending messages and managing a TCP connection.
@@ -38,6 +41,33 @@ public interface TcpConnection<P> extends Closeable {
 	 */
 	ListenableFuture<Void> send(Message<P> message);
 
+	/**
+	 * Send the given messages, in order, as a single write where supported.
+	 * <p>The default implementation sends each message individually.
+	 * @param messages the messages
+	 * @return a ListenableFuture that can be used to determine when and if
+	 * all messages were successfully sent
+	 * @since 5.2
+	 */
+	default ListenableFuture<Void> sendAll(List<Message<P>> messages) {
+		SettableListenableFuture<Void> result = new SettableListenableFuture<>();
+		if (messages.isEmpty()) {
+			result.set(null);
+			return result;
+		}
+		AtomicInteger remaining = new AtomicInteger(messages.size());
+		for (Message<P> message : messages) {
+			send(message).addCallback(
+					value -> {
+						if (remaining.decrementAndGet() == 0) {
+							result.set(null);
+						}
+					},
+					result::setException);
+		}
+		return result;
+	}
+
 	/**
 	 * Register a task to invoke after a period of read inactivity.
 	 * @param runnable the task to invoke
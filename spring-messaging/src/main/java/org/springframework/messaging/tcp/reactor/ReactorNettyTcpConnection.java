@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.messaging.tcp.reactor;
 
+import java.util.List;
+
 import io.netty.buffer.ByteBuf;
 import reactor.core.publisher.DirectProcessor;
 import reactor.core.publisher.Mono;
@@ -63,6 +65,19 @@ public class ReactorNettyTcpConnection<P> implements TcpConnection<P> {
 		return new MonoToListenableFutureAdapter<>(sendCompletion);
 	}
 
+	/**
+	 * Encode all messages into a single buffer, written and flushed at once.
+	 */
+	@Override
+	public ListenableFuture<Void> sendAll(List<Message<P>> messages) {
+		ByteBuf byteBuf = this.outbound.alloc().buffer();
+		for (Message<P> message : messages) {
+			this.codec.encode(message, byteBuf);
+		}
+		Mono<Void> sendCompletion = this.outbound.send(Mono.just(byteBuf)).then();
+		return new MonoToListenableFutureAdapter<>(sendCompletion);
+	}
+
 	@Override
 	@SuppressWarnings("deprecation")
 	public void onReadInactivity(Runnable runnable, long inactivityDuration) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,17 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -28,10 +34,12 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test fixture for
@@ -439,6 +447,180 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals(2, this.registry.findSubscriptions(createMessage("/bar")).size());
 	}
 
+	@Test
+	public void findSubscriptionsWithCustomPathSeparator() {
+		this.registry.setPathMatcher(new AntPathMatcher("."));
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "price.stock.nasdaq.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "2", "price.stock.*.ibm"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "price.**"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "2", "price.stock.nyse.*"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("price.stock.nasdaq.ibm"));
+		assertEquals(2, actual.size());
+		assertEquals(Arrays.asList("1", "2"), actual.get("sess1"));
+		assertEquals(Collections.singletonList("1"), actual.get("sess2"));
+
+		actual = this.registry.findSubscriptions(createMessage("price.stock.nyse.goog"));
+		assertEquals(1, actual.size());
+		assertEquals(Arrays.asList("1", "2"), actual.get("sess2"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess2", "1"));
+		actual = this.registry.findSubscriptions(createMessage("price.stock.nasdaq.ibm"));
+		assertEquals(1, actual.size());
+		assertEquals(Arrays.asList("1", "2"), actual.get("sess1"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("price.bond")).size());
+	}
+
+	@Test
+	public void findSubscriptionsWithCustomPathMatcher() {
+		this.registry.setPathMatcher(new AntPathMatcher() {
+			@Override
+			public boolean match(String pattern, String path) {
+				return super.match(pattern.toLowerCase(), path.toLowerCase());
+			}
+		});
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/TOPIC/**"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/Topic/foo"));
+		assertEquals(2, actual.size());
+
+		this.registry.unregisterAllSubscriptions("sess1");
+		actual = this.registry.findSubscriptions(createMessage("/Topic/foo"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("1"), actual.get("sess2"));
+	}
+
+	@Test
+	public void findSubscriptionsToPlainDestinationsWithCustomPathMatcher() {
+		this.registry.setPathMatcher(new AntPathMatcher() {
+			@Override
+			public boolean match(String pattern, String path) {
+				return super.match(pattern.toLowerCase(), path.toLowerCase());
+			}
+		});
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/foo"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/Topic/FOO"));
+		assertEquals(Collections.singletonList("1"), actual.get("sess1"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "1"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/foo")).size());
+	}
+
+	@Test
+	public void findSubscriptionsToPlainDestinationsWithCaseInsensitiveOrTrimmingPathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.setPathMatcher(pathMatcher);
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/foo"));
+		assertEquals(Collections.singletonList("1"),
+				this.registry.findSubscriptions(createMessage("/Topic/FOO")).get("sess1"));
+
+		DefaultSubscriptionRegistry registry = new DefaultSubscriptionRegistry();
+		pathMatcher = new AntPathMatcher();
+		pathMatcher.setTrimTokens(true);
+		registry.setPathMatcher(pathMatcher);
+		registry.registerSubscription(subscribeMessage("sess1", "1", "/topic/foo"));
+		assertEquals(Collections.singletonList("1"),
+				registry.findSubscriptions(createMessage("/topic/ foo ")).get("sess1"));
+	}
+
+	@Test
+	public void registerAndUnregisterConcurrently() throws Exception {
+		int sessionCount = 8;
+		int subscriptionCount = 500;
+		ExecutorService executor = Executors.newFixedThreadPool(sessionCount + 1);
+		CountDownLatch done = new CountDownLatch(sessionCount);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < sessionCount; i++) {
+				String sessionId = "sess" + i;
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < subscriptionCount; j++) {
+						this.registry.registerSubscription(subscribeMessage(sessionId, "a" + j, "/topic/foo"));
+						this.registry.registerSubscription(subscribeMessage(sessionId, "b" + j, "/topic/*"));
+						this.registry.registerSubscription(subscribeMessage(sessionId, "c" + j, "/topic/" + j + "/**"));
+						if (j % 2 == 0) {
+							this.registry.unregisterSubscription(unsubscribeMessage(sessionId, "a" + j));
+							this.registry.unregisterSubscription(unsubscribeMessage(sessionId, "b" + j));
+							this.registry.unregisterSubscription(unsubscribeMessage(sessionId, "c" + j));
+						}
+					}
+					done.countDown();
+				}));
+			}
+			futures.add(executor.submit(() -> {
+				while (done.getCount() > 0) {
+					this.registry.findSubscriptions(createMessage("/topic/foo"));
+					this.registry.findSubscriptions(createMessage("/topic/1"));
+				}
+			}));
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/foo"));
+		assertEquals(sessionCount, actual.size());
+		for (List<String> subscriptionIds : actual.values()) {
+			assertEquals(subscriptionCount, subscriptionIds.size());
+			assertTrue(subscriptionIds.contains("a1"));
+			assertTrue(subscriptionIds.contains("b1"));
+		}
+		actual = this.registry.findSubscriptions(createMessage("/topic/1/bar"));
+		assertEquals(sessionCount, actual.size());
+		assertEquals(Collections.singletonList("c1"), actual.get("sess0"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/2/bar")).size());
+
+		for (int i = 0; i < sessionCount; i++) {
+			this.registry.unregisterAllSubscriptions("sess" + i);
+		}
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/foo")).size());
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/1/bar")).size());
+	}
+
+	@Test
+	public void registerAndUnregisterSamePatternConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (int round = 0; round < 500; round++) {
+				DefaultSubscriptionRegistry registry = new DefaultSubscriptionRegistry();
+				for (int i = 0; i < 20; i++) {
+					registry.registerSubscription(subscribeMessage("other", "o" + i, "/queue/" + i + "/*"));
+				}
+				CountDownLatch start = new CountDownLatch(1);
+				// sess1 ends up subscribed, sess2 removes the pattern's last subscriber at the same time
+				Future<?> keep = executor.submit(() -> {
+					start.await();
+					registry.registerSubscription(subscribeMessage("sess1", "s1", "/topic/*"));
+					registry.unregisterSubscription(unsubscribeMessage("sess1", "s1"));
+					registry.registerSubscription(subscribeMessage("sess1", "s2", "/topic/*"));
+					return null;
+				});
+				Future<?> remove = executor.submit(() -> {
+					start.await();
+					registry.registerSubscription(subscribeMessage("sess2", "s1", "/topic/*"));
+					registry.unregisterSubscription(unsubscribeMessage("sess2", "s1"));
+					return null;
+				});
+				start.countDown();
+				keep.get(10, TimeUnit.SECONDS);
+				remove.get(10, TimeUnit.SECONDS);
+
+				MultiValueMap<String, String> actual = registry.findSubscriptions(createMessage("/topic/foo"));
+				assertEquals("Round " + round, 1, actual.size());
+				assertEquals(Collections.singletonList("s2"), actual.get("sess1"));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private Message<?> createMessage(String destination) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
 		accessor.setDestination(destination);
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ShardedMessageDispatcher}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class ShardedMessageDispatcherTests {
+
+	private static final Log logger = LogFactory.getLog(ShardedMessageDispatcherTests.class);
+
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void preservesOrderPerSession() throws InterruptedException {
+		int sessionCount = 50;
+		int messageCount = 200;
+		ShardedMessageDispatcher dispatcher = new ShardedMessageDispatcher(this.executor, 4, logger);
+
+		MultiValueMap<String, String> subscriptions = new LinkedMultiValueMap<>();
+		for (int i = 0; i < sessionCount; i++) {
+			subscriptions.add("sess" + i, "sub1");
+			subscriptions.add("sess" + i, "sub2");
+		}
+		Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+		CountDownLatch latch = new CountDownLatch(sessionCount * messageCount);
+
+		for (int i = 0; i < messageCount; i++) {
+			int message = i;
+			dispatcher.dispatch(subscriptions, (sessionId, subscriptionIds) -> {
+				assertEquals(2, subscriptionIds.size());
+				received.computeIfAbsent(sessionId, id -> Collections.synchronizedList(new ArrayList<>())).add(message);
+				latch.countDown();
+				return 0;
+			});
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertEquals(sessionCount, received.size());
+		for (List<Integer> messages : received.values()) {
+			assertEquals(messageCount, messages.size());
+			for (int i = 0; i < messageCount; i++) {
+				assertEquals(i, (int) messages.get(i));
+			}
+		}
+		assertEquals(4, dispatcher.getShardCount());
+		assertTrue(dispatcher.getStatsInfo().startsWith("shard0[processed "));
+	}
+
+	@Test
+	public void continuesAfterFailedDelivery() throws InterruptedException {
+		ShardedMessageDispatcher dispatcher = new ShardedMessageDispatcher(this.executor, 1, logger);
+		MultiValueMap<String, String> subscriptions = new LinkedMultiValueMap<>();
+		subscriptions.add("sess1", "sub1");
+		CountDownLatch latch = new CountDownLatch(1);
+
+		dispatcher.dispatch(subscriptions, (sessionId, subscriptionIds) -> {
+			throw new IllegalStateException("Expected");
+		});
+		dispatcher.dispatch(subscriptions, (sessionId, subscriptionIds) -> {
+			latch.countDown();
+			return 0;
+		});
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertTrue(dispatcher.getStatsInfo(), dispatcher.getStatsInfo().contains("1 failures"));
+	}
+
+	@Test
+	public void countsReportedFailures() {
+		ShardedMessageDispatcher dispatcher = new ShardedMessageDispatcher(Runnable::run, 1, logger);
+		MultiValueMap<String, String> subscriptions = new LinkedMultiValueMap<>();
+		subscriptions.add("sess1", "sub1");
+		subscriptions.add("sess1", "sub2");
+		subscriptions.add("sess2", "sub1");
+
+		dispatcher.dispatch(subscriptions, (sessionId, subscriptionIds) -> subscriptionIds.size());
+		dispatcher.dispatch(subscriptions, (sessionId, subscriptionIds) -> 0);
+
+		assertEquals("shard0[processed 2 batches, 4 sessions, 3 failures, 0 pending]", dispatcher.getStatsInfo());
+	}
+
+	@Test
+	public void emptySubscriptions() {
+		ShardedMessageDispatcher dispatcher = new ShardedMessageDispatcher(this.executor, 2, logger);
+		dispatcher.dispatch(new LinkedMultiValueMap<>(), (sessionId, subscriptionIds) -> {
+			throw new AssertionError("Unexpected delivery");
+		});
+		assertEquals("shard0[processed 0 batches, 0 sessions, 0 failures, 0 pending], " +
+				"shard1[processed 0 batches, 0 sessions, 0 failures, 0 pending]", dispatcher.getStatsInfo());
+	}
+
+}
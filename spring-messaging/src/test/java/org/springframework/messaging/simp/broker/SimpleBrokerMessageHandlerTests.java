@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -101,6 +101,29 @@ public class SimpleBrokerMessageHandlerTests {
 		assertTrue(messageCaptured("sess2", "sub3", "/bar"));
 	}
 
+	@Test
+	public void subscribePublishWithDispatchExecutor() {
+		this.messageHandler.setDispatchExecutor(Runnable::run);
+		this.messageHandler.setDispatchShardCount(2);
+		startSession("sess1");
+		startSession("sess2");
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub2", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub3", "/bar"));
+
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+		this.messageHandler.handleMessage(createMessage("/bar", "message2"));
+
+		verify(this.clientOutChannel, times(4)).send(this.messageCaptor.capture());
+		assertTrue(messageCaptured("sess1", "sub1", "/foo"));
+		assertTrue(messageCaptured("sess1", "sub2", "/foo"));
+		assertTrue(messageCaptured("sess2", "sub1", "/foo"));
+		assertTrue(messageCaptured("sess2", "sub3", "/bar"));
+		assertTrue(this.messageHandler.getDispatchStatsInfo().contains("shard1[processed "));
+	}
+
 	@Test
 	public void subscribeDisconnectPublish() {
 		String sess1 = "sess1";
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,19 @@ package org.springframework.messaging.simp.stomp;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -43,6 +50,7 @@ import org.springframework.messaging.tcp.TcpConnectionHandler;
 import org.springframework.messaging.tcp.TcpOperations;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureTask;
+import org.springframework.util.concurrent.SettableListenableFuture;
 
 /**
  * Unit tests for StompBrokerRelayMessageHandler.
@@ -57,6 +65,8 @@ public class StompBrokerRelayMessageHandlerTests {
 
 	private StubTcpOperations tcpClient;
 
+	private InProcessBroker inProcessBroker;
+
 
 	@Before
 	public void setup() {
@@ -77,6 +87,13 @@ public class StompBrokerRelayMessageHandlerTests {
 		this.brokerRelay.setTcpClient(this.tcpClient);
 	}
 
+	@After
+	public void tearDown() {
+		if (this.inProcessBroker != null) {
+			this.inProcessBroker.shutdown();
+		}
+	}
+
 
 	@Test
 	public void virtualHost() throws Exception {
@@ -220,6 +237,147 @@ public class StompBrokerRelayMessageHandlerTests {
 		assertSame(message, captor.getValue());
 	}
 
+	@Test
+	public void forwardWithPipelinedWrites() throws Exception {
+
+		InProcessBroker broker = startWithInProcessBroker();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		InProcessBroker.Connection connection = broker.awaitConnection("sess1");
+		connection.holdWrites();
+
+		for (int i = 0; i < 3; i++) {
+			this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		}
+		assertEquals(Collections.singletonList(1), connection.getBatchSizes());
+		assertEquals(Integer.valueOf(3), this.brokerRelay.getOutstandingFrameCounts().get("sess1"));
+
+		connection.releaseWrites();
+		broker.awaitIdle();
+		assertEquals(Arrays.asList(1, 2), connection.getBatchSizes());
+		assertEquals(Integer.valueOf(0), this.brokerRelay.getOutstandingFrameCounts().get("sess1"));
+		assertEquals(Arrays.asList(StompCommand.CONNECT, StompCommand.SEND, StompCommand.SEND, StompCommand.SEND),
+				connection.getReceivedCommands());
+	}
+
+	@Test
+	public void forwardWhenBrokerConnectionSaturated() throws Exception {
+
+		this.brokerRelay.setMaxOutstandingFrames(2);
+		this.brokerRelay.setSendTimeLimit(100);
+		InProcessBroker broker = startWithInProcessBroker();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		InProcessBroker.Connection connection = broker.awaitConnection("sess1");
+		connection.holdWrites();
+		this.outboundChannel.getMessages().clear();
+
+		this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		assertEquals(2, this.brokerRelay.getConnectionCount());
+		assertTrue(this.outboundChannel.getMessages().isEmpty());
+
+		this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		assertEquals(1, this.brokerRelay.getConnectionCount());
+
+		Message<byte[]> message = this.outboundChannel.getMessages().get(0);
+		StompHeaderAccessor accessor = StompHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+		assertEquals(StompCommand.ERROR, accessor.getCommand());
+		assertEquals("sess1", accessor.getSessionId());
+		assertTrue(accessor.getMessage(), accessor.getMessage().contains("saturated"));
+	}
+
+	@Test
+	public void forwardWaitsForSaturatedBrokerConnection() throws Exception {
+
+		this.brokerRelay.setMaxOutstandingFrames(1);
+		this.brokerRelay.setSendTimeLimit(5000);
+		InProcessBroker broker = startWithInProcessBroker();
+		this.brokerRelay.handleMessage(connectMessage("sess1", "joe"));
+		InProcessBroker.Connection connection = broker.awaitConnection("sess1");
+		connection.holdWrites();
+		this.outboundChannel.getMessages().clear();
+
+		this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo"));
+		Thread sender = new Thread(() ->
+				this.brokerRelay.handleMessage(message(StompCommand.SEND, "sess1", "joe", "/topic/foo")));
+		sender.start();
+		awaitState(sender, Thread.State.TIMED_WAITING);
+		assertEquals(Collections.singletonList(1), connection.getBatchSizes());
+
+		connection.releaseWrites();
+		sender.join(5000);
+		broker.awaitIdle();
+
+		assertEquals(2, this.brokerRelay.getConnectionCount());
+		assertTrue(this.outboundChannel.getMessages().isEmpty());
+		assertEquals(Arrays.asList(1, 1), connection.getBatchSizes());
+		assertEquals(Integer.valueOf(0), this.brokerRelay.getOutstandingFrameCounts().get("sess1"));
+	}
+
+	@Test
+	public void forwardOnSystemConnectionFromBrokerThread() throws Exception {
+
+		// Like the UserDestinationMessageHandler, send to the broker while handling a broker message
+		this.brokerRelay.setSystemSubscriptions(Collections.singletonMap("/topic/unresolved", message -> {
+			for (int i = 0; i < 2; i++) {
+				SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+				headers.setDestination("/topic/foo");
+				this.brokerRelay.handleMessage(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+			}
+		}));
+		this.brokerRelay.setMaxOutstandingFrames(1);
+		this.brokerRelay.setSendTimeLimit(5000);
+		InProcessBroker broker = startWithInProcessBroker();
+		InProcessBroker.Connection connection = broker.awaitConnection(StompBrokerRelayMessageHandler.SYSTEM_SESSION_ID);
+
+		connection.sendToRelay(message(StompCommand.MESSAGE, null, null, "/topic/unresolved"));
+		broker.awaitIdle();
+
+		assertEquals(Arrays.asList(StompCommand.CONNECT, StompCommand.SUBSCRIBE, StompCommand.SEND, StompCommand.SEND),
+				connection.getReceivedCommands());
+		assertEquals(Arrays.asList(1, 1), connection.getBatchSizes());
+		assertEquals(Integer.valueOf(0), this.brokerRelay.getOutstandingFrameCounts()
+				.get(StompBrokerRelayMessageHandler.SYSTEM_SESSION_ID));
+	}
+
+	@Test
+	public void forwardOnSystemConnectionWaitsForWrite() throws Exception {
+
+		InProcessBroker broker = startWithInProcessBroker();
+		InProcessBroker.Connection connection = broker.awaitConnection(StompBrokerRelayMessageHandler.SYSTEM_SESSION_ID);
+		connection.holdWrites();
+
+		Thread sender = new Thread(() -> {
+			SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			headers.setDestination("/topic/foo");
+			this.brokerRelay.handleMessage(MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders()));
+		});
+		sender.start();
+		awaitState(sender, Thread.State.WAITING);
+		assertEquals(Collections.singletonList(1), connection.getBatchSizes());
+
+		connection.releaseWrites();
+		sender.join(5000);
+		assertFalse(sender.isAlive());
+		assertEquals(Integer.valueOf(0), this.brokerRelay.getOutstandingFrameCounts()
+				.get(StompBrokerRelayMessageHandler.SYSTEM_SESSION_ID));
+	}
+
+	private InProcessBroker startWithInProcessBroker() throws Exception {
+		InProcessBroker broker = new InProcessBroker();
+		this.brokerRelay.setTcpClient(broker);
+		this.brokerRelay.start();
+		this.inProcessBroker = broker;
+		return broker;
+	}
+
+	private static void awaitState(Thread thread, Thread.State state) {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (thread.getState() != state) {
+			assertTrue("Thread not in state " + state, System.currentTimeMillis() < deadline);
+			Thread.yield();
+		}
+	}
+
 	private Message<byte[]> connectMessage(String sessionId, String user) {
 		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.CONNECT);
 		headers.setSessionId(sessionId);
@@ -339,4 +497,191 @@ public class StompBrokerRelayMessageHandlerTests {
 		}
 	}
 
+
+	/**
+	 * In-process stand-in for a STOMP broker. Frames are encoded, decoded and
+	 * answered on a single I/O thread, which also completes writes, much like
+	 * a Netty event loop.
+	 */
+	private static class InProcessBroker implements TcpOperations<byte[]> {
+
+		private final ExecutorService ioThread = Executors.newSingleThreadExecutor();
+
+		private final AtomicInteger scheduledTasks = new AtomicInteger();
+
+		private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+		private final StompEncoder encoder = new StompEncoder();
+
+		private final StompDecoder decoder = new StompDecoder();
+
+
+		@Override
+		public ListenableFuture<Void> connect(TcpConnectionHandler<byte[]> handler) {
+			Connection connection = new Connection(handler);
+			this.connections.add(connection);
+			SettableListenableFuture<Void> future = new SettableListenableFuture<>();
+			execute(() -> {
+				handler.afterConnected(connection);
+				future.set(null);
+			});
+			return future;
+		}
+
+		@Override
+		public ListenableFuture<Void> connect(TcpConnectionHandler<byte[]> handler, ReconnectStrategy strategy) {
+			return connect(handler);
+		}
+
+		@Override
+		public ListenableFuture<Void> shutdown() {
+			this.ioThread.shutdownNow();
+			return getVoidFuture();
+		}
+
+		/**
+		 * Wait for the STOMP CONNECT frame of the given session to be answered.
+		 */
+		public Connection awaitConnection(String sessionId) throws Exception {
+			awaitIdle();
+			for (Connection connection : this.connections) {
+				if (sessionId.equals(connection.sessionId)) {
+					return connection;
+				}
+			}
+			throw new AssertionError("No connection for session " + sessionId);
+		}
+
+		/**
+		 * Wait until the I/O thread has run all tasks, including the ones
+		 * scheduled by those tasks in turn.
+		 */
+		public void awaitIdle() throws Exception {
+			while (this.scheduledTasks.get() > 0) {
+				this.ioThread.submit(() -> {}).get(5, TimeUnit.SECONDS);
+			}
+		}
+
+		private void execute(Runnable task) {
+			this.scheduledTasks.incrementAndGet();
+			this.ioThread.execute(() -> {
+				try {
+					task.run();
+				}
+				finally {
+					this.scheduledTasks.decrementAndGet();
+				}
+			});
+		}
+
+
+		private class Connection implements TcpConnection<byte[]> {
+
+			private final TcpConnectionHandler<byte[]> handler;
+
+			private volatile String sessionId;
+
+			private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+			private final List<StompCommand> receivedCommands = new CopyOnWriteArrayList<>();
+
+			private final List<Runnable> heldWrites = new ArrayList<>();
+
+			private volatile boolean holdWrites;
+
+
+			Connection(TcpConnectionHandler<byte[]> handler) {
+				this.handler = handler;
+			}
+
+			public List<Integer> getBatchSizes() {
+				return this.batchSizes;
+			}
+
+			public List<StompCommand> getReceivedCommands() {
+				return this.receivedCommands;
+			}
+
+			/**
+			 * Leave writes incomplete until {@link #releaseWrites()}.
+			 */
+			public void holdWrites() {
+				this.holdWrites = true;
+			}
+
+			public void releaseWrites() {
+				execute(() -> {
+					this.holdWrites = false;
+					this.heldWrites.forEach(Runnable::run);
+					this.heldWrites.clear();
+				});
+			}
+
+			/**
+			 * Send the given frame to the relay, from the I/O thread.
+			 */
+			public void sendToRelay(Message<byte[]> message) {
+				execute(() -> this.handler.handleMessage(message));
+			}
+
+			@Override
+			public ListenableFuture<Void> send(Message<byte[]> message) {
+				return write(Collections.singletonList(message));
+			}
+
+			@Override
+			public ListenableFuture<Void> sendAll(List<Message<byte[]>> messages) {
+				this.batchSizes.add(messages.size());
+				return write(messages);
+			}
+
+			private ListenableFuture<Void> write(List<Message<byte[]>> messages) {
+				if (this.sessionId == null) {
+					this.sessionId = SimpMessageHeaderAccessor.getSessionId(messages.get(0).getHeaders());
+				}
+				SettableListenableFuture<Void> future = new SettableListenableFuture<>();
+				execute(() -> {
+					Runnable write = () -> {
+						messages.forEach(this::receive);
+						future.set(null);
+					};
+					if (this.holdWrites) {
+						this.heldWrites.add(write);
+					}
+					else {
+						write.run();
+					}
+				});
+				return future;
+			}
+
+			private void receive(Message<byte[]> message) {
+				byte[] bytes = encoder.encode(message);
+				for (Message<byte[]> frame : decoder.decode(ByteBuffer.wrap(bytes))) {
+					StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(frame, StompHeaderAccessor.class);
+					assertNotNull(accessor);
+					this.receivedCommands.add(accessor.getCommand());
+					if (accessor.getCommand() == StompCommand.CONNECT) {
+						StompHeaderAccessor connected = StompHeaderAccessor.create(StompCommand.CONNECTED);
+						connected.setLeaveMutable(true);
+						execute(() -> this.handler.handleMessage(
+								MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders())));
+					}
+				}
+			}
+
+			@Override
+			public void onReadInactivity(Runnable runnable, long duration) {
+			}
+
+			@Override
+			public void onWriteInactivity(Runnable runnable, long duration) {
+			}
+
+			@Override
+			public void close() {
+			}
+		}
+	}
+
 }
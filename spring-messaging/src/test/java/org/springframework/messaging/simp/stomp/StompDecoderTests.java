@@ -18,6 +18,7 @@ package org.springframework.messaging.simp.stomp;
 
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.junit.Test;
@@ -28,6 +29,7 @@ import org.springframework.util.InvalidMimeTypeException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * Test fixture for {@link StompDecoder}.
@@ -248,6 +250,46 @@ public class StompDecoderTests {
 		assertEquals(SimpMessageType.HEARTBEAT, StompHeaderAccessor.wrap(messages.get(0)).getMessageType());
 	}
 
+	@Test
+	public void decodeFrameFromDirectBuffer() {
+		byte[] bytes = "SEND\ndestination:/topic/caf\u00e9\na\\cb:c\n\nThe body\0".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+
+		Message<byte[]> frame = decode(buffer);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+		assertEquals("/topic/caf\u00e9", headers.getDestination());
+		assertEquals("c", headers.getFirstNativeHeader("a:b"));
+		assertEquals("The body", new String(frame.getPayload(), StandardCharsets.UTF_8));
+		assertEquals(bytes.length, buffer.position());
+	}
+
+	@Test
+	public void decodeFrameFromBufferSlice() {
+		byte[] bytes = "xxSEND\ndestination:test\n\nThe body\0xx".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 4).slice();
+
+		Message<byte[]> frame = decode(buffer);
+		assertEquals("test", StompHeaderAccessor.wrap(frame).getDestination());
+		assertEquals("The body", new String(frame.getPayload(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void decodeFrameWithCommonHeaderNames() {
+		Message<byte[]> frame1 = decode("SEND\ndestination:/a\n\n\0");
+		Message<byte[]> frame2 = decode("SEND\ndestination:/b\n\n\0");
+
+		String name1 = StompHeaderAccessor.wrap(frame1).toNativeHeaderMap().keySet().iterator().next();
+		String name2 = StompHeaderAccessor.wrap(frame2).toNativeHeaderMap().keySet().iterator().next();
+		assertSame(name1, name2);
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void decodeFrameWithIllegalEscapeSequence() {
+		decode("SEND\ndestination:a\\tb\n\n\0");
+	}
+
 	private void assertIncompleteDecode(String partialFrame) {
 		ByteBuffer buffer = ByteBuffer.wrap(partialFrame.getBytes());
 		assertNull(decode(buffer));
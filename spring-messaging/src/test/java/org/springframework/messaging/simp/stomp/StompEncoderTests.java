@@ -16,6 +16,9 @@
 
 package org.springframework.messaging.simp.stomp;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
 import org.springframework.messaging.Message;
@@ -88,4 +91,21 @@ public class StompEncoderTests {
 				new String(encoder.encode(frame)));
 	}
 
+	@Test
+	public void encodeFrameWithNonAsciiHeaders() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.setDestination("/topic/caf\u00e9");
+		headers.addNativeHeader("greeting", "\u4f60\u597d:\ud83d\ude00");
+		Message<byte[]> frame = MessageBuilder.createMessage("body".getBytes(), headers.getMessageHeaders());
+
+		byte[] bytes = encoder.encode(frame);
+		assertEquals("SEND\ndestination:/topic/caf\u00e9\ngreeting:\u4f60\u597d\\c\ud83d\ude00\n" +
+				"content-length:4\n\nbody\0", new String(bytes, StandardCharsets.UTF_8));
+
+		Message<byte[]> decoded = new StompDecoder().decode(ByteBuffer.wrap(bytes)).get(0);
+		StompHeaderAccessor accessor = StompHeaderAccessor.wrap(decoded);
+		assertEquals("/topic/caf\u00e9", accessor.getDestination());
+		assertEquals("\u4f60\u597d:\ud83d\ude00", accessor.getFirstNativeHeader("greeting"));
+	}
+
 }
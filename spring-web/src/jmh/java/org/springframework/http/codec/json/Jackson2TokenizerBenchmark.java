@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * Benchmarks for {@link Jackson2Tokenizer} and {@link Jackson2JsonDecoder}
+ * streaming a large JSON array in chunks. Run with "-prof gc" in order to
+ * compare allocation rates as well.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2TokenizerBenchmark {
+
+	@Benchmark
+	public void tokenizeArrayElements(ArrayState state, Blackhole blackhole) {
+		Jackson2Tokenizer.tokenize(state.chunks(), state.jsonFactory, true, state.maxInMemorySize)
+				.doOnNext(blackhole::consume)
+				.blockLast();
+	}
+
+	@Benchmark
+	public void decodeArrayElements(ArrayState state, Blackhole blackhole) {
+		state.decoder.decode(state.chunks(), state.elementType, null, null)
+				.doOnNext(blackhole::consume)
+				.blockLast();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ArrayState {
+
+		@Param({"1000", "100000"})
+		public int elementCount;
+
+		@Param({"8192"})
+		public int chunkSize;
+
+		@Param({"-1", "1024"})
+		public int maxInMemorySize;
+
+		public JsonFactory jsonFactory = new JsonFactory();
+
+		public Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+
+		public ResolvableType elementType = ResolvableType.forClass(Element.class);
+
+		public DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public List<byte[]> content = new ArrayList<>();
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.decoder.setMaxInMemorySize(this.maxInMemorySize);
+			StringBuilder builder = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append("{\"id\":").append(i).append(",\"name\":\"element").append(i)
+						.append("\",\"tags\":[\"a\",\"b\",\"c\"],\"price\":").append(i * 1.5).append('}');
+			}
+			byte[] bytes = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+			for (int offset = 0; offset < bytes.length; offset += this.chunkSize) {
+				this.content.add(Arrays.copyOfRange(bytes, offset, Math.min(offset + this.chunkSize, bytes.length)));
+			}
+		}
+
+		public Flux<DataBuffer> chunks() {
+			return Flux.fromIterable(this.content).map(this.bufferFactory::wrap);
+		}
+	}
+
+
+	public static class Element {
+
+		public int id;
+
+		public String name;
+
+		public List<String> tags;
+
+		public double price;
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmarks for {@link PathPattern} matching against parsed request paths.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@Benchmark
+	public void matchAllPatterns(PatternsState state, Blackhole blackhole) {
+		for (PathPattern pattern : state.patterns) {
+			for (PathContainer path : state.paths) {
+				blackhole.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndExtract(PatternsState state, Blackhole blackhole) {
+		blackhole.consume(state.capturePattern.matchAndExtract(state.capturePath));
+	}
+
+	@Benchmark
+	public void parsePath(Blackhole blackhole) {
+		blackhole.consume(PathContainer.parsePath("/hotels/42/bookings/21"));
+	}
+
+	@Benchmark
+	public void parsePattern(PatternsState state, Blackhole blackhole) {
+		blackhole.consume(state.parser.parse("/hotels/{hotel}/bookings/{booking}"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsState {
+
+		public PathPatternParser parser = new PathPatternParser();
+
+		public List<PathPattern> patterns = new ArrayList<>();
+
+		public List<PathContainer> paths = new ArrayList<>();
+
+		public PathPattern capturePattern;
+
+		public PathContainer capturePath;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			String[] patterns = {"/", "/static/**", "/css/*.css", "/js/**", "/hotels/{hotel}",
+					"/hotels/{hotel}/bookings/{booking}", "/api/v?/users/{id:\\d+}", "/docs/{*path}"};
+			String[] paths = {"/", "/static/images/logo.png", "/css/main.css", "/js/vendor/jquery.js",
+					"/hotels/42", "/hotels/42/bookings/21", "/api/v2/users/1234", "/docs/reference/index.html"};
+			for (String pattern : patterns) {
+				this.patterns.add(this.parser.parse(pattern));
+			}
+			for (String path : paths) {
+				this.paths.add(PathContainer.parsePath(path));
+			}
+			this.capturePattern = this.parser.parse("/hotels/{hotel}/bookings/{booking}");
+			this.capturePath = PathContainer.parsePath("/hotels/42/bookings/21");
+		}
+	}
+
+}
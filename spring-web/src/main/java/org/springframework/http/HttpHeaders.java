@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -393,6 +394,22 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 
 	private static final ZoneId GMT = ZoneId.of("GMT");
 
+	private static final Function<List<String>, List<MediaType>> ACCEPT_PARSER =
+			values -> Collections.unmodifiableList(MediaType.parseMediaTypes(values));
+
+	private static final Function<List<String>, String> CACHE_CONTROL_PARSER =
+			HttpHeaders::joinValues;
+
+	private static final Function<List<String>, Long> CONTENT_LENGTH_PARSER = values -> {
+		String value = (!values.isEmpty() ? values.get(0) : null);
+		return (value != null ? Long.valueOf(value) : null);
+	};
+
+	private static final Function<List<String>, MediaType> CONTENT_TYPE_PARSER = values -> {
+		String value = (!values.isEmpty() ? values.get(0) : null);
+		return (StringUtils.hasLength(value) ? MediaType.parseMediaType(value) : null);
+	};
+
 	/**
 	 * Date formats with time zone as specified in the HTTP RFC.
 	 * @see <a href="https://tools.ietf.org/html/rfc7231#section-7.1.1.1">Section 7.1.1.1 of RFC 7231</a>
@@ -416,6 +433,8 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 
 	/**
 	 * Construct a new {@code HttpHeaders} instance backed by an existing map.
+	 * <p>An {@link IndexedHeaderMap} may be passed in for an allocation-light
+	 * storage that also memoizes the parsed values of common headers.
 	 * @since 5.1
 	 */
 	public HttpHeaders(MultiValueMap<String, String> headers) {
@@ -438,6 +457,10 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 * <p>Returns an empty list when the acceptable media types are unspecified.
 	 */
 	public List<MediaType> getAccept() {
+		if (this.headers instanceof IndexedHeaderMap) {
+			List<MediaType> mediaTypes = ((IndexedHeaderMap) this.headers).getParsedValue(ACCEPT, ACCEPT_PARSER);
+			return (mediaTypes != null ? new ArrayList<>(mediaTypes) : Collections.emptyList());
+		}
 		return MediaType.parseMediaTypes(get(ACCEPT));
 	}
 
@@ -783,6 +806,9 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 */
 	@Nullable
 	public String getCacheControl() {
+		if (this.headers instanceof IndexedHeaderMap) {
+			return ((IndexedHeaderMap) this.headers).getParsedValue(CACHE_CONTROL, CACHE_CONTROL_PARSER);
+		}
 		return getFieldValues(CACHE_CONTROL);
 	}
 
@@ -896,6 +922,10 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 * <p>Returns -1 when the content-length is unknown.
 	 */
 	public long getContentLength() {
+		if (this.headers instanceof IndexedHeaderMap) {
+			Long contentLength = ((IndexedHeaderMap) this.headers).getParsedValue(CONTENT_LENGTH, CONTENT_LENGTH_PARSER);
+			return (contentLength != null ? contentLength : -1);
+		}
 		String value = getFirst(CONTENT_LENGTH);
 		return (value != null ? Long.parseLong(value) : -1);
 	}
@@ -922,6 +952,9 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 */
 	@Nullable
 	public MediaType getContentType() {
+		if (this.headers instanceof IndexedHeaderMap) {
+			return ((IndexedHeaderMap) this.headers).getParsedValue(CONTENT_TYPE, CONTENT_TYPE_PARSER);
+		}
 		String value = getFirst(CONTENT_TYPE);
 		return (StringUtils.hasLength(value) ? MediaType.parseMediaType(value) : null);
 	}
@@ -1505,6 +1538,10 @@ public class HttpHeaders implements MultiValueMap<String, String>, Serializable
 	 * @return a combined result with comma delimitation
 	 */
 	protected String toCommaDelimitedString(List<String> headerValues) {
+		return joinValues(headerValues);
+	}
+
+	private static String joinValues(List<String> headerValues) {
 		StringBuilder builder = new StringBuilder();
 		for (Iterator<String> it = headerValues.iterator(); it.hasNext();) {
 			String val = it.next();
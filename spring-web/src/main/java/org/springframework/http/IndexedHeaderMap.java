@@ -0,0 +1,613 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Case-insensitive {@link MultiValueMap} for HTTP headers, storing header
+ * names and values in flat arrays rather than in hash map entries.
+ * Intended as an allocation-light storage for {@link HttpHeaders}, through
+ * {@link HttpHeaders#HttpHeaders(MultiValueMap)}.
+ *
+ * <p>Header names that match one of the well-known names declared in
+ * {@link HttpHeaders} are stored as the shared constant, avoiding any copy of
+ * the name and allowing for an identity check on lookup. Other names are looked
+ * up by a case-insensitive hash code and {@link String#equalsIgnoreCase}, without
+ * creating a lower-case copy of the name. Like {@code LinkedCaseInsensitiveMap},
+ * this map preserves the original case of header names as well as their order.
+ *
+ * <p>In addition, this map memoizes a parsed representation of the values of
+ * a header, as {@link #getParsedValue requested} by {@code HttpHeaders} for
+ * {@code Content-Type}, {@code Content-Length}, {@code Accept} and
+ * {@code Cache-Control}. A memoized value is discarded on any modification
+ * of the header, including modifications of the value list returned from
+ * {@link #get}.
+ *
+ * <p>Lists passed to {@link #put} are copied into this map rather than stored
+ * as-is. This map is not thread-safe for modifications.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see HttpHeaders#HttpHeaders(MultiValueMap)
+ */
+public class IndexedHeaderMap extends AbstractMap<String, List<String>>
+		implements MultiValueMap<String, String>, Serializable {
+
+	private static final long serialVersionUID = 2466419812539146474L;
+
+	private static final String[] WELL_KNOWN_NAMES = new String[] {
+			HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_CHARSET, HttpHeaders.ACCEPT_ENCODING,
+			HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_RANGES,
+			HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS,
+			HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN,
+			HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.ACCESS_CONTROL_MAX_AGE,
+			HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD,
+			HttpHeaders.AGE, HttpHeaders.ALLOW, HttpHeaders.AUTHORIZATION, HttpHeaders.CACHE_CONTROL,
+			HttpHeaders.CONNECTION, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_DISPOSITION,
+			HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_LOCATION,
+			HttpHeaders.CONTENT_RANGE, HttpHeaders.CONTENT_TYPE, HttpHeaders.COOKIE, HttpHeaders.DATE,
+			HttpHeaders.ETAG, HttpHeaders.EXPECT, HttpHeaders.EXPIRES, HttpHeaders.FROM, HttpHeaders.HOST,
+			HttpHeaders.IF_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_NONE_MATCH,
+			HttpHeaders.IF_RANGE, HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.LAST_MODIFIED,
+			HttpHeaders.LINK, HttpHeaders.LOCATION, HttpHeaders.MAX_FORWARDS, HttpHeaders.ORIGIN,
+			HttpHeaders.PRAGMA, HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+			HttpHeaders.RANGE, HttpHeaders.REFERER, HttpHeaders.RETRY_AFTER, HttpHeaders.SERVER,
+			HttpHeaders.SET_COOKIE, HttpHeaders.SET_COOKIE2, HttpHeaders.TE, HttpHeaders.TRAILER,
+			HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE, HttpHeaders.USER_AGENT,
+			HttpHeaders.VARY, HttpHeaders.VIA, HttpHeaders.WARNING, HttpHeaders.WWW_AUTHENTICATE
+	};
+
+	/** Open-addressing table of well-known names, indexed by case-insensitive hash. */
+	private static final String[] WELL_KNOWN_TABLE = new String[256];
+
+	static {
+		for (String name : WELL_KNOWN_NAMES) {
+			int index = hash(name) & (WELL_KNOWN_TABLE.length - 1);
+			while (WELL_KNOWN_TABLE[index] != null) {
+				index = (index + 1) & (WELL_KNOWN_TABLE.length - 1);
+			}
+			WELL_KNOWN_TABLE[index] = name;
+		}
+	}
+
+
+	private String[] names;
+
+	private int[] hashes;
+
+	private ValueList[] values;
+
+	private int size;
+
+	@Nullable
+	private transient Set<Entry<String, List<String>>> entrySet;
+
+
+	/**
+	 * Create a new {@code IndexedHeaderMap} with a default initial capacity.
+	 */
+	public IndexedHeaderMap() {
+		this(16);
+	}
+
+	/**
+	 * Create a new {@code IndexedHeaderMap} with the given initial capacity.
+	 * @param initialCapacity the initial number of header names to reserve space for
+	 */
+	public IndexedHeaderMap(int initialCapacity) {
+		int capacity = Math.max(initialCapacity, 1);
+		this.names = new String[capacity];
+		this.hashes = new int[capacity];
+		this.values = new ValueList[capacity];
+	}
+
+
+	// MultiValueMap implementation
+
+	@Override
+	@Nullable
+	public String getFirst(String key) {
+		int index = indexOf(key);
+		return (index != -1 && !this.values[index].isEmpty() ? this.values[index].get(0) : null);
+	}
+
+	@Override
+	public void add(String key, @Nullable String value) {
+		getOrCreateValues(key).add(value);
+	}
+
+	@Override
+	public void addAll(String key, List<? extends String> values) {
+		getOrCreateValues(key).addAll(values);
+	}
+
+	@Override
+	public void addAll(MultiValueMap<String, String> values) {
+		for (Entry<String, List<String>> entry : values.entrySet()) {
+			addAll(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public void set(String key, @Nullable String value) {
+		int index = indexOf(key);
+		if (index != -1) {
+			this.values[index].setSingle(value);
+		}
+		else {
+			ValueList list = new ValueList(1);
+			list.add(value);
+			append(key, list);
+		}
+	}
+
+	@Override
+	public void setAll(Map<String, String> values) {
+		values.forEach(this::set);
+	}
+
+	@Override
+	public Map<String, String> toSingleValueMap() {
+		Map<String, String> singleValueMap = new LinkedHashMap<>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			ValueList list = this.values[i];
+			singleValueMap.put(this.names[i], (!list.isEmpty() ? list.get(0) : null));
+		}
+		return singleValueMap;
+	}
+
+	/**
+	 * Return a parsed representation of the values of the given header,
+	 * memoizing the result until the header is modified.
+	 * <p>The memoized value is only returned for the same parser instance,
+	 * so callers should use a constant function per header. Since the result
+	 * may be shared, it should be immutable.
+	 * @param headerName the name of the header
+	 * @param parser the function to parse the header values with
+	 * @return the parsed value, or {@code null} if the header is not present
+	 * (or if the parser returned {@code null})
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <V> V getParsedValue(String headerName, Function<List<String>, V> parser) {
+		int index = indexOf(headerName);
+		if (index == -1) {
+			return null;
+		}
+		ValueList list = this.values[index];
+		ParsedValue parsed = list.parsedValue;
+		if (parsed != null && parsed.parser == parser) {
+			return (V) parsed.value;
+		}
+		V value = parser.apply(list);
+		list.parsedValue = new ParsedValue(parser, value);
+		return value;
+	}
+
+
+	// Map implementation
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (this.size == 0);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (key instanceof String && indexOf((String) key) != -1);
+	}
+
+	@Override
+	@Nullable
+	public List<String> get(Object key) {
+		if (key instanceof String) {
+			int index = indexOf((String) key);
+			if (index != -1) {
+				return this.values[index];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public List<String> put(String key, List<String> value) {
+		ValueList list = new ValueList(value.size());
+		list.addAll(value);
+		int index = indexOf(key);
+		if (index != -1) {
+			ValueList previous = this.values[index];
+			this.values[index] = list;
+			return previous;
+		}
+		append(key, list);
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public List<String> remove(Object key) {
+		if (key instanceof String) {
+			int index = indexOf((String) key);
+			if (index != -1) {
+				ValueList previous = this.values[index];
+				removeAt(index);
+				return previous;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.names, 0, this.size, null);
+		Arrays.fill(this.values, 0, this.size, null);
+		this.size = 0;
+	}
+
+	@Override
+	public Set<Entry<String, List<String>>> entrySet() {
+		Set<Entry<String, List<String>>> entrySet = this.entrySet;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+			this.entrySet = entrySet;
+		}
+		return entrySet;
+	}
+
+	@Override
+	public String toString() {
+		return HttpHeaders.formatHeaders(this);
+	}
+
+
+	private int indexOf(String key) {
+		String[] names = this.names;
+		int size = this.size;
+		for (int i = 0; i < size; i++) {
+			if (names[i] == key) {
+				return i;
+			}
+		}
+		int hash = hash(key);
+		int[] hashes = this.hashes;
+		for (int i = 0; i < size; i++) {
+			if (hashes[i] == hash && names[i].equalsIgnoreCase(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private ValueList getOrCreateValues(String key) {
+		int index = indexOf(key);
+		if (index != -1) {
+			return this.values[index];
+		}
+		ValueList list = new ValueList(1);
+		append(key, list);
+		return list;
+	}
+
+	private void append(String key, ValueList list) {
+		if (this.size == this.names.length) {
+			int capacity = this.size * 2;
+			this.names = Arrays.copyOf(this.names, capacity);
+			this.hashes = Arrays.copyOf(this.hashes, capacity);
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+		int hash = hash(key);
+		this.names[this.size] = intern(key, hash);
+		this.hashes[this.size] = hash;
+		this.values[this.size] = list;
+		this.size++;
+	}
+
+	private void removeAt(int index) {
+		int moved = this.size - index - 1;
+		if (moved > 0) {
+			System.arraycopy(this.names, index + 1, this.names, index, moved);
+			System.arraycopy(this.hashes, index + 1, this.hashes, index, moved);
+			System.arraycopy(this.values, index + 1, this.values, index, moved);
+		}
+		this.size--;
+		this.names[this.size] = null;
+		this.values[this.size] = null;
+	}
+
+
+	/**
+	 * Compute a hash code that is consistent with {@link String#equalsIgnoreCase}.
+	 */
+	private static int hash(String name) {
+		int hash = 0;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < 128) {
+				if (c >= 'A' && c <= 'Z') {
+					c += 'a' - 'A';
+				}
+			}
+			else {
+				c = Character.toLowerCase(Character.toUpperCase(c));
+			}
+			hash = 31 * hash + c;
+		}
+		return hash;
+	}
+
+	/**
+	 * Return the well-known header name constant for the given name if it matches
+	 * exactly, or the given name otherwise.
+	 */
+	private static String intern(String name, int hash) {
+		int index = hash & (WELL_KNOWN_TABLE.length - 1);
+		String candidate;
+		while ((candidate = WELL_KNOWN_TABLE[index]) != null) {
+			if (candidate.equals(name)) {
+				return candidate;
+			}
+			index = (index + 1) & (WELL_KNOWN_TABLE.length - 1);
+		}
+		return name;
+	}
+
+
+	/**
+	 * The values of a single header, with a memoized parsed representation.
+	 */
+	private static final class ValueList extends AbstractList<String> implements RandomAccess, Serializable {
+
+		private static final String[] EMPTY = new String[0];
+
+		private String[] elements;
+
+		private int size;
+
+		@Nullable
+		private transient volatile ParsedValue parsedValue;
+
+		ValueList(int initialCapacity) {
+			this.elements = (initialCapacity > 0 ? new String[initialCapacity] : EMPTY);
+		}
+
+		@Override
+		public String get(int index) {
+			checkIndex(index, this.size);
+			return this.elements[index];
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		public String set(int index, String element) {
+			checkIndex(index, this.size);
+			String previous = this.elements[index];
+			this.elements[index] = element;
+			changed();
+			return previous;
+		}
+
+		@Override
+		public void add(int index, String element) {
+			checkIndex(index, this.size + 1);
+			if (this.size == this.elements.length) {
+				this.elements = Arrays.copyOf(this.elements, Math.max(this.size * 2, 2));
+			}
+			System.arraycopy(this.elements, index, this.elements, index + 1, this.size - index);
+			this.elements[index] = element;
+			this.size++;
+			changed();
+		}
+
+		@Override
+		public String remove(int index) {
+			checkIndex(index, this.size);
+			String previous = this.elements[index];
+			System.arraycopy(this.elements, index + 1, this.elements, index, this.size - index - 1);
+			this.elements[--this.size] = null;
+			changed();
+			return previous;
+		}
+
+		@Override
+		public void clear() {
+			Arrays.fill(this.elements, 0, this.size, null);
+			this.size = 0;
+			changed();
+		}
+
+		void setSingle(@Nullable String element) {
+			if (this.elements.length == 0) {
+				this.elements = new String[1];
+			}
+			if (this.size > 1) {
+				Arrays.fill(this.elements, 1, this.size, null);
+			}
+			this.elements[0] = element;
+			this.size = 1;
+			changed();
+		}
+
+		private void changed() {
+			this.modCount++;
+			this.parsedValue = null;
+		}
+
+		private static void checkIndex(int index, int size) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+	}
+
+
+	/**
+	 * A memoized parse result along with the parser that produced it.
+	 */
+	private static final class ParsedValue {
+
+		final Function<?, ?> parser;
+
+		@Nullable
+		final Object value;
+
+		ParsedValue(Function<?, ?> parser, @Nullable Object value) {
+			this.parser = parser;
+			this.value = value;
+		}
+	}
+
+
+	private class EntrySet extends AbstractSet<Entry<String, List<String>>> {
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (o instanceof Map.Entry) {
+				Entry<?, ?> entry = (Entry<?, ?>) o;
+				List<String> values = get(entry.getKey());
+				return (values != null && values.equals(entry.getValue()));
+			}
+			return false;
+		}
+
+		@Override
+		public Iterator<Entry<String, List<String>>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public void clear() {
+			IndexedHeaderMap.this.clear();
+		}
+	}
+
+
+	private class EntryIterator implements Iterator<Entry<String, List<String>>> {
+
+		private int next;
+
+		private int last = -1;
+
+		@Override
+		public boolean hasNext() {
+			return (this.next < size);
+		}
+
+		@Override
+		public Entry<String, List<String>> next() {
+			if (this.next >= size) {
+				throw new NoSuchElementException();
+			}
+			this.last = this.next++;
+			return new HeaderEntry(this.last);
+		}
+
+		@Override
+		public void remove() {
+			if (this.last == -1) {
+				throw new IllegalStateException();
+			}
+			removeAt(this.last);
+			this.next = this.last;
+			this.last = -1;
+		}
+	}
+
+
+	private class HeaderEntry implements Entry<String, List<String>> {
+
+		private final String key;
+
+		private List<String> value;
+
+		HeaderEntry(int index) {
+			this.key = names[index];
+			this.value = values[index];
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public List<String> getValue() {
+			return this.value;
+		}
+
+		@Override
+		public List<String> setValue(List<String> value) {
+			List<String> previous = this.value;
+			put(this.key, value);
+			this.value = get(this.key);
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Map.Entry)) {
+				return false;
+			}
+			Entry<?, ?> otherEntry = (Entry<?, ?>) other;
+			return (this.key.equals(otherEntry.getKey()) && this.value.equals(otherEntry.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.key.hashCode() ^ this.value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
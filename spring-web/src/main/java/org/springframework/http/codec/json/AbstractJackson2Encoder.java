@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,10 +21,13 @@ import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -52,7 +55,9 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.MimeType;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Base class providing support methods for Jackson 2.9 encoding. For non-streaming use
@@ -76,8 +81,17 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	}
 
 
+	private static final Set<String> CACHEABLE_HINTS = new HashSet<>(Arrays.asList(
+			Jackson2CodecSupport.JSON_VIEW_HINT, Hints.LOG_PREFIX_HINT, Hints.SUPPRESS_LOGGING_HINT));
+
+	/** Upper bound for the initial capacity of buffers, as learned from previous values. */
+	private static final int MAX_SIZE_HINT = 64 * 1024;
+
+
 	private final List<MediaType> streamingMediaTypes = new ArrayList<>(1);
 
+	private final Map<WriterKey, WriterEntry> writerCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -158,25 +172,19 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			});
 		}
 
-		JavaType javaType = getJavaType(elementType.getType(), null);
 		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
-		ObjectWriter writer = (jsonView != null ?
-				getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
-
-		if (javaType.isContainerType()) {
-			writer = writer.forType(javaType);
-		}
-
-		writer = customizeWriter(writer, mimeType, elementType, hints);
+		WriterEntry writerEntry = getWriterEntry(elementType, jsonView, mimeType, hints);
 
-		DataBuffer buffer = bufferFactory.allocateBuffer();
+		int sizeHint = writerEntry.getSizeHint();
+		DataBuffer buffer = (sizeHint > 0 ? bufferFactory.allocateBuffer(sizeHint) : bufferFactory.allocateBuffer());
 		boolean release = true;
 		OutputStream outputStream = buffer.asOutputStream();
 
 		try {
 			JsonGenerator generator =
 					getObjectMapper().getFactory().createGenerator(outputStream, encoding);
-			writer.writeValue(generator, value);
+			writerEntry.getWriter().writeValue(generator, value);
+			writerEntry.recordSize(buffer.readableByteCount());
 			release = false;
 		}
 		catch (InvalidDefinitionException ex) {
@@ -198,6 +206,51 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		return buffer;
 	}
 
+	/**
+	 * Obtain the writer for the given element type, JSON view and mime type,
+	 * from the cache unless the hints contain entries other than the JSON view
+	 * and logging hints, which {@link #customizeWriter} might depend on.
+	 */
+	private WriterEntry getWriterEntry(ResolvableType elementType, @Nullable Class<?> jsonView,
+			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+
+		if (hints != null && !CACHEABLE_HINTS.containsAll(hints.keySet())) {
+			return new WriterEntry(createWriter(elementType, jsonView, mimeType, hints));
+		}
+		WriterKey key = new WriterKey(elementType, jsonView, mimeType);
+		WriterEntry writerEntry = this.writerCache.get(key);
+		if (writerEntry == null) {
+			writerEntry = new WriterEntry(createWriter(elementType, jsonView, mimeType, hints));
+			this.writerCache.put(key, writerEntry);
+		}
+		return writerEntry;
+	}
+
+	private ObjectWriter createWriter(ResolvableType elementType, @Nullable Class<?> jsonView,
+			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+
+		JavaType javaType = getJavaType(elementType.getType(), null);
+		ObjectWriter writer = (jsonView != null ?
+				getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
+
+		if (javaType.isContainerType()) {
+			writer = writer.forType(javaType);
+		}
+
+		return customizeWriter(writer, mimeType, elementType, hints);
+	}
+
+	/**
+	 * Customize the {@link ObjectWriter} for the given element type and mime type.
+	 * <p>As of 5.2, the resulting writer is cached per element type, JSON view
+	 * and mime type, unless further hints are present. The {@code ObjectMapper}
+	 * is therefore expected to be fully configured before its first use.
+	 * @param writer the writer instance to customize
+	 * @param mimeType the selected mime type
+	 * @param elementType the type of element values to write
+	 * @param hints a map with serialization hints
+	 * @return the customized writer to use
+	 */
 	protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
 			ResolvableType elementType, @Nullable Map<String, Object> hints) {
 
@@ -249,4 +302,77 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		return parameter.getMethodAnnotation(annotType);
 	}
 
+
+	/**
+	 * Cache key for an {@link ObjectWriter}.
+	 */
+	private static final class WriterKey {
+
+		private final ResolvableType elementType;
+
+		@Nullable
+		private final Class<?> jsonView;
+
+		@Nullable
+		private final MimeType mimeType;
+
+		WriterKey(ResolvableType elementType, @Nullable Class<?> jsonView, @Nullable MimeType mimeType) {
+			this.elementType = elementType;
+			this.jsonView = jsonView;
+			this.mimeType = mimeType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof WriterKey)) {
+				return false;
+			}
+			WriterKey otherKey = (WriterKey) other;
+			return (this.elementType.equals(otherKey.elementType) &&
+					this.jsonView == otherKey.jsonView &&
+					ObjectUtils.nullSafeEquals(this.mimeType, otherKey.mimeType));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.elementType.hashCode() * 31 + ObjectUtils.nullSafeHashCode(this.jsonView)) * 31 +
+					ObjectUtils.nullSafeHashCode(this.mimeType);
+		}
+	}
+
+
+	/**
+	 * A cached {@link ObjectWriter} along with the initial buffer capacity to use,
+	 * based on the size of previously written values.
+	 */
+	private static final class WriterEntry {
+
+		private final ObjectWriter writer;
+
+		private volatile int sizeHint;
+
+		WriterEntry(ObjectWriter writer) {
+			this.writer = writer;
+		}
+
+		public ObjectWriter getWriter() {
+			return this.writer;
+		}
+
+		public int getSizeHint() {
+			return this.sizeHint;
+		}
+
+		/**
+		 * Adapt to larger values immediately, and to smaller values gradually.
+		 */
+		public void recordSize(int size) {
+			int sizeHint = this.sizeHint;
+			this.sizeHint = Math.min(Math.max(size, sizeHint - (sizeHint >> 2)), MAX_SIZE_HINT);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,9 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 
@@ -32,6 +34,7 @@ import reactor.core.publisher.Flux;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
@@ -39,7 +42,15 @@ import org.springframework.util.Assert;
  * chunks into a {@code Flux<TokenBuffer>} where each token buffer is a
  * well-formed JSON object.
  *
+ * <p>Token buffers are only created once a JSON value starts, and heap data
+ * buffers are fed to the parser without copying. The number of bytes a single
+ * value may span can be limited through {@code maxInMemorySize}, in which case
+ * the tokenizer fails as soon as that limit is exceeded, rather than buffering
+ * the tokens for an arbitrarily large value. The bytes of each value are counted
+ * from the start of its first token, also while a token is still incomplete.
+ *
  * @author Arjen Poutsma
+ * @author <a href="mailto:agent@local">agent</a>
  * @since 5.0
  */
 final class Jackson2Tokenizer {
@@ -48,8 +59,17 @@ final class Jackson2Tokenizer {
 
 	private final boolean tokenizeArrayElements;
 
+	private final int maxInMemorySize;
+
+	@Nullable
 	private TokenBuffer tokenBuffer;
 
+	/** Byte offset of the first token of the value in the current token buffer. */
+	private long valueStartOffset;
+
+	/** Byte offset of the last token returned by the parser. */
+	private long lastTokenOffset = -1;
+
 	private int objectDepth;
 
 	private int arrayDepth;
@@ -59,12 +79,12 @@ final class Jackson2Tokenizer {
 	private final ByteArrayFeeder inputFeeder;
 
 
-	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements) {
+	private Jackson2Tokenizer(JsonParser parser, boolean tokenizeArrayElements, int maxInMemorySize) {
 		Assert.notNull(parser, "'parser' must not be null");
 
 		this.parser = parser;
 		this.tokenizeArrayElements = tokenizeArrayElements;
-		this.tokenBuffer = new TokenBuffer(parser);
+		this.maxInMemorySize = maxInMemorySize;
 		this.inputFeeder = (ByteArrayFeeder) this.parser.getNonBlockingInputFeeder();
 	}
 
@@ -80,9 +100,28 @@ final class Jackson2Tokenizer {
 	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
 			boolean tokenizeArrayElements) {
 
+		return tokenize(dataBuffers, jsonFactory, tokenizeArrayElements, -1);
+	}
+
+	/**
+	 * Tokenize the given {@code Flux<DataBuffer>} into {@code Flux<TokenBuffer>}.
+	 * @param dataBuffers the source data buffers
+	 * @param jsonFactory the factory to use
+	 * @param tokenizeArrayElements if {@code true} and the "top level" JSON
+	 * object is an array, each element is returned individually, immediately
+	 * after it is received.
+	 * @param maxInMemorySize the maximum number of bytes a single returned
+	 * token buffer may span in the input, from the start of its first token,
+	 * or -1 for no limit
+	 * @return the result token buffers
+	 * @since 5.2
+	 */
+	public static Flux<TokenBuffer> tokenize(Flux<DataBuffer> dataBuffers, JsonFactory jsonFactory,
+			boolean tokenizeArrayElements, int maxInMemorySize) {
+
 		try {
 			JsonParser parser = jsonFactory.createNonBlockingByteArrayParser();
-			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements);
+			Jackson2Tokenizer tokenizer = new Jackson2Tokenizer(parser, tokenizeArrayElements, maxInMemorySize);
 			return dataBuffers.flatMap(tokenizer::tokenize, Flux::error, tokenizer::endOfInput);
 		}
 		catch (IOException ex) {
@@ -91,21 +130,32 @@ final class Jackson2Tokenizer {
 	}
 
 	private Flux<TokenBuffer> tokenize(DataBuffer dataBuffer) {
-		byte[] bytes = new byte[dataBuffer.readableByteCount()];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			// The parser consumes all input before asking for more,
+			// so a heap buffer can be fed directly until it is released
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+			if (byteBuffer.hasArray()) {
+				int offset = byteBuffer.arrayOffset();
+				this.inputFeeder.feedInput(byteBuffer.array(),
+						offset + byteBuffer.position(), offset + byteBuffer.limit());
+			}
+			else {
+				byte[] bytes = new byte[dataBuffer.readableByteCount()];
+				dataBuffer.read(bytes);
+				this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			}
 			return parseTokenBufferFlux();
 		}
 		catch (JsonProcessingException ex) {
 			return Flux.error(new DecodingException(
 					"JSON decoding error: " + ex.getOriginalMessage(), ex));
 		}
-		catch (IOException ex) {
+		catch (IOException | DecodingException ex) {
 			return Flux.error(ex);
 		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
@@ -117,13 +167,13 @@ final class Jackson2Tokenizer {
 			return Flux.error(new DecodingException(
 					"JSON decoding error: " + ex.getOriginalMessage(), ex));
 		}
-		catch (IOException ex) {
+		catch (IOException | DecodingException ex) {
 			return Flux.error(ex);
 		}
 	}
 
 	private Flux<TokenBuffer> parseTokenBufferFlux() throws IOException {
-		List<TokenBuffer> result = new ArrayList<>();
+		List<TokenBuffer> result = Collections.emptyList();
 
 		while (true) {
 			JsonToken token = this.parser.nextToken();
@@ -132,16 +182,18 @@ final class Jackson2Tokenizer {
 					(token == null && (token = this.parser.nextToken()) == null)) {
 				break;
 			}
+			this.lastTokenOffset = this.parser.getTokenLocation().getByteOffset();
 			updateDepth(token);
 
 			if (!this.tokenizeArrayElements) {
-				processTokenNormal(token, result);
+				result = processTokenNormal(token, result);
 			}
 			else {
-				processTokenArray(token, result);
+				result = processTokenArray(token, result);
 			}
 		}
-		return Flux.fromIterable(result);
+		checkIncompleteValue();
+		return (!result.isEmpty() ? Flux.fromIterable(result) : Flux.empty());
 	}
 
 	private void updateDepth(JsonToken token) {
@@ -161,27 +213,76 @@ final class Jackson2Tokenizer {
 		}
 	}
 
-	private void processTokenNormal(JsonToken token, List<TokenBuffer> result) throws IOException {
-		this.tokenBuffer.copyCurrentEvent(this.parser);
+	private List<TokenBuffer> processTokenNormal(JsonToken token, List<TokenBuffer> result) throws IOException {
+		obtainTokenBuffer().copyCurrentEvent(this.parser);
 
 		if ((token.isStructEnd() || token.isScalarValue()) &&
 				this.objectDepth == 0 && this.arrayDepth == 0) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = new TokenBuffer(this.parser);
+			return completeTokenBuffer(result);
 		}
-
+		return result;
 	}
 
-	private void processTokenArray(JsonToken token, List<TokenBuffer> result) throws IOException {
+	private List<TokenBuffer> processTokenArray(JsonToken token, List<TokenBuffer> result) throws IOException {
 		if (!isTopLevelArrayToken(token)) {
-			this.tokenBuffer.copyCurrentEvent(this.parser);
+			obtainTokenBuffer().copyCurrentEvent(this.parser);
 		}
 
 		if (this.objectDepth == 0 &&
 				(this.arrayDepth == 0 || this.arrayDepth == 1) &&
 				(token == JsonToken.END_OBJECT || token.isScalarValue())) {
-			result.add(this.tokenBuffer);
+			return completeTokenBuffer(result);
+		}
+		return result;
+	}
+
+	private TokenBuffer obtainTokenBuffer() {
+		if (this.tokenBuffer == null) {
 			this.tokenBuffer = new TokenBuffer(this.parser);
+			this.valueStartOffset = this.lastTokenOffset;
+		}
+		return this.tokenBuffer;
+	}
+
+	private List<TokenBuffer> completeTokenBuffer(List<TokenBuffer> result) {
+		TokenBuffer tokenBuffer = obtainTokenBuffer();
+		checkInMemorySize(this.valueStartOffset);
+		this.tokenBuffer = null;
+		if (result.isEmpty()) {
+			result = new ArrayList<>();
+		}
+		result.add(tokenBuffer);
+		return result;
+	}
+
+	/**
+	 * Check the value in progress once the parser needs more input: either the
+	 * tokens in the current token buffer, or a token that the parser started
+	 * but did not complete yet, e.g. a long string, before any token buffer.
+	 */
+	private void checkIncompleteValue() {
+		if (this.maxInMemorySize < 0) {
+			return;
+		}
+		if (this.tokenBuffer != null) {
+			checkInMemorySize(this.valueStartOffset);
+		}
+		else {
+			long tokenOffset = this.parser.getTokenLocation().getByteOffset();
+			if (tokenOffset != this.lastTokenOffset) {
+				checkInMemorySize(tokenOffset);
+			}
+		}
+	}
+
+	/**
+	 * Check the bytes consumed since the given start offset of a value.
+	 */
+	private void checkInMemorySize(long startOffset) {
+		if (this.maxInMemorySize >= 0 &&
+				this.parser.getCurrentLocation().getByteOffset() - startOffset > this.maxInMemorySize) {
+			throw new DecodingException(
+					"Exceeded limit on max bytes per JSON value: " + this.maxInMemorySize);
 		}
 	}
 
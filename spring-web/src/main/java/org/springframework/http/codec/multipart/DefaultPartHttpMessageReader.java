@@ -0,0 +1,767 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Hints;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.log.LogFormatUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Default {@code HttpMessageReader} for parsing {@code "multipart/form-data"}
+ * requests to a stream of {@link Part}s, without any third-party dependency.
+ *
+ * <p>Boundaries are scanned for directly in the request body buffers, with
+ * the content of each part kept as slices of those buffers. Once the content
+ * of a part exceeds the {@link #setMaxInMemorySize in-memory limit}, it is
+ * written to a temporary file, with all blocking file system operations
+ * performed on the {@link #setBlockingOperationScheduler blocking scheduler}.
+ * Each part is emitted once its content is complete, and the request body
+ * is consumed no faster than parts are processed and written to disk.
+ *
+ * <p>The content of a part can be consumed once, either through
+ * {@link Part#content()} or {@link FilePart#transferTo}, after which any
+ * temporary file is deleted. Parts that are not consumed should be released
+ * through {@link Part#delete()}, which {@code ServerWebExchange} does for
+ * {@code getMultipartData()} when the exchange completes. If the stream of
+ * parts is cancelled, the part in progress is released; if it fails, all
+ * parts emitted so far and not yet consumed are released as well.
+ *
+ * <p>Disk usage is bounded both per part and per request, with defaults
+ * of 10M and 100M respectively.
+ *
+ * <p>This reader can be provided to {@link MultipartHttpMessageReader} in
+ * order to aggregate all parts into a Map.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see SynchronossPartHttpMessageReader
+ * @see MultipartHttpMessageReader
+ */
+public class DefaultPartHttpMessageReader extends LoggingCodecSupport implements HttpMessageReader<Part> {
+
+	private static final int FILE_READ_BUFFER_SIZE = 8192;
+
+
+	private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 8 * 1024;
+
+	private long maxDiskUsagePerPart = 10 * 1024 * 1024;
+
+	private long maxDiskUsagePerRequest = 100 * 1024 * 1024;
+
+	private Charset headersCharset = StandardCharsets.UTF_8;
+
+	@Nullable
+	private Path fileStorageDirectory;
+
+	private Scheduler blockingOperationScheduler = Schedulers.elastic();
+
+
+	/**
+	 * Set the maximum number of bytes of a part's content to keep in memory.
+	 * Content beyond this limit is written to a temporary file, except for
+	 * form fields, which fail with a {@link DecodingException} instead.
+	 * <p>By default this is set to 256K.
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Return the {@link #setMaxInMemorySize configured} in-memory limit.
+	 */
+	public int getMaxInMemorySize() {
+		return this.maxInMemorySize;
+	}
+
+	/**
+	 * Set the maximum number of bytes for the headers of each part.
+	 * <p>By default this is set to 8K.
+	 */
+	public void setMaxHeadersSize(int maxHeadersSize) {
+		Assert.isTrue(maxHeadersSize > 0, "Max headers size must be positive");
+		this.maxHeadersSize = maxHeadersSize;
+	}
+
+	/**
+	 * Set the maximum number of bytes of a single part's content, including
+	 * the content written to disk, or -1 for no limit.
+	 * <p>By default this is set to 10M.
+	 */
+	public void setMaxDiskUsagePerPart(long maxDiskUsagePerPart) {
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+	}
+
+	/**
+	 * Set the maximum number of bytes written to temporary files for all
+	 * parts of a single request, or -1 for no limit.
+	 * <p>By default this is set to 100M.
+	 */
+	public void setMaxDiskUsagePerRequest(long maxDiskUsagePerRequest) {
+		this.maxDiskUsagePerRequest = maxDiskUsagePerRequest;
+	}
+
+	/**
+	 * Set the charset to decode part headers with, including the names of
+	 * parts and files.
+	 * <p>By default this is set to UTF-8, which is what browsers use.
+	 */
+	public void setHeadersCharset(Charset headersCharset) {
+		Assert.notNull(headersCharset, "Charset must not be null");
+		this.headersCharset = headersCharset;
+	}
+
+	/**
+	 * Set the directory to write temporary files to.
+	 * <p>By default, a new directory is created in the system temporary
+	 * directory on first use.
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "Directory must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+	}
+
+	/**
+	 * Set the Reactor {@link Scheduler} to perform blocking file system
+	 * operations on, such as creating, writing, moving and deleting
+	 * temporary files.
+	 * <p>By default this is set to {@link Schedulers#elastic()}.
+	 */
+	public void setBlockingOperationScheduler(Scheduler blockingOperationScheduler) {
+		Assert.notNull(blockingOperationScheduler, "Scheduler must not be null");
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+
+	@Override
+	public List<MediaType> getReadableMediaTypes() {
+		return Collections.singletonList(MediaType.MULTIPART_FORM_DATA);
+	}
+
+	@Override
+	public boolean canRead(ResolvableType elementType, @Nullable MediaType mediaType) {
+		return Part.class.equals(elementType.toClass()) &&
+				(mediaType == null || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(mediaType));
+	}
+
+	@Override
+	public Flux<Part> read(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Flux.defer(() -> {
+			byte[] boundary = getBoundary(message);
+			if (boundary == null) {
+				return Flux.error(new DecodingException("No multipart boundary found in Content-Type: \"" +
+						message.getHeaders().getContentType() + "\""));
+			}
+			PartGenerator generator = new PartGenerator();
+			return MultipartParser.parse(message.getBody(), boundary, this.maxHeadersSize, this.headersCharset)
+					.concatMap(generator::next)
+					.concatWith(Mono.defer(generator::complete))
+					.doOnDiscard(MultipartParser.Token.class, MultipartParser.Token::release)
+					.doFinally(signalType -> {
+						if (signalType != SignalType.ON_COMPLETE) {
+							generator.discard(signalType == SignalType.ON_ERROR);
+						}
+					});
+		}).doOnNext(part -> {
+			if (!Hints.isLoggingSuppressed(hints)) {
+				LogFormatUtils.traceDebug(logger, traceOn -> Hints.getLogPrefix(hints) + "Parsed " +
+						(isEnableLoggingRequestDetails() ?
+								LogFormatUtils.formatValue(part, !traceOn) :
+								"parts '" + part.name() + "' (content masked)"));
+			}
+		});
+	}
+
+	@Override
+	public Mono<Part> readMono(ResolvableType elementType, ReactiveHttpInputMessage message, Map<String, Object> hints) {
+		return Mono.error(new UnsupportedOperationException("Cannot read multipart request body into single Part"));
+	}
+
+	@Nullable
+	private static byte[] getBoundary(ReactiveHttpInputMessage message) {
+		MediaType contentType = message.getHeaders().getContentType();
+		if (contentType != null) {
+			String boundary = contentType.getParameter("boundary");
+			if (boundary != null) {
+				int length = boundary.length();
+				if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+					boundary = boundary.substring(1, length - 1);
+				}
+				return boundary.getBytes(StandardCharsets.ISO_8859_1);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the directory to write temporary files to, creating it if necessary.
+	 * Invoked on the blocking scheduler only.
+	 */
+	private synchronized Path getFileStorageDirectory() throws IOException {
+		if (this.fileStorageDirectory == null) {
+			this.fileStorageDirectory = Files.createTempDirectory("spring-multipart-");
+		}
+		return this.fileStorageDirectory;
+	}
+
+	private static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return ((contentType == null || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) &&
+				headers.getContentDisposition().getFilename() == null);
+	}
+
+	private static void closeChannel(Channel channel) {
+		try {
+			channel.close();
+		}
+		catch (IOException ignored) {
+		}
+	}
+
+	private static void deleteFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ignored) {
+		}
+	}
+
+	private static void writeFully(FileChannel channel, DataBuffer buffer) throws IOException {
+		ByteBuffer byteBuffer = buffer.asByteBuffer();
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+	}
+
+
+	/**
+	 * Collects the body tokens of the current part in memory, or in a
+	 * temporary file once beyond the in-memory limit, and creates the part
+	 * when the next part starts or the body ends.
+	 * <p>Invoked sequentially through {@code concatMap}, so a file write
+	 * completes before the next token is processed. Synchronized against
+	 * {@link #discard} though, since cancellation may come from any thread;
+	 * while a write is in progress, releasing the part is left to the writer.
+	 */
+	private class PartGenerator {
+
+		@Nullable
+		private HttpHeaders headers;
+
+		private final List<DataBuffer> content = new ArrayList<>();
+
+		private long byteCount;
+
+		private long diskUsage;
+
+		@Nullable
+		private Path file;
+
+		@Nullable
+		private FileChannel channel;
+
+		private final List<PartContent> emitted = new ArrayList<>();
+
+		private boolean writing;
+
+		private boolean discarded;
+
+		public synchronized Mono<Part> next(MultipartParser.Token token) {
+			if (this.discarded) {
+				token.release();
+				return Mono.empty();
+			}
+			if (token.isHeaders()) {
+				Mono<Part> previous = complete();
+				this.headers = token.headers();
+				return previous;
+			}
+			DataBuffer buffer = token.buffer();
+			if (this.headers == null) {
+				DataBufferUtils.release(buffer);
+				return Mono.empty();
+			}
+			this.byteCount += buffer.readableByteCount();
+			if (maxDiskUsagePerPart >= 0 && this.byteCount > maxDiskUsagePerPart) {
+				DataBufferUtils.release(buffer);
+				return Mono.error(new DecodingException(
+						"Part content exceeded the limit of " + maxDiskUsagePerPart + " bytes"));
+			}
+			if (this.channel == null && this.byteCount <= maxInMemorySize) {
+				this.content.add(buffer);
+				return Mono.empty();
+			}
+			if (isFormField(this.headers)) {
+				DataBufferUtils.release(buffer);
+				return Mono.error(new DecodingException(
+						"Form field value exceeded the in-memory limit of " + maxInMemorySize + " bytes"));
+			}
+			return write(buffer);
+		}
+
+		private Mono<Part> write(DataBuffer buffer) {
+			List<DataBuffer> buffers;
+			if (this.channel == null) {
+				buffers = new ArrayList<>(this.content);
+				buffers.add(buffer);
+				this.content.clear();
+			}
+			else {
+				buffers = Collections.singletonList(buffer);
+			}
+			for (DataBuffer toWrite : buffers) {
+				this.diskUsage += toWrite.readableByteCount();
+			}
+			if (maxDiskUsagePerRequest >= 0 && this.diskUsage > maxDiskUsagePerRequest) {
+				buffers.forEach(DataBufferUtils::release);
+				return Mono.error(new DecodingException(
+						"Parts written to disk exceeded the limit of " + maxDiskUsagePerRequest + " bytes"));
+			}
+			// Whoever claims the buffers first releases them: the write, or a cancellation before it started
+			AtomicBoolean claimed = new AtomicBoolean();
+			return Mono.<Part>fromCallable(() -> {
+						if (claimed.compareAndSet(false, true)) {
+							writeToFile(buffers);
+						}
+						return null;
+					})
+					.subscribeOn(blockingOperationScheduler)
+					.doOnCancel(() -> {
+						if (claimed.compareAndSet(false, true)) {
+							buffers.forEach(DataBufferUtils::release);
+						}
+					});
+		}
+
+		/**
+		 * Write the given buffers to the temporary file of the current part,
+		 * creating the file first if necessary. Invoked on the blocking scheduler.
+		 */
+		private void writeToFile(List<DataBuffer> buffers) {
+			synchronized (this) {
+				if (this.discarded) {
+					buffers.forEach(DataBufferUtils::release);
+					return;
+				}
+				this.writing = true;
+			}
+			try {
+				FileChannel channel = this.channel;
+				if (channel == null) {
+					this.file = Files.createTempFile(getFileStorageDirectory(), "part-", ".multipart");
+					channel = FileChannel.open(this.file, StandardOpenOption.WRITE);
+					this.channel = channel;
+				}
+				for (DataBuffer buffer : buffers) {
+					writeFully(channel, buffer);
+				}
+			}
+			catch (IOException ex) {
+				throw new DecodingException("Could not write part content to temporary file", ex);
+			}
+			finally {
+				buffers.forEach(DataBufferUtils::release);
+				synchronized (this) {
+					this.writing = false;
+					if (this.discarded) {
+						discardCurrent();
+					}
+				}
+			}
+		}
+
+		public synchronized Mono<Part> complete() {
+			HttpHeaders headers = this.headers;
+			if (headers == null || this.discarded) {
+				return Mono.empty();
+			}
+			this.headers = null;
+			this.byteCount = 0;
+			if (headers.getContentDisposition().getName() == null) {
+				discardCurrent();
+				return Mono.error(new DecodingException("No part name in Content-Disposition header: " + headers));
+			}
+			String filename = headers.getContentDisposition().getFilename();
+
+			PartContent partContent;
+			if (this.channel != null) {
+				closeChannel(this.channel);
+				this.channel = null;
+				partContent = new FileContent(this.file, bufferFactory, blockingOperationScheduler);
+				this.file = null;
+			}
+			else {
+				List<DataBuffer> buffers = new ArrayList<>(this.content);
+				this.content.clear();
+				if (filename == null && isFormField(headers)) {
+					return Mono.just(new DefaultFormFieldPart(headers, bufferFactory, buffers));
+				}
+				partContent = new MemoryContent(buffers, blockingOperationScheduler);
+			}
+			this.emitted.add(partContent);
+			return Mono.just(filename != null ?
+					new DefaultFilePart(headers, partContent, filename) :
+					new DefaultPart(headers, partContent));
+		}
+
+		/**
+		 * Release the part in progress and, if the stream of parts failed,
+		 * all parts emitted so far whose content has not been consumed.
+		 */
+		public synchronized void discard(boolean failed) {
+			this.discarded = true;
+			if (!this.writing) {
+				discardCurrent();
+			}
+			if (failed) {
+				this.emitted.forEach(partContent -> partContent.delete().subscribe());
+			}
+			this.emitted.clear();
+		}
+
+		private void discardCurrent() {
+			this.content.forEach(DataBufferUtils::release);
+			this.content.clear();
+			if (this.channel != null) {
+				closeChannel(this.channel);
+				this.channel = null;
+			}
+			if (this.file != null) {
+				Path file = this.file;
+				blockingOperationScheduler.schedule(() -> deleteFile(file));
+				this.file = null;
+			}
+		}
+	}
+
+
+	/**
+	 * The content of a part, either in memory or in a temporary file,
+	 * which can be read, transferred, or deleted once.
+	 */
+	private abstract static class PartContent {
+
+		private final AtomicBoolean consumed = new AtomicBoolean();
+
+		public Flux<DataBuffer> read() {
+			return Flux.defer(() -> {
+				if (!this.consumed.compareAndSet(false, true)) {
+					return Flux.error(new IllegalStateException("Part content has already been consumed"));
+				}
+				return doRead();
+			});
+		}
+
+		public Mono<Void> transferTo(Path dest) {
+			return Mono.defer(() -> {
+				if (!this.consumed.compareAndSet(false, true)) {
+					return Mono.error(new IllegalStateException("Part content has already been consumed"));
+				}
+				return doTransferTo(dest);
+			});
+		}
+
+		public Mono<Void> delete() {
+			return Mono.defer(() -> {
+				if (!this.consumed.compareAndSet(false, true)) {
+					return Mono.empty();
+				}
+				return doDelete();
+			});
+		}
+
+		protected abstract Flux<DataBuffer> doRead();
+
+		protected abstract Mono<Void> doTransferTo(Path dest);
+
+		protected abstract Mono<Void> doDelete();
+	}
+
+
+	private static class MemoryContent extends PartContent {
+
+		private final Queue<DataBuffer> buffers;
+
+		private final Scheduler scheduler;
+
+		MemoryContent(List<DataBuffer> buffers, Scheduler scheduler) {
+			this.buffers = new ConcurrentLinkedQueue<>(buffers);
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		protected Flux<DataBuffer> doRead() {
+			return Flux.<DataBuffer>generate(sink -> {
+				DataBuffer buffer = this.buffers.poll();
+				if (buffer != null) {
+					sink.next(buffer);
+				}
+				else {
+					sink.complete();
+				}
+			}).doFinally(signalType -> release());
+		}
+
+		@Override
+		protected Mono<Void> doTransferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+						try (FileChannel channel = FileChannel.open(dest, StandardOpenOption.CREATE,
+								StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+							DataBuffer buffer;
+							while ((buffer = this.buffers.poll()) != null) {
+								try {
+									writeFully(channel, buffer);
+								}
+								finally {
+									DataBufferUtils.release(buffer);
+								}
+							}
+						}
+						return null;
+					})
+					.subscribeOn(this.scheduler)
+					.doFinally(signalType -> release());
+		}
+
+		@Override
+		protected Mono<Void> doDelete() {
+			return Mono.fromRunnable(this::release);
+		}
+
+		private void release() {
+			DataBuffer buffer;
+			while ((buffer = this.buffers.poll()) != null) {
+				DataBufferUtils.release(buffer);
+			}
+		}
+	}
+
+
+	private static class FileContent extends PartContent {
+
+		private final Path file;
+
+		private final DataBufferFactory bufferFactory;
+
+		private final Scheduler scheduler;
+
+		FileContent(Path file, DataBufferFactory bufferFactory, Scheduler scheduler) {
+			this.file = file;
+			this.bufferFactory = bufferFactory;
+			this.scheduler = scheduler;
+		}
+
+		@Override
+		protected Flux<DataBuffer> doRead() {
+			return DataBufferUtils.readByteChannel(
+					() -> Files.newByteChannel(this.file, StandardOpenOption.READ),
+					this.bufferFactory, FILE_READ_BUFFER_SIZE)
+					.subscribeOn(this.scheduler)
+					.doFinally(signalType -> doDelete().subscribe());
+		}
+
+		@Override
+		protected Mono<Void> doTransferTo(Path dest) {
+			return Mono.<Void>fromCallable(() -> {
+						Files.move(this.file, dest, StandardCopyOption.REPLACE_EXISTING);
+						return null;
+					})
+					.subscribeOn(this.scheduler)
+					.doFinally(signalType -> doDelete().subscribe());
+		}
+
+		@Override
+		protected Mono<Void> doDelete() {
+			return Mono.<Void>fromRunnable(() -> deleteFile(this.file)).subscribeOn(this.scheduler);
+		}
+	}
+
+
+	private abstract static class AbstractPart implements Part {
+
+		private final String name;
+
+		private final HttpHeaders headers;
+
+		AbstractPart(HttpHeaders headers) {
+			String name = headers.getContentDisposition().getName();
+			Assert.state(name != null, "No part name in Content-Disposition header");
+			this.name = name;
+			this.headers = headers;
+		}
+
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + this.name + "', headers=" + this.headers;
+		}
+	}
+
+
+	private static class DefaultPart extends AbstractPart {
+
+		private final PartContent content;
+
+		DefaultPart(HttpHeaders headers, PartContent content) {
+			super(headers);
+			this.content = content;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			return this.content.read();
+		}
+
+		@Override
+		public Mono<Void> delete() {
+			return this.content.delete();
+		}
+
+		protected PartContent getContent() {
+			return this.content;
+		}
+	}
+
+
+	private static class DefaultFilePart extends DefaultPart implements FilePart {
+
+		private final String filename;
+
+		DefaultFilePart(HttpHeaders headers, PartContent content, String filename) {
+			super(headers, content);
+			this.filename = filename;
+		}
+
+		@Override
+		public String filename() {
+			return this.filename;
+		}
+
+		@Override
+		public Mono<Void> transferTo(Path dest) {
+			return getContent().transferTo(dest);
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "', filename='" + this.filename + "'";
+		}
+	}
+
+
+	private static class DefaultFormFieldPart extends AbstractPart implements FormFieldPart {
+
+		private final DataBufferFactory bufferFactory;
+
+		private final String value;
+
+		DefaultFormFieldPart(HttpHeaders headers, DataBufferFactory bufferFactory, List<DataBuffer> buffers) {
+			super(headers);
+			this.bufferFactory = bufferFactory;
+			this.value = decode(buffers, getCharset());
+		}
+
+		private static String decode(List<DataBuffer> buffers, Charset charset) {
+			int length = 0;
+			for (DataBuffer buffer : buffers) {
+				length += buffer.readableByteCount();
+			}
+			byte[] bytes = new byte[length];
+			int offset = 0;
+			for (DataBuffer buffer : buffers) {
+				int count = buffer.readableByteCount();
+				buffer.read(bytes, offset, count);
+				offset += count;
+				DataBufferUtils.release(buffer);
+			}
+			return new String(bytes, charset);
+		}
+
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public Flux<DataBuffer> content() {
+			byte[] bytes = this.value.getBytes(getCharset());
+			DataBuffer buffer = this.bufferFactory.allocateBuffer(bytes.length);
+			buffer.write(bytes);
+			return Flux.just(buffer);
+		}
+
+		private Charset getCharset() {
+			MediaType contentType = headers().getContentType();
+			Charset charset = (contentType != null ? contentType.getCharset() : null);
+			return (charset != null ? charset : StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String toString() {
+			return "Part '" + name() + "=" + this.value + "'";
+		}
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Parser that turns a multipart body into a stream of {@link Token tokens}:
+ * a headers token at the start of each part, followed by body tokens with
+ * the content of that part.
+ *
+ * <p>Boundaries are scanned for directly in the given data buffers, using a
+ * Knuth-Morris-Pratt matcher that carries its state from one buffer to the
+ * next. Body tokens are retained slices of the input buffers rather than
+ * copies; only bytes that turned out not to be the start of a boundary after
+ * all are re-emitted from the delimiter itself.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see DefaultPartHttpMessageReader
+ */
+final class MultipartParser {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte HYPHEN = '-';
+
+
+	/** The delimiter preceding each part: CRLF, two hyphens and the boundary. */
+	private final byte[] delimiter;
+
+	/** Knuth-Morris-Pratt failure function for the delimiter. */
+	private final int[] failure;
+
+	private final int maxHeadersSize;
+
+	private final Charset headersCharset;
+
+	private State state = State.PREAMBLE;
+
+	/** The number of delimiter bytes matched so far. */
+	private int matched;
+
+	/** The number of matched delimiter bytes held back from previous buffers. */
+	private int pending;
+
+	private byte[] headerBytes;
+
+	private int headerLength;
+
+
+	private MultipartParser(byte[] boundary, int maxHeadersSize, Charset headersCharset) {
+		this.delimiter = new byte[boundary.length + 4];
+		this.delimiter[0] = CR;
+		this.delimiter[1] = LF;
+		this.delimiter[2] = HYPHEN;
+		this.delimiter[3] = HYPHEN;
+		System.arraycopy(boundary, 0, this.delimiter, 4, boundary.length);
+		this.failure = failureFunction(this.delimiter);
+		this.maxHeadersSize = maxHeadersSize;
+		this.headersCharset = headersCharset;
+		this.headerBytes = new byte[Math.min(64, maxHeadersSize)];
+		// The first boundary is usually not preceded by CRLF: pretend it was
+		this.matched = 2;
+		this.pending = 2;
+	}
+
+
+	/**
+	 * Parse the given stream of data buffers into tokens.
+	 * @param buffers the multipart body
+	 * @param boundary the boundary, as specified in the content type
+	 * @param maxHeadersSize the maximum size of the headers of each part
+	 * @param headersCharset the charset to decode part headers with
+	 * @return the stream of tokens
+	 */
+	public static Flux<Token> parse(Flux<DataBuffer> buffers, byte[] boundary, int maxHeadersSize,
+			Charset headersCharset) {
+
+		return Flux.defer(() -> {
+			MultipartParser parser = new MultipartParser(boundary, maxHeadersSize, headersCharset);
+			return buffers.concatMapIterable(parser::parseBuffer)
+					.concatWith(Flux.defer(parser::endOfInput));
+		});
+	}
+
+
+	private List<Token> parseBuffer(DataBuffer buffer) {
+		List<Token> tokens = new ArrayList<>(4);
+		try {
+			int index = buffer.readPosition();
+			int end = buffer.writePosition();
+			while (index < end && this.state != State.DONE) {
+				if (this.state == State.HEADERS) {
+					index = parseHeaders(buffer, index, end);
+					if (this.state == State.BODY) {
+						tokens.add(new HeadersToken(toHeaders()));
+					}
+				}
+				else {
+					index = parseBody(buffer, index, end, tokens);
+				}
+			}
+			return tokens;
+		}
+		catch (RuntimeException ex) {
+			tokens.forEach(Token::release);
+			throw ex;
+		}
+		finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	private Flux<Token> endOfInput() {
+		if (this.state != State.DONE) {
+			return Flux.error(new DecodingException("Could not find end of multipart body"));
+		}
+		return Flux.empty();
+	}
+
+	/**
+	 * Parse header bytes until the blank line that ends them, or until the
+	 * close delimiter is found.
+	 * @return the index of the first byte after the headers
+	 */
+	private int parseHeaders(DataBuffer buffer, int index, int end) {
+		while (index < end) {
+			byte b = buffer.getByte(index++);
+			if (this.headerLength == this.headerBytes.length) {
+				if (this.headerLength >= this.maxHeadersSize) {
+					throw new DecodingException(
+							"Part headers exceeded the limit of " + this.maxHeadersSize + " bytes");
+				}
+				this.headerBytes = Arrays.copyOf(this.headerBytes,
+						Math.min(this.headerLength * 2, this.maxHeadersSize));
+			}
+			this.headerBytes[this.headerLength++] = b;
+			if (this.headerLength == 2 && this.headerBytes[0] == HYPHEN && b == HYPHEN) {
+				this.state = State.DONE;
+				break;
+			}
+			if (this.headerLength >= 4 && b == LF && this.headerBytes[this.headerLength - 2] == CR &&
+					this.headerBytes[this.headerLength - 3] == LF && this.headerBytes[this.headerLength - 4] == CR) {
+				this.state = State.BODY;
+				break;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Create headers from the collected header bytes, skipping any transport
+	 * padding after the delimiter as well as the blank line at the end.
+	 */
+	private HttpHeaders toHeaders() {
+		String block = new String(this.headerBytes, 0, this.headerLength - 4, this.headersCharset);
+		this.headerLength = 0;
+		HttpHeaders headers = new HttpHeaders();
+		String[] lines = block.split("\r\n");
+		for (int i = 1; i < lines.length; i++) {
+			String line = lines[i];
+			int colon = line.indexOf(':');
+			if (colon > 0) {
+				headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+			}
+		}
+		return headers;
+	}
+
+	/**
+	 * Scan for the delimiter, adding body tokens for the content before it
+	 * unless in the preamble. If the delimiter is found, the state changes to
+	 * {@link State#HEADERS}, otherwise the match state is carried over to the
+	 * next buffer.
+	 * @return the index of the first byte after the delimiter, or the end index
+	 */
+	private int parseBody(DataBuffer buffer, int start, int end, List<Token> tokens) {
+		for (int index = start; index < end; index++) {
+			byte b = buffer.getByte(index);
+			while (this.matched > 0 && this.delimiter[this.matched] != b) {
+				this.matched = this.failure[this.matched - 1];
+			}
+			if (this.delimiter[this.matched] == b) {
+				this.matched++;
+				if (this.matched == this.delimiter.length) {
+					addBodyTokens(buffer, start, index + 1, tokens);
+					this.matched = 0;
+					this.pending = 0;
+					this.state = State.HEADERS;
+					return index + 1;
+				}
+			}
+		}
+		addBodyTokens(buffer, start, end, tokens);
+		return end;
+	}
+
+	/**
+	 * Add body tokens for the given range of the buffer, preceded by the
+	 * delimiter bytes held back from previous buffers, minus the delimiter
+	 * bytes matched at the end of the range, which are held back in turn.
+	 */
+	private void addBodyTokens(DataBuffer buffer, int start, int end, List<Token> tokens) {
+		int count = this.pending + (end - start) - this.matched;
+		int fromPending = Math.min(this.pending, count);
+		int fromBuffer = count - fromPending;
+		this.pending = this.matched;
+		if (this.state == State.BODY) {
+			if (fromPending > 0) {
+				DataBuffer held = buffer.factory().allocateBuffer(fromPending);
+				held.write(this.delimiter, 0, fromPending);
+				tokens.add(new BodyToken(held));
+			}
+			if (fromBuffer > 0) {
+				tokens.add(new BodyToken(DataBufferUtils.retain(buffer.slice(start, fromBuffer))));
+			}
+		}
+	}
+
+	private static int[] failureFunction(byte[] pattern) {
+		int[] failure = new int[pattern.length];
+		int k = 0;
+		for (int i = 1; i < pattern.length; i++) {
+			while (k > 0 && pattern[k] != pattern[i]) {
+				k = failure[k - 1];
+			}
+			if (pattern[k] == pattern[i]) {
+				k++;
+			}
+			failure[i] = k;
+		}
+		return failure;
+	}
+
+
+	private enum State {
+
+		PREAMBLE, HEADERS, BODY, DONE
+	}
+
+
+	/**
+	 * Represents the output of {@link #parse}.
+	 */
+	abstract static class Token {
+
+		/**
+		 * Whether this token starts a new part, or otherwise has part content.
+		 */
+		public abstract boolean isHeaders();
+
+		/**
+		 * Return the headers of the new part.
+		 * @throws IllegalStateException if this is a body token
+		 */
+		public abstract HttpHeaders headers();
+
+		/**
+		 * Return the part content.
+		 * @throws IllegalStateException if this is a headers token
+		 */
+		public abstract DataBuffer buffer();
+
+		void release() {
+		}
+	}
+
+
+	static final class HeadersToken extends Token {
+
+		private final HttpHeaders headers;
+
+		HeadersToken(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return this.headers;
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			throw new IllegalStateException("Not a body token");
+		}
+
+		@Override
+		public boolean isHeaders() {
+			return true;
+		}
+	}
+
+
+	static final class BodyToken extends Token {
+
+		private final DataBuffer buffer;
+
+		BodyToken(DataBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			throw new IllegalStateException("Not a headers token");
+		}
+
+		@Override
+		public DataBuffer buffer() {
+			return this.buffer;
+		}
+
+		@Override
+		public boolean isHeaders() {
+			return false;
+		}
+
+		@Override
+		void release() {
+			DataBufferUtils.release(this.buffer);
+		}
+	}
+
+}
@@ -0,0 +1,417 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server.reactive;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.IndexedHeaderMap;
+import org.springframework.lang.Nullable;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * {@code MultiValueMap} that layers modifications over a read-only map of
+ * headers, typically the native headers of the request being mutated, rather
+ * than copying all headers upfront.
+ *
+ * <p>Reads fall through to the underlying headers until a header is modified,
+ * at which point only that header is copied into an overlay. Removed headers
+ * are tracked by name. The underlying headers are never modified.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see DefaultServerHttpRequestBuilder
+ */
+class CopyOnWriteHeadersMap extends AbstractMap<String, List<String>> implements MultiValueMap<String, String> {
+
+	private final MultiValueMap<String, String> headers;
+
+	@Nullable
+	private IndexedHeaderMap overlay;
+
+	@Nullable
+	private Set<String> removed;
+
+	@Nullable
+	private Set<Entry<String, List<String>>> entrySet;
+
+
+	CopyOnWriteHeadersMap(MultiValueMap<String, String> headers) {
+		this.headers = headers;
+	}
+
+
+	// MultiValueMap implementation
+
+	@Override
+	@Nullable
+	public String getFirst(String key) {
+		if (this.overlay != null && this.overlay.containsKey(key)) {
+			return this.overlay.getFirst(key);
+		}
+		return (!isRemoved(key) ? this.headers.getFirst(key) : null);
+	}
+
+	@Override
+	public void add(String key, @Nullable String value) {
+		copyOnWrite(key).add(value);
+	}
+
+	@Override
+	public void addAll(String key, List<? extends String> values) {
+		copyOnWrite(key).addAll(values);
+	}
+
+	@Override
+	public void addAll(MultiValueMap<String, String> values) {
+		values.forEach(this::addAll);
+	}
+
+	@Override
+	public void set(String key, @Nullable String value) {
+		obtainOverlay().set(key, value);
+		unmarkRemoved(key);
+	}
+
+	@Override
+	public void setAll(Map<String, String> values) {
+		values.forEach(this::set);
+	}
+
+	@Override
+	public Map<String, String> toSingleValueMap() {
+		Map<String, String> singleValueMap = new LinkedHashMap<>(size());
+		for (Entry<String, List<String>> entry : entrySet()) {
+			List<String> values = entry.getValue();
+			singleValueMap.put(entry.getKey(), (!values.isEmpty() ? values.get(0) : null));
+		}
+		return singleValueMap;
+	}
+
+
+	// Map implementation
+
+	@Override
+	public int size() {
+		int size = this.headers.size();
+		if (this.removed != null) {
+			size -= this.removed.size();
+		}
+		if (this.overlay != null) {
+			for (String key : this.overlay.keySet()) {
+				if (!this.headers.containsKey(key)) {
+					size++;
+				}
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (size() == 0);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (this.overlay != null && this.overlay.containsKey(key)) {
+			return true;
+		}
+		return (key instanceof String && !isRemoved((String) key) && this.headers.containsKey(key));
+	}
+
+	@Override
+	@Nullable
+	public List<String> get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		if (this.overlay != null) {
+			List<String> values = this.overlay.get(key);
+			if (values != null) {
+				return values;
+			}
+		}
+		if (isRemoved((String) key)) {
+			return null;
+		}
+		List<String> values = this.headers.get(key);
+		return (values != null ? new ValuesView((String) key, values) : null);
+	}
+
+	@Override
+	@Nullable
+	public List<String> put(String key, List<String> value) {
+		List<String> previous = snapshot(key);
+		obtainOverlay().put(key, value);
+		unmarkRemoved(key);
+		return previous;
+	}
+
+	@Override
+	@Nullable
+	public List<String> remove(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		String name = (String) key;
+		List<String> previous = snapshot(name);
+		if (this.overlay != null) {
+			this.overlay.remove(name);
+		}
+		if (this.headers.containsKey(name)) {
+			markRemoved(name);
+		}
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		if (this.overlay != null) {
+			this.overlay.clear();
+		}
+		for (String key : this.headers.keySet()) {
+			markRemoved(key);
+		}
+	}
+
+	@Override
+	public Set<Entry<String, List<String>>> entrySet() {
+		if (this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	public String toString() {
+		return HttpHeaders.formatHeaders(this);
+	}
+
+
+	private IndexedHeaderMap obtainOverlay() {
+		if (this.overlay == null) {
+			this.overlay = new IndexedHeaderMap(4);
+		}
+		return this.overlay;
+	}
+
+	/**
+	 * Return the overlay values for the given header, copying the
+	 * underlying values into the overlay first if necessary.
+	 */
+	private List<String> copyOnWrite(String key) {
+		IndexedHeaderMap overlay = obtainOverlay();
+		List<String> values = overlay.get(key);
+		if (values == null) {
+			List<String> existing = (!isRemoved(key) ? this.headers.get(key) : null);
+			overlay.put(key, (existing != null ? existing : Collections.emptyList()));
+			unmarkRemoved(key);
+			values = overlay.get(key);
+		}
+		return values;
+	}
+
+	@Nullable
+	private List<String> snapshot(String key) {
+		List<String> values = get(key);
+		return (values != null ? new ArrayList<>(values) : null);
+	}
+
+	private boolean isRemoved(String key) {
+		return (this.removed != null && this.removed.contains(key));
+	}
+
+	private void markRemoved(String key) {
+		if (this.removed == null) {
+			this.removed = Collections.newSetFromMap(new LinkedCaseInsensitiveMap<>(4, Locale.ENGLISH));
+		}
+		this.removed.add(key);
+	}
+
+	private void unmarkRemoved(String key) {
+		if (this.removed != null) {
+			this.removed.remove(key);
+		}
+	}
+
+
+	/**
+	 * View of the underlying values for a header that copies them into the
+	 * overlay on the first modification.
+	 */
+	private class ValuesView extends AbstractList<String> {
+
+		private final String key;
+
+		private List<String> values;
+
+		private boolean copied;
+
+		ValuesView(String key, List<String> values) {
+			this.key = key;
+			this.values = values;
+		}
+
+		@Override
+		public String get(int index) {
+			return this.values.get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.values.size();
+		}
+
+		@Override
+		public String set(int index, String element) {
+			return writableValues().set(index, element);
+		}
+
+		@Override
+		public void add(int index, String element) {
+			writableValues().add(index, element);
+			this.modCount++;
+		}
+
+		@Override
+		public String remove(int index) {
+			String previous = writableValues().remove(index);
+			this.modCount++;
+			return previous;
+		}
+
+		private List<String> writableValues() {
+			if (!this.copied) {
+				this.values = copyOnWrite(this.key);
+				this.copied = true;
+			}
+			return this.values;
+		}
+	}
+
+
+	private class EntrySet extends AbstractSet<Entry<String, List<String>>> {
+
+		@Override
+		public int size() {
+			return CopyOnWriteHeadersMap.this.size();
+		}
+
+		@Override
+		public Iterator<Entry<String, List<String>>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public void clear() {
+			CopyOnWriteHeadersMap.this.clear();
+		}
+	}
+
+
+	/**
+	 * Iterate over the underlying headers, skipping removed ones and using overlay
+	 * values where present, followed by the headers that exist only in the overlay.
+	 * <p>Removal goes through the map by key, with the overlay-only headers
+	 * iterated from a snapshot of their keys, since the overlay reorders on removal.
+	 */
+	private class EntryIterator implements Iterator<Entry<String, List<String>>> {
+
+		private final Iterator<Entry<String, List<String>>> headersIterator = headers.entrySet().iterator();
+
+		@Nullable
+		private Iterator<String> overlayKeys;
+
+		@Nullable
+		private Entry<String, List<String>> next;
+
+		@Nullable
+		private String last;
+
+		@Override
+		public boolean hasNext() {
+			if (this.next != null) {
+				return true;
+			}
+			while (this.headersIterator.hasNext()) {
+				String key = this.headersIterator.next().getKey();
+				if (!isRemoved(key)) {
+					List<String> values = get(key);
+					if (values != null) {
+						this.next = new SimpleImmutableEntry<>(key, values);
+						return true;
+					}
+				}
+			}
+			if (overlay == null) {
+				return false;
+			}
+			if (this.overlayKeys == null) {
+				List<String> keys = new ArrayList<>(overlay.size());
+				for (String key : overlay.keySet()) {
+					if (!headers.containsKey(key)) {
+						keys.add(key);
+					}
+				}
+				this.overlayKeys = keys.iterator();
+			}
+			while (this.overlayKeys.hasNext()) {
+				String key = this.overlayKeys.next();
+				List<String> values = overlay.get(key);
+				if (values != null) {
+					this.next = new SimpleImmutableEntry<>(key, values);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Entry<String, List<String>> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Entry<String, List<String>> entry = this.next;
+			this.next = null;
+			this.last = entry.getKey();
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			if (this.last == null) {
+				throw new IllegalStateException();
+			}
+			CopyOnWriteHeadersMap.this.remove(this.last);
+			this.last = null;
+		}
+	}
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.List;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility methods to parse the path of a Servlet request into a
+ * {@link RequestPath} once and to cache it as a request attribute, for
+ * matching against pre-parsed {@link org.springframework.web.util.pattern.PathPattern
+ * PathPatterns} without decoding and tokenizing the path again for every pattern.
+ *
+ * <p>The context path of the parsed {@code RequestPath} covers the Servlet context
+ * path and, for a prefix-based Servlet mapping such as "/myServlet/*", also the
+ * Servlet path, unless the full path within the application is to be used. Its
+ * {@link RequestPath#pathWithinApplication() pathWithinApplication} therefore
+ * corresponds to the lookup path determined by {@link UrlPathHelper}, with path
+ * segments decoded as UTF-8 and with matrix variables parsed rather than removed.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @see UrlPathHelper#getLookupPathForRequest
+ */
+public abstract class ServletRequestPathUtils {
+
+	/**
+	 * Name of the request attribute that holds the parsed {@link RequestPath}.
+	 */
+	public static final String PATH_ATTRIBUTE = ServletRequestPathUtils.class.getName() + ".PATH";
+
+
+	/**
+	 * Parse the path of the given request, relative to the Servlet mapping if
+	 * applicable, and cache it in the request attribute {@link #PATH_ATTRIBUTE}.
+	 * @param request the current request
+	 * @return the parsed request path
+	 */
+	public static RequestPath parseAndCache(HttpServletRequest request) {
+		return parseAndCache(request, false);
+	}
+
+	/**
+	 * Parse the path of the given request and cache it in the request attribute
+	 * {@link #PATH_ATTRIBUTE}.
+	 * @param request the current request
+	 * @param alwaysUseFullPath whether the path within the application should
+	 * always be the full path within the Servlet context, analogous to
+	 * {@link UrlPathHelper#setAlwaysUseFullPath}
+	 * @return the parsed request path
+	 */
+	public static RequestPath parseAndCache(HttpServletRequest request, boolean alwaysUseFullPath) {
+		RequestPath requestPath = parse(request, alwaysUseFullPath);
+		request.setAttribute(PATH_ATTRIBUTE, requestPath);
+		return requestPath;
+	}
+
+	/**
+	 * Return a previously {@link #parseAndCache parsed} request path.
+	 * @param request the current request
+	 * @return the cached request path
+	 * @throws IllegalArgumentException if no parsed request path is available
+	 */
+	public static RequestPath getParsedRequestPath(ServletRequest request) {
+		RequestPath requestPath = (RequestPath) request.getAttribute(PATH_ATTRIBUTE);
+		Assert.notNull(requestPath, "Expected parsed RequestPath in request attribute \"" + PATH_ATTRIBUTE + "\"");
+		return requestPath;
+	}
+
+	/**
+	 * Check for a previously {@link #parseAndCache parsed} request path.
+	 * @param request the current request
+	 */
+	public static boolean hasParsedRequestPath(ServletRequest request) {
+		return (request.getAttribute(PATH_ATTRIBUTE) != null);
+	}
+
+	/**
+	 * Remove the request attribute {@link #PATH_ATTRIBUTE} that holds a
+	 * previously {@link #parseAndCache parsed} request path.
+	 * @param request the current request
+	 */
+	public static void clearParsedRequestPath(ServletRequest request) {
+		request.removeAttribute(PATH_ATTRIBUTE);
+	}
+
+	/**
+	 * Build a lookup path from the decoded segments of the given path,
+	 * without matrix variables, e.g. for a direct lookup of URL patterns.
+	 * @param path the path to build the lookup path for, typically the
+	 * {@link RequestPath#pathWithinApplication() pathWithinApplication}
+	 * of a parsed request path
+	 * @return the decoded lookup path
+	 */
+	public static String getLookupPath(PathContainer path) {
+		List<PathContainer.Element> elements = path.elements();
+		StringBuilder builder = null;
+		for (int i = 0; i < elements.size(); i++) {
+			PathContainer.Element element = elements.get(i);
+			if (element instanceof PathContainer.PathSegment) {
+				String value = ((PathContainer.PathSegment) element).valueToMatch();
+				if (builder == null && !value.equals(element.value())) {
+					builder = new StringBuilder(path.value().length());
+					for (int j = 0; j < i; j++) {
+						builder.append(elements.get(j).value());
+					}
+				}
+				if (builder != null) {
+					builder.append(value);
+				}
+			}
+			else if (builder != null) {
+				builder.append(element.value());
+			}
+		}
+		return (builder != null ? builder.toString() : path.value());
+	}
+
+
+	private static RequestPath parse(HttpServletRequest request, boolean alwaysUseFullPath) {
+		String requestUri = (String) request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+		String contextPath;
+		String servletPath;
+		String pathInfo;
+		if (requestUri != null) {
+			contextPath = (String) request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE);
+			servletPath = (String) request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+			pathInfo = (String) request.getAttribute(WebUtils.INCLUDE_PATH_INFO_ATTRIBUTE);
+		}
+		else {
+			requestUri = request.getRequestURI();
+			contextPath = request.getContextPath();
+			servletPath = request.getServletPath();
+			pathInfo = request.getPathInfo();
+		}
+
+		// The context path and request URI are not decoded by the Servlet container
+		// whereas the Servlet path is: determine the raw prefix by segment count.
+		int prefixSegments = countSegments(contextPath);
+		if (!alwaysUseFullPath && pathInfo != null) {
+			prefixSegments += countSegments(servletPath);
+		}
+		int prefixLength = 0;
+		for (int i = 0; i < prefixSegments && prefixLength < requestUri.length(); i++) {
+			int index = requestUri.indexOf('/', prefixLength + 1);
+			prefixLength = (index != -1 ? index : requestUri.length());
+		}
+		return RequestPath.parse(requestUri, requestUri.substring(0, prefixLength));
+	}
+
+	private static int countSegments(@Nullable String path) {
+		if (!StringUtils.hasLength(path) || "/".equals(path)) {
+			return 0;
+		}
+		int count = 0;
+		for (int i = 0; i < path.length(); i++) {
+			if (path.charAt(i) == '/') {
+				count++;
+			}
+		}
+		return (path.endsWith("/") ? count - 1 : count);
+	}
+
+}
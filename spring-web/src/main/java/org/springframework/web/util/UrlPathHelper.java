@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -81,6 +81,15 @@ public class UrlPathHelper {
 		this.alwaysUseFullPath = alwaysUseFullPath;
 	}
 
+	/**
+	 * Whether URL lookups always use the full path within the current
+	 * application context.
+	 * @since 5.2
+	 */
+	public boolean isAlwaysUseFullPath() {
+		return this.alwaysUseFullPath;
+	}
+
 	/**
 	 * Whether the context path and request URI should be decoded -- both of
 	 * which are returned <i>undecoded</i> by the Servlet API, in contrast to
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -129,6 +129,13 @@ class CaptureVariablePathElement extends PathElement {
 		return this.variableName;
 	}
 
+	/**
+	 * Whether the captured value needs to match a constraint regex.
+	 */
+	boolean hasConstraint() {
+		return (this.constraintPattern != null);
+	}
+
 	@Override
 	public int getNormalizedLength() {
 		return 1;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -117,6 +117,15 @@ class LiteralPathElement extends PathElement {
 		return this.text;
 	}
 
+	/**
+	 * Whether this literal is matched in a case sensitive way,
+	 * i.e. whether {@link #getChars()} returns the original text
+	 * rather than its lower case form.
+	 */
+	boolean isCaseSensitive() {
+		return this.caseSensitive;
+	}
+
 
 	public String toString() {
 		return "Literal(" + String.valueOf(this.text) + ")";
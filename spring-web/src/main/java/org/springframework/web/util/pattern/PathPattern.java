@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -435,6 +435,10 @@ public class PathPattern implements Comparable<PathPattern> {
 		return this.catchAll;
 	}
 
+	boolean isMatchOptionalTrailingSeparator() {
+		return this.matchOptionalTrailingSeparator;
+	}
+
 	/**
 	 * The normalized length is trying to measure the 'active' part of the pattern. It is computed
 	 * by assuming all capture variables have a normalized length of 1. Effectively this means changing
@@ -0,0 +1,699 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * A set of {@link PathPattern PathPatterns} with associated values, matched
+ * against a path in a single traversal of a tree that merges the common
+ * prefixes of all patterns.
+ *
+ * <p>The tree is built from the {@link PathElement} chains of the patterns:
+ * separators, literal segments and unconstrained captures of a whole segment
+ * (such as "{id}") are tree nodes, and a trailing "/**" is evaluated at the
+ * node that it follows. The remainder of a pattern from its first other element
+ * on (e.g. "*", "{*rest}", "{id:\\d+}" or "foo*bar") is matched through
+ * {@link PathPattern#matches} with the full path, once the prefix of the
+ * pattern has been matched through the tree. URI variables of matches are
+ * extracted from the positions of their captures, on demand.
+ *
+ * <p>Patterns may also be {@link #addPrefix added as prefixes}, matching the
+ * start of a path as {@link PathPattern#matchStartOfPath} does.
+ *
+ * <p>Matches are ordered by the {@link PathPattern#compareTo specificity}
+ * of their patterns, and in the order of registration for the same pattern.
+ *
+ * <p>Not thread-safe for modifications: concurrent {@link #add} and
+ * {@link #remove} calls need to be guarded against concurrent matching.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @param <T> the type of values associated with the patterns
+ */
+public class PathPatternSet<T> {
+
+	private final Node<T> root = new Node<>();
+
+	private long registrationCount;
+
+	private int size;
+
+
+	/**
+	 * Add the given pattern along with an associated value.
+	 * @param pattern the pattern to add
+	 * @param value the value to associate with the pattern
+	 */
+	public void add(PathPattern pattern, T value) {
+		add(pattern, value, false);
+	}
+
+	/**
+	 * Add the given pattern along with an associated value, for matching the
+	 * start of a path as {@link PathPattern#matchStartOfPath} does: for example,
+	 * a prefix "/api" matches "/api" as well as "/api/users".
+	 * @param pattern the pattern to add as a prefix
+	 * @param value the value to associate with the pattern
+	 */
+	public void addPrefix(PathPattern pattern, T value) {
+		add(pattern, value, true);
+	}
+
+	private void add(PathPattern pattern, T value, boolean prefix) {
+		Assert.notNull(pattern, "PathPattern must not be null");
+		Assert.notNull(value, "Value must not be null");
+		List<Node<T>> nodes = new ArrayList<>();
+		List<Integer> capturePositions = new ArrayList<>();
+		List<String> captureNames = new ArrayList<>();
+		Node<T> node = this.root;
+		nodes.add(node);
+		EntryType type = null;
+		boolean optionalTrailingSeparator = false;
+		PathElement element = pattern.getHeadSection();
+		int index = 0;
+		while (type == null) {
+			if (element == null) {
+				if (prefix) {
+					// End of prefix after a path segment: any remaining path starts with a separator
+					type = (index > 0 && !node.isSeparatorChild ? EntryType.REST : EntryType.REMAINDER);
+				}
+				else {
+					// End of pattern: a trailing separator may follow, unless the pattern ends with one
+					type = (index > 0 ? EntryType.END : EntryType.REMAINDER);
+					optionalTrailingSeparator = (pattern.isMatchOptionalTrailingSeparator() &&
+							!(node == nodes.get(0) || node.isSeparatorChild));
+				}
+			}
+			else if (element instanceof SeparatorPathElement) {
+				node = node.getOrCreateSeparatorChild();
+			}
+			else if (element instanceof LiteralPathElement) {
+				LiteralPathElement literal = (LiteralPathElement) element;
+				node = node.getOrCreateLiteralChild(String.valueOf(literal.getChars()), literal.isCaseSensitive());
+			}
+			else if (element instanceof CaptureVariablePathElement &&
+					!((CaptureVariablePathElement) element).hasConstraint()) {
+				node = node.getOrCreateCaptureChild();
+				capturePositions.add(index);
+				captureNames.add(((CaptureVariablePathElement) element).getVariableName());
+			}
+			else {
+				type = (element instanceof WildcardTheRestPathElement && !prefix ? EntryType.REST : EntryType.REMAINDER);
+			}
+			if (type == null) {
+				nodes.add(node);
+				element = element.next;
+				index++;
+			}
+		}
+
+		int[] positions = new int[capturePositions.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = capturePositions.get(i);
+		}
+		Entry<T> entry = new Entry<>(pattern, value, this.registrationCount++,
+				positions, captureNames.toArray(new String[0]), optionalTrailingSeparator, prefix);
+		node.addEntry(type, entry);
+		for (Node<T> nodeOnPath : nodes) {
+			nodeOnPath.updateSubtreeBest(entry);
+		}
+		this.size++;
+	}
+
+	/**
+	 * Remove the given pattern and value, as previously {@link #add added}
+	 * or {@link #addPrefix added as a prefix}.
+	 * @param pattern the pattern to remove
+	 * @param value the value associated with the pattern
+	 * @return {@code true} if the pattern and value have been found and removed
+	 */
+	public boolean remove(PathPattern pattern, T value) {
+		if (this.root.remove(pattern, value)) {
+			this.size--;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the number of patterns and values in this set.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Whether this set is empty.
+	 */
+	public boolean isEmpty() {
+		return (this.size == 0);
+	}
+
+
+	/**
+	 * Match the given path against all patterns in this set, returning the match
+	 * for the most specific pattern.
+	 * @param path the path to match
+	 * @return the best match, or {@code null} if no pattern matches
+	 */
+	@Nullable
+	public Match<T> match(PathContainer path) {
+		BestMatchCollector<T> collector = new BestMatchCollector<>();
+		this.root.collect(path, path.elements(), 0, collector);
+		return (collector.best != null ? new Match<>(collector.best, path) : null);
+	}
+
+	/**
+	 * Match the given path against all patterns in this set.
+	 * @param path the path to match
+	 * @return the matches, sorted with the most specific pattern first
+	 */
+	public List<Match<T>> matchAll(PathContainer path) {
+		AllMatchesCollector<T> collector = new AllMatchesCollector<>();
+		this.root.collect(path, path.elements(), 0, collector);
+		if (collector.entries.isEmpty()) {
+			return Collections.emptyList();
+		}
+		collector.entries.sort(null);
+		List<Match<T>> matches = new ArrayList<>(collector.entries.size());
+		for (Entry<T> entry : collector.entries) {
+			matches.add(new Match<>(entry, path));
+		}
+		return matches;
+	}
+
+	@Override
+	public String toString() {
+		return "PathPatternSet with " + this.size + " patterns";
+	}
+
+
+	/**
+	 * The match of a path against a pattern of the set.
+	 * @param <T> the type of values associated with the patterns
+	 */
+	public static final class Match<T> {
+
+		private final Entry<T> entry;
+
+		private final PathContainer path;
+
+		@Nullable
+		private PathPattern.PathMatchInfo matchInfo;
+
+		Match(Entry<T> entry, PathContainer path) {
+			this.entry = entry;
+			this.path = path;
+		}
+
+		/**
+		 * Return the matching pattern.
+		 */
+		public PathPattern getPattern() {
+			return this.entry.pattern;
+		}
+
+		/**
+		 * Return the value associated with the matching pattern.
+		 */
+		public T getValue() {
+			return this.entry.value;
+		}
+
+		/**
+		 * Return the URI variables and matrix variables extracted from the path,
+		 * equivalent to those from {@link PathPattern#matchAndExtract}.
+		 */
+		public PathPattern.PathMatchInfo getPathMatchInfo() {
+			PathPattern.PathMatchInfo matchInfo = this.matchInfo;
+			if (matchInfo == null) {
+				matchInfo = this.entry.extract(this.path);
+				this.matchInfo = matchInfo;
+			}
+			return matchInfo;
+		}
+
+		/**
+		 * Return the extracted URI variables.
+		 */
+		public Map<String, String> getUriVariables() {
+			return getPathMatchInfo().getUriVariables();
+		}
+
+		@Override
+		public String toString() {
+			return "Match of \"" + this.path.value() + "\" against " + this.entry.pattern + " -> " + this.entry.value;
+		}
+	}
+
+
+	private enum EntryType {
+
+		/** The pattern ends at the node. */
+		END,
+
+		/** The pattern ends with "/**" after the node, or is a prefix ending at the node. */
+		REST,
+
+		/** The remainder of the pattern after the node needs to be matched by the pattern itself. */
+		REMAINDER
+	}
+
+
+	/**
+	 * A registered pattern and value, along with the path element positions
+	 * of its captures up to the node that it is registered at.
+	 */
+	private static final class Entry<T> implements Comparable<Entry<T>> {
+
+		private static final PathPattern.PathMatchInfo NO_VARIABLES =
+				new PathPattern.PathMatchInfo(Collections.emptyMap(), null);
+
+		final PathPattern pattern;
+
+		final T value;
+
+		final long order;
+
+		final int[] capturePositions;
+
+		final String[] captureNames;
+
+		final boolean optionalTrailingSeparator;
+
+		final boolean prefix;
+
+		Entry(PathPattern pattern, T value, long order, int[] capturePositions, String[] captureNames,
+				boolean optionalTrailingSeparator, boolean prefix) {
+
+			this.pattern = pattern;
+			this.value = value;
+			this.order = order;
+			this.capturePositions = capturePositions;
+			this.captureNames = captureNames;
+			this.optionalTrailingSeparator = optionalTrailingSeparator;
+			this.prefix = prefix;
+		}
+
+		boolean matches(PathContainer path) {
+			return (this.prefix ? this.pattern.matchStartOfPath(path) != null : this.pattern.matches(path));
+		}
+
+		PathPattern.PathMatchInfo extract(PathContainer path) {
+			int[] positions = this.capturePositions;
+			String[] names = this.captureNames;
+			if (this.pattern.getCapturedVariableCount() > positions.length) {
+				// Captures in the remainder of the pattern
+				if (this.prefix) {
+					PathPattern.PathRemainingMatchInfo info = this.pattern.matchStartOfPath(path);
+					Assert.state(info != null, () -> "Expected " + this.pattern + " to match start of " + path.value());
+					return new PathPattern.PathMatchInfo(info.getUriVariables(), info.getMatrixVariables());
+				}
+				PathPattern.PathMatchInfo matchInfo = this.pattern.matchAndExtract(path);
+				Assert.state(matchInfo != null, () -> "Expected " + this.pattern + " to match " + path.value());
+				return matchInfo;
+			}
+			if (positions.length == 0) {
+				return NO_VARIABLES;
+			}
+			Map<String, String> uriVariables = new HashMap<>();
+			Map<String, MultiValueMap<String, String>> matrixVariables = null;
+			List<PathContainer.Element> elements = path.elements();
+			for (int i = 0; i < positions.length; i++) {
+				PathContainer.PathSegment segment = (PathContainer.PathSegment) elements.get(positions[i]);
+				uriVariables.put(names[i], segment.valueToMatch());
+				if (!segment.parameters().isEmpty()) {
+					if (matrixVariables == null) {
+						matrixVariables = new HashMap<>();
+					}
+					matrixVariables.put(names[i], CollectionUtils.unmodifiableMultiValueMap(segment.parameters()));
+				}
+			}
+			return new PathPattern.PathMatchInfo(uriVariables, matrixVariables);
+		}
+
+		@Override
+		public int compareTo(Entry<T> other) {
+			int result = this.pattern.compareTo(other.pattern);
+			return (result != 0 ? result : Long.compare(this.order, other.order));
+		}
+
+		@Override
+		public String toString() {
+			return this.pattern + " -> " + this.value;
+		}
+	}
+
+
+	/**
+	 * Callback for entries matching a path.
+	 */
+	private interface Collector<T> {
+
+		/**
+		 * Whether any entry of the given subtree may improve on the entries collected so far.
+		 */
+		boolean isCandidate(Node<T> node);
+
+		void add(Entry<T> entry);
+	}
+
+
+	private static final class BestMatchCollector<T> implements Collector<T> {
+
+		@Nullable
+		Entry<T> best;
+
+		@Override
+		public boolean isCandidate(Node<T> node) {
+			Entry<T> best = this.best;
+			Entry<T> subtreeBest = node.getSubtreeBest();
+			return (subtreeBest != null && (best == null || subtreeBest.compareTo(best) < 0));
+		}
+
+		@Override
+		public void add(Entry<T> entry) {
+			if (this.best == null || entry.compareTo(this.best) < 0) {
+				this.best = entry;
+			}
+		}
+	}
+
+
+	private static final class AllMatchesCollector<T> implements Collector<T> {
+
+		final List<Entry<T>> entries = new ArrayList<>();
+
+		@Override
+		public boolean isCandidate(Node<T> node) {
+			return (node.getSubtreeBest() != null);
+		}
+
+		@Override
+		public void add(Entry<T> entry) {
+			this.entries.add(entry);
+		}
+	}
+
+
+	/**
+	 * A node of the tree, reached through the path elements of pattern prefixes.
+	 */
+	private static final class Node<T> {
+
+		private final boolean isSeparatorChild;
+
+		@Nullable
+		private Node<T> separatorChild;
+
+		@Nullable
+		private Map<String, Node<T>> literalChildren;
+
+		@Nullable
+		private Map<String, Node<T>> caseInsensitiveLiteralChildren;
+
+		@Nullable
+		private Node<T> captureChild;
+
+		@Nullable
+		private List<Entry<T>> endEntries;
+
+		@Nullable
+		private List<Entry<T>> restEntries;
+
+		@Nullable
+		private List<Entry<T>> remainderEntries;
+
+		/** The most specific entry in this subtree, or {@code null} if empty. */
+		@Nullable
+		private Entry<T> subtreeBest;
+
+		Node() {
+			this(false);
+		}
+
+		private Node(boolean isSeparatorChild) {
+			this.isSeparatorChild = isSeparatorChild;
+		}
+
+		Node<T> getOrCreateSeparatorChild() {
+			Node<T> child = this.separatorChild;
+			if (child == null) {
+				child = new Node<>(true);
+				this.separatorChild = child;
+			}
+			return child;
+		}
+
+		Node<T> getOrCreateLiteralChild(String text, boolean caseSensitive) {
+			Map<String, Node<T>> children = (caseSensitive ? this.literalChildren : this.caseInsensitiveLiteralChildren);
+			if (children == null) {
+				children = new HashMap<>(4);
+				if (caseSensitive) {
+					this.literalChildren = children;
+				}
+				else {
+					this.caseInsensitiveLiteralChildren = children;
+				}
+			}
+			return children.computeIfAbsent(text, key -> new Node<>());
+		}
+
+		Node<T> getOrCreateCaptureChild() {
+			Node<T> child = this.captureChild;
+			if (child == null) {
+				child = new Node<>();
+				this.captureChild = child;
+			}
+			return child;
+		}
+
+		void addEntry(EntryType type, Entry<T> entry) {
+			switch (type) {
+				case END:
+					this.endEntries = addEntry(this.endEntries, entry);
+					break;
+				case REST:
+					this.restEntries = addEntry(this.restEntries, entry);
+					break;
+				default:
+					this.remainderEntries = addEntry(this.remainderEntries, entry);
+			}
+		}
+
+		void updateSubtreeBest(Entry<T> entry) {
+			Entry<T> best = this.subtreeBest;
+			if (best == null || entry.compareTo(best) < 0) {
+				this.subtreeBest = entry;
+			}
+		}
+
+		private static <T> List<Entry<T>> addEntry(@Nullable List<Entry<T>> entries, Entry<T> entry) {
+			List<Entry<T>> result = (entries != null ? entries : new ArrayList<>(1));
+			result.add(entry);
+			return result;
+		}
+
+		boolean remove(PathPattern pattern, T value) {
+			if (this.subtreeBest == null) {
+				return false;
+			}
+			boolean removed = (removeEntry(this.endEntries, pattern, value) ||
+					removeEntry(this.restEntries, pattern, value) ||
+					removeEntry(this.remainderEntries, pattern, value));
+			if (!removed && this.separatorChild != null) {
+				removed = this.separatorChild.remove(pattern, value);
+			}
+			if (!removed && this.literalChildren != null) {
+				for (Node<T> child : this.literalChildren.values()) {
+					if (child.remove(pattern, value)) {
+						removed = true;
+						break;
+					}
+				}
+			}
+			if (!removed && this.caseInsensitiveLiteralChildren != null) {
+				for (Node<T> child : this.caseInsensitiveLiteralChildren.values()) {
+					if (child.remove(pattern, value)) {
+						removed = true;
+						break;
+					}
+				}
+			}
+			if (!removed && this.captureChild != null) {
+				removed = this.captureChild.remove(pattern, value);
+			}
+			if (removed) {
+				Entry<T> best = this.subtreeBest;
+				if (best.pattern.equals(pattern) && best.value.equals(value)) {
+					this.subtreeBest = computeSubtreeBest();
+				}
+			}
+			return removed;
+		}
+
+		private static <T> boolean removeEntry(@Nullable List<Entry<T>> entries, PathPattern pattern, T value) {
+			if (entries != null) {
+				for (int i = 0; i < entries.size(); i++) {
+					Entry<T> entry = entries.get(i);
+					if (entry.pattern.equals(pattern) && entry.value.equals(value)) {
+						entries.remove(i);
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
+		@Nullable
+		Entry<T> getSubtreeBest() {
+			return this.subtreeBest;
+		}
+
+		@Nullable
+		private Entry<T> computeSubtreeBest() {
+			Entry<T> best = null;
+			best = better(best, this.endEntries);
+			best = better(best, this.restEntries);
+			best = better(best, this.remainderEntries);
+			best = better(best, this.separatorChild);
+			if (this.literalChildren != null) {
+				for (Node<T> child : this.literalChildren.values()) {
+					best = better(best, child);
+				}
+			}
+			if (this.caseInsensitiveLiteralChildren != null) {
+				for (Node<T> child : this.caseInsensitiveLiteralChildren.values()) {
+					best = better(best, child);
+				}
+			}
+			return better(best, this.captureChild);
+		}
+
+		@Nullable
+		private static <T> Entry<T> better(@Nullable Entry<T> best, @Nullable List<Entry<T>> entries) {
+			if (entries != null) {
+				for (Entry<T> entry : entries) {
+					if (best == null || entry.compareTo(best) < 0) {
+						best = entry;
+					}
+				}
+			}
+			return best;
+		}
+
+		@Nullable
+		private static <T> Entry<T> better(@Nullable Entry<T> best, @Nullable Node<T> node) {
+			Entry<T> candidate = (node != null ? node.getSubtreeBest() : null);
+			return (candidate != null && (best == null || candidate.compareTo(best) < 0) ? candidate : best);
+		}
+
+		/**
+		 * Collect the entries of this subtree that match the given path,
+		 * with this node reached at the given path element index.
+		 */
+		void collect(PathContainer path, List<PathContainer.Element> elements, int index, Collector<T> collector) {
+			if (!collector.isCandidate(this)) {
+				return;
+			}
+			int length = elements.size();
+			if (this.endEntries != null) {
+				boolean exact = (index == length);
+				boolean trailingSeparator = (index + 1 == length && elements.get(index) instanceof PathContainer.Separator);
+				if (exact || trailingSeparator) {
+					for (Entry<T> entry : this.endEntries) {
+						if (exact || entry.optionalTrailingSeparator) {
+							collector.add(entry);
+						}
+					}
+				}
+			}
+			if (this.restEntries != null &&
+					(index == length || elements.get(index) instanceof PathContainer.Separator)) {
+				for (Entry<T> entry : this.restEntries) {
+					collector.add(entry);
+				}
+			}
+			if (this.remainderEntries != null) {
+				for (Entry<T> entry : this.remainderEntries) {
+					if (entry.matches(path)) {
+						collector.add(entry);
+					}
+				}
+			}
+			if (index >= length) {
+				return;
+			}
+			PathContainer.Element element = elements.get(index);
+			if (element instanceof PathContainer.Separator) {
+				if (this.separatorChild != null) {
+					this.separatorChild.collect(path, elements, index + 1, collector);
+				}
+				return;
+			}
+			if (!(element instanceof PathContainer.PathSegment)) {
+				return;
+			}
+			String value = ((PathContainer.PathSegment) element).valueToMatch();
+			if (this.literalChildren != null) {
+				Node<T> child = this.literalChildren.get(value);
+				if (child != null) {
+					child.collect(path, elements, index + 1, collector);
+				}
+			}
+			if (this.caseInsensitiveLiteralChildren != null) {
+				Node<T> child = this.caseInsensitiveLiteralChildren.get(toLowerCase(value));
+				if (child != null) {
+					child.collect(path, elements, index + 1, collector);
+				}
+			}
+			if (this.captureChild != null && !value.isEmpty()) {
+				this.captureChild.collect(path, elements, index + 1, collector);
+			}
+		}
+
+		/**
+		 * Lower-case the given text per character, consistent with {@link LiteralPathElement}.
+		 */
+		private static String toLowerCase(String text) {
+			char[] chars = null;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				char lower = Character.toLowerCase(c);
+				if (c != lower) {
+					if (chars == null) {
+						chars = text.toCharArray();
+					}
+					chars[i] = lower;
+				}
+			}
+			return (chars != null ? new String(chars) : text);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import java.util.EnumSet;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
 
 import org.hamcrest.Matchers;
@@ -565,4 +566,12 @@ public class HttpHeadersTests {
 		assertEquals("Bearer foo", authorization);
 	}
 
+	@Test(expected = UnsupportedOperationException.class)
+	public void readOnlyHttpHeadersEntrySetValue() {
+		headers.setContentType(MediaType.TEXT_PLAIN);
+		HttpHeaders readOnly = HttpHeaders.readOnlyHttpHeaders(headers);
+		Map.Entry<String, List<String>> entry = readOnly.entrySet().iterator().next();
+		entry.setValue(Collections.singletonList("text/html"));
+	}
+
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.LinkedMultiValueMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link IndexedHeaderMap}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class IndexedHeaderMapTests {
+
+	private final IndexedHeaderMap map = new IndexedHeaderMap(2);
+
+	private final HttpHeaders headers = new HttpHeaders(this.map);
+
+
+	@Test
+	public void caseInsensitiveLookup() {
+		this.map.add("Content-Type", "text/plain");
+		this.map.add("X-Custom", "a");
+		this.map.add("x-custom", "b");
+		this.map.add("ACCEPT", "*/*");
+
+		assertEquals(3, this.map.size());
+		assertEquals(Arrays.asList("a", "b"), this.map.get("X-CUSTOM"));
+		assertEquals("text/plain", this.map.getFirst("content-type"));
+		assertTrue(this.map.containsKey("accept"));
+		assertFalse(this.map.containsKey("Accept-Charset"));
+		assertNull(this.map.get(1));
+		assertEquals(Arrays.asList("Content-Type", "X-Custom", "ACCEPT"), Arrays.asList(this.map.keySet().toArray()));
+	}
+
+	@Test
+	public void wellKnownNamesAreInterned() {
+		this.map.add(new String("Content-Type"), "text/plain");
+		this.map.add(new String("X-Custom"), "a");
+
+		Iterator<String> names = this.map.keySet().iterator();
+		assertSame(HttpHeaders.CONTENT_TYPE, names.next());
+		assertEquals("X-Custom", names.next());
+	}
+
+	@Test
+	public void setPutAndRemove() {
+		this.map.add("X-Custom", "a");
+		this.map.add("X-Custom", "b");
+		this.map.set("x-custom", "c");
+		assertEquals(Collections.singletonList("c"), this.map.get("X-Custom"));
+
+		List<String> previous = this.map.put("X-CUSTOM", Arrays.asList("d", "e"));
+		assertEquals(Collections.singletonList("c"), previous);
+		assertEquals(Arrays.asList("d", "e"), this.map.get("x-custom"));
+
+		this.map.set("Y-Custom", "y");
+		assertEquals(Arrays.asList("d", "e"), this.map.remove("X-Custom"));
+		assertEquals(1, this.map.size());
+		assertEquals("y", this.map.getFirst("y-custom"));
+
+		this.map.clear();
+		assertTrue(this.map.isEmpty());
+		assertNull(this.map.get("Y-Custom"));
+	}
+
+	@Test
+	public void removeThroughIterator() {
+		this.map.add("A", "1");
+		this.map.add("B", "2");
+		this.map.add("C", "3");
+
+		for (Iterator<Map.Entry<String, List<String>>> it = this.map.entrySet().iterator(); it.hasNext();) {
+			if (it.next().getKey().equals("B")) {
+				it.remove();
+			}
+		}
+		assertEquals(Arrays.asList("A", "C"), Arrays.asList(this.map.keySet().toArray()));
+		assertEquals("3", this.map.getFirst("c"));
+	}
+
+	@Test
+	public void equalToOtherHeaderMaps() {
+		LinkedMultiValueMap<String, String> other = new LinkedMultiValueMap<>(new LinkedCaseInsensitiveMap<>());
+		other.add("Content-Type", "text/plain");
+		other.add("X-Custom", "a");
+		this.map.add("Content-Type", "text/plain");
+		this.map.add("X-Custom", "a");
+
+		assertEquals(other, this.map);
+		assertEquals(this.map, other);
+		assertEquals(other.hashCode(), this.map.hashCode());
+		assertEquals(new HttpHeaders(other), this.headers);
+		assertEquals("[Content-Type:\"text/plain\", X-Custom:\"a\"]", this.map.toString());
+	}
+
+	@Test
+	public void memoizeContentType() {
+		this.headers.setContentType(MediaType.TEXT_PLAIN);
+		MediaType contentType = this.headers.getContentType();
+		assertEquals(MediaType.TEXT_PLAIN, contentType);
+		assertSame(contentType, this.headers.getContentType());
+
+		this.headers.setContentType(MediaType.APPLICATION_JSON);
+		assertEquals(MediaType.APPLICATION_JSON, this.headers.getContentType());
+
+		this.headers.get(HttpHeaders.CONTENT_TYPE).set(0, "text/html");
+		assertEquals(MediaType.TEXT_HTML, this.headers.getContentType());
+
+		this.headers.remove(HttpHeaders.CONTENT_TYPE);
+		assertNull(this.headers.getContentType());
+	}
+
+	@Test
+	public void memoizeContentLengthAcceptAndCacheControl() {
+		assertEquals(-1, this.headers.getContentLength());
+		this.headers.setContentLength(42);
+		assertEquals(42, this.headers.getContentLength());
+		this.headers.add("content-length", "7");
+		assertEquals(42, this.headers.getContentLength());
+		this.headers.setContentLength(7);
+		assertEquals(7, this.headers.getContentLength());
+
+		assertEquals(Collections.emptyList(), this.headers.getAccept());
+		this.headers.add(HttpHeaders.ACCEPT, "text/html, application/json");
+		List<MediaType> accept = this.headers.getAccept();
+		assertEquals(Arrays.asList(MediaType.TEXT_HTML, MediaType.APPLICATION_JSON), accept);
+		accept.clear();
+		assertNotSame(accept, this.headers.getAccept());
+		this.headers.add(HttpHeaders.ACCEPT, "text/plain");
+		assertEquals(3, this.headers.getAccept().size());
+
+		this.headers.add(HttpHeaders.CACHE_CONTROL, "no-cache");
+		this.headers.add(HttpHeaders.CACHE_CONTROL, "no-store");
+		assertEquals("no-cache, no-store", this.headers.getCacheControl());
+		this.headers.setCacheControl(CacheControl.noStore());
+		assertEquals("no-store", this.headers.getCacheControl());
+	}
+
+}
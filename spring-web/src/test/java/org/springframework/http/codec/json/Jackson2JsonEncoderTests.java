@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,20 +20,24 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.AbstractEncoderTestCase;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.Pojo;
 import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
 import org.springframework.util.MimeType;
 
 import static java.util.Collections.singletonMap;
@@ -200,6 +204,46 @@ public class Jackson2JsonEncoderTests extends AbstractEncoderTestCase<Jackson2Js
 				null, hints);
 	}
 
+	@Test
+	public void writerCachedPerJsonView() {
+		AtomicInteger customized = new AtomicInteger();
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder() {
+			@Override
+			protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
+					ResolvableType elementType, @Nullable Map<String, Object> hints) {
+				customized.incrementAndGet();
+				return writer;
+			}
+		};
+		JacksonViewBean bean = new JacksonViewBean();
+		bean.setWithView1("with");
+		bean.setWithoutView("without");
+		ResolvableType type = ResolvableType.forClass(JacksonViewBean.class);
+		Map<String, Object> hints = singletonMap(JSON_VIEW_HINT, MyJacksonView1.class);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals("{\"withView1\":\"with\"}", encodeToString(encoder, bean, type, hints));
+			assertTrue(encodeToString(encoder, bean, type, null).contains("\"withoutView\":\"without\""));
+		}
+		assertEquals(2, customized.get());
+
+		Map<String, Object> otherHints = singletonMap("foo", "bar");
+		encodeToString(encoder, bean, type, otherHints);
+		encodeToString(encoder, bean, type, otherHints);
+		assertEquals(4, customized.get());
+	}
+
+
+	private String encodeToString(Jackson2JsonEncoder encoder, Object value, ResolvableType type,
+			@Nullable Map<String, Object> hints) {
+
+		DataBuffer buffer = encoder.encode(Mono.just(value), this.bufferFactory, type, null, hints).blockFirst();
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
 
 	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 	private static class ParentClass {
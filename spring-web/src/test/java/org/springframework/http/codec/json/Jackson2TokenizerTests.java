@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.http.codec.json;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -179,6 +180,88 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTestCase {
 		testTokenize(asList("[1", ",2,", "3]"), asList("1", "2", "3"), true);
 	}
 
+	@Test
+	public void tokenizeWithMaxInMemorySize() {
+		Flux<DataBuffer> source = Flux.just(
+				stringBuffer("[{\"id\":1},"), stringBuffer("{\"id\":2,\"name\":\"Robert\"}]"));
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 16);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(1)
+				.expectError(DecodingException.class)
+				.verify();
+
+		source = Flux.just(stringBuffer("[{\"id\":1},"), stringBuffer("{\"id\":2,\"name\":\"Robert\"}]"));
+		tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 32);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(2)
+				.verifyComplete();
+	}
+
+	@Test
+	public void incompleteValueExceedsMaxInMemorySize() {
+		Flux<DataBuffer> source = Flux.just(stringBuffer("{\"id\":1,\"name\":\"Robert"));
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, false, 16);
+
+		StepVerifier.create(tokens)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void valueSpanningSeveralBuffersWithMaxInMemorySize() {
+		Flux<DataBuffer> source = Flux.just("[{\"id\":1,", "\"name\":", "\"Robert\"}", ",{\"id\":2}]")
+				.map(this::stringBuffer);
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 32);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(2)
+				.verifyComplete();
+
+		source = Flux.just("[{\"id\":1,", "\"name\":", "\"Robert\"}", ",{\"id\":2}]")
+				.map(this::stringBuffer);
+		tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 16);
+
+		StepVerifier.create(tokens)
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void incompleteValueSpanningSeveralBuffersExceedsMaxInMemorySize() {
+		// Fail while the string is still incomplete, rather than waiting for its end
+		Flux<DataBuffer> source = Flux.just("[\"abcdefgh", "ijklmnopqr", "stuvwxyz")
+				.map(this::stringBuffer)
+				.concatWith(Flux.never());
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 16);
+
+		StepVerifier.create(tokens)
+				.expectError(DecodingException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void smallValuesExceedingMaxInMemorySizeInTotal() {
+		Flux<DataBuffer> source = Flux.range(0, 100)
+				.map(i -> (i == 0 ? "[" : ",   ") + "{\"id\":" + i + "}" + (i == 99 ? "]" : ""))
+				.map(this::stringBuffer);
+		Flux<TokenBuffer> tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, true, 16);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(100)
+				.verifyComplete();
+
+		source = Flux.range(0, 100)
+				.map(i -> "{\"id\":" + i + "}      ")
+				.map(this::stringBuffer);
+		tokens = Jackson2Tokenizer.tokenize(source, this.jsonFactory, false, 16);
+
+		StepVerifier.create(tokens)
+				.expectNextCount(100)
+				.verifyComplete();
+	}
+
 	@Test
 	public void errorInStream() {
 		DataBuffer buffer = stringBuffer("{\"id\":1,\"name\":");
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.test.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.test.MockServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+import static org.springframework.core.ResolvableType.*;
+import static org.springframework.http.HttpHeaders.*;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class DefaultPartHttpMessageReaderTests {
+
+	private final DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+
+	private final MultipartHttpMessageReader reader = new MultipartHttpMessageReader(this.partReader);
+
+	private final ResolvableType elementType = forClassWithGenerics(MultiValueMap.class, String.class, Part.class);
+
+
+	@Test
+	public void canRead() {
+		assertTrue(this.partReader.canRead(forClass(Part.class), MediaType.MULTIPART_FORM_DATA));
+		assertTrue(this.partReader.canRead(forClass(Part.class), null));
+		assertFalse(this.partReader.canRead(forClass(Part.class), MediaType.APPLICATION_FORM_URLENCODED));
+		assertFalse(this.partReader.canRead(forClass(Object.class), MediaType.MULTIPART_FORM_DATA));
+	}
+
+	@Test
+	public void resolveParts() {
+		MultiValueMap<String, Part> parts = this.reader.readMono(
+				this.elementType, generateMultipartRequest(Integer.MAX_VALUE), emptyMap()).block();
+		assertEquals(2, parts.size());
+
+		Part part = parts.getFirst("fooPart");
+		assertTrue(part instanceof FilePart);
+		assertEquals("fooPart", part.name());
+		assertEquals("foo.txt", ((FilePart) part).filename());
+		assertEquals("Lorem Ipsum.", toString(part.content()));
+
+		part = parts.getFirst("barPart");
+		assertTrue(part instanceof FormFieldPart);
+		assertEquals("barPart", part.name());
+		assertEquals("bar", ((FormFieldPart) part).value());
+	}
+
+	@Test
+	public void resolvePartsFromSmallBuffers() {
+		for (int chunkSize = 1; chunkSize < 64; chunkSize += 7) {
+			MultiValueMap<String, Part> parts = this.reader.readMono(
+					this.elementType, generateMultipartRequest(chunkSize), emptyMap()).block();
+			assertEquals("Lorem Ipsum.", toString(parts.getFirst("fooPart").content()));
+			assertEquals("bar", ((FormFieldPart) parts.getFirst("barPart")).value());
+		}
+	}
+
+	@Test
+	public void resolvePartsBeyondInMemorySize() throws Exception {
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setFileStorageDirectory(Files.createTempDirectory("DefaultPartHttpMessageReaderTests"));
+
+		MultiValueMap<String, Part> parts = this.reader.readMono(
+				this.elementType, generateMultipartRequest(3), emptyMap()).block();
+		assertEquals("Lorem Ipsum.", toString(parts.getFirst("fooPart").content()));
+		assertEquals("bar", ((FormFieldPart) parts.getFirst("barPart")).value());
+	}
+
+	@Test
+	public void blockingOperationsOnScheduler() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicInteger scheduled = new AtomicInteger();
+		this.partReader.setBlockingOperationScheduler(Schedulers.fromExecutor(task -> {
+			scheduled.incrementAndGet();
+			executor.execute(task);
+		}));
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setFileStorageDirectory(Files.createTempDirectory("DefaultPartHttpMessageReaderTests"));
+		try {
+			MultiValueMap<String, Part> parts = this.reader.readMono(
+					this.elementType, generateMultipartRequest(3), emptyMap()).block();
+			int writes = scheduled.get();
+			assertTrue(writes > 0);
+			assertEquals("Lorem Ipsum.", toString(parts.getFirst("fooPart").content()));
+			assertTrue(scheduled.get() > writes);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void formFieldBeyondInMemorySize() {
+		this.partReader.setMaxInMemorySize(2);
+		StepVerifier.create(this.reader.readMono(this.elementType, generateMultipartRequest(8), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void partBeyondMaxDiskUsage() {
+		this.partReader.setMaxDiskUsagePerPart(10);
+		StepVerifier.create(this.reader.readMono(this.elementType, generateMultipartRequest(8), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void requestBeyondMaxDiskUsage() throws Exception {
+		Path directory = Files.createTempDirectory("DefaultPartHttpMessageReaderTests");
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setMaxDiskUsagePerRequest(20);
+		this.partReader.setFileStorageDirectory(directory);
+
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		StepVerifier.create(this.reader.readMono(this.elementType, generateMultipartRequest(partsBuilder, 4), emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+		assertEquals(0, awaitFiles(directory, 0));
+	}
+
+	@Test
+	public void contentConsumedOnce() throws Exception {
+		for (int maxInMemorySize : new int[] {5, 256}) {
+			this.partReader.setMaxInMemorySize(maxInMemorySize);
+			this.partReader.setFileStorageDirectory(Files.createTempDirectory("DefaultPartHttpMessageReaderTests"));
+			MultiValueMap<String, Part> parts = this.reader.readMono(
+					this.elementType, generateMultipartRequest(8), emptyMap()).block();
+			FilePart part = (FilePart) parts.getFirst("fooPart");
+
+			assertEquals("Lorem Ipsum.", toString(part.content()));
+			StepVerifier.create(part.content())
+					.expectError(IllegalStateException.class)
+					.verify();
+			File dest = File.createTempFile("DefaultPartHttpMessageReaderTests", ".txt");
+			StepVerifier.create(part.transferTo(dest))
+					.expectError(IllegalStateException.class)
+					.verify();
+			assertTrue(dest.delete());
+		}
+	}
+
+	@Test
+	public void unreadPartDeleted() throws Exception {
+		Path directory = Files.createTempDirectory("DefaultPartHttpMessageReaderTests");
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setFileStorageDirectory(directory);
+
+		MultiValueMap<String, Part> parts = this.reader.readMono(
+				this.elementType, generateMultipartRequest(8), emptyMap()).block();
+		assertEquals(1, awaitFiles(directory, 1));
+
+		Part part = parts.getFirst("fooPart");
+		part.delete().block(Duration.ofSeconds(5));
+		assertEquals(0, awaitFiles(directory, 0));
+		StepVerifier.create(part.content())
+				.expectError(IllegalStateException.class)
+				.verify();
+	}
+
+	@Test
+	public void cancelWhilePartInProgress() throws Exception {
+		Path directory = Files.createTempDirectory("DefaultPartHttpMessageReaderTests");
+		this.partReader.setMaxInMemorySize(5);
+		this.partReader.setFileStorageDirectory(directory);
+
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("bazPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		ServerHttpRequest request = generateMultipartRequest(partsBuilder, 3);
+		String boundary = request.getHeaders().getContentType().getParameter("boundary");
+		ServerHttpRequest truncated = MockServerHttpRequest.post("/")
+				.contentType(request.getHeaders().getContentType())
+				.body(DataBufferUtils.join(request.getBody())
+						.map(body -> body.slice(0, body.readableByteCount() - boundary.length() - 8))
+						.concatWith(Flux.never()));
+
+		AtomicReference<Part> first = new AtomicReference<>();
+		StepVerifier.create(this.partReader.read(forClass(Part.class), truncated, emptyMap()))
+				.consumeNextWith(first::set)
+				.then(() -> assertEquals(2, awaitFiles(directory, 2)))
+				.thenCancel()
+				.verify();
+		assertEquals("fooPart", first.get().name());
+		assertEquals(1, awaitFiles(directory, 1));
+
+		first.get().delete().block(Duration.ofSeconds(5));
+		assertEquals(0, awaitFiles(directory, 0));
+	}
+
+	@Test
+	public void transferTo() throws Exception {
+		for (int maxInMemorySize : new int[] {5, 256}) {
+			this.partReader.setMaxInMemorySize(maxInMemorySize);
+			MultiValueMap<String, Part> parts = this.reader.readMono(
+					this.elementType, generateMultipartRequest(8), emptyMap()).block();
+			FilePart part = (FilePart) parts.getFirst("fooPart");
+			assertNotNull(part);
+
+			File dest = File.createTempFile("DefaultPartHttpMessageReaderTests", ".txt");
+			part.transferTo(dest).block(Duration.ofSeconds(5));
+			assertEquals("Lorem Ipsum.", new String(Files.readAllBytes(dest.toPath()), StandardCharsets.UTF_8));
+			assertTrue(dest.delete());
+		}
+	}
+
+	@Test
+	public void binaryPartContent() {
+		byte[] content = "\r\n--\r\n-".getBytes(StandardCharsets.UTF_8);
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("data", new ByteArrayResource(content) {
+			@Override
+			public String getFilename() {
+				return "data.bin";
+			}
+		});
+
+		MultiValueMap<String, Part> parts = this.reader.readMono(
+				this.elementType, generateMultipartRequest(partsBuilder, 1), emptyMap()).block();
+		assertEquals("\r\n--\r\n-", toString(parts.getFirst("data").content()));
+	}
+
+	@Test
+	public void noBoundary() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header(CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA_VALUE)
+				.body(Flux.just(new DefaultDataBufferFactory().wrap("invalid content".getBytes())));
+		StepVerifier.create(this.reader.readMono(this.elementType, request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@Test
+	public void noEndBoundary() {
+		ServerHttpRequest request = MockServerHttpRequest.post("/")
+				.header(CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA_VALUE + ";boundary=abc")
+				.body(Flux.just(new DefaultDataBufferFactory().wrap(
+						"--abc\r\nContent-Disposition: form-data; name=\"foo\"\r\n\r\nbar".getBytes())));
+		StepVerifier.create(this.reader.readMono(this.elementType, request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+
+	private ServerHttpRequest generateMultipartRequest(int chunkSize) {
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("fooPart", new ClassPathResource("org/springframework/http/codec/multipart/foo.txt"));
+		partsBuilder.part("barPart", "bar");
+		return generateMultipartRequest(partsBuilder, chunkSize);
+	}
+
+	private ServerHttpRequest generateMultipartRequest(MultipartBodyBuilder partsBuilder, int chunkSize) {
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		new MultipartHttpMessageWriter()
+				.write(Mono.just(partsBuilder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+
+		DataBuffer body = DataBufferUtils.join(outputMessage.getBody()).block();
+		byte[] bytes = new byte[body.readableByteCount()];
+		body.read(bytes);
+		DataBufferUtils.release(body);
+
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		List<DataBuffer> chunks = new ArrayList<>();
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			int length = Math.min(chunkSize, bytes.length - offset);
+			DataBuffer chunk = bufferFactory.allocateBuffer(length);
+			chunk.write(bytes, offset, length);
+			chunks.add(chunk);
+		}
+
+		return MockServerHttpRequest.post("/")
+				.contentType(outputMessage.getHeaders().getContentType())
+				.body(Flux.fromIterable(chunks));
+	}
+
+	private static long countFiles(Path directory) throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static long awaitFiles(Path directory, long count) {
+		try {
+			for (int i = 0; i < 500 && countFiles(directory) != count; i++) {
+				Thread.sleep(10);
+			}
+			return countFiles(directory);
+		}
+		catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String toString(Flux<DataBuffer> content) {
+		DataBuffer buffer = DataBufferUtils.join(content).block();
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
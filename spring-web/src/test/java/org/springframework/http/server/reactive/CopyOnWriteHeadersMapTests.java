@@ -0,0 +1,233 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server.reactive;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link CopyOnWriteHeadersMap}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class CopyOnWriteHeadersMapTests {
+
+	private final MultiValueMap<String, String> nativeHeaders =
+			CollectionUtils.toMultiValueMap(new LinkedCaseInsensitiveMap<>());
+
+	private final TrackingMap trackingMap = new TrackingMap(this.nativeHeaders);
+
+	private final CopyOnWriteHeadersMap headers = new CopyOnWriteHeadersMap(this.trackingMap);
+
+
+	@Test
+	public void readThroughAndWriteWithoutCopying() {
+		this.nativeHeaders.add("Accept", "text/plain");
+		this.nativeHeaders.add("X-Forwarded-For", "a");
+
+		assertEquals("text/plain", this.headers.getFirst("accept"));
+		assertTrue(this.headers.containsKey("X-Forwarded-For"));
+
+		this.headers.add("x-forwarded-for", "b");
+		this.headers.set("X-Request-Id", "1");
+		this.headers.remove("Accept");
+
+		assertEquals(Arrays.asList("a", "b"), this.headers.get("X-Forwarded-For"));
+		assertEquals("1", this.headers.getFirst("x-request-id"));
+		assertNull(this.headers.get("Accept"));
+		assertFalse(this.headers.containsKey("accept"));
+		assertEquals(2, this.headers.size());
+
+		assertEquals(Collections.singletonList("text/plain"), this.nativeHeaders.get("Accept"));
+		assertEquals(Collections.singletonList("a"), this.nativeHeaders.get("X-Forwarded-For"));
+		assertFalse(this.nativeHeaders.containsKey("X-Request-Id"));
+		assertEquals("Native headers must not be copied", 0, this.trackingMap.iterations);
+	}
+
+	@Test
+	public void modifyValuesOfNativeHeader() {
+		this.nativeHeaders.add("X-Custom", "a");
+
+		List<String> values = this.headers.get("X-Custom");
+		values.add("b");
+
+		assertEquals(Arrays.asList("a", "b"), values);
+		assertEquals(Arrays.asList("a", "b"), this.headers.get("X-Custom"));
+		assertEquals(Collections.singletonList("a"), this.nativeHeaders.get("X-Custom"));
+		assertEquals("Native headers must not be copied", 0, this.trackingMap.iterations);
+	}
+
+	@Test
+	public void removeAndAddAgain() {
+		this.nativeHeaders.add("X-Custom", "a");
+
+		assertEquals(Collections.singletonList("a"), this.headers.remove("X-Custom"));
+		this.headers.add("X-Custom", "b");
+
+		assertEquals(Collections.singletonList("b"), this.headers.get("X-Custom"));
+		assertEquals(1, this.headers.size());
+	}
+
+	@Test
+	public void iterateInOrder() {
+		this.nativeHeaders.add("A", "1");
+		this.nativeHeaders.add("B", "2");
+		this.nativeHeaders.add("C", "3");
+		this.headers.set("b", "two");
+		this.headers.remove("C");
+		this.headers.add("D", "4");
+
+		MultiValueMap<String, String> expected = new LinkedMultiValueMap<>();
+		expected.add("A", "1");
+		expected.add("B", "two");
+		expected.add("D", "4");
+		assertEquals(expected.toSingleValueMap(), new HttpHeaders(this.headers).toSingleValueMap());
+		assertEquals(expected, this.headers);
+
+		for (Iterator<Map.Entry<String, List<String>>> it = this.headers.entrySet().iterator(); it.hasNext();) {
+			String key = it.next().getKey();
+			if (key.equals("A") || key.equals("D")) {
+				it.remove();
+			}
+		}
+		assertEquals(Collections.singleton("B"), this.headers.keySet());
+		assertEquals(3, this.nativeHeaders.size());
+	}
+
+	@Test
+	public void removeThroughIteratorAfterHasNext() {
+		this.nativeHeaders.add("A", "1");
+		this.nativeHeaders.add("B", "2");
+		this.headers.add("C", "3");
+		this.headers.add("D", "4");
+		this.headers.add("E", "5");
+
+		Iterator<Map.Entry<String, List<String>>> it = this.headers.entrySet().iterator();
+		assertEquals("A", it.next().getKey());
+		assertTrue(it.hasNext());
+		it.remove();
+		assertEquals("B", it.next().getKey());
+		assertEquals("C", it.next().getKey());
+		assertTrue(it.hasNext());
+		it.remove();
+		assertEquals("D", it.next().getKey());
+		it.remove();
+		assertEquals("E", it.next().getKey());
+		assertFalse(it.hasNext());
+
+		assertEquals(new LinkedHashSet<>(Arrays.asList("B", "E")), this.headers.keySet());
+		assertEquals(2, this.nativeHeaders.size());
+	}
+
+	@Test
+	public void clear() {
+		this.nativeHeaders.add("A", "1");
+		this.headers.add("B", "2");
+		this.headers.clear();
+
+		assertTrue(this.headers.isEmpty());
+		assertNull(this.headers.get("A"));
+		assertEquals(1, this.nativeHeaders.size());
+	}
+
+
+	/**
+	 * Read-only map that counts the operations that would copy all headers.
+	 */
+	private static class TrackingMap extends LinkedMultiValueMap<String, String> {
+
+		private final MultiValueMap<String, String> delegate;
+
+		int iterations;
+
+		TrackingMap(MultiValueMap<String, String> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public String getFirst(String key) {
+			return this.delegate.getFirst(key);
+		}
+
+		@Override
+		public List<String> get(Object key) {
+			List<String> values = this.delegate.get(key);
+			return (values != null ? Collections.unmodifiableList(values) : null);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return this.delegate.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return this.delegate.size();
+		}
+
+		@Override
+		public Set<String> keySet() {
+			this.iterations++;
+			return Collections.unmodifiableSet(this.delegate.keySet());
+		}
+
+		@Override
+		public Set<Map.Entry<String, List<String>>> entrySet() {
+			this.iterations++;
+			return Collections.unmodifiableSet(this.delegate.entrySet());
+		}
+
+		@Override
+		public void add(String key, String value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void set(String key, String value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<String> put(String key, List<String> value) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<String> remove(Object key) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
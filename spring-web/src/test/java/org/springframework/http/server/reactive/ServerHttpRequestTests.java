@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -109,6 +109,24 @@ public class ServerHttpRequestTests {
 		assertEquals("/app", request.getPath().contextPath().value());
 	}
 
+	@Test
+	public void mutateHeaders() throws Exception {
+		MockHttpServletRequest servletRequest = new TestHttpServletRequest(URI.create("/path"));
+		servletRequest.addHeader("X-Forwarded-For", "a");
+		servletRequest.addHeader("Accept", "text/plain");
+		ServerHttpRequest original = createHttpRequest(servletRequest);
+
+		ServerHttpRequest request = original.mutate()
+				.header("X-Forwarded-For", "b")
+				.headers(headers -> headers.remove("Accept"))
+				.build();
+
+		assertEquals(Arrays.asList("a", "b"), request.getHeaders().get("X-Forwarded-For"));
+		assertNull(request.getHeaders().get("Accept"));
+		assertEquals(Collections.singletonList("a"), original.getHeaders().get("X-Forwarded-For"));
+		assertEquals(Collections.singletonList("text/plain"), original.getHeaders().get("Accept"));
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void mutateWithInvalidPath() throws Exception {
 		createHttpRequest("/").mutate().path("foo-bar");
@@ -124,8 +142,10 @@ public class ServerHttpRequestTests {
 	}
 
 	private ServerHttpRequest createHttpRequest(String uriString) throws Exception {
-		URI uri = URI.create(uriString);
-		MockHttpServletRequest request = new TestHttpServletRequest(uri);
+		return createHttpRequest(new TestHttpServletRequest(URI.create(uriString)));
+	}
+
+	private ServerHttpRequest createHttpRequest(MockHttpServletRequest request) throws Exception {
 		AsyncContext asyncContext = new MockAsyncContext(request, new MockHttpServletResponse());
 		return new ServletServerHttpRequest(request, asyncContext, "", new DefaultDataBufferFactory(), 1024);
 	}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.springframework.http.server.PathContainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link PathPatternSet}.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ */
+public class PathPatternSetTests {
+
+	private final PathPatternParser parser = new PathPatternParser();
+
+	private final PathPatternSet<String> set = new PathPatternSet<>();
+
+
+	@Test
+	public void matchLiteralPatterns() {
+		add("/foo", "/foo/bar", "/foo/bar/baz", "/");
+
+		assertBestMatch("/foo", "/foo");
+		assertBestMatch("/foo/bar", "/foo/bar");
+		assertBestMatch("/foo/bar", "/foo/bar/");
+		assertBestMatch("/", "/");
+		assertNull(this.set.match(path("/foo/baz")));
+		assertNull(this.set.match(path("/foo//bar")));
+		assertNull(this.set.match(path("")));
+	}
+
+	@Test
+	public void matchMostSpecificPattern() {
+		add("/foo/**", "/foo/{id}", "/foo/bar", "/foo/*", "/**");
+
+		assertBestMatch("/foo/bar", "/foo/bar");
+		assertBestMatch("/foo/{id}", "/foo/baz");
+		assertBestMatch("/foo/**", "/foo/bar/baz");
+		assertBestMatch("/foo/**", "/foo");
+		assertBestMatch("/**", "/bar");
+		assertEquals(Arrays.asList("/foo/bar", "/foo/{id}", "/foo/*", "/foo/**", "/**"), matchAll("/foo/bar"));
+	}
+
+	@Test
+	public void matchInRegistrationOrderForSamePattern() {
+		PathPattern pattern = this.parser.parse("/foo/{id}");
+		this.set.add(pattern, "first");
+		this.set.add(pattern, "second");
+
+		assertEquals("first", this.set.match(path("/foo/1")).getValue());
+		assertEquals(2, this.set.matchAll(path("/foo/1")).size());
+
+		assertTrue(this.set.remove(pattern, "first"));
+		assertEquals("second", this.set.match(path("/foo/1")).getValue());
+		assertEquals(1, this.set.size());
+	}
+
+	@Test
+	public void extractUriVariables() {
+		add("/hotels/{hotel}/bookings/{booking}", "/hotels/{hotel}/{*rest}", "/files/{name:[a-z]+}.txt");
+
+		PathPatternSet.Match<String> match = this.set.match(path("/hotels/h%201/bookings/b1;x=1;y=2"));
+		assertNotNull(match);
+		assertEquals("/hotels/{hotel}/bookings/{booking}", match.getValue());
+		assertEquals("h 1", match.getUriVariables().get("hotel"));
+		assertEquals("b1", match.getUriVariables().get("booking"));
+		assertEquals(Arrays.asList("1"), match.getPathMatchInfo().getMatrixVariables().get("booking").get("x"));
+
+		match = this.set.match(path("/hotels/h1/info/more"));
+		assertEquals("/hotels/{hotel}/{*rest}", match.getValue());
+		assertEquals("h1", match.getUriVariables().get("hotel"));
+		assertEquals("/info/more", match.getUriVariables().get("rest"));
+
+		match = this.set.match(path("/files/readme.txt"));
+		assertEquals(Collections.singletonMap("name", "readme"), match.getUriVariables());
+		assertNull(this.set.match(path("/files/README.txt")));
+	}
+
+	@Test
+	public void matchCaseInsensitive() {
+		this.parser.setCaseSensitive(false);
+		add("/Foo/{id}", "/foo/bar");
+
+		assertBestMatch("/foo/bar", "/FOO/Bar");
+		assertBestMatch("/Foo/{id}", "/fOO/baz");
+	}
+
+	@Test
+	public void matchWithoutOptionalTrailingSeparator() {
+		this.parser.setMatchOptionalTrailingSeparator(false);
+		add("/foo", "/bar/");
+
+		assertBestMatch("/foo", "/foo");
+		assertNull(this.set.match(path("/foo/")));
+		assertBestMatch("/bar/", "/bar/");
+		assertNull(this.set.match(path("/bar")));
+	}
+
+	@Test
+	public void removePatterns() {
+		add("/foo/bar", "/foo/{id}");
+		assertEquals(2, this.set.size());
+
+		assertFalse(this.set.remove(this.parser.parse("/foo/baz"), "/foo/baz"));
+		assertTrue(this.set.remove(this.parser.parse("/foo/bar"), "/foo/bar"));
+		assertBestMatch("/foo/{id}", "/foo/bar");
+
+		assertTrue(this.set.remove(this.parser.parse("/foo/{id}"), "/foo/{id}"));
+		assertNull(this.set.match(path("/foo/bar")));
+		assertTrue(this.set.isEmpty());
+	}
+
+	@Test
+	public void matchPrefixes() {
+		this.set.addPrefix(this.parser.parse("/foo"), "/foo");
+		this.set.addPrefix(this.parser.parse("/foo/{id}"), "/foo/{id}");
+		this.set.add(this.parser.parse("/foo/bar"), "/foo/bar");
+
+		assertEquals(Arrays.asList("/foo/bar", "/foo", "/foo/{id}"), matchAll("/foo/bar"));
+		assertEquals(Arrays.asList("/foo", "/foo/{id}"), matchAll("/foo/bar/baz"));
+		assertEquals(Arrays.asList("/foo"), matchAll("/foo"));
+		assertNull(this.set.match(path("/foobar")));
+
+		PathPatternSet.Match<String> match = this.set.matchAll(path("/foo/1/bar")).get(1);
+		assertEquals("/foo/{id}", match.getValue());
+		assertEquals("1", match.getUriVariables().get("id"));
+	}
+
+	@Test
+	public void matchEquivalentToPathPatterns() {
+		String[] segments = {"a", "b", "{x#}", "{y#}", "*", "{z#:[ab]}", "a*", "**", "{*rest#}", ""};
+		String[] pathSegments = {"a", "b", "A", "c", "", "a;m=1", "%61"};
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++) {
+			PathPatternSet<Integer> set = new PathPatternSet<>();
+			List<PathPattern> patterns = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				StringBuilder builder = new StringBuilder();
+				for (int j = random.nextInt(4); j > 0; j--) {
+					String segment = segments[random.nextInt(segments.length)].replace("#", String.valueOf(j));
+					builder.append('/').append(segment);
+					if (segment.startsWith("**") || segment.startsWith("{*")) {
+						break;
+					}
+				}
+				PathPattern pattern = this.parser.parse(builder.toString());
+				patterns.add(pattern);
+				set.add(pattern, i);
+			}
+			for (int i = 0; i < 20; i++) {
+				StringBuilder builder = new StringBuilder();
+				for (int j = random.nextInt(4); j > 0; j--) {
+					builder.append('/').append(pathSegments[random.nextInt(pathSegments.length)]);
+				}
+				PathContainer path = path(builder.toString());
+				List<PathPattern> expected = new ArrayList<>();
+				for (PathPattern pattern : patterns) {
+					if (pattern.matches(path)) {
+						expected.add(pattern);
+					}
+				}
+				expected.sort(null);
+				List<PathPatternSet.Match<Integer>> matches = set.matchAll(path);
+				assertEquals(expected.size(), matches.size());
+				for (int j = 0; j < matches.size(); j++) {
+					PathPatternSet.Match<Integer> match = matches.get(j);
+					assertEquals(0, expected.get(j).compareTo(match.getPattern()));
+					assertEquals(match.getPattern().matchAndExtract(path).getUriVariables(), match.getUriVariables());
+				}
+				PathPatternSet.Match<Integer> best = set.match(path);
+				if (matches.isEmpty()) {
+					assertNull(best);
+				}
+				else {
+					assertSame(matches.get(0).getPattern(), best.getPattern());
+				}
+			}
+		}
+	}
+
+
+	private void add(String... patterns) {
+		for (String pattern : patterns) {
+			this.set.add(this.parser.parse(pattern), pattern);
+		}
+	}
+
+	private void assertBestMatch(String expectedPattern, String path) {
+		PathPatternSet.Match<String> match = this.set.match(path(path));
+		assertNotNull("No match for " + path, match);
+		assertEquals(expectedPattern, match.getValue());
+	}
+
+	private List<String> matchAll(String path) {
+		List<String> result = new ArrayList<>();
+		for (PathPatternSet.Match<String> match : this.set.matchAll(path(path))) {
+			result.add(match.getValue());
+		}
+		return result;
+	}
+
+	private static PathContainer path(String path) {
+		return PathContainer.parsePath(path);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,15 @@
 
 package org.springframework.web.reactive.accept;
 
+import java.util.Collections;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.NotAcceptableStatusException;
 import org.springframework.web.server.ServerWebExchange;
 
@@ -32,10 +36,24 @@ import org.springframework.web.server.ServerWebExchange;
  */
 public class HeaderContentTypeResolver implements RequestedContentTypeResolver {
 
+	private final ConcurrentLruCache<String, List<MediaType>> cachedMediaTypes =
+			new ConcurrentLruCache<>(64, HeaderContentTypeResolver::parseAndSortMediaTypes);
+
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The sorted media types for a single 'Accept' header value are cached
+	 * per distinct value and returned as an unmodifiable list.
+	 */
 	@Override
 	public List<MediaType> resolveMediaTypes(ServerWebExchange exchange) throws NotAcceptableStatusException {
 		try {
-			List<MediaType> mediaTypes = exchange.getRequest().getHeaders().getAccept();
+			HttpHeaders headers = exchange.getRequest().getHeaders();
+			List<String> values = headers.get(HttpHeaders.ACCEPT);
+			if (values != null && values.size() == 1 && StringUtils.hasLength(values.get(0))) {
+				return this.cachedMediaTypes.get(values.get(0));
+			}
+			List<MediaType> mediaTypes = headers.getAccept();
 			MediaType.sortBySpecificityAndQuality(mediaTypes);
 			return (!CollectionUtils.isEmpty(mediaTypes) ? mediaTypes : MEDIA_TYPE_ALL_LIST);
 		}
@@ -46,4 +64,10 @@ public class HeaderContentTypeResolver implements RequestedContentTypeResolver {
 		}
 	}
 
+	private static List<MediaType> parseAndSortMediaTypes(String value) {
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(value);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		return (!CollectionUtils.isEmpty(mediaTypes) ? Collections.unmodifiableList(mediaTypes) : MEDIA_TYPE_ALL_LIST);
+	}
+
 }
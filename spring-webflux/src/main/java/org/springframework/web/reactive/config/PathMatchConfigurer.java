@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,9 @@ public class PathMatchConfigurer {
 	@Nullable
 	private Map<String, Predicate<Class<?>>> pathPrefixes;
 
+	@Nullable
+	private Boolean indexedLookup;
+
 
 	/**
 	 * Whether to match to URLs irrespective of their case.
@@ -81,6 +84,23 @@ public class PathMatchConfigurer {
 		return this;
 	}
 
+	/**
+	 * Whether to look up request mappings through a
+	 * {@link org.springframework.web.util.pattern.PathPatternSet} with the
+	 * patterns of all mappings, evaluating only the mappings with a pattern
+	 * that matches the request path instead of all registered mappings.
+	 * This also applies to router functions, which are then
+	 * {@link org.springframework.web.reactive.function.server.RouterFunctions#compile compiled}.
+	 * <p>The default value is {@code false}.
+	 * @since 5.2
+	 * @see org.springframework.web.reactive.result.method.AbstractHandlerMethodMapping#setIndexedLookup
+	 * @see org.springframework.web.reactive.function.server.support.RouterFunctionMapping#setIndexedLookup
+	 */
+	public PathMatchConfigurer setUseIndexedLookup(Boolean indexedLookup) {
+		this.indexedLookup = indexedLookup;
+		return this;
+	}
+
 
 	@Nullable
 	protected Boolean isUseTrailingSlashMatch() {
@@ -96,4 +116,9 @@ public class PathMatchConfigurer {
 	protected Map<String, Predicate<Class<?>>> getPathPrefixes() {
 		return this.pathPrefixes;
 	}
+
+	@Nullable
+	protected Boolean isUseIndexedLookup() {
+		return this.indexedLookup;
+	}
 }
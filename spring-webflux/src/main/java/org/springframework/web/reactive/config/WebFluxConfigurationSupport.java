@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -140,6 +140,10 @@ public class WebFluxConfigurationSupport implements ApplicationContextAware {
 		if (pathPrefixes != null) {
 			mapping.setPathPrefixes(pathPrefixes);
 		}
+		Boolean useIndexedLookup = configurer.isUseIndexedLookup();
+		if (useIndexedLookup != null) {
+			mapping.setIndexedLookup(useIndexedLookup);
+		}
 
 		return mapping;
 	}
@@ -209,6 +213,11 @@ public class WebFluxConfigurationSupport implements ApplicationContextAware {
 		mapping.setMessageReaders(serverCodecConfigurer().getReaders());
 		mapping.setCorsConfigurations(getCorsConfigurations());
 
+		Boolean useIndexedLookup = getPathMatchConfigurer().isUseIndexedLookup();
+		if (useIndexedLookup != null) {
+			mapping.setIndexedLookup(useIndexedLookup);
+		}
+
 		return mapping;
 	}
 
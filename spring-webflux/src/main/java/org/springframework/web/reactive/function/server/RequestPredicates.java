@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -287,6 +287,110 @@ public abstract class RequestPredicates {
 	}
 
 
+	/**
+	 * Determine the HTTP methods that a request needs to have in order to match
+	 * the given predicate, through either {@link RequestPredicate#test} or
+	 * {@link RequestPredicate#nest}.
+	 * <p>This is a necessary condition only: a request with one of the returned
+	 * methods does not necessarily match the predicate.
+	 * @param predicate the predicate to analyze
+	 * @return the required HTTP methods, or {@code null} if a request with any
+	 * method may match
+	 * @since 5.2
+	 */
+	@Nullable
+	static Set<HttpMethod> requiredMethods(RequestPredicate predicate) {
+		if (predicate instanceof HttpMethodPredicate) {
+			return ((HttpMethodPredicate) predicate).httpMethods;
+		}
+		else if (predicate instanceof AndRequestPredicate) {
+			AndRequestPredicate and = (AndRequestPredicate) predicate;
+			Set<HttpMethod> left = requiredMethods(and.left);
+			Set<HttpMethod> right = requiredMethods(and.right);
+			if (left == null || right == null) {
+				return (left != null ? left : right);
+			}
+			Set<HttpMethod> result = EnumSet.noneOf(HttpMethod.class);
+			result.addAll(left);
+			result.retainAll(right);
+			return result;
+		}
+		else if (predicate instanceof OrRequestPredicate) {
+			OrRequestPredicate or = (OrRequestPredicate) predicate;
+			Set<HttpMethod> left = requiredMethods(or.left);
+			Set<HttpMethod> right = requiredMethods(or.right);
+			if (left == null || right == null) {
+				return null;
+			}
+			Set<HttpMethod> result = EnumSet.noneOf(HttpMethod.class);
+			result.addAll(left);
+			result.addAll(right);
+			return result;
+		}
+		return null;
+	}
+
+	/**
+	 * Determine the path patterns of which a request path needs to match one
+	 * in order to match the given predicate: through {@link PathPattern#matches}
+	 * for {@link RequestPredicate#test}, or through {@link PathPattern#matchStartOfPath}
+	 * for {@link RequestPredicate#nest}.
+	 * <p>This is a necessary condition only: a request with a path that matches
+	 * one of the returned patterns does not necessarily match the predicate.
+	 * @param predicate the predicate to analyze
+	 * @param nest whether to analyze {@link RequestPredicate#nest} rather than
+	 * {@link RequestPredicate#test}
+	 * @return the required path patterns, or {@code null} if a request with any
+	 * path may match
+	 * @since 5.2
+	 */
+	@Nullable
+	static List<PathPattern> requiredPathPatterns(RequestPredicate predicate, boolean nest) {
+		if (predicate instanceof PathPatternPredicate) {
+			return Collections.singletonList(((PathPatternPredicate) predicate).pattern);
+		}
+		else if (predicate instanceof AndRequestPredicate) {
+			AndRequestPredicate and = (AndRequestPredicate) predicate;
+			List<PathPattern> left = requiredPathPatterns(and.left, nest);
+			// When nesting, the right-hand side sees the remaining path after the left-hand side
+			if (left != null || (nest && !isPathPreserving(and.left))) {
+				return left;
+			}
+			return requiredPathPatterns(and.right, nest);
+		}
+		else if (predicate instanceof OrRequestPredicate) {
+			OrRequestPredicate or = (OrRequestPredicate) predicate;
+			List<PathPattern> left = requiredPathPatterns(or.left, nest);
+			List<PathPattern> right = requiredPathPatterns(or.right, nest);
+			if (left == null || right == null) {
+				return null;
+			}
+			List<PathPattern> result = new ArrayList<>(left.size() + right.size());
+			result.addAll(left);
+			result.addAll(right);
+			return result;
+		}
+		return null;
+	}
+
+	/**
+	 * Whether the given predicate is known to {@link RequestPredicate#nest nest}
+	 * a request without changing its path.
+	 */
+	private static boolean isPathPreserving(RequestPredicate predicate) {
+		if (predicate instanceof AndRequestPredicate) {
+			AndRequestPredicate and = (AndRequestPredicate) predicate;
+			return (isPathPreserving(and.left) && isPathPreserving(and.right));
+		}
+		else if (predicate instanceof OrRequestPredicate) {
+			OrRequestPredicate or = (OrRequestPredicate) predicate;
+			return (isPathPreserving(or.left) && isPathPreserving(or.right));
+		}
+		return (predicate instanceof HttpMethodPredicate || predicate instanceof HeadersPredicate ||
+				predicate instanceof PathExtensionPredicate || predicate instanceof QueryParamPredicate ||
+				predicate instanceof NegateRequestPredicate);
+	}
+
 	private static void traceMatch(String prefix, Object desired, @Nullable Object actual, boolean match) {
 		if (logger.isTraceEnabled()) {
 			logger.trace(String.format("%s \"%s\" %s against value \"%s\"",
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,13 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -29,13 +34,18 @@ import org.apache.commons.logging.LogFactory;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.web.reactive.result.view.ViewResolver;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebHandler;
 import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternSet;
 
 /**
  * <strong>Central entry point to Spring's functional web framework.</strong>
@@ -185,6 +195,72 @@ public abstract class RouterFunctions {
 		return new ResourcesRouterFunction(lookupFunction);
 	}
 
+	/**
+	 * Compile the given {@linkplain RouterFunction router function} into an equivalent
+	 * router function that looks up candidate routes for a request by HTTP method and
+	 * path, rather than testing the predicates of all routes in turn.
+	 * <p>Composed router functions are flattened into tables that map each HTTP method
+	 * to a {@link PathPatternSet} with the path patterns of the routes, recursively for
+	 * {@linkplain #nest(RequestPredicate, RouterFunction) nested} router functions. The
+	 * HTTP methods and path patterns of a route are determined from its
+	 * {@linkplain RequestPredicates#method(HttpMethod) method} and
+	 * {@linkplain RequestPredicates#path(String) path} predicates, including those
+	 * combined through {@link RequestPredicate#and and} and {@link RequestPredicate#or or}.
+	 * Routes with other predicates, as well as resources and custom router functions,
+	 * are candidates for every request.
+	 * <p>Candidate routes are tried in their original order, with their original
+	 * predicates and filters, so the compiled router function selects the same handler
+	 * function as the given router function, provided that predicates do not modify
+	 * the request when they do not match.
+	 * @param routerFunction the router function to compile
+	 * @param <T> the type of response returned by the handler function
+	 * @return the compiled router function
+	 * @since 5.2
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends ServerResponse> RouterFunction<T> compile(RouterFunction<T> routerFunction) {
+		Assert.notNull(routerFunction, "RouterFunction must not be null");
+		if (routerFunction instanceof SameComposedRouterFunction ||
+				routerFunction instanceof DifferentComposedRouterFunction) {
+			List<RouterFunction<?>> routerFunctions = new ArrayList<>();
+			flatten(routerFunction, routerFunctions);
+			routerFunctions.replaceAll(RouterFunctions::compile);
+			return new IndexedRouterFunction<>(routerFunctions);
+		}
+		else if (routerFunction instanceof DefaultNestedRouterFunction) {
+			DefaultNestedRouterFunction<T> nested = (DefaultNestedRouterFunction<T>) routerFunction;
+			return new DefaultNestedRouterFunction<>(nested.predicate, compile(nested.routerFunction));
+		}
+		else if (routerFunction instanceof FilteredRouterFunction) {
+			return compileFiltered((FilteredRouterFunction<?, T>) routerFunction);
+		}
+		else {
+			return routerFunction;
+		}
+	}
+
+	private static <T extends ServerResponse, S extends ServerResponse> RouterFunction<S> compileFiltered(
+			FilteredRouterFunction<T, S> filtered) {
+
+		return new FilteredRouterFunction<>(compile(filtered.routerFunction), filtered.filterFunction);
+	}
+
+	private static void flatten(RouterFunction<?> routerFunction, List<RouterFunction<?>> result) {
+		if (routerFunction instanceof SameComposedRouterFunction) {
+			SameComposedRouterFunction<?> composed = (SameComposedRouterFunction<?>) routerFunction;
+			flatten(composed.first, result);
+			flatten(composed.second, result);
+		}
+		else if (routerFunction instanceof DifferentComposedRouterFunction) {
+			DifferentComposedRouterFunction composed = (DifferentComposedRouterFunction) routerFunction;
+			flatten(composed.first, result);
+			flatten(composed.second, result);
+		}
+		else {
+			result.add(routerFunction);
+		}
+	}
+
 	/**
 	 * Convert the given {@linkplain RouterFunction router function} into a {@link HttpHandler}.
 	 * This conversion uses {@linkplain HandlerStrategies#builder() default strategies}.
@@ -981,6 +1057,200 @@ public abstract class RouterFunctions {
 	}
 
 
+	/**
+	 * A sequence of router functions, compiled into a lookup table from HTTP method
+	 * and path to the router functions that may route a request.
+	 * @param <T> the server response type
+	 * @see #compile(RouterFunction)
+	 */
+	private static final class IndexedRouterFunction<T extends ServerResponse> extends AbstractRouterFunction<T> {
+
+		private final RouterFunction<?>[] routerFunctions;
+
+		private final Map<HttpMethod, RouteTable> methodTables = new EnumMap<>(HttpMethod.class);
+
+		private final RouteTable otherMethodTable = new RouteTable();
+
+		public IndexedRouterFunction(List<RouterFunction<?>> routerFunctions) {
+			this.routerFunctions = routerFunctions.toArray(new RouterFunction<?>[0]);
+			for (HttpMethod method : HttpMethod.values()) {
+				this.methodTables.put(method, new RouteTable());
+			}
+			for (int i = 0; i < this.routerFunctions.length; i++) {
+				RouteConditionVisitor condition = new RouteConditionVisitor();
+				this.routerFunctions[i].accept(condition);
+				if (!condition.hasRoutes) {
+					condition.add(null, null, false);
+				}
+				for (Map.Entry<HttpMethod, RouteTable> entry : this.methodTables.entrySet()) {
+					if (condition.methods == null || condition.methods.contains(entry.getKey())) {
+						entry.getValue().add(i, condition);
+					}
+				}
+				if (condition.methods == null) {
+					this.otherMethodTable.add(i, condition);
+				}
+			}
+		}
+
+		@Override
+		public Mono<HandlerFunction<T>> route(ServerRequest request) {
+			HttpMethod method = request.method();
+			RouteTable table = (method != null ? this.methodTables.get(method) : this.otherMethodTable);
+			return route(request, table.getCandidates(request.pathContainer()), 0);
+		}
+
+		private Mono<HandlerFunction<T>> route(ServerRequest request, int[] candidates, int index) {
+			if (index == candidates.length) {
+				return Mono.empty();
+			}
+			Mono<HandlerFunction<T>> result =
+					this.routerFunctions[candidates[index]].route(request).map(RouterFunctions::cast);
+			return (index + 1 < candidates.length ?
+					result.switchIfEmpty(Mono.defer(() -> route(request, candidates, index + 1))) : result);
+		}
+
+		@Override
+		public void accept(Visitor visitor) {
+			for (RouterFunction<?> routerFunction : this.routerFunctions) {
+				routerFunction.accept(visitor);
+			}
+		}
+	}
+
+
+	/**
+	 * The router functions for a given HTTP method, indexed by path.
+	 */
+	private static final class RouteTable {
+
+		private final PathPatternSet<Integer> pathLookup = new PathPatternSet<>();
+
+		private int[] anyPath = new int[0];
+
+		public void add(int index, RouteConditionVisitor condition) {
+			if (condition.patterns == null || condition.prefixes == null) {
+				// Candidate for any path
+				this.anyPath = Arrays.copyOf(this.anyPath, this.anyPath.length + 1);
+				this.anyPath[this.anyPath.length - 1] = index;
+			}
+			else {
+				for (PathPattern pattern : condition.patterns) {
+					this.pathLookup.add(pattern, index);
+				}
+				for (PathPattern prefix : condition.prefixes) {
+					this.pathLookup.addPrefix(prefix, index);
+				}
+			}
+		}
+
+		/**
+		 * Return the indexes of the router functions that may route a request
+		 * with the given path, in ascending order.
+		 */
+		public int[] getCandidates(PathContainer path) {
+			if (this.pathLookup.isEmpty()) {
+				return this.anyPath;
+			}
+			List<PathPatternSet.Match<Integer>> matches = this.pathLookup.matchAll(path);
+			if (matches.isEmpty()) {
+				return this.anyPath;
+			}
+			int[] candidates = Arrays.copyOf(this.anyPath, this.anyPath.length + matches.size());
+			int count = this.anyPath.length;
+			for (PathPatternSet.Match<Integer> match : matches) {
+				candidates[count++] = match.getValue();
+			}
+			Arrays.sort(candidates);
+			// Remove duplicates for router functions with several matching patterns
+			int distinct = 1;
+			for (int i = 1; i < candidates.length; i++) {
+				if (candidates[i] != candidates[distinct - 1]) {
+					candidates[distinct++] = candidates[i];
+				}
+			}
+			return (distinct < candidates.length ? Arrays.copyOf(candidates, distinct) : candidates);
+		}
+	}
+
+
+	/**
+	 * Visitor that determines the HTTP methods and path patterns that a request needs
+	 * to match for a router function to route it, from the predicates of its routes and
+	 * of its outermost nested router functions.
+	 */
+	private static final class RouteConditionVisitor implements Visitor {
+
+		/** The required HTTP methods, or {@code null} for any. */
+		@Nullable
+		Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+
+		/** The required patterns for the full path, or {@code null} for any path. */
+		@Nullable
+		List<PathPattern> patterns = new ArrayList<>();
+
+		/** The required patterns for the start of the path, or {@code null} for any path. */
+		@Nullable
+		List<PathPattern> prefixes = new ArrayList<>();
+
+		boolean hasRoutes;
+
+		private int nestingLevel;
+
+		@Override
+		public void startNested(RequestPredicate predicate) {
+			if (this.nestingLevel++ == 0) {
+				add(RequestPredicates.requiredMethods(predicate),
+						RequestPredicates.requiredPathPatterns(predicate, true), true);
+			}
+		}
+
+		@Override
+		public void endNested(RequestPredicate predicate) {
+			this.nestingLevel--;
+		}
+
+		@Override
+		public void route(RequestPredicate predicate, HandlerFunction<?> handlerFunction) {
+			if (this.nestingLevel == 0) {
+				add(RequestPredicates.requiredMethods(predicate),
+						RequestPredicates.requiredPathPatterns(predicate, false), false);
+			}
+		}
+
+		@Override
+		public void resources(Function<ServerRequest, Mono<Resource>> lookupFunction) {
+			if (this.nestingLevel == 0) {
+				add(null, null, false);
+			}
+		}
+
+		@Override
+		public void unknown(RouterFunction<?> routerFunction) {
+			if (this.nestingLevel == 0) {
+				add(null, null, false);
+			}
+		}
+
+		void add(@Nullable Set<HttpMethod> methods, @Nullable List<PathPattern> patterns, boolean prefix) {
+			this.hasRoutes = true;
+			if (methods == null) {
+				this.methods = null;
+			}
+			else if (this.methods != null) {
+				this.methods.addAll(methods);
+			}
+			if (patterns == null) {
+				this.patterns = null;
+				this.prefixes = null;
+			}
+			else if (this.patterns != null && this.prefixes != null) {
+				(prefix ? this.prefixes : this.patterns).addAll(patterns);
+			}
+		}
+	}
+
+
 	private static class HandlerStrategiesResponseContext implements ServerResponse.Context {
 
 		private final HandlerStrategies strategies;
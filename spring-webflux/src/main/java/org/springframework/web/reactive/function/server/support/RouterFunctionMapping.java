@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,6 +53,8 @@ public class RouterFunctionMapping extends AbstractHandlerMapping implements Ini
 
 	private List<HttpMessageReader<?>> messageReaders = Collections.emptyList();
 
+	private boolean indexedLookup = false;
+
 
 	/**
 	 * Create an empty {@code RouterFunctionMapping}.
@@ -92,6 +94,26 @@ public class RouterFunctionMapping extends AbstractHandlerMapping implements Ini
 		this.messageReaders = messageReaders;
 	}
 
+	/**
+	 * Whether to {@link RouterFunctions#compile compile} the router function
+	 * into a lookup indexed by HTTP method and path pattern, evaluating only
+	 * the routes that may match a request instead of all routes in turn.
+	 * <p>The default value is {@code false}.
+	 * @since 5.2
+	 * @see RouterFunctions#compile
+	 */
+	public void setIndexedLookup(boolean indexedLookup) {
+		this.indexedLookup = indexedLookup;
+	}
+
+	/**
+	 * Whether the router function is compiled into an indexed lookup.
+	 * @since 5.2
+	 */
+	public boolean isIndexedLookup() {
+		return this.indexedLookup;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		if (CollectionUtils.isEmpty(this.messageReaders)) {
@@ -102,6 +124,9 @@ public class RouterFunctionMapping extends AbstractHandlerMapping implements Ini
 		if (this.routerFunction == null) {
 			initRouterFunctions();
 		}
+		if (this.indexedLookup && this.routerFunction != null) {
+			this.routerFunction = RouterFunctions.compile(this.routerFunction);
+		}
 	}
 
 	/**
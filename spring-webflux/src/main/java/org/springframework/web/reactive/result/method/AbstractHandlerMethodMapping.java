@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +38,7 @@ import reactor.core.publisher.Mono;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
+import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -47,6 +49,8 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.handler.AbstractHandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternSet;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -93,11 +97,38 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	}
 
 
+	private boolean indexedLookup = false;
+
 	private final MappingRegistry mappingRegistry = new MappingRegistry();
 
 
 	// TODO: handlerMethodMappingNamingStrategy
 
+	/**
+	 * Whether to look up handler methods through a {@link PathPatternSet} with
+	 * the path patterns of all mappings, evaluating only the mappings with a
+	 * pattern that matches the path of the request rather than all registered
+	 * mappings.
+	 * <p>Default is "false" since the index is only applicable to mappings that
+	 * cannot match a request unless the path of the request matches one of their
+	 * {@link #getMappingPathPatterns path patterns} (or that have no path patterns
+	 * at all).
+	 * @since 5.2
+	 * @see #lookupHandlerMethod
+	 */
+	public void setIndexedLookup(boolean indexedLookup) {
+		this.indexedLookup = indexedLookup;
+	}
+
+	/**
+	 * Return whether handler methods are looked up through an index of the
+	 * path patterns of their mappings.
+	 * @since 5.2
+	 */
+	public boolean isIndexedLookup() {
+		return this.indexedLookup;
+	}
+
 	/**
 	 * Return a (read-only) map with all mappings and HandlerMethod's.
 	 */
@@ -315,7 +346,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	protected HandlerMethod lookupHandlerMethod(ServerWebExchange exchange) throws Exception {
 		List<Match> matches = new ArrayList<>();
-		addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		if (this.indexedLookup) {
+			PathContainer lookupPath = exchange.getRequest().getPath().pathWithinApplication();
+			addMatchingMappings(this.mappingRegistry.getMappingsByPath(lookupPath), matches, exchange);
+		}
+		else {
+			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, exchange);
+		}
 
 		if (!matches.isEmpty()) {
 			Comparator<Match> comparator = new MatchComparator(getMappingComparator(exchange));
@@ -410,6 +447,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	@Nullable
 	protected abstract T getMappingForMethod(Method method, Class<?> handlerType);
 
+	/**
+	 * Extract and return the path patterns contained in the supplied mapping,
+	 * for an {@link #setIndexedLookup indexed lookup} of mappings.
+	 * <p>The default implementation returns an empty set, which indicates a
+	 * mapping that is to be evaluated for any path.
+	 * @param mapping the mapping to get the path patterns for
+	 * @return the path patterns, or an empty set if none
+	 * @since 5.2
+	 */
+	protected Set<PathPattern> getMappingPathPatterns(T mapping) {
+		return Collections.emptySet();
+	}
+
 	/**
 	 * Check if a mapping matches the current request and return a (potentially
 	 * new) mapping with conditions relevant to the current request.
@@ -441,6 +491,10 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final Map<T, HandlerMethod> mappingLookup = new LinkedHashMap<>();
 
+		private final PathPatternSet<T> pathPatternLookup = new PathPatternSet<>();
+
+		private final List<T> mappingsWithoutPathPatterns = new ArrayList<>();
+
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
 		private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
@@ -453,6 +507,25 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.mappingLookup;
 		}
 
+		/**
+		 * Return the mappings with a path pattern that matches the given path,
+		 * along with all mappings without path patterns. Not thread-safe.
+		 * @since 5.2
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByPath(PathContainer path) {
+			List<PathPatternSet.Match<T>> matches = this.pathPatternLookup.matchAll(path);
+			if (matches.isEmpty()) {
+				return this.mappingsWithoutPathPatterns;
+			}
+			Set<T> mappings = new LinkedHashSet<>(matches.size() + this.mappingsWithoutPathPatterns.size());
+			for (PathPatternSet.Match<T> match : matches) {
+				mappings.add(match.getValue());
+			}
+			mappings.addAll(this.mappingsWithoutPathPatterns);
+			return mappings;
+		}
+
 		/**
 		 * Return CORS configuration. Thread-safe for concurrent use.
 		 */
@@ -462,14 +535,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 
 		/**
-		 * Acquire the read lock when using getMappings and getMappingsByUrl.
+		 * Acquire the read lock when using getMappings and getMappingsByPath.
 		 */
 		public void acquireReadLock() {
 			this.readWriteLock.readLock().lock();
 		}
 
 		/**
-		 * Release the read lock after using getMappings and getMappingsByUrl.
+		 * Release the read lock after using getMappings and getMappingsByPath.
 		 */
 		public void releaseReadLock() {
 			this.readWriteLock.readLock().unlock();
@@ -481,7 +554,15 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				HandlerMethod handlerMethod = createHandlerMethod(handler, method);
 				assertUniqueMethodMapping(handlerMethod, mapping);
 
-				this.mappingLookup.put(mapping, handlerMethod);
+				if (this.mappingLookup.put(mapping, handlerMethod) == null) {
+					Set<PathPattern> patterns = getMappingPathPatterns(mapping);
+					if (patterns.isEmpty()) {
+						this.mappingsWithoutPathPatterns.add(mapping);
+					}
+					for (PathPattern pattern : patterns) {
+						this.pathPatternLookup.add(pattern, mapping);
+					}
+				}
 
 				CorsConfiguration corsConfig = initCorsConfiguration(handler, method, mapping);
 				if (corsConfig != null) {
@@ -514,6 +595,15 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				}
 
 				this.mappingLookup.remove(definition.getMapping());
+
+				Set<PathPattern> patterns = getMappingPathPatterns(definition.getMapping());
+				if (patterns.isEmpty()) {
+					this.mappingsWithoutPathPatterns.remove(definition.getMapping());
+				}
+				for (PathPattern pattern : patterns) {
+					this.pathPatternLookup.remove(pattern, definition.getMapping());
+				}
+
 				this.corsLookup.remove(definition.getHandlerMethod());
 			}
 			finally {
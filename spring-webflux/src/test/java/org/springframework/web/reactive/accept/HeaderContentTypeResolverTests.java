@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,7 @@ import org.springframework.mock.web.test.server.MockServerWebExchange;
 import org.springframework.web.server.NotAcceptableStatusException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Unit tests for {@link HeaderContentTypeResolver}.
@@ -50,6 +51,17 @@ public class HeaderContentTypeResolverTests {
 		assertEquals("text/plain;q=0.5", mediaTypes.get(3).toString());
 	}
 
+	@Test
+	public void resolveMediaTypesFromCache() throws Exception {
+		String header = "text/plain; q=0.5, text/html";
+		List<MediaType> mediaTypes = this.resolver.resolveMediaTypes(
+				MockServerWebExchange.from(MockServerHttpRequest.get("/").header("accept", header)));
+
+		assertSame(mediaTypes, this.resolver.resolveMediaTypes(
+				MockServerWebExchange.from(MockServerHttpRequest.get("/other").header("accept", header))));
+		assertEquals("text/html", mediaTypes.get(0).toString());
+	}
+
 	@Test(expected = NotAcceptableStatusException.class)
 	public void resolveMediaTypesParseError() throws Exception {
 		String header = "textplain; q=0.5";
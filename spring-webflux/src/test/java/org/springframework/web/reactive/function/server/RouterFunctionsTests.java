@@ -16,14 +16,17 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.net.URI;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.server.reactive.HttpHandler;
@@ -283,4 +286,90 @@ public class RouterFunctionsTests {
 		assertTrue(filterInvoked.get());
 	}
 
+	@Test
+	public void compile() {
+		HandlerFunction<ServerResponse> getFoo = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> postFoo = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> getFooId = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> getBarBaz = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> fallback = request -> ServerResponse.ok().build();
+
+		RouterFunction<ServerResponse> routerFunction = RouterFunctions.route()
+				.GET("/foo", getFoo)
+				.POST("/foo", postFoo)
+				.GET("/foo/{id}", getFooId)
+				.nest(RequestPredicates.path("/bar"), builder -> builder.GET("/baz", getBarBaz))
+				.route(RequestPredicates.all(), fallback)
+				.build();
+		RouterFunction<ServerResponse> compiled = RouterFunctions.compile(routerFunction);
+
+		assertEquals(routerFunction.toString(), compiled.toString());
+		assertSame(getFoo, compiled.route(request(HttpMethod.GET, "/foo")).block());
+		assertSame(postFoo, compiled.route(request(HttpMethod.POST, "/foo")).block());
+		assertSame(getFooId, compiled.route(request(HttpMethod.GET, "/foo/1")).block());
+		assertSame(getBarBaz, compiled.route(request(HttpMethod.GET, "/bar/baz")).block());
+		assertSame(fallback, compiled.route(request(HttpMethod.GET, "/bar/qux")).block());
+		assertSame(fallback, compiled.route(request(HttpMethod.PUT, "/foo")).block());
+	}
+
+	@Test
+	public void compileKeepsRouteOrder() {
+		HandlerFunction<ServerResponse> first = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> second = request -> ServerResponse.ok().build();
+
+		RouterFunction<ServerResponse> routerFunction =
+				RouterFunctions.route(RequestPredicates.GET("/foo/**"), first)
+						.andRoute(RequestPredicates.GET("/foo/bar"), second);
+		RouterFunction<ServerResponse> compiled = RouterFunctions.compile(routerFunction);
+
+		MockServerRequest request = request(HttpMethod.GET, "/foo/bar");
+		assertSame(first, compiled.route(request).block());
+		assertEquals("/foo/**", request.attributes().get(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE).toString());
+	}
+
+	@Test
+	public void compileSkipsNonMatchingRoutes() {
+		AtomicInteger evaluations = new AtomicInteger();
+		RequestPredicate counting = request -> evaluations.incrementAndGet() > 0;
+		HandlerFunction<ServerResponse> handlerFunction = request -> ServerResponse.ok().build();
+
+		RouterFunction<ServerResponse> routerFunction =
+				RouterFunctions.route(RequestPredicates.GET("/foo").and(counting), handlerFunction)
+						.andRoute(RequestPredicates.POST("/bar").and(counting), handlerFunction)
+						.andNest(RequestPredicates.path("/baz"),
+								RouterFunctions.route(counting, handlerFunction));
+		RouterFunction<ServerResponse> compiled = RouterFunctions.compile(routerFunction);
+
+		assertNull(compiled.route(request(HttpMethod.GET, "/bar")).block());
+		assertNull(compiled.route(request(HttpMethod.POST, "/foo")).block());
+		assertNull(compiled.route(request(HttpMethod.GET, "/qux")).block());
+		assertEquals(0, evaluations.get());
+
+		assertSame(handlerFunction, compiled.route(request(HttpMethod.GET, "/baz/qux")).block());
+		assertEquals(1, evaluations.get());
+	}
+
+	@Test
+	public void compileKeepsFilters() {
+		HandlerFunction<ServerResponse> handlerFunction = request -> ServerResponse.ok().build();
+		HandlerFunction<ServerResponse> filtered = request -> ServerResponse.accepted().build();
+
+		RouterFunction<ServerResponse> routerFunction =
+				RouterFunctions.route(RequestPredicates.GET("/foo"), handlerFunction)
+						.andRoute(RequestPredicates.GET("/bar"), handlerFunction)
+						.filter((request, next) -> filtered.handle(request))
+						.andRoute(RequestPredicates.GET("/baz"), handlerFunction);
+		RouterFunction<ServerResponse> compiled = RouterFunctions.compile(routerFunction);
+
+		MockServerRequest request = request(HttpMethod.GET, "/bar");
+		HandlerFunction<ServerResponse> result = compiled.route(request).block();
+		assertNotNull(result);
+		assertEquals(HttpStatus.ACCEPTED, result.handle(request).block().statusCode());
+		assertSame(handlerFunction, compiled.route(request(HttpMethod.GET, "/baz")).block());
+	}
+
+	private static MockServerRequest request(HttpMethod method, String path) {
+		return MockServerRequest.builder().method(method).uri(URI.create("http://localhost" + path)).build();
+	}
+
 }
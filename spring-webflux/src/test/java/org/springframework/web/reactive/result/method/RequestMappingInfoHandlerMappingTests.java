@@ -116,6 +116,49 @@ public class RequestMappingInfoHandlerMappingTests {
 		assertEquals(expected, hm.getMethod());
 	}
 
+	@Test
+	public void getHandlerWithIndexedLookup() {
+		this.handlerMapping.setIndexedLookup(true);
+
+		Method expected = on(TestController.class).annot(getMapping("/foo").params("p")).resolveMethod();
+		ServerWebExchange exchange = MockServerWebExchange.from(get("/foo?p=anything"));
+		HandlerMethod hm = (HandlerMethod) this.handlerMapping.getHandler(exchange).block();
+		assertEquals(expected, hm.getMethod());
+
+		expected = on(TestController.class).annot(requestMapping("/ba*").method(GET, HEAD)).resolveMethod();
+		exchange = MockServerWebExchange.from(get("/bar"));
+		hm = (HandlerMethod) this.handlerMapping.getHandler(exchange).block();
+		assertEquals(expected, hm.getMethod());
+
+		expected = on(TestController.class).annot(requestMapping("")).resolveMethod();
+		exchange = MockServerWebExchange.from(get("/"));
+		hm = (HandlerMethod) this.handlerMapping.getHandler(exchange).block();
+		assertEquals(expected, hm.getMethod());
+
+		exchange = MockServerWebExchange.from(get("/unknown"));
+		assertNull(this.handlerMapping.getHandler(exchange).block());
+
+		Mono<Object> mono = this.handlerMapping.getHandler(MockServerWebExchange.from(post("/bar")));
+		assertError(mono, MethodNotAllowedException.class,
+				ex -> assertEquals(EnumSet.of(HttpMethod.GET, HttpMethod.HEAD), ex.getSupportedMethods()));
+	}
+
+	@Test
+	public void getHandlerWithIndexedLookupAfterUnregister() {
+		this.handlerMapping.setIndexedLookup(true);
+		RequestMappingInfo info = paths("/foo/{id}").build();
+		this.handlerMapping.registerMapping(info, new TestController(), ClassUtils.getMethod(TestController.class, "dummy"));
+
+		ServerWebExchange exchange = MockServerWebExchange.from(get("/foo/1"));
+		HandlerMethod hm = (HandlerMethod) this.handlerMapping.getHandler(exchange).block();
+		assertEquals(ClassUtils.getMethod(TestController.class, "dummy"), hm.getMethod());
+		assertEquals(Collections.singletonMap("id", "1"), exchange.getAttributes().get(URI_TEMPLATE_VARIABLES_ATTRIBUTE));
+
+		this.handlerMapping.unregisterMapping(info);
+		exchange = MockServerWebExchange.from(get("/foo/1"));
+		assertNull(this.handlerMapping.getHandler(exchange).block());
+	}
+
 	@Test
 	public void getHandlerBestMatch() {
 		Method expected = on(TestController.class).annot(getMapping("/foo").params("p")).resolveMethod();
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * Benchmarks for {@link RequestMappingHandlerMapping} lookups of pattern-based
+ * mappings, scanning all mappings versus going through the mapping index.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @see org.springframework.web.servlet.handler.AbstractHandlerMethodMapping#setIndexedLookup
+ */
+@BenchmarkMode(Mode.Throughput)
+public class RequestMappingHandlerMappingBenchmark {
+
+	@Benchmark
+	public void lookupPatternMappings(MappingsState state, Blackhole blackhole) throws Exception {
+		for (String path : state.paths) {
+			blackhole.consume(state.handlerMapping.getHandler(new MockHttpServletRequest("GET", path)));
+		}
+	}
+
+	@Benchmark
+	public void lookupDirectMappings(MappingsState state, Blackhole blackhole) throws Exception {
+		for (String path : state.directPaths) {
+			blackhole.consume(state.handlerMapping.getHandler(new MockHttpServletRequest("GET", path)));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MappingsState {
+
+		@Param({"false", "true"})
+		public boolean indexedLookup;
+
+		@Param({"250", "2500"})
+		public int mappingCount;
+
+		public RequestMappingHandlerMapping handlerMapping;
+
+		public String[] paths;
+
+		public String[] directPaths;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.handlerMapping = new RequestMappingHandlerMapping();
+			this.handlerMapping.setIndexedLookup(this.indexedLookup);
+			Method method = SampleController.class.getMethod("handle");
+			SampleController controller = new SampleController();
+			int resourceCount = this.mappingCount / 5;
+			for (int i = 0; i < resourceCount; i++) {
+				String resource = "/api/resources" + i;
+				register(controller, method, RequestMethod.GET, resource);
+				register(controller, method, RequestMethod.POST, resource);
+				register(controller, method, RequestMethod.GET, resource + "/{id}");
+				register(controller, method, RequestMethod.PUT, resource + "/{id}");
+				register(controller, method, RequestMethod.GET, resource + "/{id}/items/{itemId}");
+			}
+			this.paths = new String[8];
+			this.directPaths = new String[8];
+			for (int i = 0; i < this.paths.length; i++) {
+				int resource = (i * 7919) % resourceCount;
+				this.paths[i] = (i % 2 == 0 ? "/api/resources" + resource + "/" + i :
+						"/api/resources" + resource + "/" + i + "/items/" + (i * 3));
+				this.directPaths[i] = "/api/resources" + resource;
+			}
+		}
+
+		private void register(Object controller, Method method, RequestMethod requestMethod, String pattern) {
+			RequestMappingInfo info = RequestMappingInfo.paths(pattern).methods(requestMethod).build();
+			this.handlerMapping.registerMapping(info, controller, method);
+		}
+	}
+
+
+	public static class SampleController {
+
+		public void handle() {
+		}
+	}
+
+}
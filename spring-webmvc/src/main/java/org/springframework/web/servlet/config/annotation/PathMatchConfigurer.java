@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.function.Predicate;
 import org.springframework.lang.Nullable;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Helps with configuring HandlerMappings path matching options such as trailing
@@ -51,12 +52,18 @@ public class PathMatchConfigurer {
 	@Nullable
 	private Boolean registeredSuffixPatternMatch;
 
+	@Nullable
+	private Boolean indexedLookup;
+
 	@Nullable
 	private UrlPathHelper urlPathHelper;
 
 	@Nullable
 	private PathMatcher pathMatcher;
 
+	@Nullable
+	private PathPatternParser patternParser;
+
 	@Nullable
 	private Map<String, Predicate<Class<?>>> pathPrefixes;
 
@@ -96,6 +103,22 @@ public class PathMatchConfigurer {
 		return this;
 	}
 
+	/**
+	 * Whether to look up request mappings through an index of the literal
+	 * path segments of their patterns when a request does not match a mapping
+	 * for a specific URL, evaluating only a few candidate mappings per request
+	 * instead of all registered mappings.
+	 * <p>The index requires the default {@link org.springframework.util.AntPathMatcher}
+	 * (or an instance of it with default separator and token settings).
+	 * <p>By default this is set to "false".
+	 * @since 5.2
+	 * @see org.springframework.web.servlet.handler.AbstractHandlerMethodMapping#setIndexedLookup
+	 */
+	public PathMatchConfigurer setUseIndexedLookup(Boolean indexedLookup) {
+		this.indexedLookup = indexedLookup;
+		return this;
+	}
+
 	/**
 	 * Set the UrlPathHelper to use for resolution of lookup paths.
 	 * <p>Use this to override the default UrlPathHelper with a custom subclass,
@@ -117,6 +140,22 @@ public class PathMatchConfigurer {
 		return this;
 	}
 
+	/**
+	 * Set a {@link PathPatternParser} to parse request mapping patterns into
+	 * pre-compiled {@link org.springframework.web.util.pattern.PathPattern
+	 * PathPatterns}, matched against a request path that is parsed once per
+	 * request, instead of matching with the configured {@link PathMatcher}.
+	 * <p>Suffix pattern matching does not apply to PathPatterns, and trailing
+	 * slash matching is configured on the parser itself.
+	 * <p>By default this is not set.
+	 * @since 5.2
+	 * @see org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping#setPatternParser
+	 */
+	public PathMatchConfigurer setPatternParser(PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+		return this;
+	}
+
 	/**
 	 * Configure a path prefix to apply to matching controller methods.
 	 * <p>Prefixes are used to enrich the mappings of every {@code @RequestMapping}
@@ -152,6 +191,15 @@ public class PathMatchConfigurer {
 		return this.registeredSuffixPatternMatch;
 	}
 
+	/**
+	 * Whether to look up request mappings through an index of their literal path segments.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Boolean isUseIndexedLookup() {
+		return this.indexedLookup;
+	}
+
 	@Nullable
 	public UrlPathHelper getUrlPathHelper() {
 		return this.urlPathHelper;
@@ -162,6 +210,15 @@ public class PathMatchConfigurer {
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Return the configured {@link PathPatternParser}, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
 	@Nullable
 	protected Map<String, Predicate<Class<?>>> getPathPrefixes() {
 		return this.pathPrefixes;
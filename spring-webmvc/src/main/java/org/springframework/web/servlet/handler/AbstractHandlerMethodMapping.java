@@ -39,10 +39,12 @@ import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
@@ -91,11 +93,17 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	private boolean detectHandlerMethodsInAncestorContexts = false;
 
+	private boolean indexedLookup = false;
+
 	@Nullable
 	private HandlerMethodMappingNamingStrategy<T> namingStrategy;
 
 	private final MappingRegistry mappingRegistry = new MappingRegistry();
 
+	/** The last PathMatcher verified to be compatible with the mapping index. */
+	@Nullable
+	private volatile PathMatcher indexCompatiblePathMatcher;
+
 
 	/**
 	 * Whether to detect handler methods in beans in ancestor ApplicationContexts.
@@ -110,6 +118,34 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
 	}
 
+	/**
+	 * Whether to look up handler methods for a lookup path without direct URL
+	 * match through an index of the literal path segments that the mapping
+	 * patterns start with, evaluating only the mappings whose patterns may match
+	 * the lookup path rather than all registered mappings.
+	 * <p>Default is "false" since the index is only applicable to mappings that
+	 * cannot match a request unless the lookup path matches one of their
+	 * {@link #getMappingPathPatterns path patterns} (or that have no path patterns
+	 * at all), evaluated with the {@link #getPathMatcher() PathMatcher} of this
+	 * handler mapping. The index is not used, even if this flag is switched on,
+	 * for a PathMatcher other than a plain {@link AntPathMatcher} with "/" as
+	 * separator and without trimming of tokens.
+	 * @since 5.2
+	 * @see #lookupHandlerMethod
+	 */
+	public void setIndexedLookup(boolean indexedLookup) {
+		this.indexedLookup = indexedLookup;
+	}
+
+	/**
+	 * Return whether handler methods are looked up through an index of the
+	 * literal path segments of their mappings.
+	 * @since 5.2
+	 */
+	public boolean isIndexedLookup() {
+		return this.indexedLookup;
+	}
+
 	/**
 	 * Configure the naming strategy to use for assigning a default name to every
 	 * mapped handler method.
@@ -359,7 +395,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 	 */
 	@Override
 	protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
-		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
+		String lookupPath = initLookupPath(request);
 		this.mappingRegistry.acquireReadLock();
 		try {
 			HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
@@ -370,6 +406,19 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 	}
 
+	/**
+	 * Determine the lookup path for the given request, to be used for the
+	 * direct URL lookup of mappings as well as for {@link #lookupHandlerMethod}.
+	 * <p>The default implementation delegates to the configured
+	 * {@link #getUrlPathHelper() UrlPathHelper}.
+	 * @param request the current request
+	 * @return the lookup path
+	 * @since 5.2
+	 */
+	protected String initLookupPath(HttpServletRequest request) {
+		return getUrlPathHelper().getLookupPathForRequest(request);
+	}
+
 	/**
 	 * Look up the best-matching handler method for the current request.
 	 * If multiple matches are found, the best match is selected.
@@ -387,8 +436,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			if (isIndexedLookupApplicable(lookupPath)) {
+				addMatchingMappings(this.mappingRegistry.getMappingsByPathIndex(lookupPath), matches, request);
+			}
+			else {
+				// No choice but to go through all mappings...
+				addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			}
 		}
 
 		if (!matches.isEmpty()) {
@@ -420,6 +474,23 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 	}
 
+	private boolean isIndexedLookupApplicable(String lookupPath) {
+		if (!this.indexedLookup || lookupPath.contains("//")) {
+			return false;
+		}
+		PathMatcher pathMatcher = getPathMatcher();
+		if (pathMatcher == this.indexCompatiblePathMatcher) {
+			return true;
+		}
+		// Plain AntPathMatcher with "/" separator and without trimming of tokens?
+		if (pathMatcher.getClass() == AntPathMatcher.class &&
+				"/a/b".equals(pathMatcher.combine("/a", "b")) && !pathMatcher.match("/a", "/ a")) {
+			this.indexCompatiblePathMatcher = pathMatcher;
+			return true;
+		}
+		return false;
+	}
+
 	private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
 		for (T mapping : mappings) {
 			T match = getMatchingMapping(mapping, request);
@@ -527,6 +598,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final MappingPathIndex<T> pathIndex = new MappingPathIndex<>();
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -550,6 +623,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return the mappings that may match the given lookup path, according to
+		 * the literal path segments of their patterns. Not thread-safe.
+		 * @since 5.2
+		 * @see #acquireReadLock()
+		 */
+		public List<T> getMappingsByPathIndex(String lookupPath) {
+			return this.pathIndex.getCandidates(lookupPath);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -566,14 +649,16 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 		}
 
 		/**
-		 * Acquire the read lock when using getMappings and getMappingsByUrl.
+		 * Acquire the read lock when using getMappings, getMappingsByUrl
+		 * and getMappingsByPathIndex.
 		 */
 		public void acquireReadLock() {
 			this.readWriteLock.readLock().lock();
 		}
 
 		/**
-		 * Release the read lock after using getMappings and getMappingsByUrl.
+		 * Release the read lock after using getMappings, getMappingsByUrl
+		 * and getMappingsByPathIndex.
 		 */
 		public void releaseReadLock() {
 			this.readWriteLock.readLock().unlock();
@@ -590,6 +675,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 				for (String url : directUrls) {
 					this.urlLookup.add(url, mapping);
 				}
+				this.pathIndex.add(mapping, getMappingPathPatterns(mapping));
 
 				String name = null;
 				if (getNamingStrategy() != null) {
@@ -667,6 +753,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				this.pathIndex.remove(definition.getMapping(), getMappingPathPatterns(definition.getMapping()));
+
 				removeMappingName(definition);
 
 				this.corsLookup.remove(definition.getHandlerMethod());
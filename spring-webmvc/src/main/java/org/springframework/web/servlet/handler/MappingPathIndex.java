@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.handler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Index of handler method mappings by the literal path segments that their
+ * URL patterns start with, for {@link AbstractHandlerMethodMapping} lookups
+ * that are not a direct URL match.
+ *
+ * <p>Each mapping is registered at the trie node reached through the leading
+ * segments of its patterns that contain no wildcards or URI variables, and is
+ * returned as a candidate for every lookup path that passes through that node.
+ * Segments are compared ignoring case, and a path segment also reaches the
+ * nodes for its prefixes up to each dot, covering suffix pattern matches such
+ * as "/users.json" for "/users". Mappings without patterns are candidates for
+ * every lookup path. The candidates are therefore a superset of the mappings
+ * whose patterns may match a given path with {@link org.springframework.util.AntPathMatcher}
+ * semantics, i.e. with "/" as separator and without trimming of tokens.
+ *
+ * <p>Not thread-safe: access needs to be guarded by the registry's lock.
+ *
+ * @author <a href="mailto:agent@local">agent</a>
+ * @since 5.2
+ * @param <T> the mapping type
+ * @see AbstractHandlerMethodMapping#setIndexedLookup
+ */
+final class MappingPathIndex<T> {
+
+	private final Node<T> root = new Node<>();
+
+	private final Map<T, Entry<T>> entries = new HashMap<>();
+
+	private long registrationCount;
+
+
+	/**
+	 * Add the given mapping to the index.
+	 * @param mapping the mapping to add
+	 * @param patterns the URL patterns of the mapping
+	 */
+	public void add(T mapping, Collection<String> patterns) {
+		Entry<T> entry = this.entries.get(mapping);
+		if (entry == null) {
+			entry = new Entry<>(mapping, this.registrationCount++);
+			this.entries.put(mapping, entry);
+		}
+		if (patterns.isEmpty()) {
+			this.root.addEntry(entry);
+		}
+		for (String pattern : patterns) {
+			getNode(pattern, true).addEntry(entry);
+		}
+	}
+
+	/**
+	 * Remove the given mapping from the index.
+	 * @param mapping the mapping to remove
+	 * @param patterns the URL patterns of the mapping, as specified on {@link #add}
+	 */
+	public void remove(T mapping, Collection<String> patterns) {
+		Entry<T> entry = this.entries.remove(mapping);
+		if (entry == null) {
+			return;
+		}
+		this.root.removeEntry(entry);
+		for (String pattern : patterns) {
+			Node<T> node = getNode(pattern, false);
+			if (node != null) {
+				node.removeEntry(entry);
+			}
+		}
+	}
+
+	/**
+	 * Return the mappings that may match the given lookup path,
+	 * in registration order.
+	 * @param lookupPath the lookup path, not containing empty segments
+	 */
+	public List<T> getCandidates(String lookupPath) {
+		List<Entry<T>> result = new ArrayList<>();
+		Node<T> node = this.root;
+		node.collectEntries(result);
+		int length = lookupPath.length();
+		int start = (length > 0 && lookupPath.charAt(0) == '/' ? 1 : 0);
+		while (node != null && start < length) {
+			int end = lookupPath.indexOf('/', start);
+			if (end == -1) {
+				end = length;
+			}
+			for (int dot = lookupPath.indexOf('.', start); dot != -1 && dot < end; dot = lookupPath.indexOf('.', dot + 1)) {
+				Node<T> suffixNode = node.getChild(lookupPath, start, dot);
+				if (suffixNode != null) {
+					suffixNode.collectEntries(result);
+				}
+			}
+			node = node.getChild(lookupPath, start, end);
+			if (node != null) {
+				node.collectEntries(result);
+			}
+			start = end + 1;
+		}
+		return toMappings(result);
+	}
+
+	private List<T> toMappings(List<Entry<T>> entries) {
+		if (entries.isEmpty()) {
+			return Collections.emptyList();
+		}
+		entries.sort(null);
+		List<T> mappings = new ArrayList<>(entries.size());
+		Entry<T> previous = null;
+		for (Entry<T> entry : entries) {
+			if (entry != previous) {
+				mappings.add(entry.mapping);
+				previous = entry;
+			}
+		}
+		return mappings;
+	}
+
+	@Nullable
+	private Node<T> getNode(String pattern, boolean create) {
+		Node<T> node = this.root;
+		for (String segment : StringUtils.tokenizeToStringArray(pattern, "/", false, true)) {
+			if (isWildcardSegment(segment)) {
+				break;
+			}
+			Node<T> child = node.getChild(segment, 0, segment.length());
+			if (child == null) {
+				if (!create) {
+					return null;
+				}
+				child = node.addChild(segment);
+			}
+			node = child;
+		}
+		return node;
+	}
+
+	private static boolean isWildcardSegment(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int hash(String str, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			// Consistent with String.regionMatches(ignoreCase = true)
+			hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(str.charAt(i)));
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+
+	/**
+	 * A registered mapping along with its registration order.
+	 */
+	private static final class Entry<T> implements Comparable<Entry<T>> {
+
+		final T mapping;
+
+		final long order;
+
+		Entry(T mapping, long order) {
+			this.mapping = mapping;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(Entry<T> other) {
+			return Long.compare(this.order, other.order);
+		}
+	}
+
+
+	/**
+	 * A trie node, with children held in an open-addressing table
+	 * that is probed with regions of the lookup path.
+	 */
+	private static final class Node<T> {
+
+		private final List<Entry<T>> entries = new ArrayList<>(1);
+
+		@Nullable
+		private String[] segments;
+
+		@Nullable
+		private Node<T>[] children;
+
+		private int childCount;
+
+		void addEntry(Entry<T> entry) {
+			if (!this.entries.contains(entry)) {
+				this.entries.add(entry);
+			}
+		}
+
+		void removeEntry(Entry<T> entry) {
+			this.entries.remove(entry);
+		}
+
+		void collectEntries(List<Entry<T>> result) {
+			result.addAll(this.entries);
+		}
+
+		@Nullable
+		Node<T> getChild(String path, int start, int end) {
+			String[] segments = this.segments;
+			Node<T>[] children = this.children;
+			if (segments == null || children == null || start == end) {
+				return null;
+			}
+			int length = end - start;
+			int mask = segments.length - 1;
+			for (int i = hash(path, start, end) & mask; segments[i] != null; i = (i + 1) & mask) {
+				String segment = segments[i];
+				if (segment.length() == length && segment.regionMatches(true, 0, path, start, length)) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		Node<T> addChild(String segment) {
+			if (this.segments == null || this.children == null || (this.childCount + 1) * 2 > this.segments.length) {
+				String[] oldSegments = this.segments;
+				Node<T>[] oldChildren = this.children;
+				int capacity = (oldSegments != null ? oldSegments.length * 2 : 4);
+				this.segments = new String[capacity];
+				this.children = (Node<T>[]) new Node<?>[capacity];
+				if (oldSegments != null && oldChildren != null) {
+					for (int i = 0; i < oldSegments.length; i++) {
+						if (oldSegments[i] != null) {
+							put(oldSegments[i], oldChildren[i]);
+						}
+					}
+				}
+			}
+			Node<T> child = new Node<>();
+			put(segment, child);
+			this.childCount++;
+			return child;
+		}
+
+		private void put(String segment, Node<T> child) {
+			String[] segments = this.segments;
+			Node<T>[] children = this.children;
+			if (segments != null && children != null) {
+				int mask = segments.length - 1;
+				int i = hash(segment, 0, segment.length()) & mask;
+				while (segments[i] != null) {
+					i = (i + 1) & mask;
+				}
+				segments[i] = segment;
+				children[i] = child;
+			}
+		}
+	}
+
+}
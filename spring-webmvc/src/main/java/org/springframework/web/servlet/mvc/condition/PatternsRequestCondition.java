@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,16 +27,26 @@ import java.util.List;
 import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * A logical disjunction (' || ') request condition that matches a request
  * against a set of URL path patterns.
  *
+ * <p>The patterns are matched with a {@link PathMatcher} against the lookup path
+ * of the request by default. Alternatively, they may be parsed into
+ * {@link PathPattern PathPatterns} once, on construction, and matched against
+ * the request path parsed through {@link ServletRequestPathUtils}: see
+ * {@link #PatternsRequestCondition(PathPatternParser, String...)}.
+ *
  * @author Rossen Stoyanchev
  * @since 3.1
  */
@@ -54,6 +64,13 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 	private final List<String> fileExtensions = new ArrayList<>();
 
+	/** Parsed patterns in the order of {@link #patterns}, if in PathPattern mode. */
+	@Nullable
+	private final List<PathPattern> pathPatterns;
+
+	@Nullable
+	private final PathPatternParser patternParser;
+
 
 	/**
 	 * Creates a new instance with the given URL patterns.
@@ -97,6 +114,23 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 				useTrailingSlashMatch, fileExtensions);
 	}
 
+	/**
+	 * Creates a new instance with the given URL patterns, parsed into
+	 * {@link PathPattern PathPatterns} with the given parser and matched against
+	 * the request path as parsed via {@link ServletRequestPathUtils}.
+	 * Each pattern that is not empty and does not start with "/" is prepended with "/".
+	 * <p>Suffix pattern matching is not supported in this mode, whereas trailing
+	 * slash matching is determined by the parser's
+	 * {@link PathPatternParser#setMatchOptionalTrailingSeparator
+	 * matchOptionalTrailingSeparator} flag.
+	 * @param patternParser the parser to use for the patterns
+	 * @param patterns the URL patterns to use; if 0, the condition will match to every request.
+	 * @since 5.2
+	 */
+	public PatternsRequestCondition(PathPatternParser patternParser, String... patterns) {
+		this(parse(patternParser, prependLeadingSlash(Arrays.asList(patterns))), patternParser);
+	}
+
 	/**
 	 * Private constructor accepting a collection of patterns.
 	 */
@@ -109,6 +143,8 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		this.pathMatcher = (pathMatcher != null ? pathMatcher : new AntPathMatcher());
 		this.useSuffixPatternMatch = useSuffixPatternMatch;
 		this.useTrailingSlashMatch = useTrailingSlashMatch;
+		this.pathPatterns = null;
+		this.patternParser = null;
 
 		if (fileExtensions != null) {
 			for (String fileExtension : fileExtensions) {
@@ -120,6 +156,22 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		}
 	}
 
+	/**
+	 * Private constructor accepting a list of parsed patterns.
+	 */
+	private PatternsRequestCondition(List<PathPattern> pathPatterns, PathPatternParser patternParser) {
+		Set<String> patterns = new LinkedHashSet<>(pathPatterns.size());
+		for (PathPattern pathPattern : pathPatterns) {
+			patterns.add(pathPattern.getPatternString());
+		}
+		this.patterns = Collections.unmodifiableSet(patterns);
+		this.pathHelper = new UrlPathHelper();
+		this.pathMatcher = new AntPathMatcher();
+		this.useSuffixPatternMatch = false;
+		this.useTrailingSlashMatch = patternParser.isMatchOptionalTrailingSeparator();
+		this.pathPatterns = pathPatterns;
+		this.patternParser = patternParser;
+	}
 
 	private static Set<String> prependLeadingSlash(Collection<String> patterns) {
 		Set<String> result = new LinkedHashSet<>(patterns.size());
@@ -132,10 +184,29 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		return result;
 	}
 
+	private static List<PathPattern> parse(PathPatternParser patternParser, Collection<String> patterns) {
+		List<PathPattern> result = new ArrayList<>(patterns.size());
+		for (String pattern : patterns) {
+			result.add(patternParser.parse(pattern));
+		}
+		return result;
+	}
+
 	public Set<String> getPatterns() {
 		return this.patterns;
 	}
 
+	/**
+	 * Return the parsed patterns, in the same order as {@link #getPatterns()},
+	 * or {@code null} if this condition is not in PathPattern mode.
+	 * @since 5.2
+	 * @see #PatternsRequestCondition(PathPatternParser, String...)
+	 */
+	@Nullable
+	public List<PathPattern> getPathPatterns() {
+		return this.pathPatterns;
+	}
+
 	@Override
 	protected Collection<String> getContent() {
 		return this.patterns;
@@ -151,13 +222,17 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * the "other" instance as follows:
 	 * <ul>
 	 * <li>If there are patterns in both instances, combine the patterns in "this" with
-	 * the patterns in "other" using {@link PathMatcher#combine(String, String)}.
+	 * the patterns in "other" using {@link PathMatcher#combine(String, String)}, or
+	 * using {@link PathPattern#combine(PathPattern)} in PathPattern mode.
 	 * <li>If only one instance has patterns, use them.
 	 * <li>If neither instance has patterns, use an empty String (i.e. "").
 	 * </ul>
 	 */
 	@Override
 	public PatternsRequestCondition combine(PatternsRequestCondition other) {
+		if (this.pathPatterns != null && this.patternParser != null && other.pathPatterns != null) {
+			return combinePathPatterns(this.pathPatterns, other.pathPatterns, this.patternParser);
+		}
 		Set<String> result = new LinkedHashSet<>();
 		if (!this.patterns.isEmpty() && !other.patterns.isEmpty()) {
 			for (String pattern1 : this.patterns) {
@@ -190,6 +265,10 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * <li>Pattern match
 	 * <li>Pattern match with "/" appended if the pattern doesn't already end in "/"
 	 * </ul>
+	 * <p>In PathPattern mode, the parsed patterns are matched against the
+	 * {@link org.springframework.http.server.RequestPath#pathWithinApplication()
+	 * path within the application} of the request path previously parsed through
+	 * {@link ServletRequestPathUtils}, and sorted by their specificity.
 	 * @param request the current request
 	 * @return the same instance if the condition contains no patterns;
 	 * or a new condition with sorted matching patterns;
@@ -201,6 +280,9 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		if (this.patterns.isEmpty()) {
 			return this;
 		}
+		if (this.pathPatterns != null && this.patternParser != null) {
+			return getMatchingPathPatterns(this.pathPatterns, this.patternParser, getPathWithinApplication(request));
+		}
 		String lookupPath = this.pathHelper.getLookupPathForRequest(request);
 		List<String> matches = getMatchingPatterns(lookupPath);
 		return (!matches.isEmpty() ?
@@ -208,6 +290,61 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 						this.useSuffixPatternMatch, this.useTrailingSlashMatch, this.fileExtensions) : null);
 	}
 
+	private static PatternsRequestCondition combinePathPatterns(
+			List<PathPattern> patterns, List<PathPattern> otherPatterns, PathPatternParser patternParser) {
+
+		List<PathPattern> result = new ArrayList<>();
+		if (!patterns.isEmpty() && !otherPatterns.isEmpty()) {
+			Set<String> combined = new LinkedHashSet<>();
+			for (PathPattern pattern1 : patterns) {
+				for (PathPattern pattern2 : otherPatterns) {
+					PathPattern pattern = pattern1.combine(pattern2);
+					if (combined.add(pattern.getPatternString())) {
+						result.add(pattern);
+					}
+				}
+			}
+		}
+		else if (!patterns.isEmpty()) {
+			result.addAll(patterns);
+		}
+		else if (!otherPatterns.isEmpty()) {
+			result.addAll(otherPatterns);
+		}
+		else {
+			result.add(patternParser.parse(""));
+		}
+		return new PatternsRequestCondition(result, patternParser);
+	}
+
+	@Nullable
+	private static PatternsRequestCondition getMatchingPathPatterns(List<PathPattern> pathPatterns,
+			PathPatternParser patternParser, PathContainer path) {
+
+		List<PathPattern> matches = null;
+		for (PathPattern pathPattern : pathPatterns) {
+			if (pathPattern.matches(path)) {
+				if (matches == null) {
+					matches = new ArrayList<>(pathPatterns.size());
+				}
+				matches.add(pathPattern);
+			}
+		}
+		if (matches == null) {
+			return null;
+		}
+		if (matches.size() > 1) {
+			matches.sort(null);
+		}
+		return new PatternsRequestCondition(matches, patternParser);
+	}
+
+	private static PathContainer getPathWithinApplication(HttpServletRequest request) {
+		return (ServletRequestPathUtils.hasParsedRequestPath(request) ?
+				ServletRequestPathUtils.getParsedRequestPath(request) :
+				ServletRequestPathUtils.parseAndCache(request)).pathWithinApplication();
+	}
+
 	/**
 	 * Find the patterns matching the given lookup path. Invoking this method should
 	 * yield results equivalent to those of calling
@@ -218,6 +355,11 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * @return a collection of matching patterns sorted with the closest match at the top
 	 */
 	public List<String> getMatchingPatterns(String lookupPath) {
+		if (this.pathPatterns != null && this.patternParser != null) {
+			PatternsRequestCondition match = getMatchingPathPatterns(
+					this.pathPatterns, this.patternParser, PathContainer.parsePath(lookupPath));
+			return (match != null ? new ArrayList<>(match.getPatterns()) : Collections.emptyList());
+		}
 		List<String> matches = new ArrayList<>();
 		for (String pattern : this.patterns) {
 			String match = getMatchingPattern(pattern, lookupPath);
@@ -272,13 +414,22 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * {@link #getMatchingCondition(HttpServletRequest)} to ensure they
 	 * contain only patterns that match the request and are sorted with
 	 * the best matches on top.
+	 * <p>In PathPattern mode, patterns are compared via
+	 * {@link PathPattern#SPECIFICITY_COMPARATOR}.
 	 */
 	@Override
 	public int compareTo(PatternsRequestCondition other, HttpServletRequest request) {
+		if (this.pathPatterns != null && other.pathPatterns != null) {
+			return compare(this.pathPatterns.iterator(), other.pathPatterns.iterator(),
+					PathPattern.SPECIFICITY_COMPARATOR);
+		}
 		String lookupPath = this.pathHelper.getLookupPathForRequest(request);
 		Comparator<String> patternComparator = this.pathMatcher.getPatternComparator(lookupPath);
-		Iterator<String> iterator = this.patterns.iterator();
-		Iterator<String> iteratorOther = other.patterns.iterator();
+		return compare(this.patterns.iterator(), other.patterns.iterator(), patternComparator);
+	}
+
+	private static <P> int compare(Iterator<P> iterator, Iterator<P> iteratorOther,
+			Comparator<? super P> patternComparator) {
 		while (iterator.hasNext() && iteratorOther.hasNext()) {
 			int result = patternComparator.compare(iterator.next(), iteratorOther.next());
 			if (result != 0) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.StringUtils;
@@ -44,7 +47,10 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.handler.AbstractHandlerMethodMapping;
 import org.springframework.web.servlet.mvc.condition.NameValueExpression;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for classes for which {@link RequestMappingInfo} defines
@@ -69,11 +75,60 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 	}
 
 
+	@Nullable
+	private PathPatternParser patternParser;
+
+
 	protected RequestMappingInfoHandlerMapping() {
 		setHandlerMethodMappingNamingStrategy(new RequestMappingInfoHandlerMethodMappingNamingStrategy());
 	}
 
 
+	/**
+	 * Enable matching of request paths against pre-parsed
+	 * {@link PathPattern PathPatterns}, created with the given parser, instead of
+	 * matching lookup paths against String patterns with the configured
+	 * {@link #setPathMatcher PathMatcher}.
+	 * <p>The request path is then parsed once per request through
+	 * {@link ServletRequestPathUtils}, decoding each path segment as UTF-8 and
+	 * parsing rather than removing matrix variables, and URI template variables
+	 * as well as matrix variables are exposed as extracted by the matching pattern,
+	 * without decoding them again. The {@link #setUrlPathHelper UrlPathHelper} is
+	 * only consulted for its "alwaysUseFullPath" setting in this mode.
+	 * <p>By default this is not set.
+	 * @since 5.2
+	 */
+	public void setPatternParser(@Nullable PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+	}
+
+	/**
+	 * Return the {@link PathPatternParser} to parse request mapping patterns
+	 * with, if PathPattern matching is enabled.
+	 * @since 5.2
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
+	/**
+	 * Parse and cache the request path in PathPattern mode, and derive the
+	 * lookup path from its decoded segments; otherwise resolve the lookup path
+	 * via the {@link #getUrlPathHelper() UrlPathHelper}.
+	 * @see ServletRequestPathUtils#parseAndCache(HttpServletRequest, boolean)
+	 */
+	@Override
+	protected String initLookupPath(HttpServletRequest request) {
+		if (this.patternParser != null) {
+			PathContainer path = ServletRequestPathUtils.parseAndCache(
+					request, getUrlPathHelper().isAlwaysUseFullPath()).pathWithinApplication();
+			return ServletRequestPathUtils.getLookupPath(path);
+		}
+		return super.initLookupPath(request);
+	}
+
+
 	/**
 	 * Get the URL path patterns associated with this {@link RequestMappingInfo}.
 	 */
@@ -111,6 +166,12 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 	protected void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
 		super.handleMatch(info, lookupPath, request);
 
+		List<PathPattern> pathPatterns = info.getPatternsCondition().getPathPatterns();
+		if (pathPatterns != null) {
+			handleMatch(info, pathPatterns, lookupPath, request);
+			return;
+		}
+
 		String bestPattern;
 		Map<String, String> uriVariables;
 
@@ -140,6 +201,38 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
 		}
 	}
 
+	private void handleMatch(RequestMappingInfo info, List<PathPattern> pathPatterns,
+			String lookupPath, HttpServletRequest request) {
+
+		String bestPattern;
+		Map<String, String> uriVariables;
+		Map<String, MultiValueMap<String, String>> matrixVariables;
+
+		if (pathPatterns.isEmpty()) {
+			bestPattern = lookupPath;
+			uriVariables = Collections.emptyMap();
+			matrixVariables = Collections.emptyMap();
+		}
+		else {
+			PathPattern pathPattern = pathPatterns.get(0);
+			PathContainer path = ServletRequestPathUtils.getParsedRequestPath(request).pathWithinApplication();
+			PathPattern.PathMatchInfo result = pathPattern.matchAndExtract(path);
+			Assert.notNull(result, () -> "Expected bestPattern: " + pathPattern + " to match lookupPath " + path);
+			bestPattern = pathPattern.getPatternString();
+			uriVariables = result.getUriVariables();
+			matrixVariables = result.getMatrixVariables();
+		}
+
+		request.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, bestPattern);
+		request.setAttribute(HandlerMapping.MATRIX_VARIABLES_ATTRIBUTE, matrixVariables);
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, uriVariables);
+
+		if (!info.getProducesCondition().getProducibleMediaTypes().isEmpty()) {
+			Set<MediaType> mediaTypes = info.getProducesCondition().getProducibleMediaTypes();
+			request.setAttribute(PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, mediaTypes);
+		}
+	}
+
 	private boolean isMatrixVariableContentAvailable() {
 		return !getUrlPathHelper().shouldRemoveSemicolonContent();
 	}
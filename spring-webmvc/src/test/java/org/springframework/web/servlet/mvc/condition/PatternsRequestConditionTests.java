@@ -23,6 +23,8 @@ import javax.servlet.http.HttpServletRequest;
 import org.junit.Test;
 
 import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.junit.Assert.*;
 
@@ -212,4 +214,62 @@ public class PatternsRequestConditionTests {
 		assertEquals(1, match1.compareTo(match2, request));
 	}
 
+	@Test
+	public void combinePathPatterns() {
+		PathPatternParser parser = new PathPatternParser();
+		PatternsRequestCondition c1 = new PatternsRequestCondition(parser, "/t1", "t2");
+		PatternsRequestCondition c2 = new PatternsRequestCondition(parser, "/m1", "/{id}");
+
+		PatternsRequestCondition combined = c1.combine(c2);
+		assertEquals(new PatternsRequestCondition("/t1/m1", "/t1/{id}", "/t2/m1", "/t2/{id}"), combined);
+		assertEquals(4, combined.getPathPatterns().size());
+		assertEquals(new PatternsRequestCondition(""),
+				new PatternsRequestCondition(parser).combine(new PatternsRequestCondition(parser)));
+	}
+
+	@Test
+	public void matchPathPatterns() {
+		PatternsRequestCondition condition = new PatternsRequestCondition(new PathPatternParser(), "/foo/**", "/foo/{id}");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo/bar");
+		PatternsRequestCondition match = condition.getMatchingCondition(request);
+
+		assertNotNull(match);
+		assertEquals(Arrays.asList("/foo/{id}", "/foo/**"), Arrays.asList(match.getPatterns().toArray()));
+		assertEquals("/foo/{id}", match.getPathPatterns().get(0).getPatternString());
+		assertTrue(ServletRequestPathUtils.hasParsedRequestPath(request));
+		assertNull(condition.getMatchingCondition(new MockHttpServletRequest("GET", "/bar")));
+	}
+
+	@Test
+	public void matchPathPatternsAgainstParsedRequestPath() {
+		PatternsRequestCondition condition = new PatternsRequestCondition(new PathPatternParser(), "/foo bar/{id}");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/foo%20bar;a=b/42");
+		request.setContextPath("/app");
+		ServletRequestPathUtils.parseAndCache(request);
+
+		assertNotNull(condition.getMatchingCondition(request));
+		assertEquals(Arrays.asList("/foo bar/{id}"), condition.getMatchingPatterns("/foo bar/42"));
+	}
+
+	@Test
+	public void matchPathPatternsWithTrailingSlash() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo/");
+		assertNotNull(new PatternsRequestCondition(new PathPatternParser(), "/foo").getMatchingCondition(request));
+
+		PathPatternParser parser = new PathPatternParser();
+		parser.setMatchOptionalTrailingSeparator(false);
+		assertNull(new PatternsRequestCondition(parser, "/foo").getMatchingCondition(request));
+	}
+
+	@Test
+	public void comparePathPatternSpecificity() {
+		PathPatternParser parser = new PathPatternParser();
+		HttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+		PatternsRequestCondition c1 = new PatternsRequestCondition(parser, "/{name}");
+		PatternsRequestCondition c2 = new PatternsRequestCondition(parser, "/foo");
+
+		assertEquals(1, c1.getMatchingCondition(request).compareTo(c2.getMatchingCondition(request), request));
+		assertEquals(0, c1.compareTo(new PatternsRequestCondition(parser, "/{other}"), request));
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -57,7 +57,9 @@ import org.springframework.web.servlet.mvc.condition.ParamsRequestCondition;
 import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
 import org.springframework.web.servlet.mvc.condition.ProducesRequestCondition;
 import org.springframework.web.servlet.mvc.condition.RequestMethodsRequestCondition;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -249,6 +251,45 @@ public class RequestMappingInfoHandlerMappingTests {
 		assertNull(chain);
 	}
 
+	@Test
+	public void getHandlerWithIndexedLookup() throws Exception {
+		this.handlerMapping.setIndexedLookup(true);
+
+		assertEquals(this.fooMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/foo")).getMethod());
+		assertEquals(this.fooMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/foo.json")).getMethod());
+		assertEquals(this.fooMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/foo/")).getMethod());
+		assertEquals(this.barMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/bar")).getMethod());
+		assertEquals(this.emptyMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "")).getMethod());
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo.json");
+		request.setParameter("p", "anything");
+		assertEquals(this.fooParamMethod.getMethod(), getHandler(request).getMethod());
+
+		request = new MockHttpServletRequest("PUT", "/person/1");
+		request.setContentType("application/xml");
+		assertEquals("consumes", getHandler(request).getMethod().getName());
+
+		assertNull(this.handlerMapping.getHandler(new MockHttpServletRequest("GET", "/person/1/invalid")));
+	}
+
+	@Test
+	public void registerAndUnregisterMappingWithIndexedLookup() throws Exception {
+		this.handlerMapping.setIndexedLookup(true);
+		RequestMappingInfo info = RequestMappingInfo.paths("/orders/{id}").methods(RequestMethod.GET).build();
+		Method method = UserController.class.getMethod("getUser");
+		this.handlerMapping.registerMapping(info, new UserController(), method);
+		assertEquals(method, getHandler(new MockHttpServletRequest("GET", "/orders/1")).getMethod());
+
+		this.handlerMapping.unregisterMapping(info);
+		assertNull(this.handlerMapping.getHandler(new MockHttpServletRequest("GET", "/orders/1")));
+	}
+
+	@Test(expected = HttpRequestMethodNotSupportedException.class)
+	public void getHandlerRequestMethodNotAllowedWithIndexedLookup() throws Exception {
+		this.handlerMapping.setIndexedLookup(true);
+		this.handlerMapping.getHandler(new MockHttpServletRequest("POST", "/bar"));
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void handleMatchUriTemplateVariables() {
@@ -265,6 +306,59 @@ public class RequestMappingInfoHandlerMappingTests {
 		assertEquals("2", uriVariables.get("path2"));
 	}
 
+	@Test
+	public void getHandlerWithPathPatterns() throws Exception {
+		this.handlerMapping = new TestRequestMappingInfoHandlerMapping();
+		this.handlerMapping.setPatternParser(new PathPatternParser());
+		this.handlerMapping.registerHandler(new TestController());
+
+		assertEquals(this.fooMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/foo")).getMethod());
+		assertEquals(this.fooMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/foo/")).getMethod());
+		assertEquals(this.fooMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/foo;a=b")).getMethod());
+		assertEquals(this.barMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/bar")).getMethod());
+		assertEquals(this.emptyMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/")).getMethod());
+		assertNull(this.handlerMapping.getHandler(new MockHttpServletRequest("GET", "/foo.json")));
+
+		MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/app/person/1");
+		request.setContextPath("/app");
+		request.setContentType("application/xml");
+		assertEquals("consumes", getHandler(request).getMethod().getName());
+		assertEquals("/person/{id}", request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+		assertEquals("1", getUriTemplateVariables(request).get("id"));
+	}
+
+	@Test
+	public void getHandlerWithPathPatternsAndIndexedLookup() throws Exception {
+		this.handlerMapping = new TestRequestMappingInfoHandlerMapping();
+		this.handlerMapping.setPatternParser(new PathPatternParser());
+		this.handlerMapping.setIndexedLookup(true);
+		this.handlerMapping.registerHandler(new TestController());
+
+		assertEquals(this.barMethod.getMethod(), getHandler(new MockHttpServletRequest("GET", "/bar")).getMethod());
+		MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/person/1;a=b");
+		request.setContentType("application/xml");
+		assertEquals("consumes", getHandler(request).getMethod().getName());
+		assertNull(this.handlerMapping.getHandler(new MockHttpServletRequest("GET", "/person/1/invalid")));
+	}
+
+	@Test
+	public void handleMatchWithPathPatterns() {
+		RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+		config.setPatternParser(new PathPatternParser());
+		RequestMappingInfo key = RequestMappingInfo.paths("/{group}/{cars}").options(config).build();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a%20b/cars;colors=red,blue;year=2012");
+		ServletRequestPathUtils.parseAndCache(request);
+		this.handlerMapping.handleMatch(key, "/a b/cars", request);
+
+		assertEquals("/{group}/{cars}", request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+		Map<String, String> uriVariables = getUriTemplateVariables(request);
+		assertEquals("a b", uriVariables.get("group"));
+		assertEquals("cars", uriVariables.get("cars"));
+		MultiValueMap<String, String> matrixVariables = getMatrixVariables(request, "cars");
+		assertEquals(Arrays.asList("red", "blue"), matrixVariables.get("colors"));
+		assertEquals("2012", matrixVariables.getFirst("year"));
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test  // SPR-9098
 	public void handleMatchUriTemplateVariablesDecode() {
@@ -536,8 +630,10 @@ public class RequestMappingInfoHandlerMappingTests {
 		protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
 			RequestMapping annot = AnnotationUtils.findAnnotation(method, RequestMapping.class);
 			if (annot != null) {
+				PathPatternParser patternParser = getPatternParser();
 				return new RequestMappingInfo(
-					new PatternsRequestCondition(annot.value(), getUrlPathHelper(), getPathMatcher(), true, true),
+					(patternParser != null ? new PatternsRequestCondition(patternParser, annot.value()) :
+							new PatternsRequestCondition(annot.value(), getUrlPathHelper(), getPathMatcher(), true, true)),
 					new RequestMethodsRequestCondition(annot.method()),
 					new ParamsRequestCondition(annot.params()),
 					new HeadersRequestCondition(annot.headers()),
@@ -80,6 +80,9 @@ public class WebMvcStompEndpointRegistry implements StompEndpointRegistry {
 		if (transportRegistration.getTimeToFirstMessage() != null) {
 			this.subProtocolWebSocketHandler.setTimeToFirstMessage(transportRegistration.getTimeToFirstMessage());
 		}
+		if (transportRegistration.getCoalesceMessages() != null) {
+			this.subProtocolWebSocketHandler.setCoalesceMessages(transportRegistration.getCoalesceMessages());
+		}
 
 		this.stompHandler = new StompSubProtocolHandler();
 		if (transportRegistration.getMessageSizeLimit() != null) {
@@ -43,6 +43,9 @@ public class WebSocketTransportRegistration {
 	@Nullable
 	private Integer timeToFirstMessage;
 
+	@Nullable
+	private Boolean coalesceMessages;
+
 	private final List<WebSocketHandlerDecoratorFactory> decoratorFactories = new ArrayList<>(2);
 
 
@@ -170,6 +173,28 @@ public class WebSocketTransportRegistration {
 		return this.timeToFirstMessage;
 	}
 
+	/**
+	 * Configure whether messages buffered for a slow WebSocket session are
+	 * combined into fewer, larger WebSocket messages when sent, up to the
+	 * message size limit of the session. This is suitable for STOMP, where a
+	 * single WebSocket message may contain any number of frames.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2
+	 * @see org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator#setCoalesceMessages
+	 */
+	public WebSocketTransportRegistration setCoalesceMessages(boolean coalesceMessages) {
+		this.coalesceMessages = coalesceMessages;
+		return this;
+	}
+
+	/**
+	 * Protected accessor for internal use.
+	 */
+	@Nullable
+	protected Boolean getCoalesceMessages() {
+		return this.coalesceMessages;
+	}
+
 	/**
 	 * Configure one or more factories to decorate the handler used to process
 	 * WebSocket messages. This may be useful in some advanced use cases, for
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,11 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,7 +29,10 @@ import java.util.concurrent.locks.ReentrantLock;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.lang.Nullable;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
 
@@ -37,7 +43,12 @@ import org.springframework.web.socket.WebSocketSession;
  * <p>If a send is slow, subsequent attempts to send more messages from other threads
  * will not be able to acquire the flush lock and messages will be buffered instead.
  * At that time, the specified buffer-size limit and send-time limit will be checked
- * and the session will be closed if the limits are exceeded.
+ * and the session will be closed if the limits are exceeded, unless a
+ * {@link OverflowStrategy} that drops messages has been specified.
+ *
+ * <p>As of 5.2, messages that have been buffered may also be
+ * {@link #setCoalesceMessages coalesced} into fewer, larger messages, and the
+ * time spent in sending is tracked, see {@link #getAverageSendTime()}.
  *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
@@ -54,12 +65,27 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 
 	private final OverflowStrategy overflowStrategy;
 
-	private final Queue<WebSocketMessage<?>> buffer = new LinkedBlockingQueue<>();
+	private boolean coalesceMessages = false;
+
+	private final Deque<WebSocketMessage<?>> buffer = new ConcurrentLinkedDeque<>();
 
 	private final AtomicInteger bufferSize = new AtomicInteger();
 
+	private final AtomicInteger maxBufferSize = new AtomicInteger();
+
+	private volatile long sendCount;
+
+	private volatile long sentMessageCount;
+
+	private volatile long totalSendTime;
+
+	private volatile long maxSendTime;
+
 	private volatile long sendStartTime;
 
+	/** Whether the last message sent was a fragment other than the last one. */
+	private boolean partialMessageInProgress;
+
 	private volatile boolean limitExceeded;
 
 	private volatile boolean closeInProgress;
@@ -98,6 +124,30 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 	}
 
 
+	/**
+	 * Whether to combine buffered messages into fewer, larger messages.
+	 * <p>When enabled, consecutive complete text messages (or binary messages)
+	 * found in the buffer are sent as a single message with their payloads
+	 * concatenated, up to the {@link WebSocketSession#getTextMessageSizeLimit()
+	 * text} or {@link WebSocketSession#getBinaryMessageSizeLimit() binary}
+	 * message size limit of the session. This is only suitable for protocols
+	 * with self-delimiting messages, e.g. STOMP, where a single WebSocket
+	 * message may contain any number of frames.
+	 * <p>By default this is set to {@code false}.
+	 * @since 5.2
+	 */
+	public void setCoalesceMessages(boolean coalesceMessages) {
+		this.coalesceMessages = coalesceMessages;
+	}
+
+	/**
+	 * Whether buffered messages are coalesced.
+	 * @since 5.2
+	 */
+	public boolean isCoalesceMessages() {
+		return this.coalesceMessages;
+	}
+
 	/**
 	 * Return the configured send-time limit (milliseconds).
 	 * @since 4.3.13
@@ -121,6 +171,51 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return this.bufferSize.get();
 	}
 
+	/**
+	 * Return the highest buffer size so far (number of bytes).
+	 * @since 5.2
+	 */
+	public int getMaxBufferSize() {
+		return this.maxBufferSize.get();
+	}
+
+	/**
+	 * Return the number of messages sent to the underlying session, which is
+	 * lower than the {@link #getSentMessageCount() number of messages} sent
+	 * through this decorator if messages are {@link #setCoalesceMessages coalesced}.
+	 * @since 5.2
+	 */
+	public long getSendCount() {
+		return this.sendCount;
+	}
+
+	/**
+	 * Return the number of messages sent through this decorator.
+	 * @since 5.2
+	 */
+	public long getSentMessageCount() {
+		return this.sentMessageCount;
+	}
+
+	/**
+	 * Return the average time (milliseconds) spent in sending a message
+	 * to the underlying session, or 0 if none was sent yet.
+	 * @since 5.2
+	 */
+	public double getAverageSendTime() {
+		long count = this.sendCount;
+		return (count > 0 ? (double) this.totalSendTime / count / 1000000 : 0);
+	}
+
+	/**
+	 * Return the longest time (milliseconds) spent in sending a message
+	 * to the underlying session.
+	 * @since 5.2
+	 */
+	public long getMaxSendTime() {
+		return this.maxSendTime / 1000000;
+	}
+
 	/**
 	 * Return the time (milliseconds) since the current send started,
 	 * or 0 if no send is currently in progress.
@@ -138,7 +233,10 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		}
 
 		this.buffer.add(message);
-		this.bufferSize.addAndGet(message.getPayloadLength());
+		int size = this.bufferSize.addAndGet(message.getPayloadLength());
+		if (size > this.maxBufferSize.get()) {
+			this.maxBufferSize.accumulateAndGet(size, Math::max);
+		}
 
 		do {
 			if (!tryFlushMessageBuffer()) {
@@ -167,8 +265,19 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 						break;
 					}
 					this.bufferSize.addAndGet(-message.getPayloadLength());
+					int messageCount = 1;
+					if (this.coalesceMessages && !this.partialMessageInProgress && !this.buffer.isEmpty()) {
+						CoalescedMessage coalesced = coalesce(message);
+						if (coalesced != null) {
+							message = coalesced.message;
+							messageCount = coalesced.count;
+						}
+					}
 					this.sendStartTime = System.currentTimeMillis();
+					long start = System.nanoTime();
 					getDelegate().sendMessage(message);
+					recordSend(System.nanoTime() - start, messageCount);
+					this.partialMessageInProgress = !message.isLast();
 					this.sendStartTime = 0;
 				}
 			}
@@ -181,6 +290,76 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		return false;
 	}
 
+	/**
+	 * Take further messages of the same type off the buffer, as long as their
+	 * combined size stays within the message size limit of the session.
+	 * <p>Only complete messages are combined: this must not be called for the
+	 * final fragment of a partial message, and any fragment ends the run.
+	 * @return the combined message, or {@code null} if no further message fits
+	 */
+	@Nullable
+	private CoalescedMessage coalesce(WebSocketMessage<?> first) {
+		if (!first.isLast() || !(first instanceof TextMessage || first instanceof BinaryMessage)) {
+			return null;
+		}
+		boolean text = (first instanceof TextMessage);
+		int sizeLimit = (text ? getTextMessageSizeLimit() : getBinaryMessageSizeLimit());
+		if (sizeLimit <= 0) {
+			sizeLimit = Integer.MAX_VALUE;
+		}
+		List<WebSocketMessage<?>> messages = null;
+		int size = first.getPayloadLength();
+		while (true) {
+			WebSocketMessage<?> next = this.buffer.poll();
+			if (next == null) {
+				break;
+			}
+			if (next.getClass() != first.getClass() || !next.isLast() ||
+					size + next.getPayloadLength() > sizeLimit) {
+				// Put it back at the head of the buffer, to be sent next
+				this.buffer.addFirst(next);
+				break;
+			}
+			this.bufferSize.addAndGet(-next.getPayloadLength());
+			size += next.getPayloadLength();
+			if (messages == null) {
+				messages = new ArrayList<>();
+				messages.add(first);
+			}
+			messages.add(next);
+		}
+		if (messages == null) {
+			return null;
+		}
+		WebSocketMessage<?> result;
+		if (text) {
+			StringBuilder sb = new StringBuilder(size);
+			for (WebSocketMessage<?> message : messages) {
+				sb.append(((TextMessage) message).getPayload());
+			}
+			result = new TextMessage(sb.toString());
+		}
+		else {
+			ByteBuffer buffer = ByteBuffer.allocate(size);
+			for (WebSocketMessage<?> message : messages) {
+				buffer.put(((BinaryMessage) message).getPayload().duplicate());
+			}
+			buffer.flip();
+			result = new BinaryMessage(buffer);
+		}
+		return new CoalescedMessage(result, messages.size());
+	}
+
+	private void recordSend(long sendTime, int messageCount) {
+		// Only called while holding the flush lock
+		this.sendCount++;
+		this.sentMessageCount += messageCount;
+		this.totalSendTime += sendTime;
+		if (sendTime > this.maxSendTime) {
+			this.maxSendTime = sendTime;
+		}
+	}
+
 	private void checkSessionLimits() {
 		if (!shouldNotSend() && this.closeLock.tryLock()) {
 			try {
@@ -197,18 +376,10 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 							limitExceeded(reason);
 							break;
 						case DROP:
-							int i = 0;
-							while (getBufferSize() > getBufferSizeLimit()) {
-								WebSocketMessage<?> message = this.buffer.poll();
-								if (message == null) {
-									break;
-								}
-								this.bufferSize.addAndGet(-message.getPayloadLength());
-								i++;
-							}
-							if (logger.isDebugEnabled()) {
-								logger.debug("Dropped " + i + " messages, buffer size: " + getBufferSize());
-							}
+							dropMessages(true);
+							break;
+						case DROP_NEWEST:
+							dropMessages(false);
 							break;
 						default:
 							// Should never happen..
@@ -222,6 +393,22 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		}
 	}
 
+	private void dropMessages(boolean oldest) {
+		int i = 0;
+		while (getBufferSize() > getBufferSizeLimit()) {
+			WebSocketMessage<?> message = (oldest ? this.buffer.pollFirst() : this.buffer.pollLast());
+			if (message == null) {
+				break;
+			}
+			this.bufferSize.addAndGet(-message.getPayloadLength());
+			i++;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Dropped " + i + (oldest ? " oldest" : " newest") +
+					" messages, buffer size: " + getBufferSize());
+		}
+	}
+
 	private void limitExceeded(String reason) {
 		this.limitExceeded = true;
 		throw new SessionLimitExceededException(reason, CloseStatus.SESSION_NOT_RELIABLE);
@@ -278,7 +465,27 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
 		/**
 		 * Drop the oldest messages from the buffer.
 		 */
-		DROP
+		DROP,
+
+		/**
+		 * Drop the newest messages from the buffer, i.e. keep the messages
+		 * that have been buffered first.
+		 * @since 5.2
+		 */
+		DROP_NEWEST
+	}
+
+
+	private static final class CoalescedMessage {
+
+		final WebSocketMessage<?> message;
+
+		final int count;
+
+		CoalescedMessage(WebSocketMessage<?> message, int count) {
+			this.message = message;
+			this.count = count;
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.socket.handler;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -173,6 +175,112 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 
 	}
 
+	@Test
+	public void overflowStrategyDropNewest() throws IOException, InterruptedException {
+
+		BlockingSession session = new BlockingSession();
+		session.setId("123");
+		session.setOpen(true);
+
+		final ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10*1000, 1024, OverflowStrategy.DROP_NEWEST);
+
+		sendBlockingMessage(decorator);
+
+		for (int i = 0; i < 5; i++) {
+			char[] chars = new char[1023];
+			Arrays.fill(chars, (char) ('a' + i));
+			decorator.sendMessage(new TextMessage(new String(chars)));
+		}
+
+		assertEquals(1023, decorator.getBufferSize());
+		assertTrue(session.isOpen());
+
+		CountDownLatch latch = session.getSentMessageLatch();
+		session.release();
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(2, session.getSentMessages().size());
+		assertTrue(((TextMessage) session.getSentMessages().get(1)).getPayload().startsWith("aaa"));
+	}
+
+	@Test
+	public void coalesceMessages() throws IOException, InterruptedException {
+
+		BlockingSession session = new BlockingSession();
+		session.setOpen(true);
+		session.setTextMessageSizeLimit(10);
+
+		final ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024);
+		decorator.setCoalesceMessages(true);
+
+		sendBlockingMessage(decorator);
+
+		decorator.sendMessage(new TextMessage("foo"));
+		decorator.sendMessage(new TextMessage("bar"));
+		decorator.sendMessage(new TextMessage("baz"));
+		decorator.sendMessage(new TextMessage("qux"));
+		assertEquals(12, decorator.getBufferSize());
+		assertEquals(12, decorator.getMaxBufferSize());
+
+		CountDownLatch latch = session.getSentMessageLatch();
+		session.release();
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(new TextMessage("foobarbaz"), session.getSentMessages().get(1));
+		assertEquals(3, decorator.getBufferSize());
+
+		latch = session.getSentMessageLatch();
+		session.release();
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(new TextMessage("qux"), session.getSentMessages().get(2));
+		assertEquals(3, session.getSentMessages().size());
+
+		session.release();
+		for (int i = 0; i < 50 && decorator.getSendCount() < 3; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(3, decorator.getSendCount());
+		assertEquals(5, decorator.getSentMessageCount());
+		assertTrue(decorator.getAverageSendTime() > 0);
+	}
+
+	@Test
+	public void coalesceMessagesAfterPartialMessage() throws IOException, InterruptedException {
+
+		BlockingSession session = new BlockingSession();
+		session.setOpen(true);
+		session.setTextMessageSizeLimit(10);
+
+		final ConcurrentWebSocketSessionDecorator decorator =
+				new ConcurrentWebSocketSessionDecorator(session, 10 * 1000, 1024);
+		decorator.setCoalesceMessages(true);
+
+		sendBlockingMessage(decorator);
+
+		decorator.sendMessage(new TextMessage("fo", false));
+		decorator.sendMessage(new TextMessage("o", true));
+		decorator.sendMessage(new TextMessage("bar"));
+		decorator.sendMessage(new TextMessage("baz", false));
+		decorator.sendMessage(new TextMessage("qux", true));
+
+		for (int i = 0; i < 5; i++) {
+			CountDownLatch latch = session.getSentMessageLatch();
+			session.release();
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		}
+		session.release();
+
+		List<WebSocketMessage<?>> sent = session.getSentMessages();
+		assertEquals(6, sent.size());
+		assertEquals(new TextMessage("fo"), sent.get(1));
+		assertFalse(sent.get(1).isLast());
+		assertEquals(new TextMessage("o"), sent.get(2));
+		assertEquals(new TextMessage("bar"), sent.get(3));
+		assertEquals(new TextMessage("baz"), sent.get(4));
+		assertFalse(sent.get(4).isLast());
+		assertEquals(new TextMessage("qux"), sent.get(5));
+	}
+
 	@Test
 	public void closeStatusNormal() throws Exception {
 
@@ -223,6 +331,8 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 	}
 
 	private void sendBlockingMessage(ConcurrentWebSocketSessionDecorator session) throws InterruptedException {
+		BlockingSession delegate = (BlockingSession) session.getDelegate();
+		CountDownLatch sentMessageLatch = delegate.getSentMessageLatch();
 		Executors.newSingleThreadExecutor().submit(() -> {
 			TextMessage message = new TextMessage("slow message");
 			try {
@@ -232,8 +342,7 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 				e.printStackTrace();
 			}
 		});
-		BlockingSession delegate = (BlockingSession) session.getDelegate();
-		assertTrue(delegate.getSentMessageLatch().await(5, TimeUnit.SECONDS));
+		assertTrue(sentMessageLatch.await(5, TimeUnit.SECONDS));
 	}
 
 
@@ -253,15 +362,23 @@ public class ConcurrentWebSocketSessionDecoratorTests {
 		@Override
 		public void sendMessage(WebSocketMessage<?> message) throws IOException {
 			super.sendMessage(message);
-			if (this.nextMessageLatch != null) {
-				this.nextMessageLatch.get().countDown();
+			this.releaseLatch.set(new CountDownLatch(1));
+			CountDownLatch latch = this.nextMessageLatch.get();
+			if (latch != null) {
+				latch.countDown();
 			}
 			block();
 		}
 
+		public void release() {
+			CountDownLatch latch = this.releaseLatch.get();
+			if (latch != null) {
+				latch.countDown();
+			}
+		}
+
 		private void block() {
 			try {
-				this.releaseLatch.set(new CountDownLatch(1));
 				this.releaseLatch.get().await();
 			}
 			catch (InterruptedException e) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -54,6 +54,10 @@ public class TestWebSocketSession implements WebSocketSession {
 
 	private List<WebSocketExtension> extensions = new ArrayList<>();
 
+	private int textMessageSizeLimit;
+
+	private int binaryMessageSizeLimit;
+
 	private boolean open;
 
 	private final List<WebSocketMessage<?>> messages = new ArrayList<>();
@@ -147,20 +151,22 @@ public class TestWebSocketSession implements WebSocketSession {
 
 	@Override
 	public void setTextMessageSizeLimit(int messageSizeLimit) {
+		this.textMessageSizeLimit = messageSizeLimit;
 	}
 
 	@Override
 	public int getTextMessageSizeLimit() {
-		return 0;
+		return this.textMessageSizeLimit;
 	}
 
 	@Override
 	public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+		this.binaryMessageSizeLimit = messageSizeLimit;
 	}
 
 	@Override
 	public int getBinaryMessageSizeLimit() {
-		return 0;
+		return this.binaryMessageSizeLimit;
 	}
 
 	@Override
@@ -111,6 +111,17 @@ public class SubProtocolWebSocketHandlerTests {
 		verify(this.mqttHandler, times(0)).afterSessionStarted(session, this.inClientChannel);
 	}
 
+	@Test
+	public void coalesceMessages() throws Exception {
+		this.webSocketHandler.setCoalesceMessages(true);
+		this.webSocketHandler.setDefaultProtocolHandler(this.defaultHandler);
+		this.webSocketHandler.afterConnectionEstablished(session);
+
+		verify(this.defaultHandler).afterSessionStarted(
+				argThat(decorated -> ((ConcurrentWebSocketSessionDecorator) decorated).isCoalesceMessages()),
+				eq(this.inClientChannel));
+	}
+
 	@Test
 	public void emptySubProtocol() throws Exception {
 		this.session.setAcceptedProtocol("");